@@ -0,0 +1,54 @@
+package org.cornutum.crescent.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+/**
+ * Runs the Crescent benchmarks.
+ * <P/>
+ * By default, measures allocation using the JMH GC profiler and writes all results in JSON form to
+ * <CODE>crescent-benchmarks.json</CODE>. Accepts all standard JMH command line options, which override these defaults.
+ * After the run, reports the WebDriver round trips used by each benchmark operation.
+ */
+public class BenchmarkMain {
+
+    public static void main( String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions( args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if( commandLine.getProfilers().isEmpty()) {
+            builder.addProfiler( GCProfiler.class);
+        }
+        if( !commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat( ResultFormatType.JSON);
+        }
+        if( !commandLine.getResult().hasValue()) {
+            builder.result( "crescent-benchmarks.json");
+        }
+        Options options = builder.parent( commandLine).build();
+
+        Collection<RunResult> results = new Runner( options).run();
+
+        System.out.println();
+        System.out.println( "Round trips per operation:");
+        for( RunResult result : results) {
+            Result<?> roundTrips = result.getSecondaryResults().get( "roundTrips");
+            Result<?> operations = result.getSecondaryResults().get( "operations");
+            if( roundTrips != null && operations != null && operations.getScore() > 0) {
+                System.out.println(
+                    String.format(
+                        "  %-60s %s %8.2f",
+                        result.getParams().getBenchmark(),
+                        result.getParams().getParamsKeys().stream().map( key -> key + "=" + result.getParams().getParam( key)).reduce( "", (a, b) -> a + b + " "),
+                        roundTrips.getScore() / operations.getScore()));
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.cornutum.crescent.benchmarks;
+
+import org.cornutum.crescent.page.Page;
+import org.cornutum.crescent.page.PageUtils;
+import org.cornutum.crescent.page.Site;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a login scenario run {@link Site#enterWithoutBrowser without a browser} against a local HTTP server: a
+ * login form POST, the redirect to a dashboard page, reads of dashboard elements, and a check for a missing element.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrowserlessBenchmark {
+
+    /**
+     * A site served by a local HTTP server.
+     */
+    @State(Scope.Benchmark)
+    public static class ServerSite {
+
+        private StubHttpServer server;
+        private Site site;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            server =
+                new StubHttpServer( 4)
+                .handle(
+                    "/login",
+                    exchange -> {
+                        if( StubHttpServer.getBody( exchange).contains( "user=ann")) {
+                            exchange.getResponseHeaders().set( "Set-Cookie", "sid=s1; Path=/; HttpOnly");
+                            exchange.getResponseHeaders().set( "Location", "/dashboard");
+                            exchange.sendResponseHeaders( 302, -1);
+                        }
+                        else {
+                            StubHttpServer.respond( exchange, 200, "text/html", "<html><body><p class='error'>Unknown user</p></body></html>");
+                        }
+                    })
+                .handle(
+                    "/dashboard",
+                    exchange -> {
+                        String cookies = String.valueOf( exchange.getRequestHeaders().getFirst( "Cookie"));
+                        if( cookies.contains( "sid=s1")) {
+                            StubHttpServer.respond( exchange, 200, "text/html", DASHBOARD);
+                        }
+                        else {
+                            exchange.getResponseHeaders().set( "Location", "/login.html");
+                            exchange.sendResponseHeaders( 302, -1);
+                        }
+                    })
+                .handle(
+                    "/login.html",
+                    exchange -> StubHttpServer.respond( exchange, 200, "text/html", LOGIN))
+                .start();
+
+            site = new Site( server.getUrl( "/"));
+            site.enterWithoutBrowser();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            site.exit();
+            server.stop();
+        }
+
+        /**
+         * Returns the site.
+         */
+        Site getSite() {
+            return site;
+        }
+
+        private static final String LOGIN =
+            "<html><body><form action='/login' method='post'>"
+            + "<input name='user'><button id='login' type='submit'>Log in</button>"
+            + "</form></body></html>";
+
+        private static final String DASHBOARD =
+            "<html><head><title>Dashboard</title></head><body><h1>Welcome ann</h1>"
+            + "<select id='view'><option value='day'>Day</option><option value='week' selected>Week</option></select>"
+            + "<ul><li class='order'><a href='/order/1'>Order 1</a></li><li class='order'><a href='/order/2'>Order 2</a></li>"
+            + "<li class='order'><a href='/order/3'>Order 3</a></li></ul></body></html>";
+    }
+
+    /**
+     * The login page.
+     */
+    public static class LoginPage extends Page<Site> {
+
+        /**
+         * Creates a new LoginPage object.
+         */
+        public LoginPage( Site site) {
+            super( site, "login.html");
+        }
+
+        /**
+         * Logs in as the given user and returns the dashboard page.
+         */
+        public DashboardPage login( String user) {
+            PageUtils.enterText( findElement( By.name( "user")), user);
+            findElement( By.id( "login")).click();
+            return new DashboardPage( this);
+        }
+    }
+
+    /**
+     * The dashboard page shown after login.
+     */
+    public static class DashboardPage extends Page<Site> {
+
+        /**
+         * Creates a new DashboardPage object.
+         */
+        public DashboardPage( Page<Site> parent) {
+            super( parent);
+        }
+
+        /**
+         * Returns the page heading.
+         */
+        public String getHeading() {
+            return findElement( By.tagName( "h1")).getText();
+        }
+
+        /**
+         * Returns the selected view.
+         */
+        public String getView() {
+            return PageUtils.getSelectedValue( findElement( By.id( "view")));
+        }
+
+        /**
+         * Returns the order links.
+         */
+        public List<WebElement> getOrders() {
+            return findElements( By.cssSelector( "li.order a"));
+        }
+
+        /**
+         * Returns the banner, if shown.
+         */
+        public Optional<WebElement> getBanner() {
+            return findOptionalElement( By.id( "banner"));
+        }
+    }
+
+    /**
+     * Logs in and reads the dashboard.
+     */
+    @Benchmark
+    public int login( ServerSite site) {
+        DashboardPage dashboard = new LoginPage( site.getSite()).login( "ann");
+        return
+            dashboard.getHeading().length()
+            + dashboard.getView().length()
+            + dashboard.getOrders().size()
+            + (dashboard.getBanner().isPresent()? 1 : 0);
+    }
+}
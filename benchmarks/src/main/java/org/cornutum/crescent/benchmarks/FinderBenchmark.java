@@ -0,0 +1,61 @@
+package org.cornutum.crescent.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link org.cornutum.crescent.page.Finder} searches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FinderBenchmark {
+
+    /**
+     * Finds a single element by id.
+     */
+    @Benchmark
+    public WebElement findElement( StubSite site, RoundTrips roundTrips) {
+        return roundTrips.count( site, site.getCommands(), site.getPage().findElement( rowLocator));
+    }
+
+    /**
+     * Finds a single visible element by CSS selector.
+     */
+    @Benchmark
+    public WebElement findVisibleElement( StubSite site, RoundTrips roundTrips) {
+        return roundTrips.count( site, site.getCommands(), site.getPage().findVisibleElement( linkLocator));
+    }
+
+    /**
+     * Finds all matching elements, waiting until the number of matches is stable.
+     */
+    @Benchmark
+    public List<WebElement> findElements( StubSite site, RoundTrips roundTrips) {
+        return roundTrips.count( site, site.getCommands(), site.getPage().findElements( rowsLocator));
+    }
+
+    /**
+     * Finds all matching visible elements, waiting until the number of matches is stable.
+     */
+    @Benchmark
+    public List<WebElement> findVisibleElements( StubSite site, RoundTrips roundTrips) {
+        return roundTrips.count( site, site.getCommands(), site.getPage().findVisibleElements( rowsLocator));
+    }
+
+    private static final By rowLocator = By.id( "row-25");
+    private static final By linkLocator = By.cssSelector( "#row-25 a");
+    private static final By rowsLocator = By.cssSelector( "tr.row");
+}
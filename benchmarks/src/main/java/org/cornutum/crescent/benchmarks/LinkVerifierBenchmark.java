@@ -0,0 +1,125 @@
+package org.cornutum.crescent.benchmarks;
+
+import org.cornutum.crescent.dom.DomDriver;
+import org.cornutum.crescent.page.LinkFailure;
+import org.cornutum.crescent.page.LinkVerifier;
+import org.cornutum.crescent.page.Page;
+import org.cornutum.crescent.page.Site;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link LinkVerifier#verify} for a page with links to two hosts on a local HTTP server that delays every
+ * response. Every tenth link is broken.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LinkVerifierBenchmark {
+
+    /**
+     * A page with links to a local HTTP server.
+     */
+    @State(Scope.Benchmark)
+    public static class LinkedPage {
+
+        /**
+         * The number of links on the page.
+         */
+        @Param({"1000"})
+        public int links;
+
+        /**
+         * The delay (in milliseconds) for each response from the server.
+         */
+        @Param({"20"})
+        public long delayMillis;
+
+        /**
+         * The maximum number of concurrent requests to each host.
+         */
+        @Param({"6"})
+        public int hostConcurrency;
+
+        private StubHttpServer server;
+        private Site site;
+        private LinkVerifier verifier;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            server =
+                new StubHttpServer( 64)
+                .handle(
+                    "/",
+                    exchange -> {
+                        try {
+                            Thread.sleep( delayMillis);
+                        }
+                        catch( InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        StubHttpServer.respond(
+                            exchange,
+                            exchange.getRequestURI().getPath().startsWith( "/missing")? 404 : 200,
+                            "text/plain",
+                            "ok");
+                    })
+                .start();
+
+            final String content = getContent( server, links);
+            site = new Site( server.getUrl( "/"));
+            site.enter( new DomDriver( (method, url, body) -> content));
+
+            Page<Site> page = new Page<Site>( site, "index.html") {};
+            verifier = new LinkVerifier( page);
+            verifier.setHostConcurrency( hostConcurrency);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            site.exit();
+            server.stop();
+        }
+
+        /**
+         * Returns the content of a page with the given number of links to the given server.
+         */
+        private static String getContent( StubHttpServer server, int links) {
+            StringBuilder content = new StringBuilder( "<html><body>");
+            for( int i = 0; i < links; i++) {
+                content.append(
+                    String.format(
+                        "<a href='%s'>Link %s</a>",
+                        server.getUrl( i % 2 == 0? "localhost" : "127.0.0.1", (i % 10 == 0? "/missing/" : "/ok/") + i),
+                        i));
+            }
+            content.append( "</body></html>");
+            return content.toString();
+        }
+    }
+
+    /**
+     * Returns the failures for all broken links on the page.
+     */
+    @Benchmark
+    public List<LinkFailure> verify( LinkedPage page) {
+        return page.verifier.verify();
+    }
+}
@@ -0,0 +1,50 @@
+package org.cornutum.crescent.benchmarks;
+
+import org.cornutum.crescent.page.BasicElementAction;
+import org.cornutum.crescent.page.Page;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Page} methods.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageBenchmark {
+
+    /**
+     * Returns a PageAction created reflectively from its type.
+     */
+    @Benchmark
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public Optional<BasicElementAction> getAction( StubSite site, RoundTrips roundTrips) {
+        return
+            roundTrips.count(
+                site,
+                site.getCommands(),
+                site.getPage().getAction( nextLocator, BasicElementAction.class, (Class) Page.class));
+    }
+
+    /**
+     * Returns a BasicElementAction.
+     */
+    @Benchmark
+    public Optional<BasicElementAction> getBasicElementAction( StubSite site, RoundTrips roundTrips) {
+        return roundTrips.count( site, site.getCommands(), site.getPage().getBasicElementAction( nextLocator));
+    }
+
+    private static final By nextLocator = By.id( "next");
+}
@@ -0,0 +1,49 @@
+package org.cornutum.crescent.benchmarks;
+
+import org.cornutum.crescent.page.PageUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PageUtils} methods.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageUtilsBenchmark {
+
+    /**
+     * Matches classes in a class list.
+     */
+    @Benchmark
+    public boolean hasClassList() {
+        return PageUtils.hasClass( "row item odd selected", "item", "odd");
+    }
+
+    /**
+     * Matches the classes of an element.
+     */
+    @Benchmark
+    public boolean hasClass( StubSite site, RoundTrips roundTrips) {
+        return roundTrips.count( site, site.getCommands(), PageUtils.hasClass( site.getRow(), "item", "odd"));
+    }
+
+    /**
+     * Returns the values of all options of a select element.
+     */
+    @Benchmark
+    public List<String> getOptionValues( StubSite site, RoundTrips roundTrips) {
+        return roundTrips.count( site, site.getCommands(), PageUtils.getOptionValues( site.getSelect()));
+    }
+}
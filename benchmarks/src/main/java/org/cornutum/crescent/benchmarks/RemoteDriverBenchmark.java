@@ -0,0 +1,173 @@
+package org.cornutum.crescent.benchmarks;
+
+import org.cornutum.crescent.driver.PooledHttpClientFactory;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures RemoteWebDriver sessions with a local stub WebDriver server, using either a {@link PooledHttpClientFactory}
+ * or the default Selenium HTTP client. Each session sends a number of commands that find a list of elements. The client
+ * connections opened per session are reported as <CODE>connections / operations</CODE>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoteDriverBenchmark {
+
+    /**
+     * A stub WebDriver server.
+     */
+    @State(Scope.Benchmark)
+    public static class RemoteServer {
+
+        /**
+         * The HTTP client used for commands: "pooled" or "default".
+         */
+        @Param({"pooled", "default"})
+        public String client;
+
+        /**
+         * The number of commands sent in each session.
+         */
+        @Param({"50"})
+        public int commands;
+
+        /**
+         * The number of elements found by each command.
+         */
+        @Param({"500"})
+        public int elements;
+
+        private StubHttpServer server;
+        private PooledHttpClientFactory factory;
+        private URL url;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            String elementList = getElementList( elements);
+            AtomicInteger sessionIds = new AtomicInteger();
+            server =
+                new StubHttpServer( 4)
+                .handle(
+                    "/session",
+                    exchange -> {
+                        StubHttpServer.getBody( exchange);
+                        String[] path = exchange.getRequestURI().getPath().split( "/");
+                        String response =
+                            path.length == 2
+                            ? String.format( "{\"sessionId\":\"s%s\",\"status\":0,\"value\":{\"browserName\":\"stub\"}}", sessionIds.incrementAndGet())
+
+                            : path.length == 4 && "elements".equals( path[3])
+                            ? String.format( "{\"sessionId\":\"%s\",\"status\":0,\"value\":%s}", path[2], elementList)
+
+                            : String.format( "{\"sessionId\":\"%s\",\"status\":0,\"value\":null}", path[2]);
+
+                        StubHttpServer.respond( exchange, 200, "application/json; charset=utf-8", response);
+                    })
+                .start();
+
+            url = new URL( server.getUrl( "/"));
+            factory = "pooled".equals( client)? new PooledHttpClientFactory( 4, false) : null;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            if( factory != null) {
+                factory.close();
+            }
+            server.stop();
+        }
+
+        /**
+         * Returns a new session.
+         */
+        RemoteWebDriver newSession() {
+            return
+                new RemoteWebDriver(
+                    factory == null? new HttpCommandExecutor( url) : factory.createExecutor( url),
+                    new DesiredCapabilities());
+        }
+
+        /**
+         * Returns the number of client connections used so far.
+         */
+        int getConnections() {
+            return server.getConnections();
+        }
+
+        /**
+         * Returns the JSON for a list of the given number of elements.
+         */
+        private static String getElementList( int elements) {
+            StringBuilder list = new StringBuilder( "[");
+            for( int i = 0; i < elements; i++) {
+                list.append( i == 0? "" : ",").append( String.format( "{\"ELEMENT\":\"e%s\"}", i));
+            }
+            return list.append( "]").toString();
+        }
+    }
+
+    /**
+     * Counts the client connections opened by each benchmark operation.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Connections {
+
+        public long connections;
+        public long operations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            connections = 0;
+            operations = 0;
+        }
+    }
+
+    /**
+     * Starts a session, finds a list of elements the given number of times, and ends the session.
+     */
+    @Benchmark
+    public int session( RemoteServer server, Connections connections) {
+        int before = server.getConnections();
+        int found = 0;
+        RemoteWebDriver driver = server.newSession();
+        try {
+            for( int i = 0; i < server.commands; i++) {
+                found += driver.findElements( itemLocator).size();
+            }
+        }
+        finally {
+            driver.quit();
+        }
+        connections.connections += server.getConnections() - before;
+        connections.operations++;
+        return found;
+    }
+
+    private static final By itemLocator = By.cssSelector( "li.item");
+}
@@ -0,0 +1,34 @@
+package org.cornutum.crescent.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the WebDriver round trips used by each benchmark operation. Round trips per operation are reported as
+ * <CODE>roundTrips / operations</CODE>.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class RoundTrips {
+
+    public long roundTrips;
+    public long operations;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        roundTrips = 0;
+        operations = 0;
+    }
+
+    /**
+     * Returns the given result after recording the round trips used since the given command count.
+     */
+    <T> T count( StubSite site, long commandsBefore, T result) {
+        roundTrips += site.getCommands() - commandsBefore;
+        operations++;
+        return result;
+    }
+}
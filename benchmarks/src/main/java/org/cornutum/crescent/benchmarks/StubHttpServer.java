@@ -0,0 +1,126 @@
+package org.cornutum.crescent.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local HTTP server for benchmarks that need a real network endpoint. Counts the client connections used to send
+ * requests.
+ */
+public class StubHttpServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Set<SocketAddress> clients = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new StubHttpServer on a free local port, handling each request with one of the given number of threads.
+     */
+    public StubHttpServer( int threads) {
+        // Send each response without waiting to fill a TCP segment.
+        System.setProperty( "sun.net.httpserver.nodelay", "true");
+        try {
+            server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0), 0);
+        }
+        catch( IOException e) {
+            throw new UncheckedIOException( "Can't create server", e);
+        }
+        executor = Executors.newFixedThreadPool( threads);
+        server.setExecutor( executor);
+    }
+
+    /**
+     * Handles requests for the given path with the given handler.
+     */
+    public StubHttpServer handle( String path, HttpHandler handler) {
+        server.createContext(
+            path,
+            exchange -> {
+                clients.add( exchange.getRemoteAddress());
+                try {
+                    handler.handle( exchange);
+                }
+                finally {
+                    exchange.close();
+                }
+            });
+        return this;
+    }
+
+    /**
+     * Starts this server.
+     */
+    public StubHttpServer start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * Stops this server.
+     */
+    public void stop() {
+        server.stop( 0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the URL for the given path on this server, using the given host name.
+     */
+    public String getUrl( String host, String path) {
+        return String.format( "http://%s:%s%s", host, server.getAddress().getPort(), path);
+    }
+
+    /**
+     * Returns the URL for the given path on this server.
+     */
+    public String getUrl( String path) {
+        return getUrl( "127.0.0.1", path);
+    }
+
+    /**
+     * Returns the number of client connections used so far.
+     */
+    public int getConnections() {
+        return clients.size();
+    }
+
+    /**
+     * Returns the body of the given request.
+     */
+    public static String getBody( HttpExchange exchange) throws IOException {
+        StringBuilder body = new StringBuilder();
+        byte[] buffer = new byte[ 8192];
+        InputStream in = exchange.getRequestBody();
+        for( int n; (n = in.read( buffer)) > 0; ) {
+            body.append( new String( buffer, 0, n, StandardCharsets.UTF_8));
+        }
+        return body.toString();
+    }
+
+    /**
+     * Sends a response with the given status and body.
+     */
+    public static void respond( HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes( StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set( "Content-Type", contentType);
+        exchange.sendResponseHeaders( status, "HEAD".equals( exchange.getRequestMethod())? -1 : bytes.length);
+        if( !"HEAD".equals( exchange.getRequestMethod())) {
+            try( OutputStream out = exchange.getResponseBody()) {
+                out.write( bytes);
+            }
+        }
+    }
+}
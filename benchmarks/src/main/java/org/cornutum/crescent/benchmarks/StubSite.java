@@ -0,0 +1,122 @@
+package org.cornutum.crescent.benchmarks;
+
+import org.cornutum.crescent.dom.DomDriver;
+import org.cornutum.crescent.driver.CommandProxy;
+import org.cornutum.crescent.page.Page;
+import org.cornutum.crescent.page.VirtualPollScheduler;
+import org.cornutum.crescent.page.Site;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link Site} that runs a page with a table of rows, a select element, and a link, using a {@link DomDriver} that
+ * adds the given latency to every WebDriver command. Poll intervals use a virtual clock, so no wait actually sleeps.
+ */
+@State(Scope.Thread)
+public class StubSite {
+
+    /**
+     * The latency (in microseconds) added to each WebDriver command.
+     */
+    @Param({"0", "100"})
+    public long latencyMicros;
+
+    /**
+     * The number of table rows on the page.
+     */
+    @Param({"50"})
+    public int rows;
+
+    private Site site;
+    private Page<Site> page;
+    private WebElement row;
+    private WebElement select;
+    private long commands;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final String content = getContent( rows);
+        final long latency = TimeUnit.MICROSECONDS.toNanos( latencyMicros);
+
+        site = new Site( "http://stub/");
+        site.setPollScheduler( new VirtualPollScheduler( 0));
+        site.enter(
+            CommandProxy.decorate(
+                new DomDriver( (method, url, body) -> content),
+                command -> {
+                    commands++;
+                    if( latency > 0) {
+                        LockSupport.parkNanos( latency);
+                    }
+                    return command.proceed();
+                }));
+
+        page = new Page<Site>( site, "index.html") {};
+        page.visit();
+        row = page.findElement( By.id( "row-25"));
+        select = page.findElement( By.id( "choices"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        site.exit();
+    }
+
+    /**
+     * Returns the page for this site.
+     */
+    public Page<Site> getPage() {
+        return page;
+    }
+
+    /**
+     * Returns a table row element, located once for all operations.
+     */
+    public WebElement getRow() {
+        return row;
+    }
+
+    /**
+     * Returns the select element, located once for all operations.
+     */
+    public WebElement getSelect() {
+        return select;
+    }
+
+    /**
+     * Returns the number of WebDriver commands sent so far.
+     */
+    public long getCommands() {
+        return commands;
+    }
+
+    /**
+     * Returns the page content.
+     */
+    private static String getContent( int rows) {
+        StringBuilder content = new StringBuilder();
+        content.append( "<html><head><title>Stub</title></head><body>");
+        content.append( "<a id=\"next\" href=\"index.html\">Next</a>");
+        content.append( "<select id=\"choices\">");
+        for( int i = 0; i < 20; i++) {
+            content.append( String.format( "<option value=\"value-%s\">Option %s</option>", i, i));
+        }
+        content.append( "</select>");
+        content.append( "<table>");
+        for( int i = 0; i < rows; i++) {
+            content.append( String.format( "<tr id=\"row-%s\" class=\"row item %s\"><td>%s</td><td><a href=\"#%s\">Row %s</a></td></tr>", i, i % 2 == 0? "even" : "odd", i, i, i));
+        }
+        content.append( "</table></body></html>");
+        return content.toString();
+    }
+}
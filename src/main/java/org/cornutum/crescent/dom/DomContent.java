@@ -0,0 +1,69 @@
+package org.cornutum.crescent.dom;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides the HTML content for the pages loaded by a {@link DomDriver}.
+ */
+public interface DomContent {
+
+    /**
+     * Returns the HTML content returned by the given request. The request body is given only for a "POST" request
+     * and contains URL-encoded form data.
+     */
+    String load( String method, String url, String body) throws IOException;
+
+    /**
+     * Returns the response to the given request from the given driver. The request body is given only for a "POST" request
+     * and contains URL-encoded form data. By default, returns the content {@link #load loaded} for the given URL.
+     */
+    default DomResponse request( DomDriver driver, String method, String url, String body) throws IOException {
+        return new DomResponse( url, load( method, url, body));
+    }
+
+    /**
+     * Returns a DomContent that requests content from the given URL, using any protocol supported by
+     * <CODE>java.net.URL</CODE> -- for example, a "file:" or "jar:" URL for the pages of a {@link org.cornutum.crescent.page.ResourceSite}.
+     */
+    static DomContent fromUrls() {
+        return
+            (method, url, body) -> {
+                URLConnection connection = new URL( url).openConnection();
+                if( connection instanceof HttpURLConnection) {
+                    ((HttpURLConnection) connection).setRequestMethod( method);
+                }
+                if( body != null) {
+                    connection.setDoOutput( true);
+                    connection.setRequestProperty( "Content-Type", "application/x-www-form-urlencoded");
+                    try( OutputStream out = connection.getOutputStream()) {
+                        out.write( body.getBytes( StandardCharsets.UTF_8));
+                    }
+                }
+
+                try( InputStream in = connection.getInputStream()) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[8192];
+                    for( int read; (read = in.read( buffer)) >= 0; ) {
+                        bytes.write( buffer, 0, read);
+                    }
+                    return new String( bytes.toByteArray(), StandardCharsets.UTF_8);
+                }
+            };
+    }
+
+    /**
+     * Returns a DomContent that requests HTTP(S) pages using the {@link HttpContent#getShared shared} {@link HttpContent},
+     * carrying the cookies of the requesting driver and following redirects. Content for any other URL is requested
+     * {@link #fromUrls directly from the URL}.
+     */
+    static DomContent overHttp() {
+        return HttpContent.getShared();
+    }
+}
@@ -0,0 +1,471 @@
+package org.cornutum.crescent.dom;
+
+import org.cornutum.crescent.util.Locators;
+import org.cornutum.crescent.util.ToString;
+
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchFrameException;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.logging.Logs;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A WebDriver that runs in the JVM, using documents parsed from HTML content.
+ * <P/>
+ * A DomDriver makes it possible to exercise page models in unit tests without launching a browser. It loads each page
+ * from a {@link DomContent} source and supports CSS and XPath locators, text and attribute reads, following links,
+ * submitting forms, checkboxes, radio buttons, select elements, and multiple windows. Links and forms with a
+ * <CODE>target</CODE> open a new window.
+ * <P/>
+ * A DomDriver does not run page scripts or apply style sheets. An element is displayed unless it or one of its
+ * ancestors is hidden by a <CODE>hidden</CODE> attribute, an inline <CODE>display: none</CODE> or
+ * <CODE>visibility: hidden</CODE> style, or an element type that is never rendered. Elements have no layout, so all
+ * locations and sizes are zero. {@link #executeScript Script requests} are answered by {@link #addScript script handlers};
+ * a script with no handler throws an UnsupportedCommandException.
+ */
+public class DomDriver implements WebDriver, JavascriptExecutor {
+
+    private final DomContent content;
+    private final Map<String,DomWindow> windows = new LinkedHashMap<String,DomWindow>();
+    private DomWindow window;
+    private int windowsOpened;
+    private final Map<String,Cookie> cookies = new LinkedHashMap<String,Cookie>();
+    private final List<ScriptHandler> scripts = new ArrayList<ScriptHandler>();
+    private Point windowPosition = new Point( 0, 0);
+    private Dimension windowSize = new Dimension( 1024, 768);
+
+    /**
+     * Creates a new DomDriver that loads content {@link DomContent#fromUrls directly from URLs}.
+     */
+    public DomDriver() {
+        this( DomContent.fromUrls());
+    }
+
+    /**
+     * Creates a new DomDriver that loads content from the given source.
+     */
+    public DomDriver( DomContent content) {
+        this.content = content;
+        window = openWindow( null);
+
+        addScript( "return document.readyState", (driver, args) -> "complete");
+        addScript( "return document.title", (driver, args) -> driver.getTitle());
+    }
+
+    /**
+     * Returns the source of content for this driver.
+     */
+    public DomContent getContent() {
+        return content;
+    }
+
+    /**
+     * Adds a handler for every script request that matches the given script. Handlers added later take precedence.
+     */
+    public void addScript( String script, DomScript handler) {
+        addScript( s -> s.trim().equals( script), handler);
+    }
+
+    /**
+     * Adds a handler for every script request that satisfies the given condition. Handlers added later take precedence.
+     */
+    public void addScript( Predicate<String> matches, DomScript handler) {
+        scripts.add( 0, new ScriptHandler( matches, handler));
+    }
+
+    public void get( String url) {
+        getWindow().navigate( url);
+    }
+
+    public String getCurrentUrl() {
+        return getWindow().getUrl();
+    }
+
+    public String getTitle() {
+        return getWindow().getDocument().title();
+    }
+
+    public List<WebElement> findElements( By by) {
+        return locate( this, getWindow(), getWindow().getDocument(), by);
+    }
+
+    public WebElement findElement( By by) {
+        return first( findElements( by), by);
+    }
+
+    public String getPageSource() {
+        return getWindow().getDocument().outerHtml();
+    }
+
+    public void close() {
+        getWindow().close();
+        windows.remove( window.getHandle());
+        window = null;
+    }
+
+    public void quit() {
+        for( DomWindow open : windows.values()) {
+            open.close();
+        }
+        windows.clear();
+        window = null;
+    }
+
+    public Set<String> getWindowHandles() {
+        return new LinkedHashSet<String>( windows.keySet());
+    }
+
+    public String getWindowHandle() {
+        return getWindow().getHandle();
+    }
+
+    public TargetLocator switchTo() {
+        return new DomTargetLocator();
+    }
+
+    public Navigation navigate() {
+        return new DomNavigation();
+    }
+
+    public Options manage() {
+        return new DomOptions();
+    }
+
+    public Object executeScript( String script, Object... args) {
+        return
+            scripts.stream()
+            .filter( handler -> handler.matches.test( script))
+            .findFirst()
+            .orElseThrow( () -> new UnsupportedCommandException( "No handler for script=" + script))
+            .script.execute( this, args);
+    }
+
+    public Object executeAsyncScript( String script, Object... args) {
+        return executeScript( script, args);
+    }
+
+    /**
+     * Returns the current window.
+     */
+    DomWindow getWindow() {
+        if( window == null || window.isClosed()) {
+            throw new NoSuchWindowException( "No current window");
+        }
+        return window;
+    }
+
+    /**
+     * Opens a new window with the given name.
+     */
+    DomWindow openWindow( String name) {
+        DomWindow opened = new DomWindow( this, "window-" + (++windowsOpened), name);
+        windows.put( opened.getHandle(), opened);
+        return opened;
+    }
+
+    /**
+     * Returns the open window with the given name, opening a new window if necessary. Returns the given window if
+     * the name is empty or "_self".
+     */
+    DomWindow getTarget( DomWindow from, String name) {
+        return
+            name.isEmpty() || name.equals( "_self") || name.equals( "_top") || name.equals( "_parent")
+            ? from
+
+            : name.equals( "_blank")
+            ? openWindow( null)
+
+            : windows.values().stream()
+              .filter( w -> name.equals( w.getName()))
+              .findFirst()
+              .orElseGet( () -> openWindow( name));
+    }
+
+    /**
+     * Returns all elements within the given root element that are identified by the given locator.
+     */
+    static List<WebElement> locate( DomDriver driver, DomWindow window, Element root, By by) {
+        String selector = Locators.getSelector( by).orElse( null);
+        List<Element> found;
+
+        if( selector == null) {
+            found = null;
+        }
+        else if( by instanceof By.ByCssSelector) {
+            found = root.select( selector);
+        }
+        else if( by instanceof By.ById) {
+            found = root.getElementsByAttributeValue( "id", selector);
+        }
+        else if( by instanceof By.ByName) {
+            found = root.getElementsByAttributeValue( "name", selector);
+        }
+        else if( by instanceof By.ByClassName) {
+            found = root.getElementsByClass( selector);
+        }
+        else if( by instanceof By.ByTagName) {
+            found = root.getElementsByTag( selector);
+        }
+        else if( by instanceof By.ByXPath) {
+            found = window.xpath( selector, root);
+        }
+        else if( by instanceof By.ByLinkText || by instanceof By.ByPartialLinkText) {
+            boolean partial = by instanceof By.ByPartialLinkText;
+            found =
+                root.getElementsByTag( "a")
+                .stream()
+                .filter( a -> {
+                        String text = DomElement.getVisibleText( a);
+                        return partial? text.contains( selector) : text.equals( selector);
+                    })
+                .collect( toList());
+        }
+        else {
+            found = null;
+        }
+
+        if( found == null) {
+            // Let this locator search using the basic locators.
+            SearchContext context = root == window.getDocument()? driver : new DomElement( driver, window, root);
+            return by.findElements( context);
+        }
+
+        return
+            found.stream()
+            .filter( e -> e != root)
+            .map( e -> new DomElement( driver, window, e))
+            .collect( toList());
+    }
+
+    /**
+     * Returns the first of the given elements.
+     */
+    static WebElement first( List<WebElement> elements, By by) {
+        if( elements.isEmpty()) {
+            throw new NoSuchElementException( "Unable to locate element: " + by);
+        }
+        return elements.get( 0);
+    }
+
+    /**
+     * Returns the key that identifies the given cookie. Cookies with the same name but a different domain or path are
+     * different cookies.
+     */
+    static String getCookieKey( Cookie cookie) {
+        return cookie.getName() + ";" + cookie.getDomain() + ";" + cookie.getPath();
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "window", window)
+            .toString();
+    }
+
+    /**
+     * Handles a script request.
+     */
+    private static class ScriptHandler {
+        private final Predicate<String> matches;
+        private final DomScript script;
+
+        /**
+         * Creates a new ScriptHandler object.
+         */
+        public ScriptHandler( Predicate<String> matches, DomScript script) {
+            this.matches = matches;
+            this.script = script;
+        }
+    }
+
+    /**
+     * Switches between the windows of this driver.
+     */
+    private class DomTargetLocator implements TargetLocator {
+
+        public WebDriver frame( int index) {
+            throw new NoSuchFrameException( "Frames not supported");
+        }
+
+        public WebDriver frame( String nameOrId) {
+            throw new NoSuchFrameException( "Frames not supported");
+        }
+
+        public WebDriver frame( WebElement frameElement) {
+            throw new NoSuchFrameException( "Frames not supported");
+        }
+
+        public WebDriver parentFrame() {
+            return DomDriver.this;
+        }
+
+        public WebDriver window( String nameOrHandle) {
+            DomWindow target = windows.get( nameOrHandle);
+            if( target == null) {
+                target =
+                    windows.values().stream()
+                    .filter( w -> nameOrHandle.equals( w.getName()))
+                    .findFirst()
+                    .orElseThrow( () -> new NoSuchWindowException( "No window=" + nameOrHandle));
+            }
+            window = target;
+            return DomDriver.this;
+        }
+
+        public WebDriver defaultContent() {
+            return DomDriver.this;
+        }
+
+        public WebElement activeElement() {
+            return findElement( By.tagName( "body"));
+        }
+
+        public Alert alert() {
+            throw new NoAlertPresentException( "Alerts not supported");
+        }
+    }
+
+    /**
+     * Navigates the current window.
+     */
+    private class DomNavigation implements Navigation {
+
+        public void back() {
+            getWindow().back();
+        }
+
+        public void forward() {
+            getWindow().forward();
+        }
+
+        public void to( String url) {
+            get( url);
+        }
+
+        public void to( URL url) {
+            get( url.toExternalForm());
+        }
+
+        public void refresh() {
+            getWindow().refresh();
+        }
+    }
+
+    /**
+     * Manages the settings for this driver.
+     */
+    private class DomOptions implements Options {
+
+        public void addCookie( Cookie cookie) {
+            cookies.put( getCookieKey( cookie), cookie);
+        }
+
+        public void deleteCookieNamed( String name) {
+            cookies.values().removeIf( cookie -> cookie.getName().equals( name));
+        }
+
+        public void deleteCookie( Cookie cookie) {
+            cookies.remove( getCookieKey( cookie));
+        }
+
+        public void deleteAllCookies() {
+            cookies.clear();
+        }
+
+        public Set<Cookie> getCookies() {
+            return new LinkedHashSet<Cookie>( cookies.values());
+        }
+
+        public Cookie getCookieNamed( String name) {
+            return
+                cookies.values().stream()
+                .filter( cookie -> cookie.getName().equals( name))
+                .findFirst()
+                .orElse( null);
+        }
+
+        public Timeouts timeouts() {
+            return new DomTimeouts();
+        }
+
+        public ImeHandler ime() {
+            throw new UnsupportedCommandException( "IME not supported");
+        }
+
+        public Window window() {
+            return new DomWindowSettings();
+        }
+
+        public Logs logs() {
+            throw new UnsupportedCommandException( "Logs not supported");
+        }
+    }
+
+    /**
+     * Changes driver timeouts. Because no request waits, all timeouts are ignored.
+     */
+    private class DomTimeouts implements Timeouts {
+
+        public Timeouts implicitlyWait( long time, TimeUnit unit) {
+            return this;
+        }
+
+        public Timeouts setScriptTimeout( long time, TimeUnit unit) {
+            return this;
+        }
+
+        public Timeouts pageLoadTimeout( long time, TimeUnit unit) {
+            return this;
+        }
+    }
+
+    /**
+     * Changes the size and position of all windows.
+     */
+    private class DomWindowSettings implements Window {
+
+        public void setSize( Dimension targetSize) {
+            windowSize = targetSize;
+        }
+
+        public void setPosition( Point targetPosition) {
+            windowPosition = targetPosition;
+        }
+
+        public Dimension getSize() {
+            return windowSize;
+        }
+
+        public Point getPosition() {
+            return windowPosition;
+        }
+
+        public void maximize() {
+        }
+
+        public void fullscreen() {
+        }
+    }
+}
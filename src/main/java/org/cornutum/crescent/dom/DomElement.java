@@ -0,0 +1,541 @@
+package org.cornutum.crescent.dom;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.InvalidElementStateException;
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.WrapsDriver;
+import org.openqa.selenium.internal.WrapsElement;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * An element of a document loaded by a {@link DomDriver}.
+ * <P/>
+ * An element becomes stale when its window navigates to a different document.
+ */
+public class DomElement implements WebElement, WrapsDriver {
+
+    private final DomDriver driver;
+    private final DomWindow window;
+    private final org.jsoup.nodes.Document document;
+    private final Element element;
+
+    /**
+     * Creates a new DomElement object.
+     */
+    DomElement( DomDriver driver, DomWindow window, Element element) {
+        this.driver = driver;
+        this.window = window;
+        this.document = window.getDocument();
+        this.element = element;
+    }
+
+    /**
+     * Returns the parsed document node for this element.
+     */
+    public Element getElement() {
+        return element;
+    }
+
+    public WebDriver getWrappedDriver() {
+        return driver;
+    }
+
+    public void click() {
+        checkInteractable();
+        if( isEnabled()) {
+            String tag = getTagName();
+            String type = getType();
+
+            if( tag.equals( "a") && element.hasAttr( "href")) {
+                String href = element.attr( "href");
+                if( !href.startsWith( "javascript:")) {
+                    driver.getTarget( window, element.attr( "target")).navigate( element.absUrl( "href"));
+                }
+            }
+            else if( tag.equals( "input") && type.equals( "checkbox")) {
+                setSelected( !isSelected());
+            }
+            else if( tag.equals( "input") && type.equals( "radio")) {
+                setSelected( true);
+            }
+            else if( tag.equals( "option")) {
+                setSelected( !(isSelected() && isMultiple( getSelect())));
+            }
+            else if( (tag.equals( "input") && (type.equals( "submit") || type.equals( "image"))) || (tag.equals( "button") && type.equals( "submit"))) {
+                getForm().ifPresent( form -> submit( form, element));
+            }
+            else if( tag.equals( "label")) {
+                Element control =
+                    element.hasAttr( "for")
+                    ? document.getElementById( element.attr( "for"))
+                    : element.select( "input, select, textarea, button").first();
+
+                if( control != null) {
+                    new DomElement( driver, window, control).click();
+                }
+            }
+        }
+    }
+
+    public void submit() {
+        checkFresh();
+        submit(
+            getForm().orElseThrow( () -> new NoSuchElementException( "Unable to locate enclosing form for " + this)),
+            null);
+    }
+
+    public void sendKeys( CharSequence... keysToSend) {
+        checkEditable();
+
+        StringBuilder value = new StringBuilder( element.val());
+        boolean enter = false;
+        for( char c : Arrays.stream( keysToSend).collect( joining()).toCharArray()) {
+            if( c == Keys.ENTER.charAt( 0) || c == Keys.RETURN.charAt( 0)) {
+                enter = true;
+            }
+            else if( c == Keys.BACK_SPACE.charAt( 0)) {
+                if( value.length() > 0) {
+                    value.setLength( value.length() - 1);
+                }
+            }
+            else if( c < '\uE000' || c > '\uF8FF') {
+                // Append any character that doesn't represent a special key.
+                value.append( c);
+            }
+        }
+        element.val( value.toString());
+        window.modified();
+
+        if( enter && getTagName().equals( "input")) {
+            getForm().ifPresent( form -> submit( form, null));
+        }
+    }
+
+    public void clear() {
+        checkEditable();
+        element.val( "");
+        window.modified();
+    }
+
+    public String getTagName() {
+        checkFresh();
+        return element.tagName();
+    }
+
+    public String getAttribute( String name) {
+        checkFresh();
+        String value;
+        String tag = element.tagName();
+
+        if( name.equals( "value") && tag.equals( "select")) {
+            value =
+                element.getElementsByTag( "option").stream()
+                .filter( DomElement::isOptionSelected)
+                .map( DomElement::getOptionValue)
+                .findFirst()
+                .orElse( null);
+        }
+        else if( name.equals( "value") && tag.equals( "option")) {
+            value = getOptionValue( element);
+        }
+        else if( name.equals( "value") && (tag.equals( "input") || tag.equals( "textarea"))) {
+            value = element.val();
+        }
+        else if( name.equals( "checked") || name.equals( "selected")) {
+            value = isSelected()? "true" : null;
+        }
+        else if( booleanAttributes.contains( name)) {
+            value = element.hasAttr( name)? "true" : null;
+        }
+        else if( (name.equals( "href") || name.equals( "src")) && element.hasAttr( name)) {
+            value = element.absUrl( name).isEmpty()? element.attr( name) : element.absUrl( name);
+        }
+        else if( name.equals( "innerHTML")) {
+            value = element.html();
+        }
+        else if( name.equals( "outerHTML")) {
+            value = element.outerHtml();
+        }
+        else if( name.equals( "textContent")) {
+            value = element.wholeText();
+        }
+        else {
+            value = element.hasAttr( name)? element.attr( name) : null;
+        }
+
+        return value;
+    }
+
+    public boolean isSelected() {
+        checkFresh();
+        String tag = element.tagName();
+        return
+            tag.equals( "option")
+            ? isOptionSelected( element)
+            : tag.equals( "input") && element.hasAttr( "checked");
+    }
+
+    public boolean isEnabled() {
+        checkFresh();
+        boolean enabled = !element.hasAttr( "disabled");
+        for( Element ancestor : element.parents()) {
+            enabled = enabled && !(disablingAncestors.contains( ancestor.tagName()) && ancestor.hasAttr( "disabled"));
+        }
+        return enabled;
+    }
+
+    public String getText() {
+        return isDisplayed()? getVisibleText( element) : "";
+    }
+
+    public List<WebElement> findElements( By by) {
+        checkFresh();
+        return DomDriver.locate( driver, window, element, by);
+    }
+
+    public WebElement findElement( By by) {
+        return DomDriver.first( findElements( by), by);
+    }
+
+    public boolean isDisplayed() {
+        checkFresh();
+        boolean displayed = isRendered( element);
+        for( Element ancestor : element.parents()) {
+            displayed = displayed && isRendered( ancestor);
+        }
+        return displayed;
+    }
+
+    public Point getLocation() {
+        checkFresh();
+        return new Point( 0, 0);
+    }
+
+    public Dimension getSize() {
+        checkFresh();
+        return new Dimension( 0, 0);
+    }
+
+    public Rectangle getRect() {
+        checkFresh();
+        return new Rectangle( 0, 0, 0, 0);
+    }
+
+    public String getCssValue( String propertyName) {
+        checkFresh();
+        return getStyle( element, propertyName).orElse( "");
+    }
+
+    public <X> X getScreenshotAs( OutputType<X> target) {
+        throw new UnsupportedCommandException( "Screenshots not supported");
+    }
+
+    /**
+     * Returns the visible text of the given element.
+     */
+    static String getVisibleText( Element element) {
+        StringBuilder text = new StringBuilder();
+        appendVisibleText( text, element);
+        return
+            Arrays.stream( text.toString().split( "\n"))
+            .map( line -> line.replaceAll( "\\s+", " ").trim())
+            .filter( line -> !line.isEmpty())
+            .collect( joining( "\n"));
+    }
+
+    /**
+     * Appends the visible text of the given node.
+     */
+    private static void appendVisibleText( StringBuilder text, Node node) {
+        if( node instanceof TextNode) {
+            text.append( ((TextNode) node).text());
+        }
+        else if( node instanceof Element && isRendered( (Element) node)) {
+            Element element = (Element) node;
+            boolean block = element.isBlock() || element.tagName().equals( "br");
+            if( block) {
+                text.append( '\n');
+            }
+            for( Node child : element.childNodes()) {
+                appendVisibleText( text, child);
+            }
+            if( block) {
+                text.append( '\n');
+            }
+        }
+    }
+
+    /**
+     * Returns if the given element is rendered, assuming its ancestors are rendered.
+     */
+    private static boolean isRendered( Element element) {
+        return
+            !(unrenderedTags.contains( element.tagName())
+              || element.hasAttr( "hidden")
+              || (element.tagName().equals( "input") && element.attr( "type").equalsIgnoreCase( "hidden"))
+              || getStyle( element, "display").filter( "none"::equals).isPresent()
+              || getStyle( element, "visibility").filter( "hidden"::equals).isPresent());
+    }
+
+    /**
+     * Returns the value of the given property in the inline style of the given element.
+     */
+    private static Optional<String> getStyle( Element element, String property) {
+        return
+            Arrays.stream( element.attr( "style").split( ";"))
+            .map( declaration -> declaration.split( ":", 2))
+            .filter( declaration -> declaration.length == 2 && declaration[0].trim().equalsIgnoreCase( property))
+            .map( declaration -> declaration[1].trim().toLowerCase())
+            .reduce( (first, last) -> last);
+    }
+
+    /**
+     * Returns if the given option element is selected. When no option of a single-selection list is marked as
+     * selected, the first option is selected.
+     */
+    private static boolean isOptionSelected( Element option) {
+        boolean selected = option.hasAttr( "selected");
+        if( !selected) {
+            Element select = option.parents().stream().filter( e -> e.tagName().equals( "select")).findFirst().orElse( null);
+            if( select != null && !isMultiple( select)) {
+                List<Element> options = select.getElementsByTag( "option");
+                selected = options.get( 0) == option && options.stream().noneMatch( o -> o.hasAttr( "selected"));
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the value of the given option element.
+     */
+    private static String getOptionValue( Element option) {
+        return
+            option.hasAttr( "value")
+            ? option.attr( "value")
+            : option.text().trim();
+    }
+
+    /**
+     * Returns the lower-case type of this element.
+     */
+    private String getType() {
+        return
+            element.tagName().equals( "button") && !element.hasAttr( "type")
+            ? "submit"
+            : element.attr( "type").toLowerCase();
+    }
+
+    /**
+     * Returns the form that contains this element.
+     */
+    private Optional<Element> getForm() {
+        Element form =
+            element.tagName().equals( "form")
+            ? element
+            : element.parents().stream().filter( e -> e.tagName().equals( "form")).findFirst().orElse( null);
+
+        if( form == null && element.hasAttr( "form")) {
+            form = document.getElementById( element.attr( "form"));
+        }
+
+        return Optional.ofNullable( form);
+    }
+
+    /**
+     * Returns the select element that contains this option.
+     */
+    private Element getSelect() {
+        return element.parents().stream().filter( e -> e.tagName().equals( "select")).findFirst().orElse( null);
+    }
+
+    /**
+     * Returns if the given select element allows multiple selections.
+     */
+    private static boolean isMultiple( Element select) {
+        return select != null && select.hasAttr( "multiple");
+    }
+
+    /**
+     * Changes if this checkbox, radio button, or option is selected.
+     */
+    private void setSelected( boolean selected) {
+        String tag = element.tagName();
+        String attribute = tag.equals( "option")? "selected" : "checked";
+
+        if( selected && tag.equals( "option") && !isMultiple( getSelect())) {
+            Element select = getSelect();
+            if( select != null) {
+                select.getElementsByTag( "option").removeAttr( "selected");
+            }
+        }
+        else if( selected && getType().equals( "radio") && element.hasAttr( "name")) {
+            Element group = getForm().orElse( document);
+            for( Element radio : group.select( "input[type=radio]")) {
+                if( radio.attr( "name").equals( element.attr( "name"))) {
+                    radio.removeAttr( "checked");
+                }
+            }
+        }
+
+        if( selected) {
+            element.attr( attribute, true);
+        }
+        else {
+            element.removeAttr( attribute);
+        }
+        window.modified();
+    }
+
+    /**
+     * Submits the given form, using the given submit element.
+     */
+    private void submit( Element form, Element submitter) {
+        List<String> fields = new ArrayList<String>();
+
+        for( Element field : form.select( "input, select, textarea, button")) {
+            String name = field.attr( "name");
+            String type = field.attr( "type").toLowerCase();
+            boolean enabled = new DomElement( driver, window, field).isEnabled();
+
+            if( name.isEmpty() || !enabled) {
+                continue;
+            }
+            else if( field.tagName().equals( "select")) {
+                List<Element> options = field.getElementsByTag( "option");
+                options.stream()
+                    .filter( DomElement::isOptionSelected)
+                    .forEach( option -> fields.add( encode( name, getOptionValue( option))));
+            }
+            else if( field.tagName().equals( "button") || type.equals( "submit") || type.equals( "image") || type.equals( "reset") || type.equals( "button")) {
+                if( field == submitter) {
+                    fields.add( encode( name, field.val()));
+                }
+            }
+            else if( type.equals( "checkbox") || type.equals( "radio")) {
+                if( field.hasAttr( "checked")) {
+                    fields.add( encode( name, field.hasAttr( "value")? field.val() : "on"));
+                }
+            }
+            else if( !type.equals( "file")) {
+                fields.add( encode( name, field.val()));
+            }
+        }
+
+        String data = fields.stream().collect( joining( "&"));
+        String action = form.hasAttr( "action")? form.absUrl( "action") : window.getUrl();
+        DomWindow target = driver.getTarget( window, form.attr( "target"));
+
+        if( form.attr( "method").equalsIgnoreCase( "post")) {
+            target.navigate( "POST", action, data);
+        }
+        else {
+            int query = action.indexOf( '?');
+            target.navigate( (query < 0? action : action.substring( 0, query)) + "?" + data);
+        }
+    }
+
+    /**
+     * Returns the given form field in URL-encoded form.
+     */
+    private static String encode( String name, String value) {
+        try {
+            return URLEncoder.encode( name, "UTF-8") + "=" + URLEncoder.encode( value, "UTF-8");
+        }
+        catch( UnsupportedEncodingException e) {
+            throw new IllegalStateException( "Can't encode form field=" + name, e);
+        }
+    }
+
+    /**
+     * Reports a failure if this element is stale.
+     */
+    private void checkFresh() {
+        if( window.isClosed() || window.getDocument() != document || element.ownerDocument() != document) {
+            throw new StaleElementReferenceException( "Element is no longer attached to the page document: " + this);
+        }
+    }
+
+    /**
+     * Reports a failure if this element can't be used.
+     */
+    private void checkInteractable() {
+        if( !isDisplayed()) {
+            throw new ElementNotInteractableException( "Element is not displayed: " + this);
+        }
+    }
+
+    /**
+     * Reports a failure if this element can't be edited.
+     */
+    private void checkEditable() {
+        checkInteractable();
+        String tag = element.tagName();
+        if( !(tag.equals( "textarea") || tag.equals( "input")) || !isEnabled() || element.hasAttr( "readonly")) {
+            throw new InvalidElementStateException( "Element is not editable: " + this);
+        }
+    }
+
+    public int hashCode() {
+        return System.identityHashCode( element);
+    }
+
+    public boolean equals( Object object) {
+        Object unwrapped = object;
+        while( unwrapped instanceof WrapsElement) {
+            unwrapped = ((WrapsElement) unwrapped).getWrappedElement();
+        }
+
+        DomElement other =
+            unwrapped != null && unwrapped.getClass().equals( getClass())
+            ? (DomElement) unwrapped
+            : null;
+
+        return
+            other != null
+            && other.element == element;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( element.cssSelector())
+            .toString();
+    }
+
+    private static final Set<String> booleanAttributes =
+        new HashSet<String>(
+            Arrays.asList(
+                "async", "autofocus", "autoplay", "checked", "controls", "defer", "disabled", "hidden", "loop",
+                "multiple", "muted", "novalidate", "open", "readonly", "required", "reversed", "selected"));
+
+    private static final Set<String> disablingAncestors = new HashSet<String>( Arrays.asList( "fieldset", "select", "optgroup"));
+
+    private static final Set<String> unrenderedTags =
+        new HashSet<String>(
+            Arrays.asList(
+                "head", "title", "meta", "link", "style", "script", "noscript", "template", "base"));
+}
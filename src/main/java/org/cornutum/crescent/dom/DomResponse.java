@@ -0,0 +1,41 @@
+package org.cornutum.crescent.dom;
+
+import org.cornutum.crescent.util.ToString;
+
+/**
+ * The response to a page request by a {@link DomDriver}.
+ */
+public class DomResponse {
+
+    private final String url;
+    private final String content;
+
+    /**
+     * Creates a new DomResponse object.
+     */
+    public DomResponse( String url, String content) {
+        this.url = url;
+        this.content = content;
+    }
+
+    /**
+     * Returns the URL of the page returned, after following any redirects.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the HTML content of the page returned.
+     */
+    public String getContent() {
+        return content;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getUrl())
+            .toString();
+    }
+}
@@ -0,0 +1,15 @@
+package org.cornutum.crescent.dom;
+
+/**
+ * Executes a script requested from a {@link DomDriver}.
+ *
+ * @see DomDriver#addScript
+ */
+public interface DomScript {
+
+    /**
+     * Returns the result of executing the script with the given arguments for the given driver. Any element
+     * argument is a {@link DomElement}.
+     */
+    Object execute( DomDriver driver, Object[] args);
+}
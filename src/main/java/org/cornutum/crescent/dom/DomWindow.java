@@ -0,0 +1,238 @@
+package org.cornutum.crescent.dom;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * A window of a {@link DomDriver}.
+ */
+class DomWindow {
+
+    private final DomDriver driver;
+    private final String handle;
+    private final String name;
+    private String url;
+    private Document document;
+    private final List<String> history = new ArrayList<String>();
+    private int position = -1;
+    private boolean closed;
+
+    private long version;
+    private long xpathVersion = -1;
+    private org.w3c.dom.Document xpathDocument;
+    private final Map<Element,org.w3c.dom.Node> toXPath = new IdentityHashMap<Element,org.w3c.dom.Node>();
+    private final Map<org.w3c.dom.Node,Element> fromXPath = new IdentityHashMap<org.w3c.dom.Node,Element>();
+
+    /**
+     * Creates a new DomWindow object.
+     */
+    public DomWindow( DomDriver driver, String handle, String name) {
+        this.driver = driver;
+        this.handle = handle;
+        this.name = name;
+        history.add( ABOUT_BLANK);
+        position = 0;
+        load( "GET", ABOUT_BLANK, null);
+    }
+
+    /**
+     * Returns the handle for this window.
+     */
+    public String getHandle() {
+        return handle;
+    }
+
+    /**
+     * Returns the name of this window.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the URL of the current document.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the current document.
+     */
+    public Document getDocument() {
+        return document;
+    }
+
+    /**
+     * Returns if this window is closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes this window.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Notifies this window that the current document has changed.
+     */
+    public void modified() {
+        version++;
+    }
+
+    /**
+     * Navigates to the given URL.
+     */
+    public void navigate( String url) {
+        navigate( "GET", url, null);
+    }
+
+    /**
+     * Navigates using the given request.
+     */
+    public void navigate( String method, String url, String body) {
+        while( history.size() > position + 1) {
+            history.remove( history.size() - 1);
+        }
+        history.add( url);
+        position++;
+
+        if( isSameDocument( url)) {
+            this.url = url;
+        }
+        else {
+            load( method, url, body);
+        }
+    }
+
+    /**
+     * Navigates to the previous URL in the history of this window.
+     */
+    public void back() {
+        if( position > 0) {
+            position--;
+            load( "GET", history.get( position), null);
+        }
+    }
+
+    /**
+     * Navigates to the next URL in the history of this window.
+     */
+    public void forward() {
+        if( position + 1 < history.size()) {
+            position++;
+            load( "GET", history.get( position), null);
+        }
+    }
+
+    /**
+     * Reloads the current document.
+     */
+    public void refresh() {
+        load( "GET", url, null);
+    }
+
+    /**
+     * Returns all elements identified by the given XPath expression, relative to the given element.
+     */
+    public List<Element> xpath( String expression, Element context) {
+        if( xpathVersion != version) {
+            toXPath.clear();
+            fromXPath.clear();
+            xpathDocument = new W3CDom().fromJsoup( document);
+
+            List<Element> elements = document.getAllElements();
+            org.w3c.dom.NodeList nodes = xpathDocument.getElementsByTagName( "*");
+            for( int i = 0; i < nodes.getLength() && i + 1 < elements.size(); i++) {
+                toXPath.put( elements.get( i + 1), nodes.item( i));
+                fromXPath.put( nodes.item( i), elements.get( i + 1));
+            }
+            toXPath.put( document, xpathDocument);
+            xpathVersion = version;
+        }
+
+        List<Element> found = new ArrayList<Element>();
+        try {
+            org.w3c.dom.NodeList nodes =
+                (org.w3c.dom.NodeList)
+                XPathFactory.newInstance().newXPath()
+                .evaluate( expression, toXPath.get( context), XPathConstants.NODESET);
+
+            for( int i = 0; i < nodes.getLength(); i++) {
+                Element element = fromXPath.get( nodes.item( i));
+                if( element != null) {
+                    found.add( element);
+                }
+            }
+        }
+        catch( XPathExpressionException e) {
+            throw new InvalidSelectorException( "Invalid XPath expression=" + expression, e);
+        }
+
+        return found;
+    }
+
+    /**
+     * Loads the document for the given request.
+     */
+    private void load( String method, String url, String body) {
+        DomResponse response;
+        try {
+            response =
+                url.equals( ABOUT_BLANK)
+                ? new DomResponse( url, "")
+                : driver.getContent().request( driver, method, url, body);
+        }
+        catch( IOException e) {
+            throw new WebDriverException( "Can't load url=" + url, e);
+        }
+
+        // Redirected? If so, record the URL actually loaded.
+        this.url = response.getUrl();
+        if( position >= 0) {
+            history.set( position, this.url);
+        }
+        document = Jsoup.parse( response.getContent(), this.url);
+        modified();
+    }
+
+    /**
+     * Returns if the given URL differs from the current URL only by its fragment.
+     */
+    private boolean isSameDocument( String url) {
+        int fragment = url.indexOf( '#');
+        int currentFragment = this.url.indexOf( '#');
+        return
+            fragment >= 0
+            && url.substring( 0, fragment).equals( currentFragment < 0? this.url : this.url.substring( 0, currentFragment));
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( handle)
+            .append( url)
+            .toString();
+    }
+
+    static final String ABOUT_BLANK = "about:blank";
+}
@@ -0,0 +1,182 @@
+package org.cornutum.crescent.dom;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.cookie.ClientCookie;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.apache.http.util.EntityUtils;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@link DomContent} that requests HTTP(S) pages over a pool of keep-alive connections, using the cookies of the
+ * requesting {@link DomDriver}. Cookies set by each response are added to the driver, and redirects -- including
+ * the redirect after a form is posted -- are followed. Content for any other URL is requested {@link DomContent#fromUrls
+ * directly from the URL}.
+ */
+public class HttpContent implements DomContent {
+
+    private final CloseableHttpClient client;
+    private final DomContent otherUrls = DomContent.fromUrls();
+
+    /**
+     * Creates a new HttpContent that keeps at most the given number of open connections to each host.
+     */
+    public HttpContent( int maxConnections) {
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setDefaultMaxPerRoute( maxConnections);
+        connections.setMaxTotal( maxConnections * 4);
+        connections.setValidateAfterInactivity( 2000);
+
+        client =
+            HttpClients.custom()
+            .setConnectionManager( connections)
+            .setRedirectStrategy( new LaxRedirectStrategy())
+            .setDefaultRequestConfig( RequestConfig.custom().setCookieSpec( CookieSpecs.STANDARD).build())
+            .build();
+    }
+
+    /**
+     * Returns the HttpContent shared by all drivers in this JVM.
+     */
+    public static HttpContent getShared() {
+        return shared;
+    }
+
+    public String load( String method, String url, String body) throws IOException {
+        return request( null, method, url, body).getContent();
+    }
+
+    public DomResponse request( DomDriver driver, String method, String url, String body) throws IOException {
+        URI uri = URI.create( url);
+        if( !("http".equalsIgnoreCase( uri.getScheme()) || "https".equalsIgnoreCase( uri.getScheme()))) {
+            return otherUrls.request( driver, method, url, body);
+        }
+
+        HttpRequestBase request;
+        if( "POST".equalsIgnoreCase( method)) {
+            HttpPost post = new HttpPost( uri);
+            post.setEntity( new StringEntity( body == null? "" : body, ContentType.APPLICATION_FORM_URLENCODED));
+            request = post;
+        }
+        else {
+            request = new HttpGet( uri);
+        }
+
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore( getCookies( driver));
+
+        try( CloseableHttpResponse response = client.execute( request, context)) {
+            HttpEntity entity = response.getEntity();
+            String content = entity == null? "" : EntityUtils.toString( entity, StandardCharsets.UTF_8);
+            setCookies( driver, context.getCookieStore());
+
+            return
+                new DomResponse(
+                    URIUtils.resolve( uri, context.getTargetHost(), context.getRedirectLocations()).toString(),
+                    content);
+        }
+        catch( URISyntaxException e) {
+            throw new IOException( "Can't resolve redirects for url=" + url, e);
+        }
+    }
+
+    /**
+     * Returns a store containing the current cookies for the given driver.
+     */
+    private CookieStore getCookies( WebDriver driver) {
+        BasicCookieStore cookies = new BasicCookieStore();
+        if( driver != null) {
+            for( Cookie cookie : driver.manage().getCookies()) {
+                BasicClientCookie requestCookie = new BasicClientCookie( cookie.getName(), cookie.getValue());
+                requestCookie.setDomain( cookie.getDomain());
+                requestCookie.setPath( cookie.getPath());
+                requestCookie.setExpiryDate( cookie.getExpiry());
+                requestCookie.setSecure( cookie.isSecure());
+                if( cookie.isHttpOnly()) {
+                    requestCookie.setAttribute( "httponly", "");
+                }
+                cookies.addCookie( requestCookie);
+            }
+        }
+        return cookies;
+    }
+
+    /**
+     * Changes the cookies for the given driver to the cookies in the given store. Only cookies that were added, changed,
+     * or removed by the response are changed for the driver.
+     */
+    private void setCookies( WebDriver driver, CookieStore cookies) {
+        if( driver != null) {
+            Map<String,Cookie> driverCookies = new HashMap<String,Cookie>();
+            for( Cookie cookie : driver.manage().getCookies()) {
+                driverCookies.put( DomDriver.getCookieKey( cookie), cookie);
+            }
+
+            for( org.apache.http.cookie.Cookie cookie : cookies.getCookies()) {
+                Cookie responseCookie =
+                    new Cookie(
+                        cookie.getName(),
+                        cookie.getValue(),
+                        cookie.getDomain(),
+                        cookie.getPath(),
+                        cookie.getExpiryDate(),
+                        cookie.isSecure(),
+                        cookie instanceof ClientCookie && ((ClientCookie) cookie).containsAttribute( "httponly"));
+
+                Cookie driverCookie = driverCookies.remove( DomDriver.getCookieKey( responseCookie));
+                if( driverCookie == null || isChanged( driverCookie, responseCookie)) {
+                    driver.manage().addCookie( responseCookie);
+                }
+            }
+
+            for( Cookie removed : driverCookies.values()) {
+                driver.manage().deleteCookie( removed);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given response cookie changes the given driver cookie.
+     */
+    private boolean isChanged( Cookie driverCookie, Cookie responseCookie) {
+        return
+            !Objects.equals( driverCookie.getValue(), responseCookie.getValue())
+            || !Objects.equals( driverCookie.getExpiry(), responseCookie.getExpiry())
+            || driverCookie.isSecure() != responseCookie.isSecure()
+            || driverCookie.isHttpOnly() != responseCookie.isHttpOnly();
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .toString();
+    }
+
+    private static final HttpContent shared = new HttpContent( 8);
+}
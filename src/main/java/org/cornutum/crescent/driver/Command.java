@@ -0,0 +1,73 @@
+package org.cornutum.crescent.driver;
+
+import org.cornutum.crescent.util.ToString;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Represents a request sent to a WebDriver, or to an element or other object provided by a WebDriver,
+ * that requires a round trip to the browser.
+ */
+public class Command {
+
+    private final Object target;
+    private final Method method;
+    private final Object[] args;
+
+    /**
+     * Creates a new Command object.
+     */
+    public Command( Object target, Method method, Object[] args) {
+        this.target = target;
+        this.method = method;
+        this.args = args == null? new Object[0] : args;
+    }
+
+    /**
+     * Returns the object that receives this command.
+     */
+    public Object getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the method that implements this command.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the arguments for this command.
+     */
+    public Object[] getArgs() {
+        return args;
+    }
+
+    /**
+     * Returns the name of this command, in the form "Interface.method".
+     */
+    public String getName() {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    /**
+     * Sends this command to its target and returns the result.
+     */
+    public Object proceed() throws Throwable {
+        try {
+            return method.invoke( target, args);
+        }
+        catch( InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getName())
+            .toString();
+    }
+}
@@ -0,0 +1,13 @@
+package org.cornutum.crescent.driver;
+
+/**
+ * Handles each {@link Command} issued to a WebDriver {@link CommandProxy proxy}.
+ */
+public interface CommandHandler {
+
+    /**
+     * Returns the result of the given command. Typically, a handler returns the result of
+     * {@link Command#proceed} after adding some other behavior.
+     */
+    Object handle( Command command) throws Throwable;
+}
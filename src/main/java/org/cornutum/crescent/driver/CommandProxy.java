@@ -0,0 +1,276 @@
+package org.cornutum.crescent.driver;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.WrapsDriver;
+import org.openqa.selenium.internal.WrapsElement;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decorates a WebDriver by passing every {@link Command} to a {@link CommandHandler}.
+ * <P/>
+ * The decorated WebDriver also decorates every element and other object that it provides, so that all commands
+ * that require a round trip to the browser can be handled. Requests that only return a different interface to
+ * the WebDriver, such as {@link WebDriver#manage} or {@link WebDriver#switchTo}, are not commands. Elements
+ * given as arguments to a command are replaced by the original elements they decorate.
+ */
+public class CommandProxy implements InvocationHandler {
+
+    private final Object target;
+    private final CommandHandler handler;
+    private final CommandProxy root;
+    private Object proxy;
+
+    /**
+     * Returns a WebDriver that passes every command for the given WebDriver to the given handler.
+     */
+    public static WebDriver decorate( WebDriver driver, CommandHandler handler) {
+        return (WebDriver) new CommandProxy( driver, handler, null).getProxy();
+    }
+
+    /**
+     * Returns the original object decorated by the given object. Returns the given object if it is not a decorator.
+     */
+    public static Object undecorated( Object object) {
+        Object target = object;
+        while( isDecorator( target)) {
+            target = ((CommandProxy) Proxy.getInvocationHandler( target)).target;
+        }
+        return target;
+    }
+
+    /**
+     * Returns true if the given object is a decorator created by a CommandProxy.
+     */
+    public static boolean isDecorator( Object object) {
+        return
+            object != null
+            && Proxy.isProxyClass( object.getClass())
+            && Proxy.getInvocationHandler( object) instanceof CommandProxy;
+    }
+
+    /**
+     * Creates a new CommandProxy object.
+     */
+    private CommandProxy( Object target, CommandHandler handler, CommandProxy root) {
+        this.target = target;
+        this.handler = handler;
+        this.root = root == null? this : root;
+
+        Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+        for( Class<?> type : ClassUtils.getAllInterfaces( target.getClass())) {
+            if( Modifier.isPublic( type.getModifiers())) {
+                interfaces.add( type);
+            }
+        }
+        if( target instanceof WebDriver) {
+            interfaces.add( WrapsDriver.class);
+        }
+        if( target instanceof WebElement) {
+            interfaces.add( WrapsElement.class);
+        }
+
+        this.proxy =
+            Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                interfaces.toArray( new Class<?>[0]),
+                this);
+    }
+
+    /**
+     * Returns the decorator for the target object.
+     */
+    private Object getProxy() {
+        return proxy;
+    }
+
+    public Object invoke( Object proxy, Method method, Object[] args) throws Throwable {
+        Object result;
+        Object[] targetArgs = undecorated( args);
+
+        if( method.getDeclaringClass().equals( Object.class)) {
+            result =
+                method.getName().equals( "equals")
+                ? target.equals( targetArgs[0])
+                : invoke( method, targetArgs);
+        }
+        else if( method.getName().equals( "getWrappedDriver") && target instanceof WebDriver) {
+            result = target;
+        }
+        else if( method.getName().equals( "getWrappedElement") && target instanceof WebElement) {
+            result = target;
+        }
+        else if( isNavigator( method.getReturnType())) {
+            result = decorated( invoke( method, targetArgs));
+        }
+        else {
+            result = decorated( handler.handle( new Command( target, method, targetArgs)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the result of invoking the given method on the target object.
+     */
+    private Object invoke( Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke( target, args);
+        }
+        catch( InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the decorator for the given command result.
+     */
+    @SuppressWarnings("unchecked")
+    private Object decorated( Object result) {
+        Object decorated;
+
+        if( result == null || isHandled( result)) {
+            decorated = result;
+        }
+        else if( result instanceof WebDriver) {
+            decorated =
+                result == root.target
+                ? root.getProxy()
+                : new CommandProxy( result, handler, root).getProxy();
+        }
+        else if( result instanceof WebElement || result instanceof Alert || isNavigator( result.getClass())) {
+            decorated = new CommandProxy( result, handler, root).getProxy();
+        }
+        else if( result instanceof List) {
+            List<Object> list = new ArrayList<Object>();
+            for( Object member : (List<Object>) result) {
+                list.add( decorated( member));
+            }
+            decorated = list;
+        }
+        else if( result instanceof Map) {
+            Map<Object,Object> map = new LinkedHashMap<Object,Object>();
+            for( Map.Entry<Object,Object> entry : ((Map<Object,Object>) result).entrySet()) {
+                map.put( entry.getKey(), decorated( entry.getValue()));
+            }
+            decorated = map;
+        }
+        else {
+            decorated = result;
+        }
+
+        return decorated;
+    }
+
+    /**
+     * Returns true if the given object is a decorator that already passes every command to the handler for this proxy.
+     * A decorator created by a different CommandProxy must be decorated again, so that commands pass through each
+     * decorator in turn.
+     */
+    private boolean isHandled( Object object) {
+        return
+            isDecorator( object)
+            && ((CommandProxy) Proxy.getInvocationHandler( object)).handler == handler;
+    }
+
+    /**
+     * Returns the given command arguments, replacing any decorators with the original objects.
+     */
+    private static Object[] undecorated( Object[] args) {
+        Object[] targetArgs = args == null? new Object[0] : new Object[ args.length];
+        for( int i = 0; i < targetArgs.length; i++) {
+            targetArgs[i] = undecoratedArg( args[i]);
+        }
+        return targetArgs;
+    }
+
+    /**
+     * Returns the given command argument, replacing any decorators with the original objects.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object undecoratedArg( Object arg) {
+        Object target;
+
+        if( arg instanceof Object[]) {
+            Object[] array = (Object[]) arg;
+            Object[] targetArray = (Object[]) Array.newInstance( array.getClass().getComponentType(), array.length);
+            for( int i = 0; i < array.length; i++) {
+                targetArray[i] = undecoratedArg( array[i]);
+            }
+            target = targetArray;
+        }
+        else if( arg instanceof List) {
+            List<Object> list = new ArrayList<Object>();
+            for( Object member : (List<Object>) arg) {
+                list.add( undecoratedArg( member));
+            }
+            target = list;
+        }
+        else if( arg instanceof Map) {
+            Map<Object,Object> map = new LinkedHashMap<Object,Object>();
+            for( Map.Entry<Object,Object> entry : ((Map<Object,Object>) arg).entrySet()) {
+                map.put( entry.getKey(), undecoratedArg( entry.getValue()));
+            }
+            target = map;
+        }
+        else if( arg instanceof Collection) {
+            List<Object> list = new ArrayList<Object>();
+            for( Object member : (Collection<Object>) arg) {
+                list.add( undecoratedArg( member));
+            }
+            target = list;
+        }
+        else if( arg instanceof WrapsElement && isDecorator( ((WrapsElement) arg).getWrappedElement())) {
+            // Replace an element that wraps a decorator.
+            target = undecorated( ((WrapsElement) arg).getWrappedElement());
+        }
+        else {
+            target = undecorated( arg);
+        }
+
+        return target;
+    }
+
+    /**
+     * Returns true if the given type is an interface to a WebDriver that does not require a round trip to the browser.
+     */
+    static boolean isNavigator( Class<?> type) {
+        boolean navigator = false;
+        for( Class<?> navigatorType : navigatorTypes) {
+            navigator = navigator || navigatorType.isAssignableFrom( type);
+        }
+        return navigator;
+    }
+
+    private static final Set<Class<?>> navigatorTypes =
+        new HashSet<Class<?>>(
+            Arrays.asList(
+                WebDriver.Options.class,
+                WebDriver.Navigation.class,
+                WebDriver.TargetLocator.class,
+                WebDriver.Timeouts.class,
+                WebDriver.Window.class,
+                WebDriver.ImeHandler.class,
+                org.openqa.selenium.interactions.Keyboard.class,
+                org.openqa.selenium.interactions.Mouse.class,
+                org.openqa.selenium.interactions.TouchScreen.class,
+                org.openqa.selenium.interactions.internal.Coordinates.class,
+                org.openqa.selenium.logging.Logs.class));
+}
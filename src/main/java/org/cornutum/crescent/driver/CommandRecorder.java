@@ -0,0 +1,342 @@
+package org.cornutum.crescent.driver;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import static java.util.stream.Collectors.toList;
+
+import static org.cornutum.crescent.driver.RecordingFormat.*;
+
+/**
+ * A {@link DriverDecorator} that records every WebDriver command, together with its result, to a file.
+ * <P/>
+ * The recording can be used by a {@link CommandReplay} to repeat the same session without a browser. Element results
+ * are recorded by id, so that later commands to the same element can be matched on replay. Results of types that can't
+ * be recorded are replayed as their string form.
+ * <P/>
+ * If the recording can't be written, the error is logged and recording stops, but commands continue to run normally.
+ * The recording then contains only the commands completed before the error.
+ */
+public class CommandRecorder implements DriverDecorator, CommandHandler, Closeable {
+
+    private final Path file;
+    private OutputStream stream;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream( buffer);
+    private IOException writeFailure;
+    private WebDriver recorded;
+    private final Map<WebElement,Integer> elementIds = new HashMap<WebElement,Integer>();
+    private int commands;
+
+    /**
+     * Creates a new CommandRecorder that writes to the given file.
+     */
+    public CommandRecorder( Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the file written by this recorder.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the number of commands recorded.
+     */
+    public synchronized int getCommands() {
+        return commands;
+    }
+
+    /**
+     * Returns the error that stopped this recording. Returns null if the recording has not failed.
+     */
+    public synchronized IOException getWriteFailure() {
+        return writeFailure;
+    }
+
+    /**
+     * Returns a WebDriver that records every command sent to the given WebDriver.
+     * A CommandRecorder can record only a single WebDriver.
+     */
+    public synchronized WebDriver decorate( WebDriver driver) {
+        if( stream != null) {
+            throw new IllegalStateException( "Already recording driver=" + recorded);
+        }
+
+        try {
+            stream = new BufferedOutputStream( Files.newOutputStream( file));
+            buffer.reset();
+            out.writeInt( MAGIC);
+            out.writeInt( VERSION);
+
+            List<Class<?>> interfaces =
+                ClassUtils.getAllInterfaces( driver.getClass())
+                .stream()
+                .filter( type -> Modifier.isPublic( type.getModifiers()))
+                .collect( toList());
+            out.writeInt( interfaces.size());
+            for( Class<?> type : interfaces) {
+                writeString( type.getName());
+            }
+            buffer.writeTo( stream);
+        }
+        catch( IOException e) {
+            throw new UncheckedIOException( "Can't write recording to file=" + file, e);
+        }
+
+        recorded = driver;
+        return CommandProxy.decorate( driver, this);
+    }
+
+    public Object handle( Command command) throws Throwable {
+        Object result = null;
+        Throwable failure = null;
+
+        long start = System.nanoTime();
+        try {
+            result = command.proceed();
+        }
+        catch( Throwable e) {
+            failure = e;
+        }
+        long duration = System.nanoTime() - start;
+
+        try {
+            record( command, duration, result, failure);
+        }
+        catch( IOException e) {
+            stopRecording( e);
+        }
+
+        if( failure != null) {
+            throw failure;
+        }
+        return result;
+    }
+
+    /**
+     * Writes the record for the given command. Each record is written in full or not at all.
+     */
+    private synchronized void record( Command command, long duration, Object result, Throwable failure) throws IOException {
+        if( writeFailure != null) {
+            return;
+        }
+
+        buffer.reset();
+        writeString( command.getName());
+        out.writeInt(
+            command.getTarget() instanceof WebElement
+            ? getElementId( (WebElement) command.getTarget())
+            : 0);
+        writeString( describe( command.getArgs(), this::getElementId));
+        out.writeLong( duration);
+
+        if( failure == null) {
+            out.writeByte( RESULT);
+            writeValue( result);
+        }
+        else {
+            out.writeByte( EXCEPTION);
+            writeString( failure.getClass().getName());
+            writeString( String.valueOf( failure.getMessage()));
+        }
+
+        buffer.writeTo( stream);
+        commands++;
+    }
+
+    /**
+     * Stops this recording after the given write error.
+     */
+    private synchronized void stopRecording( IOException e) {
+        writeFailure = e;
+        logger.log( Level.WARNING, "Can't write recording to file=" + file + ", recording stopped after " + commands + " commands", e);
+        try {
+            stream.close();
+        }
+        catch( IOException ignore) {
+            // Already reported the first failure.
+        }
+    }
+
+    /**
+     * Writes the given result value.
+     */
+    @SuppressWarnings("unchecked")
+    private void writeValue( Object value) throws IOException {
+        if( value == null) {
+            out.writeByte( NULL);
+        }
+        else if( value instanceof String) {
+            out.writeByte( STRING);
+            writeString( (String) value);
+        }
+        else if( value instanceof Boolean) {
+            out.writeByte( BOOLEAN);
+            out.writeBoolean( (Boolean) value);
+        }
+        else if( value instanceof Long) {
+            out.writeByte( LONG);
+            out.writeLong( (Long) value);
+        }
+        else if( value instanceof Integer) {
+            out.writeByte( INTEGER);
+            out.writeInt( (Integer) value);
+        }
+        else if( value instanceof Double) {
+            out.writeByte( DOUBLE);
+            out.writeDouble( (Double) value);
+        }
+        else if( value instanceof WebElement) {
+            out.writeByte( ELEMENT);
+            out.writeInt( getElementId( (WebElement) value));
+        }
+        else if( value instanceof WebDriver) {
+            out.writeByte( DRIVER);
+        }
+        else if( value instanceof List) {
+            out.writeByte( LIST);
+            writeValues( (List<Object>) value);
+        }
+        else if( value instanceof Set) {
+            out.writeByte( SET);
+            writeValues( (Set<Object>) value);
+        }
+        else if( value instanceof Map) {
+            out.writeByte( MAP);
+            Map<Object,Object> map = (Map<Object,Object>) value;
+            out.writeInt( map.size());
+            for( Map.Entry<Object,Object> entry : map.entrySet()) {
+                writeValue( entry.getKey());
+                writeValue( entry.getValue());
+            }
+        }
+        else if( value instanceof Point) {
+            Point point = (Point) value;
+            out.writeByte( POINT);
+            out.writeInt( point.getX());
+            out.writeInt( point.getY());
+        }
+        else if( value instanceof Dimension) {
+            Dimension dimension = (Dimension) value;
+            out.writeByte( DIMENSION);
+            out.writeInt( dimension.getWidth());
+            out.writeInt( dimension.getHeight());
+        }
+        else if( value instanceof Rectangle) {
+            Rectangle rectangle = (Rectangle) value;
+            out.writeByte( RECTANGLE);
+            out.writeInt( rectangle.getX());
+            out.writeInt( rectangle.getY());
+            out.writeInt( rectangle.getWidth());
+            out.writeInt( rectangle.getHeight());
+        }
+        else if( value instanceof byte[]) {
+            out.writeByte( BYTES);
+            writeBytes( (byte[]) value);
+        }
+        else if( value instanceof File) {
+            out.writeByte( FILE);
+            writeBytes( Files.readAllBytes( ((File) value).toPath()));
+        }
+        else if( value instanceof Cookie) {
+            Cookie cookie = (Cookie) value;
+            out.writeByte( COOKIE);
+            writeString( cookie.getName());
+            writeString( cookie.getValue());
+            writeValue( cookie.getDomain());
+            writeValue( cookie.getPath());
+            out.writeLong( cookie.getExpiry() == null? -1 : cookie.getExpiry().getTime());
+            out.writeBoolean( cookie.isSecure());
+            out.writeBoolean( cookie.isHttpOnly());
+        }
+        else if( value instanceof Capabilities) {
+            out.writeByte( CAPABILITIES);
+            writeValue( ((Capabilities) value).asMap());
+        }
+        else {
+            out.writeByte( OTHER);
+            writeString( String.valueOf( value));
+        }
+    }
+
+    /**
+     * Writes the given collection of result values.
+     */
+    private void writeValues( Collection<Object> values) throws IOException {
+        out.writeInt( values.size());
+        for( Object value : values) {
+            writeValue( value);
+        }
+    }
+
+    /**
+     * Writes the given string.
+     */
+    private void writeString( String string) throws IOException {
+        writeBytes( string.getBytes( StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the given byte array.
+     */
+    private void writeBytes( byte[] bytes) throws IOException {
+        out.writeInt( bytes.length);
+        out.write( bytes);
+    }
+
+    /**
+     * Returns the recording id for the given element.
+     */
+    private int getElementId( WebElement element) {
+        return elementIds.computeIfAbsent( element, e -> elementIds.size() + 1);
+    }
+
+    /**
+     * Completes this recording.
+     */
+    public synchronized void close() throws IOException {
+        if( stream != null && writeFailure == null) {
+            stream.close();
+        }
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( file)
+            .append( "commands", commands)
+            .toString();
+    }
+
+    private static final Logger logger = Logger.getLogger( CommandRecorder.class.getName());
+}
@@ -0,0 +1,404 @@
+package org.cornutum.crescent.driver;
+
+import org.cornutum.crescent.page.PollScheduler;
+import org.cornutum.crescent.page.VirtualPollScheduler;
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.internal.Locatable;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.cornutum.crescent.driver.RecordingFormat.*;
+
+/**
+ * Replays a session recorded by a {@link CommandRecorder}, without a browser.
+ * <P/>
+ * The {@link #getDriver WebDriver} for a CommandReplay answers each command with the next result from the recording.
+ * Each command must match the recorded command -- the same request, sent to the same element, with the same arguments.
+ * Otherwise, an IllegalStateException is thrown. A recorded exception is thrown again on replay.
+ * <P/>
+ * Replay uses no real time. Instead, a CommandReplay provides a {@link #getPollScheduler PollScheduler} with a virtual
+ * clock. The clock advances by the recorded duration of each command replayed and by every poll interval, but no
+ * wait actually sleeps. For example:
+ * <PRE>
+ * CommandReplay replay = new CommandReplay( recording);
+ * site.setPollScheduler( replay.getPollScheduler());
+ * site.enter( replay.getDriver());
+ * </PRE>
+ */
+public class CommandReplay {
+
+    private final Path file;
+    private final MappedByteBuffer recording;
+    private final WebDriver driver;
+    private final Map<Integer,WebElement> elements = new HashMap<Integer,WebElement>();
+    private final VirtualPollScheduler scheduler = new VirtualPollScheduler();
+    private int commands;
+
+    /**
+     * Creates a new CommandReplay for the recording in the given file.
+     */
+    public CommandReplay( Path file) {
+        this.file = file;
+
+        try( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ)) {
+            recording = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        catch( IOException e) {
+            throw new UncheckedIOException( "Can't read recording from file=" + file, e);
+        }
+
+        if( recording.remaining() < 8 || recording.getInt() != MAGIC) {
+            throw new IllegalArgumentException( "File=" + file + " is not a recording");
+        }
+        int version = recording.getInt();
+        if( version != VERSION) {
+            throw new IllegalArgumentException( "File=" + file + " has unsupported version=" + version);
+        }
+
+        Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+        for( int i = recording.getInt(); i > 0; i--) {
+            String name = readString( recording);
+            try {
+                Class<?> type = Class.forName( name);
+                if( type.isInterface()) {
+                    interfaces.add( type);
+                }
+            }
+            catch( ClassNotFoundException ignore) {
+                // This interface isn't available for replay.
+            }
+        }
+        interfaces.add( WebDriver.class);
+
+        driver = (WebDriver) newProxy( interfaces, 0);
+    }
+
+    /**
+     * Returns the WebDriver that replays this recording.
+     */
+    public WebDriver getDriver() {
+        return driver;
+    }
+
+    /**
+     * Returns the PollScheduler that times waits using the virtual clock for this replay.
+     */
+    public PollScheduler getPollScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Returns the number of commands replayed.
+     */
+    public synchronized int getCommands() {
+        return commands;
+    }
+
+    /**
+     * Returns true if all recorded commands have been replayed.
+     */
+    public synchronized boolean isComplete() {
+        return !recording.hasRemaining();
+    }
+
+    /**
+     * Returns the recorded result of the given command.
+     */
+    private synchronized Object replay( int target, Method method, Object[] args) throws Throwable {
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        String description = describe( args == null? new Object[0] : args, this::getElementId);
+        if( !recording.hasRemaining()) {
+            throw new IllegalStateException( "Recording complete after " + commands + " commands, can't replay " + name + description);
+        }
+
+        String recordedName = readString( recording);
+        int recordedTarget = recording.getInt();
+        String recordedArgs = readString( recording);
+        if( !(recordedName.equals( name) && recordedTarget == target && recordedArgs.equals( description))) {
+            throw
+                new IllegalStateException(
+                    String.format(
+                        "Command %s: expected #%s.%s%s, but was #%s.%s%s",
+                        commands + 1, recordedTarget, recordedName, recordedArgs, target, name, description));
+        }
+
+        scheduler.advance( TimeUnit.NANOSECONDS.toMillis( recording.getLong()));
+        commands++;
+
+        if( recording.get() == EXCEPTION) {
+            throw newException( readString( recording), readString( recording));
+        }
+        return readValue( recording);
+    }
+
+    /**
+     * Reads the next result value.
+     */
+    private Object readValue( ByteBuffer in) {
+        Object value;
+        byte tag = in.get();
+
+        switch( tag) {
+            case NULL: {
+                value = null;
+                break;
+            }
+            case STRING: {
+                value = readString( in);
+                break;
+            }
+            case BOOLEAN: {
+                value = in.get() != 0;
+                break;
+            }
+            case LONG: {
+                value = in.getLong();
+                break;
+            }
+            case INTEGER: {
+                value = in.getInt();
+                break;
+            }
+            case DOUBLE: {
+                value = in.getDouble();
+                break;
+            }
+            case ELEMENT: {
+                value = getElement( in.getInt());
+                break;
+            }
+            case DRIVER: {
+                value = driver;
+                break;
+            }
+            case LIST: {
+                List<Object> list = new ArrayList<Object>();
+                for( int i = in.getInt(); i > 0; i--) {
+                    list.add( readValue( in));
+                }
+                value = list;
+                break;
+            }
+            case SET: {
+                Set<Object> set = new LinkedHashSet<Object>();
+                for( int i = in.getInt(); i > 0; i--) {
+                    set.add( readValue( in));
+                }
+                value = set;
+                break;
+            }
+            case MAP: {
+                Map<Object,Object> map = new LinkedHashMap<Object,Object>();
+                for( int i = in.getInt(); i > 0; i--) {
+                    map.put( readValue( in), readValue( in));
+                }
+                value = map;
+                break;
+            }
+            case POINT: {
+                value = new Point( in.getInt(), in.getInt());
+                break;
+            }
+            case DIMENSION: {
+                value = new Dimension( in.getInt(), in.getInt());
+                break;
+            }
+            case RECTANGLE: {
+                int x = in.getInt();
+                int y = in.getInt();
+                int width = in.getInt();
+                int height = in.getInt();
+                value = new Rectangle( x, y, height, width);
+                break;
+            }
+            case BYTES: {
+                value = readBytes( in);
+                break;
+            }
+            case FILE: {
+                try {
+                    Path copy = Files.createTempFile( "crescent-replay", null);
+                    Files.write( copy, readBytes( in));
+                    copy.toFile().deleteOnExit();
+                    value = copy.toFile();
+                }
+                catch( IOException e) {
+                    throw new UncheckedIOException( "Can't replay file result", e);
+                }
+                break;
+            }
+            case COOKIE: {
+                String name = readString( in);
+                String cookieValue = readString( in);
+                String domain = (String) readValue( in);
+                String path = (String) readValue( in);
+                long expiry = in.getLong();
+                boolean secure = in.get() != 0;
+                boolean httpOnly = in.get() != 0;
+                value = new Cookie( name, cookieValue, domain, path, expiry < 0? null : new Date( expiry), secure, httpOnly);
+                break;
+            }
+            case CAPABILITIES: {
+                @SuppressWarnings("unchecked")
+                Map<String,Object> capabilities = (Map<String,Object>) readValue( in);
+                value = new DesiredCapabilities( capabilities);
+                break;
+            }
+            case OTHER: {
+                value = readString( in);
+                break;
+            }
+            default: {
+                throw new IllegalStateException( "Unknown value tag=" + (char) tag + " in file=" + file);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the replay element with the given id.
+     */
+    private WebElement getElement( int id) {
+        return elements.computeIfAbsent( id, i -> (WebElement) newProxy( elementInterfaces, i));
+    }
+
+    /**
+     * Returns the id of the given replay element.
+     */
+    private int getElementId( WebElement element) {
+        return
+            Proxy.isProxyClass( element.getClass()) && Proxy.getInvocationHandler( element) instanceof Replayer
+            ? ((Replayer) Proxy.getInvocationHandler( element)).target
+            : -1;
+    }
+
+    /**
+     * Returns a new replay object with the given interfaces that receives commands for the given target.
+     */
+    private Object newProxy( Set<Class<?>> interfaces, int target) {
+        return Proxy.newProxyInstance( getClass().getClassLoader(), interfaces.toArray( new Class<?>[0]), new Replayer( target));
+    }
+
+    /**
+     * Returns the recorded exception.
+     */
+    private static Throwable newException( String type, String message) {
+        Throwable exception;
+        try {
+            Constructor<?> constructor = Class.forName( type).getConstructor( String.class);
+            exception = (Throwable) constructor.newInstance( message);
+        }
+        catch( Exception e) {
+            exception = new WebDriverException( type + ": " + message);
+        }
+        return exception;
+    }
+
+    /**
+     * Reads the next string.
+     */
+    private static String readString( ByteBuffer in) {
+        return new String( readBytes( in), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the next byte array.
+     */
+    private static byte[] readBytes( ByteBuffer in) {
+        byte[] bytes = new byte[ in.getInt()];
+        in.get( bytes);
+        return bytes;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( file)
+            .append( "commands", commands)
+            .toString();
+    }
+
+    /**
+     * Answers commands for a replay object.
+     */
+    private class Replayer implements InvocationHandler {
+        private final int target;
+
+        /**
+         * Creates a new Replayer object.
+         */
+        public Replayer( int target) {
+            this.target = target;
+        }
+
+        public Object invoke( Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+
+            if( method.getDeclaringClass().equals( Object.class)) {
+                switch( method.getName()) {
+                    case "equals": {
+                        result =
+                            args[0] == proxy
+                            || (target != 0 && args[0] instanceof WebElement && getElementId( (WebElement) args[0]) == target);
+                        break;
+                    }
+                    case "hashCode": {
+                        result = target;
+                        break;
+                    }
+                    default: {
+                        result = "Replay[" + (target == 0? file.getFileName().toString() : "#" + target) + "]";
+                        break;
+                    }
+                }
+            }
+            else if( CommandProxy.isNavigator( method.getReturnType())) {
+                result = newProxy( Collections.<Class<?>>singleton( method.getReturnType()), 0);
+            }
+            else {
+                result = replay( target, method, args);
+            }
+
+            return result;
+        }
+    }
+
+    private static final Set<Class<?>> elementInterfaces = new LinkedHashSet<Class<?>>();
+    static {
+        elementInterfaces.add( WebElement.class);
+        elementInterfaces.add( Locatable.class);
+    }
+}
@@ -0,0 +1,16 @@
+package org.cornutum.crescent.driver;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Adds behavior to a WebDriver.
+ *
+ * @see org.cornutum.crescent.page.Site#addDriverDecorator
+ */
+public interface DriverDecorator {
+
+    /**
+     * Returns a WebDriver that adds behavior to the given WebDriver.
+     */
+    WebDriver decorate( WebDriver driver);
+}
@@ -0,0 +1,195 @@
+package org.cornutum.crescent.driver;
+
+import org.cornutum.crescent.util.ToString;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Describes the network latency added to each WebDriver command by a {@link LatencyShaper}.
+ * <P/>
+ * The latency for each command is drawn from a log-normal distribution with the given median and spread, plus a uniformly
+ * distributed jitter. Occasionally, a command also stalls for a longer time, such as when a remote connection must be
+ * reestablished. A different median latency can be given for specific commands, such as navigation commands.
+ */
+public class LatencyProfile {
+
+    private double latency;
+    private double spread;
+    private double jitter;
+    private double stallProbability;
+    private long stallMillis;
+    private final Map<String,Double> commandLatency = new ConcurrentHashMap<String,Double>();
+
+    /**
+     * Creates a new LatencyProfile object.
+     */
+    public LatencyProfile() {
+        setLatency( 0);
+        setSpread( 0);
+        setJitter( 0);
+        setStalls( 0, 0);
+    }
+
+    /**
+     * Returns a profile for a remote WebDriver server in the same region: a few milliseconds per command.
+     */
+    public static LatencyProfile sameRegion() {
+        LatencyProfile profile = new LatencyProfile();
+        profile.setLatency( 3);
+        profile.setSpread( 0.3);
+        profile.setJitter( 1);
+        profile.setStalls( 0.001, 250);
+        return profile;
+    }
+
+    /**
+     * Returns a profile for a remote WebDriver server in a different region: about 100 milliseconds per command, with
+     * occasional stalls.
+     */
+    public static LatencyProfile crossRegion() {
+        LatencyProfile profile = new LatencyProfile();
+        profile.setLatency( 100);
+        profile.setSpread( 0.25);
+        profile.setJitter( 15);
+        profile.setStalls( 0.005, 2000);
+        return profile;
+    }
+
+    /**
+     * Changes the median latency (in milliseconds) for each command.
+     */
+    public void setLatency( double millis) {
+        checkArgument( millis >= 0, "Latency must not be negative");
+        this.latency = millis;
+    }
+
+    /**
+     * Returns the median latency (in milliseconds) for each command.
+     */
+    public double getLatency() {
+        return latency;
+    }
+
+    /**
+     * Changes the median latency (in milliseconds) for the given command, identified by "Interface.method". If negative,
+     * the default median latency is used.
+     */
+    public void setLatency( String command, double millis) {
+        if( millis < 0) {
+            commandLatency.remove( command);
+        }
+        else {
+            commandLatency.put( command, millis);
+        }
+    }
+
+    /**
+     * Returns the median latency (in milliseconds) for the given command, identified by "Interface.method".
+     */
+    public double getLatency( String command) {
+        return commandLatency.getOrDefault( command, getLatency());
+    }
+
+    /**
+     * Changes the spread of the latency distribution: the standard deviation of the logarithm of the latency.
+     * If 0, every command has the median latency.
+     */
+    public void setSpread( double spread) {
+        checkArgument( spread >= 0, "Spread must not be negative");
+        this.spread = spread;
+    }
+
+    /**
+     * Returns the spread of the latency distribution: the standard deviation of the logarithm of the latency.
+     */
+    public double getSpread() {
+        return spread;
+    }
+
+    /**
+     * Changes the maximum jitter (in milliseconds) randomly added to or subtracted from the latency for each command.
+     */
+    public void setJitter( double millis) {
+        checkArgument( millis >= 0, "Jitter must not be negative");
+        this.jitter = millis;
+    }
+
+    /**
+     * Returns the maximum jitter (in milliseconds) randomly added to or subtracted from the latency for each command.
+     */
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Changes the probability that a command stalls, and the additional time (in milliseconds) for each stall.
+     */
+    public void setStalls( double probability, long millis) {
+        checkArgument( probability >= 0 && probability <= 1, "Stall probability must be between 0 and 1");
+        checkArgument( millis >= 0, "Stall time must not be negative");
+        this.stallProbability = probability;
+        this.stallMillis = millis;
+    }
+
+    /**
+     * Returns the probability that a command stalls.
+     */
+    public double getStallProbability() {
+        return stallProbability;
+    }
+
+    /**
+     * Returns the additional time (in milliseconds) for each stall.
+     */
+    public long getStallMillis() {
+        return stallMillis;
+    }
+
+    /**
+     * Returns the mean latency (in milliseconds) for the given command, including stalls.
+     */
+    public double getExpectedLatency( String command) {
+        return getLatency( command) * Math.exp( getSpread() * getSpread() / 2) + getStallProbability() * getStallMillis();
+    }
+
+    /**
+     * Returns a random latency (in nanoseconds) for the given command, excluding stalls.
+     */
+    public long nextLatency( String command, Random random) {
+        double millis = getLatency( command);
+        if( getSpread() > 0) {
+            millis *= Math.exp( getSpread() * random.nextGaussian());
+        }
+        if( getJitter() > 0) {
+            millis += getJitter() * (2 * random.nextDouble() - 1);
+        }
+
+        return (long) (Math.max( 0, millis) * TimeUnit.MILLISECONDS.toNanos( 1));
+    }
+
+    /**
+     * Returns a random stall time (in nanoseconds) for a command. Returns 0 if the command does not stall.
+     */
+    public long nextStall( Random random) {
+        return
+            getStallProbability() > 0 && random.nextDouble() < getStallProbability()
+            ? TimeUnit.MILLISECONDS.toNanos( getStallMillis())
+            : 0;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "latency", getLatency())
+            .append( "spread", getSpread())
+            .append( "jitter", getJitter())
+            .append( "stallProbability", getStallProbability())
+            .append( "stallMillis", getStallMillis())
+            .toString();
+    }
+}
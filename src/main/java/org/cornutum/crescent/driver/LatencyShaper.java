@@ -0,0 +1,241 @@
+package org.cornutum.crescent.driver;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import static java.util.stream.Collectors.toList;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DriverDecorator} that adds network latency to every WebDriver command, as described by a {@link LatencyProfile}.
+ * <P/>
+ * A LatencyShaper makes it possible to reproduce the conditions of a remote WebDriver server with a local browser, for
+ * example, to verify timeouts or to compare the effect of changes that reduce round trips. Each command is attributed to
+ * the page model method that issued it, and the shaper reports the round trips and the wall time that each method would take
+ * with this latency.
+ * <P/>
+ * When {@link #setSimulated simulated}, commands are not actually delayed. Instead, the added latency is only included
+ * in the projected wall time reported for each method.
+ */
+public class LatencyShaper implements DriverDecorator, CommandHandler {
+
+    private final LatencyProfile profile;
+    private final Random random;
+    private boolean simulated;
+    private final PageModelCallers callers = new PageModelCallers();
+    private final Map<String,OperationCost> costs = new ConcurrentHashMap<String,OperationCost>();
+
+    /**
+     * Creates a new LatencyShaper object.
+     */
+    public LatencyShaper( LatencyProfile profile) {
+        this( profile, new Random());
+    }
+
+    /**
+     * Creates a new LatencyShaper object that draws latencies using the given random number generator.
+     */
+    public LatencyShaper( LatencyProfile profile, Random random) {
+        this.profile = checkNotNull( profile, "Latency profile cannot be null");
+        this.random = checkNotNull( random, "Random number generator cannot be null");
+    }
+
+    /**
+     * Returns the latency profile for this shaper.
+     */
+    public LatencyProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Changes if latency is only simulated. If true, commands are not actually delayed.
+     */
+    public void setSimulated( boolean simulated) {
+        this.simulated = simulated;
+    }
+
+    /**
+     * Returns if latency is only simulated. If true, commands are not actually delayed.
+     */
+    public boolean isSimulated() {
+        return simulated;
+    }
+
+    /**
+     * Returns a WebDriver that adds latency to every command for the given WebDriver.
+     */
+    public WebDriver decorate( WebDriver driver) {
+        return CommandProxy.decorate( driver, this);
+    }
+
+    /**
+     * Delays the given command and sends it.
+     */
+    public Object handle( Command command) throws Throwable {
+        long stall = profile.nextStall( random);
+        long latency = profile.nextLatency( command.getName(), random) + stall;
+        if( !isSimulated()) {
+            delay( latency);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return command.proceed();
+        }
+        finally {
+            long elapsed = System.nanoTime() - start;
+            costs.computeIfAbsent( callers.getCaller(), OperationCost::new).add( elapsed, latency, stall > 0);
+        }
+    }
+
+    /**
+     * Returns the costs for all page model methods, in descending order of projected wall time.
+     */
+    public List<OperationCost> getCosts() {
+        return
+            costs.values().stream()
+            .sorted( (c1, c2) -> Long.compare( c2.getProjectedMillis(), c1.getProjectedMillis()))
+            .collect( toList());
+    }
+
+    /**
+     * Returns the cost for the given page model method, identified by "SimpleClassName.method".
+     * Returns null if this method has issued no commands.
+     */
+    public OperationCost getCost( String method) {
+        return costs.get( method);
+    }
+
+    /**
+     * Returns a report of the round trips and wall time for all page model methods.
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append( String.format( "%-50s %10s %10s %10s %10s %8s%n", "Method", "RoundTrips", "Millis", "Added", "Projected", "Stalls"));
+        for( OperationCost cost : getCosts()) {
+            report.append(
+                String.format(
+                    "%-50s %10d %10d %10d %10d %8d%n",
+                    cost.getMethod(),
+                    cost.getRoundTrips(),
+                    cost.getMillis(),
+                    cost.getAddedMillis(),
+                    cost.getProjectedMillis(),
+                    cost.getStalls()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Discards all costs.
+     */
+    public void reset() {
+        costs.clear();
+    }
+
+    /**
+     * Waits for the given time (in nanoseconds).
+     */
+    private void delay( long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep( nanos);
+        }
+        catch( InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( profile)
+            .append( "simulated", isSimulated())
+            .toString();
+    }
+
+    /**
+     * Reports the round trips and wall time used by a single page model method.
+     */
+    public static class OperationCost {
+        private final String method;
+        private int roundTrips;
+        private int stalls;
+        private long nanos;
+        private long addedNanos;
+
+        /**
+         * Creates a new OperationCost object.
+         */
+        public OperationCost( String method) {
+            this.method = method;
+        }
+
+        /**
+         * Adds a round trip that took the given time (in nanoseconds), with the given added latency.
+         */
+        synchronized void add( long elapsed, long added, boolean stalled) {
+            roundTrips++;
+            stalls += stalled? 1 : 0;
+            nanos += elapsed;
+            addedNanos += added;
+        }
+
+        /**
+         * Returns the page model method, in the form "SimpleClassName.method".
+         */
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * Returns the number of round trips used by this method.
+         */
+        public synchronized int getRoundTrips() {
+            return roundTrips;
+        }
+
+        /**
+         * Returns the number of round trips used by this method that stalled.
+         */
+        public synchronized int getStalls() {
+            return stalls;
+        }
+
+        /**
+         * Returns the total time (in milliseconds) for all round trips used by this method, excluding added latency.
+         */
+        public synchronized long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis( nanos);
+        }
+
+        /**
+         * Returns the total latency (in milliseconds) added to all round trips used by this method.
+         */
+        public synchronized long getAddedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis( addedNanos);
+        }
+
+        /**
+         * Returns the total wall time (in milliseconds) for all round trips used by this method, including added latency.
+         */
+        public synchronized long getProjectedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis( nanos + addedNanos);
+        }
+
+        public String toString() {
+            return
+                ToString.getBuilder( this)
+                .append( getMethod())
+                .append( "roundTrips", getRoundTrips())
+                .append( "projectedMillis", getProjectedMillis())
+                .toString();
+        }
+    }
+}
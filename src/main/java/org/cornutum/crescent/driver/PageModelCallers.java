@@ -0,0 +1,76 @@
+package org.cornutum.crescent.driver;
+
+import org.cornutum.crescent.page.Component;
+import org.cornutum.crescent.page.Page;
+import org.cornutum.crescent.page.PageAction;
+import org.cornutum.crescent.page.WindowProducer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Identifies the page model method that issued a WebDriver command -- the innermost method of a {@link Page},
+ * {@link Component}, {@link PageAction}, or {@link WindowProducer} subclass on the call stack.
+ */
+class PageModelCallers {
+
+    private final Map<String,Boolean> pageModelClasses = new ConcurrentHashMap<String,Boolean>();
+
+    /**
+     * Creates a new PageModelCallers object.
+     */
+    public PageModelCallers() {
+    }
+
+    /**
+     * Returns the page model method that issued the current command, in the form "SimpleClassName.method".
+     */
+    public String getCaller() {
+        String caller = null;
+        StackTraceElement[] frames = new Throwable().getStackTrace();
+        for( int i = 0; caller == null && i < frames.length; i++) {
+            String className = frames[i].getClassName();
+            if( isPageModelClass( className)) {
+                String methodName = frames[i].getMethodName();
+                if( methodName.startsWith( "lambda$")) {
+                    // Attribute a lambda to its enclosing method.
+                    String[] lambdaName = methodName.split( "\\$");
+                    methodName = lambdaName.length > 1? lambdaName[1] : methodName;
+                }
+                caller = className.substring( className.lastIndexOf( '.') + 1) + "." + methodName;
+            }
+        }
+
+        return caller == null? "(unknown)" : caller;
+    }
+
+    /**
+     * Returns true if the given class is a page model class.
+     */
+    private boolean isPageModelClass( String className) {
+        return
+            pageModelClasses.computeIfAbsent(
+                className,
+                name -> {
+                    boolean pageModel;
+                    if( name.startsWith( "org.cornutum.crescent.") || name.startsWith( "java.") || name.startsWith( "sun.")
+                        || name.startsWith( "jdk.") || name.startsWith( "org.openqa.") || name.contains( "$Proxy")) {
+                        pageModel = false;
+                    }
+                    else {
+                        try {
+                            Class<?> type = Class.forName( name, false, Thread.currentThread().getContextClassLoader());
+                            pageModel =
+                                Page.class.isAssignableFrom( type)
+                                || Component.class.isAssignableFrom( type)
+                                || PageAction.class.isAssignableFrom( type)
+                                || WindowProducer.class.isAssignableFrom( type);
+                        }
+                        catch( Throwable e) {
+                            pageModel = false;
+                        }
+                    }
+                    return pageModel;
+                });
+    }
+}
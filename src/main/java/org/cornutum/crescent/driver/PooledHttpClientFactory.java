@@ -0,0 +1,247 @@
+package org.cornutum.crescent.driver;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.CommandInfo;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Creates the HTTP clients used by a RemoteWebDriver to send commands to a remote WebDriver server.
+ * <P/>
+ * All clients created by a PooledHttpClientFactory share a single pool of keep-alive connections, so that consecutive
+ * commands -- and consecutive sessions -- reuse open connections instead of opening new ones. Closing a client
+ * does not close any pooled connections. Optionally, responses can be requested with gzip compression.
+ * <P/>
+ * For example:
+ * <PRE>
+ * WebDriver driver = new RemoteWebDriver( PooledHttpClientFactory.getShared().createExecutor( gridUrl), capabilities);
+ * </PRE>
+ */
+public class PooledHttpClientFactory implements HttpClient.Factory {
+
+    private final PoolingHttpClientConnectionManager connections;
+    private final RequestConfig requestConfig;
+    private final CloseableHttpClient client;
+    private final boolean compressed;
+
+    /**
+     * Creates a new PooledHttpClientFactory that keeps at most the given number of open connections to each
+     * remote WebDriver server and, if <CODE>compressed</CODE> is true, requests gzip compression for all responses.
+     */
+    public PooledHttpClientFactory( int maxConnections, boolean compressed) {
+        checkArgument( maxConnections > 0, "Maximum connections must be greater than 0");
+
+        connections = new PoolingHttpClientConnectionManager();
+        connections.setDefaultMaxPerRoute( maxConnections);
+        connections.setMaxTotal( maxConnections * 4);
+        connections.setValidateAfterInactivity( 2000);
+
+        requestConfig =
+            RequestConfig.custom()
+            .setConnectTimeout( (int) TimeUnit.MINUTES.toMillis( 2))
+            .setSocketTimeout( (int) TimeUnit.HOURS.toMillis( 3))
+            .build();
+
+        HttpClientBuilder builder =
+            HttpClientBuilder.create()
+            .setConnectionManager( connections)
+            .setConnectionManagerShared( true)
+            .evictExpiredConnections()
+            .evictIdleConnections( 60, TimeUnit.SECONDS)
+            .setDefaultRequestConfig( requestConfig);
+
+        if( !compressed) {
+            builder.disableContentCompression();
+        }
+
+        this.client = builder.build();
+        this.compressed = compressed;
+    }
+
+    /**
+     * Returns the PooledHttpClientFactory shared by all sessions in this JVM.
+     */
+    public static PooledHttpClientFactory getShared() {
+        return shared;
+    }
+
+    /**
+     * Returns if responses are requested with gzip compression.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Returns the number of pooled connections currently open, both idle and in use.
+     */
+    public int getOpenConnections() {
+        return connections.getTotalStats().getAvailable() + connections.getTotalStats().getLeased();
+    }
+
+    /**
+     * Returns a new HTTP client for commands to the given remote WebDriver server.
+     */
+    public HttpClient createClient( URL url) {
+        return new PooledHttpClient( url);
+    }
+
+    /**
+     * Returns a new CommandExecutor for commands to the given remote WebDriver server.
+     */
+    public CommandExecutor createExecutor( URL url) {
+        return new HttpCommandExecutor( Collections.<String,CommandInfo>emptyMap(), url, this);
+    }
+
+    /**
+     * Closes all pooled connections.
+     */
+    public void close() throws IOException {
+        client.close();
+        connections.shutdown();
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "maxPerRoute", connections.getDefaultMaxPerRoute())
+            .append( "compressed", compressed)
+            .toString();
+    }
+
+    /**
+     * Sends requests to a remote WebDriver server using pooled connections.
+     */
+    private class PooledHttpClient implements HttpClient {
+
+        private final String baseUrl;
+
+        /**
+         * Creates a new PooledHttpClient object.
+         */
+        public PooledHttpClient( URL url) {
+            this.baseUrl = url.toExternalForm().replaceAll( "/$", "");
+        }
+
+        public HttpResponse execute( HttpRequest request, boolean followRedirects) throws IOException {
+            HttpRequestBase httpRequest = createRequest( request);
+            httpRequest.setConfig( RequestConfig.copy( requestConfig).setRedirectsEnabled( followRedirects).build());
+
+            try( CloseableHttpResponse httpResponse = client.execute( httpRequest)) {
+                HttpResponse response = new HttpResponse();
+                response.setStatus( httpResponse.getStatusLine().getStatusCode());
+                for( Header header : httpResponse.getAllHeaders()) {
+                    response.addHeader( header.getName(), header.getValue());
+                }
+                response.setContent( getContent( httpResponse.getEntity()));
+                return response;
+            }
+        }
+
+        /**
+         * Returns the HTTP request to send for the given WebDriver request.
+         */
+        private HttpRequestBase createRequest( HttpRequest request) {
+            HttpRequestBase httpRequest;
+            String url = baseUrl + request.getUri();
+
+            switch( request.getMethod()) {
+                case GET: {
+                    httpRequest = new HttpGet( url);
+                    break;
+                }
+                case DELETE: {
+                    httpRequest = new HttpDelete( url);
+                    break;
+                }
+                default: {
+                    HttpPost post = new HttpPost( url);
+                    post.setEntity( new ByteArrayEntity( request.getContent()));
+                    httpRequest = post;
+                    break;
+                }
+            }
+
+            for( String name : request.getHeaderNames()) {
+                // Content-Length is computed from the request entity.
+                if( !"Content-Length".equalsIgnoreCase( name)) {
+                    for( String value : request.getHeaders( name)) {
+                        httpRequest.addHeader( name, value);
+                    }
+                }
+            }
+
+            return httpRequest;
+        }
+
+        /**
+         * Returns the content of the given response entity. When the content length is known, the content is read
+         * directly into a single array of the required size.
+         */
+        private byte[] getContent( HttpEntity entity) throws IOException {
+            byte[] content;
+
+            if( entity == null) {
+                content = new byte[0];
+            }
+            else if( entity.getContentLength() < 0 || entity.getContentLength() > Integer.MAX_VALUE) {
+                content = EntityUtils.toByteArray( entity);
+            }
+            else {
+                content = new byte[ (int) entity.getContentLength()];
+                try( InputStream stream = entity.getContent()) {
+                    int length = 0;
+                    int read = 0;
+                    while( length < content.length && (read = stream.read( content, length, content.length - length)) >= 0) {
+                        length += read;
+                    }
+                    if( length < content.length) {
+                        throw new IOException( "Expected " + content.length + " bytes, received " + length);
+                    }
+                }
+            }
+
+            return content;
+        }
+
+        /**
+         * Releases this client. Pooled connections remain open for use by other clients.
+         */
+        public void close() {
+        }
+
+        public String toString() {
+            return
+                ToString.getBuilder( this)
+                .append( baseUrl)
+                .toString();
+        }
+    }
+
+    private static final PooledHttpClientFactory shared = new PooledHttpClientFactory( 32, false);
+}
@@ -0,0 +1,108 @@
+package org.cornutum.crescent.driver;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.WrapsElement;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Defines the binary file format written by a {@link CommandRecorder} and read by a {@link CommandReplay}.
+ * <P/>
+ * A recording begins with a header: the {@link #MAGIC magic number}, the {@link #VERSION format version}, and the names
+ * of the interfaces implemented by the recorded WebDriver. Each following entry records one command: its name, the id
+ * of the element that received it (or 0 for any other target), a description of its arguments, its duration in
+ * nanoseconds, and either its result value or the exception it threw. Strings are written as a byte count followed by
+ * UTF-8 bytes. Each value is written as a one-byte tag followed by its content.
+ */
+final class RecordingFormat {
+
+    private RecordingFormat() {
+        // Static members only
+    }
+
+    /**
+     * Returns a description of the given command arguments that identifies each element argument by its id.
+     */
+    static String describe( Object[] args, ToIntFunction<WebElement> elementIds) {
+        return
+            Arrays.stream( args)
+            .map( arg -> describe( arg, elementIds))
+            .collect( joining( ",", "(", ")"));
+    }
+
+    /**
+     * Returns a description of the given command argument that identifies each element by its id.
+     */
+    private static String describe( Object arg, ToIntFunction<WebElement> elementIds) {
+        Object value = arg;
+        while( value instanceof WrapsElement) {
+            value = ((WrapsElement) value).getWrappedElement();
+        }
+
+        String description;
+        if( value instanceof WebElement) {
+            description = "#" + elementIds.applyAsInt( (WebElement) value);
+        }
+        else if( value instanceof Object[]) {
+            description = describe( (Object[]) value, elementIds);
+        }
+        else if( value instanceof Map) {
+            description =
+                ((Map<?,?>) value).entrySet().stream()
+                .map( entry -> entry.getKey() + "=" + describe( entry.getValue(), elementIds))
+                .collect( joining( ",", "{", "}"));
+        }
+        else if( value instanceof Collection) {
+            description =
+                ((Collection<?>) value).stream()
+                .map( member -> describe( member, elementIds))
+                .collect( joining( ",", "[", "]"));
+        }
+        else if( value instanceof By || value instanceof CharSequence || value instanceof Number || value instanceof Boolean || value instanceof Enum) {
+            description = String.valueOf( value);
+        }
+        else {
+            description = value == null? "null" : value.getClass().getSimpleName();
+        }
+
+        return description;
+    }
+
+    /**
+     * Identifies the start of a recording.
+     */
+    static final int MAGIC = 0x43525250;
+
+    /**
+     * Identifies the version of the recording format.
+     */
+    static final int VERSION = 1;
+
+    static final byte RESULT = 0;
+    static final byte EXCEPTION = 1;
+
+    static final byte NULL = 'N';
+    static final byte STRING = 'S';
+    static final byte BOOLEAN = 'Z';
+    static final byte LONG = 'J';
+    static final byte INTEGER = 'I';
+    static final byte DOUBLE = 'D';
+    static final byte ELEMENT = 'E';
+    static final byte DRIVER = 'W';
+    static final byte LIST = 'L';
+    static final byte SET = 'T';
+    static final byte MAP = 'M';
+    static final byte POINT = 'P';
+    static final byte DIMENSION = 'Q';
+    static final byte RECTANGLE = 'R';
+    static final byte BYTES = 'B';
+    static final byte FILE = 'F';
+    static final byte COOKIE = 'C';
+    static final byte CAPABILITIES = 'K';
+    static final byte OTHER = 'O';
+}
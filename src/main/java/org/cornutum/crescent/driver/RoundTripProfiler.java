@@ -0,0 +1,223 @@
+package org.cornutum.crescent.driver;
+
+import org.cornutum.crescent.page.Component;
+import org.cornutum.crescent.page.Page;
+import org.cornutum.crescent.page.PageAction;
+import org.cornutum.crescent.page.WindowProducer;
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A {@link DriverDecorator} that counts and times every WebDriver command.
+ * <P/>
+ * Each command is attributed to the page model method that issued it -- the innermost method of a {@link Page},
+ * {@link Component}, {@link PageAction}, or {@link WindowProducer} subclass on the call stack. The profiler
+ * can then report the round trips used by each page model method. It can also verify that an operation uses no
+ * more than an expected number of round trips.
+ */
+public class RoundTripProfiler implements DriverDecorator, CommandHandler {
+
+    private final Map<String,MethodProfile> profiles = new ConcurrentHashMap<String,MethodProfile>();
+    private final PageModelCallers callers = new PageModelCallers();
+    private final ThreadLocal<Deque<int[]>> measurements = ThreadLocal.withInitial( ArrayDeque::new);
+
+    /**
+     * Creates a new RoundTripProfiler object.
+     */
+    public RoundTripProfiler() {
+    }
+
+    /**
+     * Returns a WebDriver that profiles every command for the given WebDriver.
+     */
+    public WebDriver decorate( WebDriver driver) {
+        return CommandProxy.decorate( driver, this);
+    }
+
+    /**
+     * Sends the given command and records its round trip.
+     */
+    public Object handle( Command command) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return command.proceed();
+        }
+        finally {
+            long elapsed = System.nanoTime() - start;
+            profiles.computeIfAbsent( callers.getCaller(), MethodProfile::new).add( command.getName(), elapsed);
+            for( int[] count : measurements.get()) {
+                count[0]++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of round trips used by the given operation on the current thread.
+     */
+    public int countRoundTrips( Runnable operation) {
+        int[] count = new int[]{ 0};
+        measurements.get().push( count);
+        try {
+            operation.run();
+        }
+        finally {
+            measurements.get().remove( count);
+        }
+        return count[0];
+    }
+
+    /**
+     * Returns the result of the given operation. Throws an AssertionError if this operation used more than the
+     * given maximum number of round trips.
+     */
+    public <T> T assertRoundTrips( String description, int maxRoundTrips, Supplier<T> operation) {
+        List<T> result = new ArrayList<T>( 1);
+        int roundTrips = countRoundTrips( () -> result.add( operation.get()));
+        if( roundTrips > maxRoundTrips) {
+            throw
+                new AssertionError(
+                    String.format(
+                        "%s: expected at most %s round trips, but used %s",
+                        description,
+                        maxRoundTrips,
+                        roundTrips));
+        }
+        return result.get(0);
+    }
+
+    /**
+     * Performs the given operation. Throws an AssertionError if this operation used more than the
+     * given maximum number of round trips.
+     */
+    public void assertRoundTrips( String description, int maxRoundTrips, Runnable operation) {
+        assertRoundTrips(
+            description,
+            maxRoundTrips,
+            () -> {
+                operation.run();
+                return null;
+            });
+    }
+
+    /**
+     * Returns the profiles for all page model methods, in descending order of round trips.
+     */
+    public List<MethodProfile> getProfiles() {
+        return
+            profiles.values().stream()
+            .sorted( (p1, p2) -> Integer.compare( p2.getRoundTrips(), p1.getRoundTrips()))
+            .collect( toList());
+    }
+
+    /**
+     * Returns the profile for the given page model method, identified by "SimpleClassName.method".
+     * Returns null if this method has issued no commands.
+     */
+    public MethodProfile getProfile( String method) {
+        return profiles.get( method);
+    }
+
+    /**
+     * Returns a report of the round trips for all page model methods.
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append( String.format( "%-60s %10s %12s%n", "Method", "RoundTrips", "Millis"));
+        for( MethodProfile profile : getProfiles()) {
+            report.append( String.format( "%-60s %10d %12d%n", profile.getMethod(), profile.getRoundTrips(), profile.getMillis()));
+            for( Map.Entry<String,Integer> command : profile.getCommands().entrySet()) {
+                report.append( String.format( "    %-56s %10d%n", command.getKey(), command.getValue()));
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Discards all profiles.
+     */
+    public void reset() {
+        profiles.clear();
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "methods", profiles.size())
+            .toString();
+    }
+
+    /**
+     * Reports the round trips used by a single page model method.
+     */
+    public static class MethodProfile {
+        private final String method;
+        private int roundTrips;
+        private long nanos;
+        private final Map<String,Integer> commands = new TreeMap<String,Integer>();
+
+        /**
+         * Creates a new MethodProfile object.
+         */
+        public MethodProfile( String method) {
+            this.method = method;
+        }
+
+        /**
+         * Adds a round trip for the given command.
+         */
+        synchronized void add( String command, long elapsed) {
+            roundTrips++;
+            nanos += elapsed;
+            commands.merge( command, 1, Integer::sum);
+        }
+
+        /**
+         * Returns the page model method, in the form "SimpleClassName.method".
+         */
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * Returns the number of round trips used by this method.
+         */
+        public synchronized int getRoundTrips() {
+            return roundTrips;
+        }
+
+        /**
+         * Returns the total time (in milliseconds) for all round trips used by this method.
+         */
+        public synchronized long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis( nanos);
+        }
+
+        /**
+         * Returns the number of round trips for each command used by this method.
+         */
+        public synchronized Map<String,Integer> getCommands() {
+            return new TreeMap<String,Integer>( commands);
+        }
+
+        public String toString() {
+            return
+                ToString.getBuilder( this)
+                .append( getMethod())
+                .append( "roundTrips", getRoundTrips())
+                .append( "millis", getMillis())
+                .toString();
+        }
+    }
+}
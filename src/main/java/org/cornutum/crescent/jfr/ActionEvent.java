@@ -0,0 +1,54 @@
+package org.cornutum.crescent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Records the performance of a {@link org.cornutum.crescent.page.PageAction PageAction}.
+ */
+@Name( "org.cornutum.crescent.PageAction")
+@Label( "Page Action")
+@Category( { "Crescent", "Page"})
+@Description( "Performance of a PageAction")
+@StackTrace( false)
+public class ActionEvent extends Event {
+
+    @Label( "Page Class")
+    public Class<?> pageClass;
+
+    @Label( "Action Class")
+    public Class<?> actionClass;
+
+    @Label( "Locator")
+    public String locator;
+
+    @Label( "Outcome")
+    public String outcome;
+
+    /**
+     * Returns a new ActionEvent that has begun timing.
+     */
+    public static ActionEvent start( Class<?> pageClass, Class<?> actionClass, String locator) {
+        ActionEvent event = new ActionEvent();
+        event.pageClass = pageClass;
+        event.actionClass = actionClass;
+        event.locator = locator;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Completes timing for this event and records it.
+     */
+    public void end( Recorder.Outcome outcome) {
+        end();
+        if( shouldCommit()) {
+            this.outcome = String.valueOf( outcome);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.cornutum.crescent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Records a wait by a {@link org.cornutum.crescent.page.Finder Finder}.
+ */
+@Name( "org.cornutum.crescent.FinderWait")
+@Label( "Finder Wait")
+@Category( { "Crescent", "Finder"})
+@Description( "Wait for page elements by a Finder")
+@StackTrace( false)
+public class FinderEvent extends Event {
+
+    @Label( "Page Class")
+    public Class<?> pageClass;
+
+    @Label( "Locator")
+    public String locator;
+
+    @Label( "Timeout")
+    @Timespan( Timespan.MILLISECONDS)
+    public long timeout;
+
+    @Label( "Polls")
+    public int polls;
+
+    @Label( "Outcome")
+    public String outcome;
+
+    /**
+     * Returns a new FinderEvent that has begun timing.
+     */
+    public static FinderEvent start( Class<?> pageClass, String locator, long timeout) {
+        FinderEvent event = new FinderEvent();
+        event.pageClass = pageClass;
+        event.locator = locator;
+        event.timeout = timeout;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Completes timing for this event and records it.
+     */
+    public void end( int polls, Recorder.Outcome outcome) {
+        end();
+        if( shouldCommit()) {
+            this.polls = polls;
+            this.outcome = String.valueOf( outcome);
+            commit();
+        }
+    }
+}
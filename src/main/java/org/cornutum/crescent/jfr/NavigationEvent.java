@@ -0,0 +1,54 @@
+package org.cornutum.crescent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Records a visit to a {@link org.cornutum.crescent.page.Page Page}.
+ */
+@Name( "org.cornutum.crescent.PageVisit")
+@Label( "Page Visit")
+@Category( { "Crescent", "Page"})
+@Description( "Navigation to a Page and wait for page readiness")
+@StackTrace( false)
+public class NavigationEvent extends Event {
+
+    @Label( "Page Class")
+    public Class<?> pageClass;
+
+    @Label( "URI")
+    public String uri;
+
+    @Label( "Readiness")
+    public String readiness;
+
+    @Label( "Outcome")
+    public String outcome;
+
+    /**
+     * Returns a new NavigationEvent that has begun timing.
+     */
+    public static NavigationEvent start( Class<?> pageClass, String readiness) {
+        NavigationEvent event = new NavigationEvent();
+        event.pageClass = pageClass;
+        event.readiness = readiness;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Completes timing for this event and records it.
+     */
+    public void end( String uri, Recorder.Outcome outcome) {
+        end();
+        if( shouldCommit()) {
+            this.uri = uri;
+            this.outcome = String.valueOf( outcome);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.cornutum.crescent.jfr;
+
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+
+/**
+ * Reports if Crescent events can be recorded by the JDK Flight Recorder.
+ * <P/>
+ * Event classes in this package must be used only when {@link #isAvailable} is true, so that Crescent can still run
+ * on a JVM that does not provide the JDK Flight Recorder.
+ */
+public final class Recorder {
+
+    private Recorder() {
+        // Static methods only
+    }
+
+    /**
+     * Returns true if the JDK Flight Recorder is available.
+     */
+    public static boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Describes the outcome of a recorded event.
+     */
+    public enum Outcome {
+        /**
+         * Completed successfully.
+         */
+        FOUND,
+
+        /**
+         * Failed after waiting for the maximum time allowed.
+         */
+        TIMEOUT,
+
+        /**
+         * Failed because a page element was no longer attached to the page.
+         */
+        STALE,
+
+        /**
+         * Failed for some other reason.
+         */
+        ERROR;
+
+        /**
+         * Returns the outcome for the given failure.
+         */
+        public static Outcome of( Throwable failure) {
+            Throwable cause;
+            for( cause = failure;
+                 !(cause == null || cause instanceof StaleElementReferenceException);
+                 cause = cause.getCause());
+
+            return
+                cause != null?
+                STALE :
+
+                failure instanceof TimeoutException?
+                TIMEOUT :
+
+                ERROR;
+        }
+
+        public String toString() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final boolean available = isEventClassDefined();
+
+    /**
+     * Returns true if the base class for Flight Recorder events is defined.
+     */
+    private static boolean isEventClassDefined() {
+        try {
+            Class.forName( "jdk.jfr.Event");
+            return true;
+        }
+        catch( Throwable e) {
+            return false;
+        }
+    }
+}
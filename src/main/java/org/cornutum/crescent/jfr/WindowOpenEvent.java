@@ -0,0 +1,60 @@
+package org.cornutum.crescent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Records the opening of a new window by a {@link org.cornutum.crescent.page.WindowProducer WindowProducer}.
+ */
+@Name( "org.cornutum.crescent.WindowOpen")
+@Label( "Window Open")
+@Category( { "Crescent", "Window"})
+@Description( "Action that opens a new window and wait for the window to appear")
+@StackTrace( false)
+public class WindowOpenEvent extends Event {
+
+    @Label( "Page Class")
+    public Class<?> pageClass;
+
+    @Label( "Producer Class")
+    public Class<?> producerClass;
+
+    @Label( "Timeout")
+    @Timespan( Timespan.MILLISECONDS)
+    public long timeout;
+
+    @Label( "Polls")
+    public int polls;
+
+    @Label( "Outcome")
+    public String outcome;
+
+    /**
+     * Returns a new WindowOpenEvent that has begun timing.
+     */
+    public static WindowOpenEvent start( Class<?> pageClass, Class<?> producerClass, long timeout) {
+        WindowOpenEvent event = new WindowOpenEvent();
+        event.pageClass = pageClass;
+        event.producerClass = producerClass;
+        event.timeout = timeout;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Completes timing for this event and records it.
+     */
+    public void end( int polls, Recorder.Outcome outcome) {
+        end();
+        if( shouldCommit()) {
+            this.polls = polls;
+            this.outcome = String.valueOf( outcome);
+            commit();
+        }
+    }
+}
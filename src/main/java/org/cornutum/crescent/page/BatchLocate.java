@@ -0,0 +1,17 @@
+package org.cornutum.crescent.page;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that all single-element {@link Locate} accessors of a {@link Page} class are resolved by a {@link BatchLocator}
+ * in a single script request each time the page is {@link Page#visited visited}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface BatchLocate {
+}
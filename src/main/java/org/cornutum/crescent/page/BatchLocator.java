@@ -0,0 +1,112 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locates the first element for each of a table of named locators in a single script request.
+ * <P/>
+ * Each element found is a {@link LocatedElement}, so that a stale element is located again when used. A locator that
+ * can't be translated into a script, or that finds no element, is not resolved, and its accessor uses a {@link Finder}
+ * instead. If the WebDriver can't run the script, no locators are resolved.
+ * <P/>
+ * Each resolved element is returned only once. The first match for a locator can change after the page is visited,
+ * so any later request for the same locator uses a {@link Finder}, which finds the current first match.
+ * <P/>
+ * Only accessors for a single element are resolved in a batch. The elements found by an accessor for a list can change
+ * after the page is visited, so a list is always found using a {@link Finder}, which waits for the list to be stable.
+ */
+public class BatchLocator {
+
+    private final Map<String,By> locators;
+    private final Set<String> visible;
+    private final Map<String,WebElement> resolved = new ConcurrentHashMap<String,WebElement>();
+
+    /**
+     * Creates a new BatchLocator for the given named locators. Only visible elements are located for the given names.
+     */
+    public BatchLocator( Map<String,By> locators, Collection<String> visible) {
+        this.locators = locators;
+        this.visible = new HashSet<String>( visible);
+    }
+
+    /**
+     * Locates the first element for all locators on the given page.
+     */
+    public void resolve( Page<?> page) {
+        resolved.clear();
+
+        List<String> names = new ArrayList<String>();
+        StringBuilder script = new StringBuilder( "var found = [];");
+        for( Map.Entry<String,By> locator : locators.entrySet()) {
+            Optional<String> finderScript = ScriptLocator.toScript( locator.getValue());
+            Optional<String> conditionScript =
+                ScriptLocator.toScript( visible.contains( locator.getKey())? PageUtils.isVisible : PageUtils.always);
+
+            if( finderScript.isPresent() && conditionScript.isPresent()) {
+                names.add( locator.getKey());
+                script.append(
+                    String.format(
+                        " found.push( Array.prototype.filter.call( (%s)( document), %s)[0] || null);",
+                        finderScript.get(),
+                        conditionScript.get()));
+            }
+        }
+        script.append( " return found;");
+
+        if( !names.isEmpty() && page.getDriver() instanceof JavascriptExecutor) {
+            List<?> found;
+            try {
+                found = (List<?>) ((JavascriptExecutor) page.getDriver()).executeScript( script.toString());
+            }
+            catch( WebDriverException | ClassCastException e) {
+                // Can't resolve locators with a script, so use a Finder for each accessor instead.
+                found = null;
+            }
+
+            for( int i = 0; found != null && i < names.size() && i < found.size(); i++) {
+                String name = names.get(i);
+                Finder finder = visible.contains( name)? page.finder().when( PageUtils.isVisible) : page.finder();
+                if( found.get(i) instanceof WebElement) {
+                    resolved.put( name, new LocatedElement( finder, locators.get( name), 0, (WebElement) found.get(i)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first element resolved for the given locator, which is then no longer resolved. Returns
+     * <CODE>Optional.empty()</CODE> if this locator is not resolved.
+     */
+    public Optional<WebElement> getElement( String name) {
+        return Optional.ofNullable( resolved.remove( name));
+    }
+
+    /**
+     * Discards all resolved elements.
+     */
+    public void clear() {
+        resolved.clear();
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "locators", locators.size())
+            .append( "resolved", resolved.size())
+            .toString();
+    }
+}
@@ -0,0 +1,62 @@
+package org.cornutum.crescent.page;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Thrown when some links on a page are broken.
+ */
+public class BrokenLinksException extends PageException {
+
+    private List<LinkFailure> failures = new ArrayList<LinkFailure>();
+
+    private static final long serialVersionUID = 3377504919258105946L;
+
+    /**
+     * Creates a new BrokenLinksException with the given link failures.
+     */
+    public BrokenLinksException( Page<?> page, LinkFailure... failures) {
+        super( page);
+        Arrays.stream( failures).forEach( f -> addFailure( f));
+    }
+
+    /**
+     * Returns a new BrokenLinksException if the given list of failures is non-null and non-empty.
+     */
+    public static Optional<BrokenLinksException> of( Page<?> page, List<LinkFailure> failures) {
+        return
+            Optional.ofNullable
+            ( failures == null || failures.isEmpty()
+              ? null
+              : new BrokenLinksException( page, failures.toArray( new LinkFailure[0])));
+    }
+
+    /**
+     * Adds a link failure to this exception.
+     */
+    public void addFailure( LinkFailure failure) {
+        failures.add( failure);
+    }
+
+    /**
+     * Returns the link failures for this exception.
+     */
+    public List<LinkFailure> getFailures() {
+        return failures;
+    }
+
+    public String getMessage() {
+        StringBuilder msg = new StringBuilder();
+
+        msg.append( getPageSummary());
+        if( !getFailures().isEmpty()) {
+            msg.append( ": ").append( StringUtils.join( getFailures(), ", "));
+        }
+
+        return msg.toString();
+    }
+}
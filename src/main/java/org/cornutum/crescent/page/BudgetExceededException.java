@@ -0,0 +1,51 @@
+package org.cornutum.crescent.page;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Thrown when the {@link PageTiming} for a page exceeds its {@link PerformanceBudget}.
+ */
+public class BudgetExceededException extends PageException {
+
+    private PageTiming timing;
+
+    private static final long serialVersionUID = -2641358840374470207L;
+
+    /**
+     * Creates a new BudgetExceededException object.
+     */
+    public BudgetExceededException( Page<?> page, PageTiming timing) {
+        super( page);
+        setTiming( timing);
+    }
+
+    /**
+     * Changes the timing measurements that exceeded the budget.
+     */
+    public void setTiming( PageTiming timing) {
+        this.timing = timing;
+    }
+
+    /**
+     * Returns the timing measurements that exceeded the budget.
+     */
+    public PageTiming getTiming() {
+        return timing;
+    }
+
+    public String getMessage() {
+        StringBuilder msg = new StringBuilder();
+
+        msg
+            .append( getPageSummary())
+            .append( ", performance budget exceeded");
+
+        if( getTiming() != null) {
+            msg
+                .append( ": ")
+                .append( StringUtils.join( getTiming().getViolations(), ", "));
+        }
+    
+        return msg.toString();
+    }
+}
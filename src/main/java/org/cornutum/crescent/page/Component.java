@@ -5,6 +5,7 @@ import org.cornutum.crescent.util.ToString;
 import org.openqa.selenium.SearchContext;
 import org.openqa.selenium.WebElement;
 
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
@@ -15,6 +16,7 @@ public abstract class Component<P extends Page<?>> {
 
     private final P page;
     private final SearchContext container;
+    private final ComponentRow row;
     
     /**
      * Creates a new Component object.
@@ -27,8 +29,23 @@ public abstract class Component<P extends Page<?>> {
      * Creates a new Component object.
      */
     protected Component( P page, SearchContext container) {
+        this( page, container, null);
+    }
+
+    /**
+     * Creates a new Component object for a row located by a {@link ComponentFactory}.
+     */
+    protected Component( P page, ComponentRow row) {
+        this( page, row.getContainer(), row);
+    }
+
+    /**
+     * Creates a new Component object.
+     */
+    private Component( P page, SearchContext container, ComponentRow row) {
         this.page = page;
         this.container = container;
+        this.row = row;
     }
 
     /**
@@ -38,6 +55,25 @@ public abstract class Component<P extends Page<?>> {
         return page;
     }
 
+    /**
+     * Returns the row content for this component. Returns null if this component was not created by a {@link ComponentFactory}.
+     */
+    protected ComponentRow getRow() {
+        return row;
+    }
+
+    /**
+     * Returns the value of the given field of the row for this component.
+     *
+     * @see ComponentRow#getField
+     */
+    protected Optional<String> getField( String name) {
+        if( row == null) {
+            throw new IllegalStateException( "No row fields defined for " + this);
+        }
+        return row.getField( name);
+    }
+
     /**
      * Returns the Finder for this component.
      */
@@ -0,0 +1,311 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Creates a {@link Component} for each row of a list, using a single script request to fetch the fields declared for
+ * each row.
+ * <P/>
+ * A field is either the visible text of a row element, the value of an attribute of a row element, or the row
+ * element itself. A fetched value is the same as the value returned by {@link WebElement#getText getText} or
+ * {@link WebElement#getAttribute getAttribute}. Each row is given to the component constructor as a {@link ComponentRow},
+ * which provides the row container element and the fetched field values. A field is looked up in the row container only
+ * if it could not be fetched -- for example, if its locator can't be translated into a script.
+ * <P/>
+ * Rows are located by a {@link Finder}, which waits for the list of rows to be stable, and then the fields of all rows
+ * are fetched in a single script request. If the WebDriver can't run the script, all fields are looked up when requested.
+ */
+public class ComponentFactory<P extends Page<?>> {
+
+    private final P page;
+    private final By rowLocator;
+    private final Finder finder;
+    private final Map<String,Field> fields = new LinkedHashMap<String,Field>();
+
+    /**
+     * Creates a new ComponentFactory for the rows on the given page identified by the given locator.
+     */
+    public ComponentFactory( P page, By rowLocator) {
+        this.page = checkNotNull( page, "Page cannot be null");
+        this.rowLocator = checkNotNull( rowLocator, "Row locator cannot be null");
+        this.finder = page.finder();
+    }
+
+    /**
+     * Returns a new ComponentFactory for the rows on the given page identified by the given locator.
+     */
+    public static <P extends Page<?>> ComponentFactory<P> of( P page, By rowLocator) {
+        return new ComponentFactory<P>( page, rowLocator);
+    }
+
+    /**
+     * Locates rows starting from the given element.
+     */
+    public ComponentFactory<P> startingAt( WebElement root) {
+        finder.startingAt( root);
+        return this;
+    }
+
+    /**
+     * Locates only rows that satisfy the given condition.
+     */
+    public ComponentFactory<P> when( Predicate<WebElement> condition) {
+        finder.when( condition);
+        return this;
+    }
+
+    /**
+     * Declares a field that contains the visible text of the row element identified by the given locator. If the locator
+     * is null, the field contains the text of the row container.
+     */
+    public ComponentFactory<P> withText( String name, By locator) {
+        return withField( new Field( name, locator, FieldType.TEXT, null));
+    }
+
+    /**
+     * Declares a field that contains the given attribute of the row element identified by the given locator. If the locator
+     * is null, the field contains the attribute of the row container.
+     */
+    public ComponentFactory<P> withAttribute( String name, By locator, String attribute) {
+        return withField( new Field( name, locator, FieldType.ATTRIBUTE, checkNotNull( attribute, "Attribute cannot be null")));
+    }
+
+    /**
+     * Declares a field that contains the row element identified by the given locator.
+     */
+    public ComponentFactory<P> withElement( String name, By locator) {
+        return withField( new Field( name, checkNotNull( locator, "Element locator cannot be null"), FieldType.ELEMENT, null));
+    }
+
+    /**
+     * Returns a component for each row, created by the given constructor.
+     */
+    public <C extends Component<P>> List<C> create( BiFunction<P,ComponentRow,C> constructor) {
+        List<C> components = new ArrayList<C>();
+        for( ComponentRow row : getRows()) {
+            components.add( constructor.apply( page, row));
+        }
+        return components;
+    }
+
+    /**
+     * Returns the content of each row.
+     */
+    public List<ComponentRow> getRows() {
+        // Wait for the list of rows to be stable before fetching their fields.
+        List<ComponentRow> rows = new ArrayList<ComponentRow>();
+        for( WebElement container : finder.findElements( rowLocator)) {
+            rows.add( new ComponentRow( this, container));
+        }
+        fetchFields( rows);
+        return rows;
+    }
+
+    /**
+     * Returns the value of the given field for the given row, looked up in the row container.
+     */
+    Optional<Object> fetch( ComponentRow row, String name) {
+        Field field = getField( name);
+        Optional<WebElement> element = findFieldElement( row, field);
+        return
+            field.type == FieldType.ELEMENT
+            ? element.map( e -> (Object) e)
+
+            : field.type == FieldType.ATTRIBUTE
+            ? element.map( e -> e.getAttribute( field.attribute))
+
+            : element.map( WebElement::getText);
+    }
+
+    /**
+     * Returns if the given field contains a row element.
+     */
+    boolean isElementField( String name) {
+        return getField( name).type == FieldType.ELEMENT;
+    }
+
+    /**
+     * Returns the element for the given field of the given row, looked up in the row container.
+     */
+    Optional<WebElement> findFieldElement( ComponentRow row, String name) {
+        return findFieldElement( row, getField( name));
+    }
+
+    /**
+     * Fetches the field values for all of the given rows in a single script request. If the WebDriver can't run the
+     * script, no field values are fetched.
+     */
+    private void fetchFields( List<ComponentRow> rows) {
+        List<String> fetched = new ArrayList<String>();
+        StringBuilder fieldScripts = new StringBuilder();
+        for( Field field : fields.values()) {
+            Optional<String> fieldScript =
+                field.locator == null
+                ? Optional.of( "function( root) { return [ root]; }")
+                : ScriptLocator.toScript( field.locator);
+
+            if( fieldScript.isPresent()) {
+                String value =
+                    field.type == FieldType.ELEMENT
+                    ? "e"
+
+                    : field.type == FieldType.ATTRIBUTE
+                    ? String.format( "attribute( e, %s)", ScriptLocator.quote( field.attribute))
+
+                    : "text( e)";
+
+                fetched.add( field.name);
+                fieldScripts
+                    .append( fieldScripts.length() == 0? " " : ", ")
+                    .append( String.format( "function( row) { var e = (%s)( row)[0]; return e? %s : null; }", fieldScript.get(), value));
+            }
+        }
+
+        if( !rows.isEmpty() && !fetched.isEmpty() && page.getDriver() instanceof JavascriptExecutor) {
+            String script =
+                String.format(
+                    "var isVisible = %s;"
+                    + " var attribute = %s;"
+                    + " var text = function( e) { return isVisible( e)? (e.innerText || '').trim() : ''; };"
+                    + " var fields = [%s];"
+                    + " return Array.prototype.map.call( arguments[0], function( row) {"
+                    + " var values = [];"
+                    + " for( var i = 0; i < fields.length; i++) { values.push( fields[i]( row)); }"
+                    + " return values; });",
+                    ScriptLocator.toScript( PageUtils.isVisible).get(),
+                    ATTRIBUTE_SCRIPT,
+                    fieldScripts);
+
+            List<WebElement> containers = new ArrayList<WebElement>();
+            for( ComponentRow row : rows) {
+                containers.add( row.getContainer());
+            }
+
+            List<?> found;
+            try {
+                found = (List<?>) ((JavascriptExecutor) page.getDriver()).executeScript( script, containers);
+            }
+            catch( WebDriverException | ClassCastException e) {
+                // Can't fetch fields with a script, so look up each field when requested.
+                found = null;
+            }
+
+            for( int i = 0; found != null && i < found.size() && i < rows.size(); i++) {
+                ComponentRow row = rows.get(i);
+                List<?> values = (List<?>) found.get(i);
+                for( int f = 0; f < fetched.size() && f < values.size(); f++) {
+                    Object value = values.get(f);
+                    String name = fetched.get(f);
+                    row.setValue(
+                        name,
+                        value instanceof WebElement
+                        ? new LocatedElement( page.finder().startingAt( row.getContainer()), getField( name).locator, (WebElement) value)
+                        : value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the element for the given field of the given row, looked up in the row container.
+     */
+    private Optional<WebElement> findFieldElement( ComponentRow row, Field field) {
+        return
+            field.locator == null
+            ? Optional.of( row.getContainer())
+            : row.getContainer().findElements( field.locator).stream().findFirst();
+    }
+
+    /**
+     * Adds the given field declaration.
+     */
+    private ComponentFactory<P> withField( Field field) {
+        checkArgument( !fields.containsKey( field.name), "Field=%s already declared", field.name);
+        fields.put( field.name, field);
+        return this;
+    }
+
+    /**
+     * Returns the declaration of the given field.
+     */
+    private Field getField( String name) {
+        Field field = fields.get( name);
+        checkArgument( field != null, "Field=%s is not declared", name);
+        return field;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( rowLocator)
+            .append( "fields", fields.keySet())
+            .toString();
+    }
+
+    /**
+     * A function expression that, given an element and an attribute name, returns the same value as
+     * {@link WebElement#getAttribute WebElement.getAttribute}: the property value, if defined, instead of the raw
+     * attribute value; the absolute URI for a link or image; and "true" or null for a boolean attribute.
+     */
+    private static final String ATTRIBUTE_SCRIPT =
+        "function( e, name) {"
+        + " var lower = name.toLowerCase();"
+        + " var tag = e.tagName.toLowerCase();"
+        + " if( lower == 'style') { return e.style? e.style.cssText : e.getAttribute( name); }"
+        + " if( (lower == 'selected' || lower == 'checked')"
+        + " && (tag == 'option' || (tag == 'input' && (e.type == 'checkbox' || e.type == 'radio')))) {"
+        + " return (tag == 'option'? e.selected : e.checked)? 'true' : null; }"
+        + " if( (lower == 'href' && tag == 'a') || (lower == 'src' && tag == 'img')) {"
+        + " var link = e.getAttribute( lower); return link? e[lower] : link; }"
+        + " var property = lower == 'class'? 'className' : lower == 'readonly'? 'readOnly' : name;"
+        + " if( [ 'async', 'autofocus', 'autoplay', 'checked', 'compact', 'complete', 'controls', 'declare', 'default',"
+        + " 'defaultchecked', 'defaultselected', 'defer', 'disabled', 'ended', 'formnovalidate', 'hidden', 'indeterminate',"
+        + " 'iscontenteditable', 'ismap', 'itemscope', 'loop', 'multiple', 'muted', 'nohref', 'noresize', 'noshade',"
+        + " 'novalidate', 'nowrap', 'open', 'paused', 'pubdate', 'readonly', 'required', 'reversed', 'scoped', 'seamless',"
+        + " 'seeking', 'selected', 'truespeed', 'willvalidate'].indexOf( lower) >= 0) {"
+        + " return e.getAttribute( name) != null || e[property]? 'true' : null; }"
+        + " var value = e[property];"
+        + " if( value == null || typeof value == 'object' || typeof value == 'function') { value = e.getAttribute( name); }"
+        + " return value == null? null : String( value); }";
+
+    /**
+     * The types of row fields.
+     */
+    private enum FieldType { TEXT, ATTRIBUTE, ELEMENT }
+
+    /**
+     * Declares a row field.
+     */
+    private static class Field {
+        private final String name;
+        private final By locator;
+        private final FieldType type;
+        private final String attribute;
+
+        /**
+         * Creates a new Field object.
+         */
+        public Field( String name, By locator, FieldType type, String attribute) {
+            this.name = checkNotNull( name, "Field name cannot be null");
+            this.locator = locator;
+            this.type = type;
+            this.attribute = attribute;
+        }
+    }
+}
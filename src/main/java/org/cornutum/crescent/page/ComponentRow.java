@@ -0,0 +1,88 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.WebElement;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The content of a single row located by a {@link ComponentFactory}: the row container element and the value of each
+ * field declared by the factory.
+ * <P/>
+ * Fields are usually fetched for all rows in a single script request. A field that was not fetched is looked up in the
+ * row container when first requested.
+ */
+public class ComponentRow {
+
+    private final ComponentFactory<?> factory;
+    private final WebElement container;
+    private final Map<String,Optional<Object>> values = new ConcurrentHashMap<String,Optional<Object>>();
+
+    /**
+     * Creates a new ComponentRow object.
+     */
+    ComponentRow( ComponentFactory<?> factory, WebElement container) {
+        this.factory = factory;
+        this.container = container;
+    }
+
+    /**
+     * Returns the container element for this row.
+     */
+    public WebElement getContainer() {
+        return container;
+    }
+
+    /**
+     * Returns the value of the given field. For an element field, returns the visible text of the element.
+     * Returns <CODE>Optional.empty()</CODE> if the field element is not found in this row.
+     */
+    public Optional<String> getField( String name) {
+        return
+            factory.isElementField( name)
+            ? getElement( name).map( WebElement::getText)
+            : getValue( name).map( String::valueOf);
+    }
+
+    /**
+     * Returns the element for the given field. Returns <CODE>Optional.empty()</CODE> if the field element is not
+     * found in this row.
+     */
+    public Optional<WebElement> getElement( String name) {
+        return
+            factory.isElementField( name)
+            ? getValue( name).map( WebElement.class::cast)
+            : factory.findFieldElement( this, name);
+    }
+
+    /**
+     * Returns if the value of the given field has been fetched.
+     */
+    public boolean isFetched( String name) {
+        return values.containsKey( name);
+    }
+
+    /**
+     * Changes the fetched value of the given field.
+     */
+    void setValue( String name, Object value) {
+        values.put( name, Optional.ofNullable( value));
+    }
+
+    /**
+     * Returns the value of the given field, fetching it if necessary.
+     */
+    private Optional<Object> getValue( String name) {
+        return values.computeIfAbsent( name, field -> factory.fetch( this, field));
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "fetched", values.keySet())
+            .toString();
+    }
+}
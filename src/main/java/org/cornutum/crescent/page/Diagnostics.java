@@ -0,0 +1,344 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Captures diagnostic artifacts when a {@link PageException} occurs.
+ * <P/>
+ * When a {@link Site} has Diagnostics, each PageException {@link Site#captureDiagnostics reported} to the site captures a
+ * screenshot and the page source of the current window. Only these WebDriver requests occur on the thread that reports
+ * the failure. All files are written by a separate thread. Files are named by the SHA-256 digest of their content, so that identical artifacts are stored
+ * only once. Page sources are compressed. If the page source is identical to one seen recently, the screenshot
+ * captured with it is reused instead of requesting a new one. Each capture is also listed in an "index.txt" file.
+ */
+public class Diagnostics {
+
+    private final Path dir;
+    private final ExecutorService writer;
+    private final Map<String,CompletableFuture<Path>> screenshotsBySource;
+
+    /**
+     * Creates a new Diagnostics object that stores artifacts in the given directory.
+     */
+    public Diagnostics( Path dir) {
+        this.dir = dir;
+        this.writer =
+            Executors.newSingleThreadExecutor(
+                r -> {
+                    Thread thread = new Thread( r, "crescent-diagnostics");
+                    thread.setDaemon( true);
+                    return thread;
+                });
+        this.screenshotsBySource =
+            new LinkedHashMap<String,CompletableFuture<Path>>( 16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                protected boolean removeEldestEntry( Map.Entry<String,CompletableFuture<Path>> eldest) {
+                    return size() > 1000;
+                }
+            };
+    }
+
+    /**
+     * Returns the directory where artifacts are stored.
+     */
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * Captures diagnostic artifacts for the given failure, using the given WebDriver, unless already captured.
+     * Returns a future that completes when all artifacts for this failure have been stored.
+     */
+    public CompletableFuture<Artifacts> capture( WebDriver driver, PageException failure) {
+        if( failure.getDiagnostics() == null) {
+            failure.setDiagnostics( capture( driver, String.valueOf( failure.getPageSummary()), failure.getClass().getSimpleName()));
+        }
+        return failure.getDiagnostics();
+    }
+
+    /**
+     * Captures diagnostic artifacts for the current state of the given page.
+     * Returns a future that completes when all artifacts have been stored.
+     */
+    public CompletableFuture<Artifacts> capture( Page<?> page, String reason) {
+        return capture( page.getDriver(), String.valueOf( page), reason);
+    }
+
+    /**
+     * Captures diagnostic artifacts for the current state of the given WebDriver, which shows the given page.
+     * Returns a future that completes when all artifacts have been stored.
+     */
+    private CompletableFuture<Artifacts> capture( WebDriver driver, String description, String reason) {
+        CompletableFuture<Artifacts> artifacts;
+        try {
+            String source = driver.getPageSource();
+            byte[] sourceBytes = source == null? new byte[0] : source.getBytes( StandardCharsets.UTF_8);
+            String sourceDigest = digest( sourceBytes);
+
+            CompletableFuture<Path> screenshot;
+            synchronized( screenshotsBySource) {
+                screenshot = screenshotsBySource.get( sourceDigest);
+            }
+            if( screenshot == null) {
+                String screenshotBase64 =
+                    driver instanceof TakesScreenshot
+                    ? ((TakesScreenshot) driver).getScreenshotAs( OutputType.BASE64)
+                    : null;
+                screenshot =
+                    screenshotBase64 == null
+                    ? CompletableFuture.completedFuture( null)
+                    : CompletableFuture.supplyAsync( () -> storeScreenshot( screenshotBase64), writer);
+
+                synchronized( screenshotsBySource) {
+                    screenshotsBySource.put( sourceDigest, screenshot);
+                }
+            }
+
+            CompletableFuture<Path> sourceFile = CompletableFuture.supplyAsync( () -> storeSource( sourceDigest, sourceBytes), writer);
+            artifacts =
+                screenshot.thenCombineAsync(
+                    sourceFile,
+                    (screenshotPath, sourcePath) -> index( new Artifacts( reason, description, screenshotPath, sourcePath)),
+                    writer);
+        }
+        catch( Exception e) {
+            artifacts = new CompletableFuture<Artifacts>();
+            artifacts.completeExceptionally( e);
+        }
+
+        return artifacts;
+    }
+
+    /**
+     * Waits until all artifacts captured so far have been stored.
+     */
+    public void flush() {
+        try {
+            writer.submit( () -> null).get();
+        }
+        catch( Exception e) {
+            throw new IllegalStateException( "Can't flush diagnostics", e);
+        }
+    }
+
+    /**
+     * Stores all artifacts captured so far and stops capturing artifacts.
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination( 1, TimeUnit.MINUTES);
+        }
+        catch( InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stores the given base64-encoded screenshot and returns its file.
+     */
+    private Path storeScreenshot( String base64) {
+        try( InputStream png = Base64.getMimeDecoder().wrap( new ByteArrayInputStream( base64.getBytes( StandardCharsets.US_ASCII)))) {
+            Files.createDirectories( dir);
+            Path temp = Files.createTempFile( dir, "screenshot", ".tmp");
+            MessageDigest digest = newDigest();
+            try( OutputStream out = new DigestOutputStream( Files.newOutputStream( temp), digest)) {
+                byte[] buffer = new byte[8192];
+                for( int n; (n = png.read( buffer)) > 0; out.write( buffer, 0, n));
+            }
+
+            return moveToStore( temp, toHex( digest.digest()) + ".png");
+        }
+        catch( IOException e) {
+            throw new UncheckedIOException( "Can't store screenshot", e);
+        }
+    }
+
+    /**
+     * Stores the given page source and returns its file.
+     */
+    private Path storeSource( String digest, byte[] source) {
+        try {
+            Files.createDirectories( dir);
+            Path file = dir.resolve( digest + ".html.gz");
+            if( !Files.exists( file)) {
+                Path temp = Files.createTempFile( dir, "source", ".tmp");
+                try( OutputStream out = new GZIPOutputStream( Files.newOutputStream( temp))) {
+                    out.write( source);
+                }
+                moveToStore( temp, file.getFileName().toString());
+            }
+            return file;
+        }
+        catch( IOException e) {
+            throw new UncheckedIOException( "Can't store page source", e);
+        }
+    }
+
+    /**
+     * Moves the given temporary file to the given name in the store, unless already stored.
+     */
+    private Path moveToStore( Path temp, String name) throws IOException {
+        Path file = dir.resolve( name);
+        if( Files.exists( file)) {
+            Files.delete( temp);
+        }
+        else {
+            Files.move( temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /**
+     * Adds the given artifacts to the index for this store.
+     */
+    private Artifacts index( Artifacts artifacts) {
+        try {
+            Files.write(
+                dir.resolve( "index.txt"),
+                String.format(
+                    "%s\t%s\t%s\t%s\t%s%n",
+                    artifacts.getTime(),
+                    artifacts.getReason(),
+                    artifacts.getPage(),
+                    artifacts.getScreenshot() == null? "-" : artifacts.getScreenshot().getFileName(),
+                    artifacts.getPageSource().getFileName())
+                .getBytes( StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+            return artifacts;
+        }
+        catch( IOException e) {
+            throw new UncheckedIOException( "Can't update diagnostics index", e);
+        }
+    }
+
+    /**
+     * Returns the SHA-256 digest of the given bytes as a hex string.
+     */
+    private static String digest( byte[] bytes) {
+        return toHex( newDigest().digest( bytes));
+    }
+
+    /**
+     * Returns a new SHA-256 digest.
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance( "SHA-256");
+        }
+        catch( NoSuchAlgorithmException e) {
+            throw new IllegalStateException( "SHA-256 not supported", e);
+        }
+    }
+
+    /**
+     * Returns the given bytes as a hex string.
+     */
+    private static String toHex( byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for( byte b : bytes) {
+            hex.append( String.format( "%02x", b));
+        }
+        return hex.toString();
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getDir())
+            .toString();
+    }
+
+    /**
+     * Describes the diagnostic artifacts stored for a failure.
+     */
+    public static class Artifacts {
+        private final long time;
+        private final String reason;
+        private final String page;
+        private final Path screenshot;
+        private final Path pageSource;
+
+        /**
+         * Creates a new Artifacts object.
+         */
+        public Artifacts( String reason, String page, Path screenshot, Path pageSource) {
+            this.time = System.currentTimeMillis();
+            this.reason = reason;
+            this.page = page;
+            this.screenshot = screenshot;
+            this.pageSource = pageSource;
+        }
+
+        /**
+         * Returns the time these artifacts were stored.
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Returns the reason these artifacts were captured.
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * Returns a description of the page where these artifacts were captured.
+         */
+        public String getPage() {
+            return page;
+        }
+
+        /**
+         * Returns the screenshot file. Returns null if no screenshot was available.
+         */
+        public Path getScreenshot() {
+            return screenshot;
+        }
+
+        /**
+         * Returns the compressed page source file.
+         */
+        public Path getPageSource() {
+            return pageSource;
+        }
+
+        public String toString() {
+            return
+                ToString.getBuilder( this)
+                .append( getReason())
+                .append( getScreenshot())
+                .append( getPageSource())
+                .toString();
+        }
+    }
+}
@@ -18,8 +18,14 @@ public abstract class ElementAction<P extends Page<?>,T> extends PageAction<P,T>
      * Activates the given element.
      */
     protected void activate( WebElement element) {
-        // By default, activate by clicking.
-        element.click();
+        // By default, activate by clicking...
+        if( getLocator() != null && getSource().getSite().isFusedActions()) {
+            // ... locating and clicking the element in a single step.
+            getFinder().click( getLocator());
+        }
+        else {
+            element.click();
+        }
     }
 
     /**
@@ -27,6 +33,10 @@ public abstract class ElementAction<P extends Page<?>,T> extends PageAction<P,T>
      */
     protected T perform( P page, WebElement element) {
         activate( element);
+
+        // Activation may open or close windows or change the current location.
+        page.getWindowTracker().invalidate();
+
         return fromSource( page);
     }
 
@@ -36,7 +36,7 @@ public class ElementMissingException extends PageException {
     public String getMessage() {
         return
             new StringBuilder()
-            .append( getPage())
+            .append( getPageSummary())
             .append( ", can't find element at locator=")
             .append( getLocator())
             .toString();
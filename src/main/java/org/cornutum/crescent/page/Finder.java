@@ -1,23 +1,41 @@
 package org.cornutum.crescent.page;
 
+import org.cornutum.crescent.jfr.FinderEvent;
+import org.cornutum.crescent.jfr.Recorder;
 import org.cornutum.crescent.util.ToString;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.SearchContext;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.UnsupportedCommandException;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.Clock;
 import org.openqa.selenium.support.ui.FluentWait;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import static java.util.stream.Collectors.toList;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Searches for page elements with a specified timeout.
  */
@@ -30,6 +48,11 @@ public class Finder {
     private long minStable;
     private Predicate<WebElement> condition;
 
+    /**
+     * The default number of elements fetched by each request for a {@link #stream stream}.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
     /**
      * Creates a new Finder object.
      */
@@ -60,12 +83,7 @@ public class Finder {
      * Returns the element identified by the given locator. Throws an {@link ElementMissingException} if not found.
      */
     public WebElement findElement( final By locator) {
-        try {
-            return find( new AnyElement( locator, getCondition()));
-        }
-        catch( TimeoutException te) {
-            throw new ElementMissingException( getPage(), locator);
-        }
+        return new LocatedElement( this, locator, locate( locator));
     }
 
     /**
@@ -81,9 +99,9 @@ public class Finder {
     public Optional<WebElement> findOptionalElement( By locator) {
         WebElement found;
         try {
-            found = findElement( locator);
+            found = new LocatedElement( this, locator, find( locator, new AnyElement( locator, getCondition())));
         }
-        catch( ElementMissingException ignored) {
+        catch( TimeoutException ignored) {
             found = null;
         }
 
@@ -95,15 +113,101 @@ public class Finder {
      */
     public List<WebElement> findElements( By locator) {
         List<WebElement> found;
-        AllElements allElements = new AllElements( locator, getCondition(), getRequestWait( getMinStable()));
+        AllElements allElements = new AllElements( locator, getCondition(), getRequestWait( getMinStable()), getPollScheduler().getClock(), getIdleCheck());
         try {
-            found = find( allElements);
+            found = find( locator, allElements);
         }
         catch( TimeoutException te) {
             found = allElements.getFound();
         }
 
-        return found;
+        List<WebElement> located = new ArrayList<WebElement>( found.size());
+        for( int i = 0; i < found.size(); i++) {
+            located.add( new LocatedElement( this, locator, i, found.get( i)));
+        }
+
+        return located;
+    }
+
+    /**
+     * Returns a lazy stream of the elements identified by the given locator, fetched {@link #DEFAULT_PAGE_SIZE}
+     * elements at a time.
+     */
+    public Stream<WebElement> stream( By locator) {
+        return stream( locator, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Returns a lazy stream of the elements identified by the given locator, fetched the given number of elements at a time.
+     * <P/>
+     * Use a stream for lists that are too long to fetch at once, or that load more content when scrolled, such as
+     * virtualized or "infinite scroll" lists. When possible, each page of elements is fetched by a single script
+     * request. When all elements currently found have been streamed, the last element is scrolled into view to load
+     * more, and the stream waits for new elements to appear. The stream ends when no new elements appear within the
+     * {@link #getMinStable minimum stability} interval -- or, for the first page, within the {@link #getTimeout timeout}
+     * interval. Elements already streamed are not repeated, even if they remain in the list after scrolling.
+     * <P/>
+     * Only one page of elements is held at a time, and no elements are fetched until needed. So a stream is processed
+     * efficiently by operations like {@link Stream#filter filter}, {@link Stream#map map}, or {@link Stream#limit limit}.
+     * Because a list may change as it is scrolled, an element streamed is not {@link LocatedElement relocated} when stale.
+     * <P/>
+     * If the elements can't be fetched by a script, the stream contains the result of {@link #findElements findElements}.
+     */
+    public Stream<WebElement> stream( By locator, int pageSize) {
+        checkArgument( pageSize > 0, "Page size must be greater than 0");
+        return
+            StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                    new PagedElements( locator, pageSize),
+                    Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    /**
+     * Returns the element identified by the given locator, without waiting for
+     * {@link LocatedElement relocation}. Throws an {@link ElementMissingException} if not found.
+     */
+    WebElement locate( By locator) {
+        try {
+            return find( locator, new AnyElement( locator, getCondition()));
+        }
+        catch( TimeoutException te) {
+            throw new ElementMissingException( getPage(), locator);
+        }
+    }
+
+    /**
+     * Returns the element at the given position in the list of elements identified by the given locator, without waiting for
+     * {@link LocatedElement relocation}. Throws an {@link ElementMissingException} if not found.
+     */
+    WebElement locate( By locator, int index) {
+        try {
+            return
+                find(
+                    locator,
+                    root -> {
+                        List<WebElement> found =
+                            root.findElements( locator)
+                            .stream()
+                            .filter( getCondition())
+                            .collect( toList());
+
+                        return found.size() > index? found.get( index) : null;
+                    });
+        }
+        catch( TimeoutException te) {
+            throw new ElementMissingException( getPage(), locator);
+        }
+    }
+
+    /**
+     * Returns a new Finder that {@link LocatedElement#relocate relocates} elements found by this Finder.
+     */
+    Finder relocator() {
+        Finder relocator = new Finder( getPage());
+        relocator.setRoot( getRoot());
+        relocator.setCondition( getCondition());
+        return relocator;
     }
 
     /**
@@ -118,21 +222,177 @@ public class Finder {
      */
     public void awaitNoElements( By locator) {
         try {
-            find( new NoElements( locator, getCondition(), getRequestWait( getMinStable())));
+            find( locator, new NoElements( locator, getCondition(), getRequestWait( getMinStable()), getPollScheduler().getClock(), getIdleCheck()));
         }
         catch( TimeoutException te) {
             throw new InvalidStateException( getPage(), "Matching elements still found for locator=" + locator);
         }
     }
 
+    /**
+     * Clicks the element identified by the given locator. Throws an {@link ElementMissingException} if not found.
+     * <P/>
+     * When possible, the element is located, checked for the {@link #getCondition expected condition}, and clicked
+     * in a single script request for each poll. As for a WebDriver click, the element must be displayed and enabled;
+     * until it is, the request is repeated at the next poll. (But note that such a click does not simulate any pointer
+     * movement.) Otherwise, the element is located and clicked during the same poll, so that a stale element is
+     * simply located again at the next poll.
+     */
+    public void click( By locator) {
+        act( locator, "e.click(); return true;", e -> e.click());
+    }
+
+    /**
+     * Replaces the content of the text element identified by the given locator. Throws an {@link ElementMissingException} if not found.
+     * <P/>
+     * When possible, the element is located, checked for the {@link #getCondition expected condition}, and changed
+     * in a single script request for each poll. The element must be displayed, enabled, and not read-only; until it is,
+     * the request is repeated at the next poll. The value is changed using the native value setter of the element, so that
+     * frameworks that track the value of an input, such as React, see the change. (But note that such a change generates
+     * "input" and "change" events but does not simulate any keyboard events.) Otherwise, the element is located and
+     * changed during the same poll, so that a stale element is simply located again at the next poll.
+     */
+    public void type( By locator, String text) {
+        act(
+            locator,
+            "if( e.readOnly) { return false; }"
+            + " var proto = e instanceof HTMLTextAreaElement? HTMLTextAreaElement.prototype : HTMLInputElement.prototype;"
+            + " var setter = Object.getOwnPropertyDescriptor( proto, 'value').set;"
+            + " e.focus(); setter.call( e, arg == null? '' : arg);"
+            + " e.dispatchEvent( new Event( 'input', {bubbles: true}));"
+            + " e.dispatchEvent( new Event( 'change', {bubbles: true}));"
+            + " return true;",
+            e -> PageUtils.enterText( e, text),
+            text);
+    }
+
+    /**
+     * Selects the option with the given value in the select element identified by the given locator.
+     * Throws an {@link ElementMissingException} if the element or the option is not found.
+     * <P/>
+     * When possible, the element is located, checked for the {@link #getCondition expected condition}, and changed
+     * in a single script request for each poll. The element must be displayed and enabled; until it is, the request is
+     * repeated at the next poll. Otherwise, the element is located and changed during the same poll, so that a stale
+     * element is simply located again at the next poll.
+     */
+    public void select( By locator, String value) {
+        act(
+            locator,
+            "var found = false;"
+            + " for( var i = 0; i < e.options.length; i++) {"
+            + " var selected = arg != null && e.options[i].value == arg;"
+            + " found = found || selected;"
+            + " if( selected || !e.multiple) { e.options[i].selected = selected; } }"
+            + " if( !found && arg != null) { return false; }"
+            + " e.dispatchEvent( new Event( 'change', {bubbles: true}));"
+            + " return true;",
+            e -> PageUtils.setSelectedValue( e, value),
+            value);
+    }
+
+    /**
+     * Performs an action on the element identified by the given locator, using the given script when possible.
+     * The script body refers to the element as <CODE>e</CODE> and to the given argument as <CODE>arg</CODE>. It must
+     * return true if the action is complete and false if the element is not ready.
+     */
+    private void act( By locator, String actionScript, Consumer<WebElement> action) {
+        act( locator, actionScript, action, null);
+    }
+
+    /**
+     * Performs an action on the element identified by the given locator, using the given script when possible.
+     * The script body refers to the element as <CODE>e</CODE> and to the given argument as <CODE>arg</CODE>. It must
+     * return true if the action is complete and false if the element is not ready. The script runs only if the element
+     * is displayed and enabled.
+     */
+    private void act( By locator, String actionScript, Consumer<WebElement> action, String arg) {
+        Optional<String> finderScript = ScriptLocator.toScript( locator);
+        Optional<String> conditionScript = ScriptLocator.toScript( getCondition());
+        Optional<String> displayedScript = ScriptLocator.toScript( PageUtils.isVisible);
+        final AnyElement anyElement = new AnyElement( locator, getCondition());
+        final Function<SearchContext,Boolean> elementActor =
+            r -> {
+                WebElement found = anyElement.apply( r);
+                if( found != null) {
+                    action.accept( found);
+                }
+                return found == null? null : Boolean.TRUE;
+            };
+        Function<SearchContext,Boolean> actor;
+
+        if( getPage().getDriver() instanceof JavascriptExecutor
+            && finderScript.isPresent()
+            && conditionScript.isPresent()
+            && displayedScript.isPresent()) {
+            final JavascriptExecutor executor = (JavascriptExecutor) getPage().getDriver();
+            final String script =
+                String.format(
+                    "var root = arguments[0] || document; var arg = arguments[1];"
+                    + " var found = (%s)( root);"
+                    + " var test = %s;"
+                    + " var displayed = %s;"
+                    + " var act = function( e) { %s };"
+                    + " return found.length > 0 && test( found[0]) && displayed( found[0]) && !found[0].disabled && act( found[0]);",
+                    finderScript.get(),
+                    conditionScript.get(),
+                    displayedScript.get(),
+                    actionScript);
+            final Object root = getRoot() instanceof WebElement? getRoot() : null;
+            final boolean[] scriptUnsupported = new boolean[]{ false };
+
+            actor = r -> {
+                if( !scriptUnsupported[0]) {
+                    try {
+                        return Boolean.TRUE.equals( executor.executeScript( script, root, arg))? Boolean.TRUE : null;
+                    }
+                    catch( UnsupportedCommandException e) {
+                        // This driver can't run the script, so find the element and act on it instead.
+                        scriptUnsupported[0] = true;
+                    }
+                }
+                return elementActor.apply( r);
+            };
+        }
+        else {
+            actor = elementActor;
+        }
+
+        try {
+            find( locator, actor);
+        }
+        catch( TimeoutException te) {
+            throw new ElementMissingException( getPage(), locator);
+        }
+    }
+
     /**
      * Returns the results of the given finder function. Throws TimeoutException if not found.
      */
-    private <V> V find( Function<SearchContext,V> finder) {
-        return
+    private <V> V find( By locator, Function<SearchContext,V> finder) {
+        FluentWait<SearchContext> wait =
             getWait()
-            .ignoring( NoSuchElementException.class, StaleElementReferenceException.class)
-            .until( finder);
+            .ignoring( NoSuchElementException.class, StaleElementReferenceException.class);
+
+        if( !Recorder.isAvailable()) {
+            return wait.until( finder);
+        }
+
+        int[] polls = new int[]{ 0};
+        FinderEvent event = FinderEvent.start( getPage().getClass(), String.valueOf( locator), getRequestWait( getTimeout()));
+        try {
+            V found =
+                wait.until(
+                    root -> {
+                        polls[0]++;
+                        return finder.apply( root);
+                    });
+            event.end( polls[0], Recorder.Outcome.FOUND);
+            return found;
+        }
+        catch( RuntimeException e) {
+            event.end( polls[0], Recorder.Outcome.of( e));
+            throw e;
+        }
     }
 
     /**
@@ -295,12 +555,33 @@ public class Finder {
         return getPage().getSite().getRequestWait( interval);
     }
 
+    /**
+     * Returns the {@link PollScheduler} used to wait for elements.
+     */
+    private PollScheduler getPollScheduler() {
+        return getPage().getSite().getPollScheduler();
+    }
+
+    /**
+     * Returns a check that reports if the app is idle, using the {@link Site#getIdleDetectors idle detectors} for this site.
+     * The check returns <CODE>Optional.empty()</CODE> if idleness can't be detected.
+     */
+    private Supplier<Optional<Boolean>> getIdleCheck() {
+        List<IdleDetector> detectors = getPage().getSite().getIdleDetectors();
+        if( detectors.isEmpty()) {
+            return () -> Optional.empty();
+        }
+
+        String script = IdleDetector.getScript( detectors);
+        return () -> IdleDetector.isIdle( getPage().getDriver(), script);
+    }
+
     /**
      * Using the wait controls defined by this finder, returns a generic interface to await results from the given source object.
      */
     public <T> FluentWait<T> await( T source) {
         return
-            new FluentWait<T>( source)
+            new FluentWait<T>( source, WindowScheduler.yielding( getPollScheduler().getClock()), WindowScheduler.yielding( getPollScheduler().getSleeper()))
             .pollingEvery( getRequestWait( getInterval()), TimeUnit.MILLISECONDS)
             .withTimeout( getRequestWait( getTimeout()), TimeUnit.MILLISECONDS);
     }
@@ -322,6 +603,129 @@ public class Finder {
             .toString();
     }
 
+
+    /**
+     * Returns all matching elements, one page at a time.
+     */
+    private class PagedElements implements Iterator<WebElement> {
+
+        private final By locator;
+        private final int pageSize;
+        private final String streamId;
+        private final Optional<String> script;
+        private final Deque<WebElement> page;
+        private int start;
+        private boolean started;
+        private boolean done;
+
+        /**
+         * Creates a new PagedElements object.
+         */
+        public PagedElements( By locator, int pageSize) {
+            this.locator = locator;
+            this.pageSize = pageSize;
+            this.streamId = UUID.randomUUID().toString();
+            this.page = new ArrayDeque<WebElement>( pageSize);
+
+            // Each element streamed is marked with the stream id and its current text, so that it is not streamed again
+            // unless its content changes -- for example, when the element is reused to show a different row of a
+            // virtualized list. The search for unmarked elements begins where the previous page ended.
+            Optional<String> finderScript = ScriptLocator.toScript( locator);
+            Optional<String> conditionScript = ScriptLocator.toScript( getCondition());
+            this.script =
+                getPage().getDriver() instanceof JavascriptExecutor && finderScript.isPresent() && conditionScript.isPresent()
+                ? Optional.of(
+                    String.format(
+                        "var root = arguments[0] || document; var stream = arguments[1]; var start = arguments[2]; var size = arguments[3];"
+                        + " var found = Array.prototype.filter.call( (%s)( root), %s);"
+                        + " var page = [], next = start = Math.min( start, found.length);"
+                        + " var take = function( i) {"
+                        + " var e = found[i], text = e.textContent;"
+                        + " if( e.crescentStream !== stream || e.crescentStreamText !== text) {"
+                        + " e.crescentStream = stream; e.crescentStreamText = text; page.push( e); next = i + 1; } };"
+                        + " for( var i = start; i < found.length && page.length < size; i++) { take( i); }"
+                        + " for( var i = 0; i < start && page.length < size; i++) { take( i); }"
+                        + " if( page.length == 0 && found.length > 0) { found[ found.length - 1].scrollIntoView( false); }"
+                        + " return [ page, next];",
+                        finderScript.get(),
+                        conditionScript.get()))
+                : Optional.empty();
+        }
+
+        public boolean hasNext() {
+            if( page.isEmpty() && !done) {
+                nextPage();
+            }
+            return !page.isEmpty();
+        }
+
+        public WebElement next() {
+            if( !hasNext()) {
+                throw new java.util.NoSuchElementException();
+            }
+            return page.removeFirst();
+        }
+
+        /**
+         * Fetches the next page of elements, waiting for more elements to appear if necessary.
+         */
+        private void nextPage() {
+            List<?> found;
+            if( !script.isPresent()) {
+                found = null;
+            }
+            else {
+                try {
+                    found =
+                        await( getRoot())
+                        .withTimeout( getRequestWait( started? getMinStable() : getTimeout()), TimeUnit.MILLISECONDS)
+                        .ignoring( StaleElementReferenceException.class)
+                        .until( root -> {
+                                List<?> fetched = fetchPage();
+                                return fetched.isEmpty()? null : fetched;
+                            });
+                }
+                catch( TimeoutException te) {
+                    found = Collections.emptyList();
+                }
+                catch( UnsupportedCommandException e) {
+                    // This driver can't run the script, so find all elements instead.
+                    found = started? Collections.emptyList() : null;
+                }
+            }
+
+            if( found == null) {
+                page.addAll( findElements( locator));
+                done = true;
+            }
+            else if( found.isEmpty()) {
+                done = true;
+            }
+            else {
+                for( Object element : found) {
+                    page.add( (WebElement) element);
+                }
+            }
+
+            started = true;
+        }
+
+        /**
+         * Returns the next page of elements found.
+         */
+        private List<?> fetchPage() {
+            Object root = getRoot() instanceof WebElement? getRoot() : null;
+            Object fetched = ((JavascriptExecutor) getPage().getDriver()).executeScript( script.get(), root, streamId, start, pageSize);
+
+            List<?> results = fetched instanceof List? (List<?>) fetched : Collections.emptyList();
+            List<?> elements = results.size() == 2 && results.get(0) instanceof List? (List<?>) results.get(0) : Collections.emptyList();
+            if( !elements.isEmpty()) {
+                start = ((Number) results.get(1)).intValue();
+            }
+            return elements;
+        }
+    }
+
     /**
      * Returns any matching element.
      */
@@ -352,6 +756,8 @@ public class Finder {
         private final By locator;
         private final Predicate<WebElement> condition;
         private final long stableMin;
+        private final Clock clock;
+        private final Supplier<Optional<Boolean>> idleCheck;
         private int matches;
         private long stableStart;
         private List<WebElement> found = Collections.emptyList();
@@ -359,16 +765,18 @@ public class Finder {
         /**
          * Creates a new AllElements object.
          */
-        public AllElements( By locator, Predicate<WebElement> condition, long stableMin) {
+        public AllElements( By locator, Predicate<WebElement> condition, long stableMin, Clock clock, Supplier<Optional<Boolean>> idleCheck) {
             this.locator = locator;
             this.condition = condition;
             this.stableMin = stableMin;
+            this.clock = clock;
+            this.idleCheck = idleCheck;
             this.matches = 0;
             this.stableStart = 0;
         }
 
         public List<WebElement> apply( SearchContext root) {
-            long findTime = System.currentTimeMillis();
+            long findTime = clock.now();
 
             found =
                 root.findElements( locator)
@@ -388,10 +796,17 @@ public class Finder {
                 }
             }
 
+            // Found some matches? If so, is the app known to be idle or busy?
+            Optional<Boolean> idle = matches > 0? idleCheck.get() : Optional.empty();
+            if( idle.isPresent() && !idle.get()) {
+                // Busy, so resume waiting for matches to stabilize after the app is idle.
+                stableStart = findTime;
+            }
+
             // Keep looking for matches until we've found at least some matches and
-            // the number of matches has stabilized.
+            // either the app is idle or the number of matches has stabilized.
             return
-                stableStart > 0 && (findTime - stableStart) >= stableMin
+                idle.orElse( false) || (stableStart > 0 && (findTime - stableStart) >= stableMin)
                 ? found
                 : null;
         }
@@ -409,23 +824,27 @@ public class Finder {
         private final By locator;
         private final Predicate<WebElement> condition;
         private final long stableMin;
+        private final Clock clock;
+        private final Supplier<Optional<Boolean>> idleCheck;
         private long stableStart;
         private boolean found;
         
         /**
          * Creates a new NoElements object.
          */
-        public NoElements( By locator, Predicate<WebElement> condition, long stableMin) {
+        public NoElements( By locator, Predicate<WebElement> condition, long stableMin, Clock clock, Supplier<Optional<Boolean>> idleCheck) {
             this.locator = locator;
             this.condition = condition;
             this.stableMin = stableMin;
+            this.clock = clock;
+            this.idleCheck = idleCheck;
             this.stableStart = 0;
             this.found = true;
         }
 
         public Boolean apply( SearchContext root) {
             boolean prevFound = found;
-            long findTime = System.currentTimeMillis();
+            long findTime = clock.now();
 
             found =
                 root.findElements( locator)
@@ -444,9 +863,16 @@ public class Finder {
                     : findTime;
             }
 
+            // Found no matches? If so, is the app known to be idle or busy?
+            Optional<Boolean> idle = found? Optional.empty() : idleCheck.get();
+            if( idle.isPresent() && !idle.get()) {
+                // Busy, so resume waiting for this to stabilize after the app is idle.
+                stableStart = findTime;
+            }
+
             // Keep looking for matches until we've found no matches and
-            // the number of matches has stabilized.
-            return stableStart > 0 && (findTime - stableStart) >= stableMin;
+            // either the app is idle or the number of matches has stabilized.
+            return !found && (idle.orElse( false) || (stableStart > 0 && (findTime - stableStart) >= stableMin));
         }
     }
 }
@@ -0,0 +1,160 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reports if the app is idle, so that a {@link Finder} can stop waiting for elements to stabilize as soon as the
+ * app has no more work in progress.
+ * <P/>
+ * An IdleDetector is defined by a JavaScript expression that is true if the app is idle, false if the app is busy,
+ * and null or undefined if this detector doesn't apply to the app. All {@link Site#addIdleDetector detectors for a site}
+ * are checked in a single script request. The app is idle only if no detector reports that it is busy and at least one
+ * detector applies.
+ */
+public class IdleDetector {
+
+    private final String description;
+    private final String expression;
+
+    /**
+     * Returns an IdleDetector that is satisfied when no fetch or XMLHttpRequest requests are in progress.
+     * <P/>
+     * Requests are counted by wrapping <CODE>window.fetch</CODE> and <CODE>XMLHttpRequest.send</CODE> when the page is
+     * first checked. Requests already in progress at that time are not counted, so this detector doesn't apply until
+     * the wrappers have seen a complete request -- until then, it reports busy only while a wrapped request is in progress.
+     * A request is complete only after any tasks run by its response handlers.
+     */
+    public static IdleDetector requests() {
+        return
+            new IdleDetector(
+                "requests",
+                "(function() {"
+                + " var w = window;"
+                + " if( w.crescentPending === undefined) {"
+                + " w.crescentPending = 0;"
+                + " w.crescentCompleted = 0;"
+                + " var done = function() { setTimeout( function() { w.crescentPending--; w.crescentCompleted++; }, 0); };"
+                + " if( w.fetch) {"
+                + " var fetch = w.fetch;"
+                + " w.fetch = function() {"
+                + " w.crescentPending++;"
+                + " var p; try { p = fetch.apply( w, arguments); } catch( e) { done(); throw e; }"
+                + " p.then( done, done); return p; }; }"
+                + " if( w.XMLHttpRequest) {"
+                + " var send = w.XMLHttpRequest.prototype.send;"
+                + " w.XMLHttpRequest.prototype.send = function() {"
+                + " w.crescentPending++; this.addEventListener( 'loadend', done);"
+                + " try { return send.apply( this, arguments); } catch( e) { this.removeEventListener( 'loadend', done); done(); throw e; } }; }"
+                + " return null; }"
+                + " return w.crescentPending > 0? false : w.crescentCompleted > 0? true : null; })()");
+    }
+
+    /**
+     * Returns an IdleDetector that is satisfied when no jQuery AJAX requests are in progress.
+     */
+    public static IdleDetector jQuery() {
+        return
+            new IdleDetector(
+                "jQuery",
+                "(window.jQuery && window.jQuery.active !== undefined? window.jQuery.active == 0 : null)");
+    }
+
+    /**
+     * Returns an IdleDetector that is satisfied when all Angular apps are stable or, for AngularJS,
+     * when no <CODE>$http</CODE> requests are pending.
+     */
+    public static IdleDetector angular() {
+        return
+            new IdleDetector(
+                "angular",
+                "(function() {"
+                + " if( window.getAllAngularTestabilities) {"
+                + " return window.getAllAngularTestabilities().every( function( t) { return t.isStable(); }); }"
+                + " if( window.angular && window.angular.element) {"
+                + " var injector = window.angular.element( document.querySelector( '[ng-app],.ng-scope') || document.body).injector();"
+                + " if( injector) { return injector.get( '$http').pendingRequests.length == 0; } }"
+                + " return null; })()");
+    }
+
+    /**
+     * Returns an IdleDetector defined by the given JavaScript expression, which must be true if the app is idle,
+     * false if the app is busy, and null or undefined if this detector doesn't apply.
+     */
+    public static IdleDetector script( String expression) {
+        return new IdleDetector( expression, expression);
+    }
+
+    /**
+     * Creates a new IdleDetector object.
+     */
+    protected IdleDetector( String description, String expression) {
+        this.description = description;
+        this.expression = checkNotNull( expression, "Idle expression cannot be null");
+    }
+
+    /**
+     * Returns the JavaScript expression for this detector.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns the script that checks all of the given detectors.
+     */
+    static String getScript( Collection<IdleDetector> detectors) {
+        StringBuilder script = new StringBuilder( "var idle = null; var detectors = [");
+        for( IdleDetector detector : detectors) {
+            script
+                .append( script.charAt( script.length() - 1) == '['? " " : ", ")
+                .append( String.format( "function() { return %s; }", detector.getExpression()));
+        }
+        script.append(
+            "];"
+            + " for( var i = 0; i < detectors.length; i++) {"
+            + " var detected; try { detected = detectors[i](); } catch( e) { detected = null; }"
+            + " if( detected === false) { return false; }"
+            + " if( detected === true) { idle = true; } }"
+            + " return idle;");
+
+        return script.toString();
+    }
+
+    /**
+     * Returns if the app shown by the given driver is idle, using the given detector script. Returns <CODE>Optional.empty()</CODE>
+     * if no detector applies or if the script can't be run.
+     */
+    static Optional<Boolean> isIdle( WebDriver driver, String script) {
+        Object idle;
+        try {
+            idle =
+                driver instanceof JavascriptExecutor
+                ? ((JavascriptExecutor) driver).executeScript( script)
+                : null;
+        }
+        catch( WebDriverException e) {
+            idle = null;
+        }
+
+        return
+            idle instanceof Boolean
+            ? Optional.of( (Boolean) idle)
+            : Optional.empty();
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( description)
+            .toString();
+    }
+}
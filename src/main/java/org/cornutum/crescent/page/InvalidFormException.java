@@ -52,7 +52,7 @@ public class InvalidFormException extends PageException {
     public String getMessage() {
         StringBuilder msg = new StringBuilder();
 
-        msg.append( getPage());
+        msg.append( getPageSummary());
         if( !getFailures().isEmpty()) {
             msg.append( ": ").append( StringUtils.join( getFailures(), ", "));
         }
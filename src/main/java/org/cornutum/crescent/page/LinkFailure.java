@@ -0,0 +1,51 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+/**
+ * Represents a failure for a specific link.
+ */
+public class LinkFailure {
+
+    private final String url;
+    private final int status;
+    private final String description;
+
+    /**
+     * Creates a new LinkFailure object.
+     */
+    public LinkFailure( String url, int status, String description) {
+        this.url = url;
+        this.status = status;
+        this.description = description;
+    }
+
+    /**
+     * Returns the URL of the broken link.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the HTTP status code for this link. Returns 0 if no response was received.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the description of the failure for this link.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getUrl())
+            .append( getDescription())
+            .toString();
+    }
+}
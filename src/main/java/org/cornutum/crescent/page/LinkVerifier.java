@@ -0,0 +1,308 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Verifies that all links on a {@link Page} can be retrieved.
+ * <P/>
+ * All <CODE>href</CODE> and <CODE>src</CODE> URLs on the page are collected in a single script request. Each distinct
+ * HTTP(S) URL is then checked concurrently with a HEAD request -- or, if the HEAD request fails, with a GET request
+ * that is abandoned as soon as the response status is received. Requests carry the {@link Site#getRequestCookies cookies}
+ * for the site and are sent over a pool of keep-alive connections, with a limit on the number of concurrent requests
+ * to each host. A link is broken if no response is received or if the response status is 400 or greater.
+ */
+public class LinkVerifier {
+
+    private final Page<?> page;
+    private int concurrency;
+    private int hostConcurrency;
+    private long timeout;
+
+    /**
+     * Creates a new LinkVerifier for the given page.
+     */
+    public LinkVerifier( Page<?> page) {
+        this.page = page;
+        setConcurrency( 32);
+        setHostConcurrency( 6);
+        setTimeout( 10000);
+    }
+
+    /**
+     * Changes the maximum number of concurrent requests.
+     */
+    public void setConcurrency( int concurrency) {
+        checkArgument( concurrency > 0, "Concurrency must be greater than 0");
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Returns the maximum number of concurrent requests.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Changes the maximum number of concurrent requests to each host.
+     */
+    public void setHostConcurrency( int hostConcurrency) {
+        checkArgument( hostConcurrency > 0, "Host concurrency must be greater than 0");
+        this.hostConcurrency = hostConcurrency;
+    }
+
+    /**
+     * Returns the maximum number of concurrent requests to each host.
+     */
+    public int getHostConcurrency() {
+        return hostConcurrency;
+    }
+
+    /**
+     * Changes the maximum time (in milliseconds) to wait to connect to a host or to receive a response.
+     */
+    public void setTimeout( long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the maximum time (in milliseconds) to wait to connect to a host or to receive a response.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns the distinct HTTP(S) URLs of all links on the page, without fragments.
+     */
+    public List<String> getLinks() {
+        Set<String> links = new LinkedHashSet<String>();
+        Object found;
+        try {
+            found =
+                page.getDriver() instanceof JavascriptExecutor
+                ? ((JavascriptExecutor) page.getDriver()).executeScript( LINKS_SCRIPT)
+                : null;
+        }
+        catch( WebDriverException e) {
+            found = null;
+        }
+
+        if( found instanceof List) {
+            for( Object link : (List<?>) found) {
+                links.add( String.valueOf( link));
+            }
+        }
+        else {
+            // Can't collect links with a script, so get the attributes of each element instead.
+            URI location = URI.create( page.getDriver().getCurrentUrl());
+            for( WebElement element : page.getDriver().findElements( By.cssSelector( "[href],[src]"))) {
+                addLink( links, location, element.getAttribute( "href"));
+                addLink( links, location, element.getAttribute( "src"));
+            }
+        }
+
+        return new ArrayList<String>( links);
+    }
+
+    /**
+     * Returns the failures for all broken links on the page.
+     */
+    public List<LinkFailure> verify() {
+        return verify( getLinks());
+    }
+
+    /**
+     * Returns the failures for all broken links in the given collection.
+     */
+    public List<LinkFailure> verify( Collection<String> links) {
+        List<LinkFailure> failures = new ArrayList<LinkFailure>();
+        if( links.isEmpty()) {
+            return failures;
+        }
+
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setDefaultMaxPerRoute( getHostConcurrency());
+        connections.setMaxTotal( getConcurrency());
+
+        CloseableHttpClient client =
+            HttpClients.custom()
+            .setConnectionManager( connections)
+            .setDefaultCookieStore( page.getSite().getRequestCookies())
+            .setDefaultRequestConfig(
+                RequestConfig.custom()
+                .setConnectTimeout( (int) getTimeout())
+                .setSocketTimeout( (int) getTimeout())
+                .build())
+            .build();
+
+        ExecutorService requests = Executors.newFixedThreadPool( Math.min( getConcurrency(), links.size()));
+        try {
+            List<Future<Optional<LinkFailure>>> results = new ArrayList<Future<Optional<LinkFailure>>>();
+            for( String link : byHost( links)) {
+                results.add( requests.submit( () -> check( client, link)));
+            }
+
+            for( Future<Optional<LinkFailure>> result : results) {
+                result.get().ifPresent( failures::add);
+            }
+        }
+        catch( InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestException( page, "verify links", e);
+        }
+        catch( ExecutionException e) {
+            throw new RequestException( page, "verify links", e.getCause());
+        }
+        finally {
+            requests.shutdownNow();
+            HttpClientUtils.closeQuietly( client);
+        }
+
+        return failures;
+    }
+
+    /**
+     * Throws a {@link BrokenLinksException} if any links on the page are broken.
+     */
+    public void assertValid() {
+        BrokenLinksException.of( page, verify()).ifPresent( e -> { throw e; });
+    }
+
+    /**
+     * Returns the failure for the given link. Returns <CODE>Optional.empty()</CODE> if the link is valid.
+     */
+    private Optional<LinkFailure> check( CloseableHttpClient client, String link) {
+        int status;
+        try {
+            status = getStatus( client, new HttpHead( link));
+            if( status >= 400) {
+                // Some servers don't handle HEAD requests correctly, so try again with GET.
+                status = getStatus( client, new HttpGet( link));
+            }
+        }
+        catch( IOException | IllegalArgumentException e) {
+            return Optional.of( new LinkFailure( link, 0, String.valueOf( e)));
+        }
+
+        return
+            status >= 400
+            ? Optional.of( new LinkFailure( link, status, "status=" + status))
+            : Optional.empty();
+    }
+
+    /**
+     * Returns the response status for the given request, ignoring any response content.
+     */
+    private int getStatus( CloseableHttpClient client, HttpRequestBase request) throws IOException {
+        try( CloseableHttpResponse response = client.execute( request)) {
+            int status = response.getStatusLine().getStatusCode();
+            if( response.getEntity() != null) {
+                request.abort();
+            }
+            return status;
+        }
+    }
+
+    /**
+     * Returns the given links, reordered so that consecutive requests go to different hosts when possible.
+     */
+    private static List<String> byHost( Collection<String> links) {
+        Map<String,Deque<String>> hosts = new LinkedHashMap<String,Deque<String>>();
+        for( String link : links) {
+            String host;
+            try {
+                host = String.valueOf( URI.create( link).getAuthority());
+            }
+            catch( IllegalArgumentException e) {
+                host = "";
+            }
+            hosts.computeIfAbsent( host, h -> new ArrayDeque<String>()).add( link);
+        }
+
+        List<String> ordered = new ArrayList<String>( links.size());
+        while( ordered.size() < links.size()) {
+            for( Deque<String> hostLinks : hosts.values()) {
+                if( !hostLinks.isEmpty()) {
+                    ordered.add( hostLinks.removeFirst());
+                }
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Adds the given HTTP(S) link, resolved relative to the given location.
+     */
+    private static void addLink( Set<String> links, URI location, String link) {
+        if( link != null) {
+            try {
+                URI uri = location.resolve( link.trim());
+                if( "http".equalsIgnoreCase( uri.getScheme()) || "https".equalsIgnoreCase( uri.getScheme())) {
+                    String url = uri.toString();
+                    int fragment = url.indexOf( '#');
+                    links.add( fragment < 0? url : url.substring( 0, fragment));
+                }
+            }
+            catch( Exception e) {
+                // Not a valid link.
+            }
+        }
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( page)
+            .append( "concurrency", getConcurrency())
+            .append( "hostConcurrency", getHostConcurrency())
+            .toString();
+    }
+
+    /**
+     * Returns the distinct HTTP(S) URLs of all links on the page, without fragments.
+     */
+    private static final String LINKS_SCRIPT =
+        "var found = {}, links = [];"
+        + " var add = function( e, attr) {"
+        + " var value = e.getAttribute( attr); if( value == null) { return; }"
+        + " var url; try { url = new URL( value, document.baseURI); } catch( x) { return; }"
+        + " if( url.protocol == 'http:' || url.protocol == 'https:') {"
+        + " url.hash = ''; var link = url.href; if( !found[ link]) { found[ link] = true; links.push( link); } } };"
+        + " var elements = document.querySelectorAll( '[href],[src]');"
+        + " for( var i = 0; i < elements.length; i++) { add( elements[i], 'href'); add( elements[i], 'src'); }"
+        + " return links;";
+}
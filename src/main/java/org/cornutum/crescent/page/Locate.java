@@ -0,0 +1,66 @@
+package org.cornutum.crescent.page;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Defines the locator for an abstract accessor method of a {@link Page} or {@link Component} class.
+ * <P/>
+ * At compile time, the {@link org.cornutum.crescent.processor.LocateProcessor LocateProcessor} generates a subclass that
+ * implements each accessor using a {@link Finder}. Exactly one kind of locator must be given. The accessor can return a
+ * <CODE>WebElement</CODE>, an <CODE>Optional&lt;WebElement&gt;</CODE>, a <CODE>List&lt;WebElement&gt;</CODE>, a {@link PageAction},
+ * or an <CODE>Optional</CODE> {@link PageAction}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface Locate {
+
+    /**
+     * Returns the CSS selector for this element.
+     */
+    String css() default "";
+
+    /**
+     * Returns the id of this element.
+     */
+    String id() default "";
+
+    /**
+     * Returns the name of this element.
+     */
+    String name() default "";
+
+    /**
+     * Returns a class name of this element.
+     */
+    String className() default "";
+
+    /**
+     * Returns the tag name of this element.
+     */
+    String tagName() default "";
+
+    /**
+     * Returns the XPath expression for this element.
+     */
+    String xpath() default "";
+
+    /**
+     * Returns the text of this link element.
+     */
+    String linkText() default "";
+
+    /**
+     * Returns part of the text of this link element.
+     */
+    String partialLinkText() default "";
+
+    /**
+     * Returns if only visible elements are located.
+     */
+    boolean visible() default false;
+}
@@ -0,0 +1,274 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.WrapsElement;
+import org.openqa.selenium.interactions.internal.Coordinates;
+import org.openqa.selenium.interactions.internal.Locatable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A page element that remembers how it was located by a {@link Finder}.
+ * <P/>
+ * If this element becomes stale -- for example, because the app has re-rendered its content -- a request to this
+ * element will locate it again, using the same locator, root search context, and condition, and then repeat the request.
+ * Relocation occurs at most once for each request and waits no longer than the {@link Page#getMaxAppWait page timeout}.
+ * <P/>
+ * An element located by its position in a list -- or located within such an element -- is relocated only for requests that
+ * read its state. After a re-render, a different element may occupy the same position, so a request that changes the state
+ * of a stale element found by position, such as {@link #click}, fails with a {@link StaleElementReferenceException}.
+ * <P/>
+ * A LocatedElement is equal to any element that wraps the same element currently located.
+ */
+public class LocatedElement implements WebElement, WrapsElement, Locatable {
+
+    private final Finder finder;
+    private final By locator;
+    private final int index;
+    private WebElement element;
+
+    /**
+     * Creates a new LocatedElement for the element found by the given Finder using the given locator.
+     */
+    public LocatedElement( Finder finder, By locator, WebElement element) {
+        this( finder, locator, -1, element);
+    }
+
+    /**
+     * Creates a new LocatedElement for the element at the given position in the list of elements found by the given
+     * Finder using the given locator.
+     */
+    public LocatedElement( Finder finder, By locator, int index, WebElement element) {
+        this.finder = finder.relocator();
+        this.locator = locator;
+        this.index = index;
+        this.element =
+            element instanceof LocatedElement
+            ? ((LocatedElement) element).getWrappedElement()
+            : element;
+    }
+
+    /**
+     * Returns the locator for this element.
+     */
+    public By getLocator() {
+        return locator;
+    }
+
+    /**
+     * Returns the position of this element in the list of elements found by its locator. Returns -1 if this
+     * element is the first element found.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the element currently located.
+     */
+    public WebElement getWrappedElement() {
+        return element;
+    }
+
+    /**
+     * Locates this element again.
+     */
+    public void relocate() {
+        WebElement located =
+            index < 0
+            ? finder.locate( locator)
+            : finder.locate( locator, index);
+
+        element =
+            located instanceof LocatedElement
+            ? ((LocatedElement) located).getWrappedElement()
+            : located;
+    }
+
+    /**
+     * Returns if this element can be relocated for requests that change its state.
+     */
+    private boolean isUnique() {
+        SearchContext root = finder.getRoot();
+        return
+            index < 0
+            && (!(root instanceof LocatedElement) || ((LocatedElement) root).isUnique());
+    }
+
+    /**
+     * Returns the result of the given read-only request, relocating this element once if it has become stale.
+     */
+    private <T> T apply( Function<WebElement,T> request) {
+        return apply( request, true);
+    }
+
+    /**
+     * Returns the result of the given request, relocating this element once if it has become stale. A request that is
+     * not read-only is repeated only if this element can be relocated {@link #isUnique uniquely}.
+     */
+    private <T> T apply( Function<WebElement,T> request, boolean readOnly) {
+        try {
+            return request.apply( element);
+        }
+        catch( StaleElementReferenceException e) {
+            if( !(readOnly || isUnique())) {
+                throw e;
+            }
+            try {
+                relocate();
+            }
+            catch( PageException pe) {
+                e.addSuppressed( pe);
+                throw e;
+            }
+            return request.apply( element);
+        }
+    }
+
+    /**
+     * Performs the given request to change the state of this element, relocating this element once if it has become
+     * stale and can be relocated {@link #isUnique uniquely}.
+     */
+    private void run( Consumer<WebElement> request) {
+        apply(
+            e -> {
+                request.accept( e);
+                return null;
+            },
+            false);
+    }
+
+    public void click() {
+        run( e -> e.click());
+    }
+
+    public void submit() {
+        run( e -> e.submit());
+    }
+
+    public void sendKeys( CharSequence... keysToSend) {
+        run( e -> e.sendKeys( keysToSend));
+    }
+
+    public void clear() {
+        run( e -> e.clear());
+    }
+
+    public String getTagName() {
+        return apply( e -> e.getTagName());
+    }
+
+    public String getAttribute( String name) {
+        return apply( e -> e.getAttribute( name));
+    }
+
+    public boolean isSelected() {
+        return apply( e -> e.isSelected());
+    }
+
+    public boolean isEnabled() {
+        return apply( e -> e.isEnabled());
+    }
+
+    public String getText() {
+        return apply( e -> e.getText());
+    }
+
+    /**
+     * Returns all elements within this element identified by the given locator.
+     * Each element returned is also a LocatedElement, relative to this element.
+     */
+    public List<WebElement> findElements( By by) {
+        List<WebElement> found = apply( e -> e.findElements( by));
+        Finder children = childFinder();
+        List<WebElement> located = new ArrayList<WebElement>( found.size());
+        for( int i = 0; i < found.size(); i++) {
+            located.add( new LocatedElement( children, by, i, found.get( i)));
+        }
+        return located;
+    }
+
+    /**
+     * Returns the first element within this element identified by the given locator.
+     * The element returned is also a LocatedElement, relative to this element.
+     */
+    public WebElement findElement( By by) {
+        return new LocatedElement( childFinder(), by, apply( e -> e.findElement( by)));
+    }
+
+    public boolean isDisplayed() {
+        return apply( e -> e.isDisplayed());
+    }
+
+    public Point getLocation() {
+        return apply( e -> e.getLocation());
+    }
+
+    public Dimension getSize() {
+        return apply( e -> e.getSize());
+    }
+
+    public Rectangle getRect() {
+        return apply( e -> e.getRect());
+    }
+
+    public String getCssValue( String propertyName) {
+        return apply( e -> e.getCssValue( propertyName));
+    }
+
+    public <X> X getScreenshotAs( OutputType<X> target) {
+        return apply( e -> e.getScreenshotAs( target));
+    }
+
+    public Coordinates getCoordinates() {
+        return apply( e -> ((Locatable) e).getCoordinates());
+    }
+
+    /**
+     * Returns a Finder for elements within this element.
+     */
+    private Finder childFinder() {
+        return finder.relocator().startingAt( this).when( PageUtils.always);
+    }
+
+    /**
+     * Returns the innermost element wrapped by the given object.
+     */
+    private static Object unwrapped( Object object) {
+        Object unwrapped = object;
+        while( unwrapped instanceof WrapsElement) {
+            unwrapped = ((WrapsElement) unwrapped).getWrappedElement();
+        }
+        return unwrapped;
+    }
+
+    public int hashCode() {
+        return unwrapped( element).hashCode();
+    }
+
+    public boolean equals( Object object) {
+        return
+            object instanceof WebElement
+            && unwrapped( element).equals( unwrapped( object));
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getLocator())
+            .append( getWrappedElement())
+            .toString();
+    }
+}
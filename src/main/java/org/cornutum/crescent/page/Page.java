@@ -1,10 +1,15 @@
 package org.cornutum.crescent.page;
 
+import org.cornutum.crescent.jfr.NavigationEvent;
+import org.cornutum.crescent.jfr.Recorder;
 import org.cornutum.crescent.util.ToString;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 
 import java.net.URI;
@@ -19,10 +24,14 @@ import java.util.function.Predicate;
 public abstract class Page<S extends Site> {
   
     private long maxAppWait;
+    private long maxLoadWait;
+    private Readiness readiness;
     private S site;
     private URI uri;
     private WindowHandle window;
     private Page<S> parent;
+    private PageSummary parentSummary;
+    private PageTiming timing;
 
     /**
      * Creates a new Page object.
@@ -100,7 +109,10 @@ public abstract class Page<S extends Site> {
     protected Page( S site, Page<S> parent, WindowHandle window, URI uri) {
         setSite( site);
         setParent( parent);
+        compactHistory();
         setMaxAppWait( site.getMaxAppWait());
+        setMaxLoadWait( site.getMaxLoadWait());
+        setReadiness( site.getReadiness());
         setWindow( window);
         setURI( uri);
 
@@ -128,6 +140,13 @@ public abstract class Page<S extends Site> {
         return getSite().getDriver();
     }
 
+    /**
+     * Returns the {@link WindowTracker} for the WebDriver for this page.
+     */
+    public WindowTracker getWindowTracker() {
+        return getSite().getWindowTracker();
+    }
+
     /**
      * Changes the window handle for this page.
      */
@@ -170,6 +189,52 @@ public abstract class Page<S extends Site> {
         return parent;
     }
 
+    /**
+     * Changes the summary of the parent of this page, used when the parent page is no longer kept.
+     */
+    public void setParentSummary( PageSummary parentSummary) {
+        this.parentSummary = parentSummary;
+    }
+
+    /**
+     * Returns the summary of the parent of this page. Returns null unless the parent is older than the
+     * {@link Site#getHistoryDepth history depth} for this site and so is no longer kept.
+     */
+    public PageSummary getParentSummary() {
+        return parentSummary;
+    }
+
+    /**
+     * Replaces the ancestors of this page that are older than the {@link Site#getHistoryDepth history depth} for
+     * this site with a {@link PageSummary}. Each summary records the {@link #getPageFactory factory} used to
+     * {@link PageSummary#restore restore} its page.
+     */
+    private void compactHistory() {
+        int depth = getSite().getHistoryDepth();
+        if( depth >= 0) {
+            Page<S> oldest = this;
+            for( int i = 0; i < depth && oldest.getParent() != null; i++) {
+                oldest = oldest.getParent();
+            }
+
+            if( oldest.getParent() != null) {
+                PageSummary summary = PageSummary.withAncestors( oldest.getParent());
+                summary.truncate( MAX_SUMMARIES);
+                oldest.setParentSummary( summary);
+                oldest.setParent( null);
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link PageFactory} that {@link PageSummary#restore restores} this page from its {@link PageSummary}
+     * after this page is no longer kept. By default, returns the {@link PageSummary#getDefaultFactory default factory}
+     * for the class of this page. Override this method for a page that can't be constructed again by the default factory.
+     */
+    protected PageFactory getPageFactory() {
+        return PageSummary.getDefaultFactory( getClass());
+    }
+
     /**
      * Changes the maximum timeout (in milliseconds) to wait for the app to update elements on this page.
      */
@@ -184,6 +249,38 @@ public abstract class Page<S extends Site> {
         return maxAppWait;
     }
 
+    /**
+     * Changes the maximum timeout (in milliseconds) to wait for this page to become {@link #getReadiness ready}.
+     */
+    public void setMaxLoadWait( long maxWait) {
+        this.maxLoadWait = maxWait;
+    }
+
+    /**
+     * Returns the maximum timeout (in milliseconds) to wait for this page to become {@link #getReadiness ready}.
+     */
+    public long getMaxLoadWait() {
+        return maxLoadWait;
+    }
+
+    /**
+     * Changes the {@link Readiness} criterion used to decide when this page is ready after navigation.
+     */
+    public void setReadiness( Readiness readiness) {
+        this.readiness =
+            readiness == null
+            ? Readiness.LOAD
+            : readiness;
+    }
+
+    /**
+     * Returns the {@link Readiness} criterion used to decide when this page is ready after navigation.
+     * By default, returns the readiness criterion for the {@link #getSite site}.
+     */
+    public Readiness getReadiness() {
+        return readiness;
+    }
+
     /**
      * Returns the effective maximum timeout (in milliseconds) for WebDriver requests for this page.
      */
@@ -203,12 +300,38 @@ public abstract class Page<S extends Site> {
      * Initiates interaction with this page.
      */
     public void visit() {
+        if( Recorder.isAvailable()) {
+            NavigationEvent event = NavigationEvent.start( getClass(), String.valueOf( getReadiness()));
+            try {
+                synchronize();
+                event.end( String.valueOf( getURI()), Recorder.Outcome.FOUND);
+            }
+            catch( RuntimeException e) {
+                event.end( String.valueOf( getURI()), Recorder.Outcome.of( e));
+                throw e;
+            }
+        }
+        else {
+            synchronize();
+        }
+
+        if( getSite().isTimingCaptured()) {
+            captureTiming();
+        }
+
+        visited();
+    }
+
+    /**
+     * Synchronizes the state of this page with the current state of the UI.
+     */
+    private void synchronize() {
         // Opened in new window?
-        WebDriver driver = getDriver();
+        WindowTracker windows = getWindowTracker();
         WindowHandle window = getWindow();
         if( window != null) {
             // Yes, visit new window.
-            driver.switchTo().window( window.toString());
+            windows.switchTo( window);
 
             // Recover actual URI from window visited.
             setURI( null);
@@ -218,12 +341,13 @@ public abstract class Page<S extends Site> {
         URI uri = getURI();
         if( uri != null) {
             // Yes, navigate to this URI.
-            driver.get( getSite().getURI().resolve( uri).toASCIIString());
+            getReadiness().navigate( this, getSite().getURI().resolve( uri).toASCIIString());
         }
         else {
             // No, acquire URI from current location.
+            getReadiness().await( this);
             try {
-                setURI( new URI( driver.getCurrentUrl()));
+                setURI( new URI( windows.refreshCurrentUrl()));
             }
             catch( Exception e) {
                 throw new RuntimeException( String.valueOf( this) + ": Can't get new page URI", e);
@@ -231,10 +355,102 @@ public abstract class Page<S extends Site> {
         }
     
         if( window == null) {
-            setWindow( new WindowHandle( driver.getWindowHandle()));
+            setWindow( new WindowHandle( windows.getActiveWindow()));
         }
+    }
 
-        visited();
+    /**
+     * Captures the {@link PageTiming} measurements for this page and checks them against the
+     * {@link #getPerformanceBudget performance budget} for this page.
+     * <P/>
+     * If this page has a load budget but its {@link #getReadiness readiness} does not wait for the full page load, the
+     * load event may not have ended yet. In this case, the measurements are captured again when the load event ends,
+     * waiting no longer than the {@link #getMaxLoadWait maximum load time}. A measurement that remains unavailable is
+     * reported as a budget violation.
+     */
+    protected void captureTiming() {
+        PerformanceBudget budget = getPerformanceBudget();
+        PageTiming timing;
+        try {
+            timing = PageTiming.capture( (JavascriptExecutor) getDriver(), getSite().getTimingResources());
+            if( timing != null && timing.getLoad() < 0 && budget != null && budget.load() >= 0 && !getReadiness().isLoadRequired()) {
+                timing = awaitLoadTiming( timing);
+            }
+        }
+        catch( Exception e) {
+            throw new RequestException( this, "capture page timing", e);
+        }
+        setTiming( timing);
+
+        if( timing != null) {
+            if( budget != null) {
+                checkBudget( "ttfb", timing.getTtfb(), budget.ttfb(), timing);
+                checkBudget( "domContentLoaded", timing.getDomContentLoaded(), budget.domContentLoaded(), timing);
+                checkBudget( "load", timing.getLoad(), budget.load(), timing);
+                checkBudget( "transferSize", timing.getTransferSize(), budget.transferSize(), timing);
+            }
+
+            getSite().addTiming( getClass(), timing);
+
+            if( budget != null && budget.enforcement() == PerformanceBudget.Enforcement.FAIL && !timing.getViolations().isEmpty()) {
+                throw new BudgetExceededException( this, timing);
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link PageTiming} measurements for this page captured when the load event has ended. Returns the given
+     * measurements if the load event does not end within the {@link #getMaxLoadWait maximum load time}.
+     */
+    private PageTiming awaitLoadTiming( PageTiming timing) {
+        try {
+            return
+                new Finder( this, getMaxLoadWait())
+                .await( (JavascriptExecutor) getDriver())
+                .ignoring( WebDriverException.class)
+                .until( driver -> {
+                        PageTiming loaded = PageTiming.capture( driver, getSite().getTimingResources());
+                        return loaded != null && loaded.getLoad() >= 0? loaded : null;
+                    });
+        }
+        catch( TimeoutException e) {
+            return timing;
+        }
+    }
+
+    /**
+     * Adds a violation to the given timing measurements if the given value exceeds the given limit or if the value is
+     * not available.
+     */
+    private void checkBudget( String measure, long value, long limit, PageTiming timing) {
+        if( limit >= 0 && value < 0) {
+            timing.addViolation( String.format( "%s not available, limit is %s", measure, limit));
+        }
+        else if( limit >= 0 && value > limit) {
+            timing.addViolation( String.format( "%s=%s exceeds %s", measure, value, limit));
+        }
+    }
+
+    /**
+     * Returns the {@link PerformanceBudget} for this page. Returns null if this page has no budget.
+     */
+    protected PerformanceBudget getPerformanceBudget() {
+        return getClass().getAnnotation( PerformanceBudget.class);
+    }
+
+    /**
+     * Changes the {@link PageTiming} measurements for the last visit to this page.
+     */
+    public void setTiming( PageTiming timing) {
+        this.timing = timing;
+    }
+
+    /**
+     * Returns the {@link PageTiming} measurements for the last visit to this page.
+     * Returns null if no measurements were captured.
+     */
+    public PageTiming getTiming() {
+        return timing;
     }
 
     /**
@@ -245,18 +461,46 @@ public abstract class Page<S extends Site> {
     }
 
     /**
-     * Moves back to the previous page in the browser history.
+     * Moves back to the previous page in the browser history. If the previous page is known only by its
+     * {@link #getParentSummary summary}, a new instance of the previous page is {@link PageSummary#restore restored}
+     * and visited when the browser is back at this page. If {@link Site#isTimingCaptured timing is captured}, the
+     * previous page captures its {@link PageTiming} measurements again.
      */
+    @SuppressWarnings("unchecked")
     public Page<S> back() {
         Page<S> parent = getParent();
-
-        if( parent == null || !parent.getWindow().equals( getWindow())) {
+        PageSummary parentSummary = parent == null? getParentSummary() : null;
+        WindowHandle parentWindow =
+            parent != null
+            ? parent.getWindow()
+            : parentSummary != null
+            ? parentSummary.getWindow()
+            : null;
+
+        if( parentWindow == null || !parentWindow.equals( getWindow())) {
             throw new RequestException( this, "back", "No previous page known in the browser history for this window");
         }
 
+        if( parentSummary != null && !parentSummary.isRestorable()) {
+            throw new RequestException( this, "back", "Can't restore previous page=" + parentSummary + " using " + parentSummary.getFactory());
+        }
+
         try {
-            getDriver().navigate().back();
-            parent.visited();
+            getWindowTracker().invalidateLocation();
+            if( parent != null) {
+                getDriver().navigate().back();
+                if( getSite().isTimingCaptured()) {
+                    parent.captureTiming();
+                }
+                parent.visited();
+            }
+            else {
+                getDriver().navigate().back();
+                parent = (Page<S>) parentSummary.restore( getSite());
+            }
+        }
+        catch( BudgetExceededException e) {
+            throw e;
         }
         catch( Exception e) {
             throw new RequestException( this, "back", e);
@@ -280,29 +524,44 @@ public abstract class Page<S extends Site> {
     /**
      * Closes the current window, switches the driver context to the Window of this page's parent, and returns this page's parent
      */
+    @SuppressWarnings("unchecked")
     public Page<S> close() {
-        WebDriver driver = getDriver();
+        WindowTracker windows = getWindowTracker();
 
-        if( driver.getWindowHandles().size() == 1) {
+        if( windows.getWindowCount() == 1) {
             throw new InvalidStateException( this, "Can't close last open window");
         }
 
-        if( getParent() == null) {
+        if( getParent() == null && getParentSummary() == null) {
             throw new InvalidStateException( this, "Page has no parent");
         }
 
-        if( getWindow().equals( parent.getWindow())) {
+        WindowHandle parentWindow =
+            getParent() == null
+            ? getParentSummary().getWindow()
+            : getParent().getWindow();
+
+        if( getWindow().equals( parentWindow)) {
             throw new InvalidStateException( this, "Parent window equal to child window");
         }
 
-        driver.close();
+        if( getParent() == null && !getParentSummary().isRestorable()) {
+            throw new InvalidStateException( this, "Can't restore parent page=" + getParentSummary() + " using " + getParentSummary().getFactory());
+        }
+
+        windows.close();
         try {
-            driver.switchTo().window( getParent().getWindow().toString());
+            windows.switchTo( parentWindow);
         }
         catch( NoSuchWindowException e) {
-            throw new InvalidStateException( this, "Parent window could not be switched to or does not exist: " + getParent().getWindow().toString());
+            throw new InvalidStateException( this, "Parent window could not be switched to or does not exist: " + parentWindow.toString());
         }
-        return getParent();
+
+        // Parent known only by its summary? If so, restore it in its window.
+        return
+            getParent() == null
+            ? (Page<S>) getParentSummary().restore( getSite())
+            : getParent();
     }
 
     /**
@@ -409,9 +668,12 @@ public abstract class Page<S extends Site> {
             .map( e -> {
                     try {
                         return
-                            actionType
-                            .getDeclaredConstructor( pageType, WebElement.class)
-                            .newInstance( this, e);
+                            withLocator(
+                                actionType
+                                .getDeclaredConstructor( pageType, WebElement.class)
+                                .newInstance( this, e),
+                                finder,
+                                selector);
                     }
                     catch( Exception ex) {
                         throw new InvalidStateException( this, "Can't create instance of " + actionType.getSimpleName(), ex);
@@ -432,10 +694,24 @@ public abstract class Page<S extends Site> {
     public Optional<BasicElementAction> getBasicElementAction( Finder finder, By selector) {
         return
             finder.findOptionalElement( selector)
-            .map( e -> new BasicElementAction( this, e));
+            .map( e -> withLocator( new BasicElementAction( this, e), finder, selector));
+    }
+
+    /**
+     * Returns the given {@link PageAction} after recording the locator used to find its element.
+     */
+    private <A extends PageAction<?,?>> A withLocator( A action, Finder finder, By selector) {
+        action.setLocator( finder, selector);
+        return action;
     }
 
     public String toString() {
         return ToString.getBuilder( this).toString();
     }
+
+    /**
+     * The maximum number of ancestors kept as a {@link PageSummary}. Older entries can't be reached by navigating back
+     * in the browser history anyway.
+     */
+    private static final int MAX_SUMMARIES = 50;
 }
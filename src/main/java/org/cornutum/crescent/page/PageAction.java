@@ -1,7 +1,10 @@
 package org.cornutum.crescent.page;
 
+import org.cornutum.crescent.jfr.ActionEvent;
+import org.cornutum.crescent.jfr.Recorder;
 import org.cornutum.crescent.util.ToString;
 
+import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 
 /**
@@ -11,6 +14,8 @@ public abstract class PageAction<P extends Page<?>,T> {
 
     private final P page;
     private final WebElement element;
+    private Finder finder;
+    private By locator;
     
     /**
      * Creates a new PageAction object.
@@ -29,7 +34,20 @@ public abstract class PageAction<P extends Page<?>,T> {
      * Performs this action and returns the result.
      */
     public T perform() {
-        return perform( page, element);
+        if( !Recorder.isAvailable()) {
+            return perform( page, element);
+        }
+
+        ActionEvent event = ActionEvent.start( page.getClass(), getClass(), locator == null? null : String.valueOf( locator));
+        try {
+            T result = perform( page, element);
+            event.end( Recorder.Outcome.FOUND);
+            return result;
+        }
+        catch( RuntimeException e) {
+            event.end( Recorder.Outcome.of( e));
+            throw e;
+        }
     }
 
     /**
@@ -39,6 +57,28 @@ public abstract class PageAction<P extends Page<?>,T> {
         return element;
     }
 
+    /**
+     * Changes the locator used by the given {@link Finder} to find the element for this action.
+     */
+    public void setLocator( Finder finder, By locator) {
+        this.finder = finder;
+        this.locator = locator;
+    }
+
+    /**
+     * Returns the locator used to find the element for this action. Returns null if unknown.
+     */
+    public By getLocator() {
+        return locator;
+    }
+
+    /**
+     * Returns the {@link Finder} used to find the element for this action. Returns null if unknown.
+     */
+    public Finder getFinder() {
+        return finder;
+    }
+
     /**
      * Returns the page that is the source of this action.
      */
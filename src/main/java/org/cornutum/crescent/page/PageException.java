@@ -1,11 +1,17 @@
 package org.cornutum.crescent.page;
 
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Base class for page content exceptions.
  */
 public abstract class PageException extends RuntimeException {
 
     private Page<?> page;
+    private transient WeakReference<Page<?>> detachedPage;
+    private PageSummary pageSummary;
+    private transient CompletableFuture<Diagnostics.Artifacts> diagnostics;
 
     private static final long serialVersionUID = 988785294044951096L;
 
@@ -25,17 +31,51 @@ public abstract class PageException extends RuntimeException {
     }
 
     /**
-     * Changes the page where this failure occurred.
+     * Changes the page where this failure occurred. If the {@link Site#getHistoryDepth history depth} for the page's site
+     * is limited, this failure keeps only a {@link #getPageSummary summary} of the page, so that a failure that is retained
+     * does not also retain the page and all of its ancestors.
      */
     public void setPage( Page<?> page) {
-        this.page = page;
+        boolean detached = page != null && page.getSite() != null && page.getSite().getHistoryDepth() >= 0;
+        this.page = detached? null : page;
+        this.detachedPage = detached? new WeakReference<Page<?>>( page) : null;
+        this.pageSummary = PageSummary.of( page);
     }
 
     /**
-     * Returns the page where this failure occurred.
+     * Returns the page where this failure occurred. Returns null if this failure keeps only a {@link #getPageSummary summary}
+     * of a page that is no longer in use.
      */
     public Page<?> getPage() {
-        return page;
+        return
+            page != null
+            ? page
+            : detachedPage != null
+            ? detachedPage.get()
+            : null;
+    }
+
+    /**
+     * Returns a summary of the page where this failure occurred.
+     */
+    public PageSummary getPageSummary() {
+        return pageSummary;
+    }
+
+    /**
+     * Changes the {@link Diagnostics} artifacts captured for this failure.
+     */
+    public void setDiagnostics( CompletableFuture<Diagnostics.Artifacts> diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Returns the {@link Diagnostics} artifacts captured for this failure. Returns null if no artifacts were captured.
+     *
+     * @see Site#captureDiagnostics
+     */
+    public CompletableFuture<Diagnostics.Artifacts> getDiagnostics() {
+        return diagnostics;
     }
 }
 
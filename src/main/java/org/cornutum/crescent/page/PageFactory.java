@@ -0,0 +1,23 @@
+package org.cornutum.crescent.page;
+
+/**
+ * Creates a page again from its {@link PageSummary}, after the page itself is no longer kept.
+ *
+ * @see Page#getPageFactory
+ */
+public interface PageFactory {
+
+    /**
+     * Returns a new instance of the page described by the given summary, visited in the current window of the given site
+     * at the given absolute URI. If the URI is null, the page is visited at the current location. Any ancestor needed to
+     * construct the page is first {@link PageSummary#restore restored} from the {@link PageSummary#getParent summary of its parent}.
+     */
+    Page<?> newPage( Site site, PageSummary summary, String uri);
+
+    /**
+     * Returns true if this factory can create the page described by the given summary.
+     */
+    default boolean canCreate( PageSummary summary) {
+        return true;
+    }
+}
@@ -0,0 +1,309 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A lightweight, detached description of a {@link Page}: its class, absolute URI, and window, together with the
+ * {@link PageFactory} that can create the page again. A summary holds no reference to the page itself or to its
+ * {@link Site}, so it can be kept long after the page is discarded.
+ * <P/>
+ * A summary is used in place of each page ancestor that is older than the {@link Site#getHistoryDepth history depth}
+ * of its site, and a {@link #restore restored} page is created from the summary if needed to move {@link Page#back back}
+ * to that ancestor.
+ */
+public class PageSummary implements Serializable {
+
+    private final Class<?> type;
+    private final String uri;
+    private final WindowHandle window;
+    private final String description;
+    private PageSummary parent;
+    private transient PageFactory factory;
+
+    private static final long serialVersionUID = -2178260416307528343L;
+
+    /**
+     * Creates a new PageSummary object that uses the {@link #getDefaultFactory default factory} for the given page class.
+     */
+    public PageSummary( Class<?> type, String uri, WindowHandle window, String description, PageSummary parent) {
+        this( type, uri, window, description, parent, null);
+    }
+
+    /**
+     * Creates a new PageSummary object that uses the given factory. If the factory is null, the
+     * {@link #getDefaultFactory default factory} for the given page class is used.
+     */
+    public PageSummary( Class<?> type, String uri, WindowHandle window, String description, PageSummary parent, PageFactory factory) {
+        this.type = type;
+        this.uri = uri;
+        this.window = window;
+        this.description = description;
+        this.parent = parent;
+        this.factory = factory;
+    }
+
+    /**
+     * Returns a summary of the given page, without its ancestors. Returns null if the given page is null.
+     */
+    public static PageSummary of( Page<?> page) {
+        return of( page, null);
+    }
+
+    /**
+     * Returns a summary of the given page and all of its known ancestors. Returns null if the given page is null.
+     */
+    public static PageSummary withAncestors( Page<?> page) {
+        Deque<Page<?>> pages = new ArrayDeque<Page<?>>();
+        PageSummary summary = null;
+        for( Page<?> next = page; next != null; next = next.getParent()) {
+            pages.push( next);
+            summary = next.getParentSummary();
+        }
+
+        while( !pages.isEmpty()) {
+            summary = of( pages.pop(), summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Returns a summary of the given page with the given parent summary.
+     */
+    private static PageSummary of( Page<?> page, PageSummary parent) {
+        return
+            page == null
+            ? null
+            : new PageSummary(
+                page.getClass(),
+                page.getURI() == null
+                ? null
+                : page.getSite().getURI() == null
+                ? page.getURI().toString()
+                : page.getSite().getURI().resolve( page.getURI()).toASCIIString(),
+                page.getWindow(),
+                String.valueOf( page),
+                parent,
+                page.getPageFactory());
+    }
+
+    /**
+     * Returns the class of this page.
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the absolute URI of this page. Returns null if the URI of this page was not known.
+     */
+    public String getURI() {
+        return uri;
+    }
+
+    /**
+     * Returns the window handle for this page.
+     */
+    public WindowHandle getWindow() {
+        return window;
+    }
+
+    /**
+     * Returns the {@link PageFactory} that creates this page again. A factory is not serialized, so a deserialized summary
+     * uses the {@link #getDefaultFactory default factory} for its page class.
+     */
+    public PageFactory getFactory() {
+        return
+            factory == null
+            ? getDefaultFactory( type)
+            : factory;
+    }
+
+    /**
+     * Returns the summary of the parent of this page. Returns null if this page has no parent, or if the parent is
+     * no longer known.
+     */
+    public PageSummary getParent() {
+        return parent;
+    }
+
+    /**
+     * Removes all ancestors of this page older than the given number of generations.
+     */
+    void truncate( int generations) {
+        PageSummary last = this;
+        for( int i = 1; i < generations && last.parent != null; i++) {
+            last = last.parent;
+        }
+        last.parent = null;
+    }
+
+    /**
+     * Returns a new instance of this page for the given site, visited in the current window, which must already show
+     * this page. Throws an IllegalStateException if this page can't be {@link #isRestorable restored}.
+     */
+    public Page<?> restore( Site site) {
+        return restore( site, getURI());
+    }
+
+    /**
+     * Returns a new instance of this page for the given site, visited in the current window at the given absolute URI.
+     * If this page was not created from its restored parent, the summary of its parent becomes the
+     * {@link Page#getParentSummary parent summary} of the new page.
+     */
+    Page<?> restore( Site site, String uri) {
+        if( !isRestorable()) {
+            throw new IllegalStateException( "Can't restore page=" + this + ": " + getFactory() + " can't create " + getType().getName());
+        }
+
+        Page<?> page = getFactory().newPage( site, this, uri);
+        if( page.getParent() == null) {
+            page.setParentSummary( getParent());
+        }
+        return page;
+    }
+
+    /**
+     * Returns true if this page can be {@link #restore restored} by its {@link #getFactory factory}.
+     */
+    public boolean isRestorable() {
+        return getFactory().canCreate( this);
+    }
+
+    /**
+     * Returns the default {@link PageFactory} for the given page class, which creates a page using a public constructor
+     * of this class. The constructor used is the first one found of the following: <CODE>(site)</CODE>, <CODE>(site, URI)</CODE>,
+     * <CODE>(site, String)</CODE>, <CODE>(parent)</CODE>, <CODE>(parent, URI)</CODE>, or <CODE>(parent, String)</CODE>. A
+     * constructor with only a site or parent parameter is used after navigating to the page URI, and the page acquires
+     * its URI from the current location. A constructor with a parent parameter is used only if the parent can be restored.
+     */
+    public static PageFactory getDefaultFactory( Class<?> type) {
+        return defaultFactories.get( type);
+    }
+
+    /**
+     * Returns the description of this page.
+     */
+    public String toString() {
+        return description;
+    }
+
+    private static final ClassValue<PageFactory> defaultFactories =
+        new ClassValue<PageFactory>() {
+            protected PageFactory computeValue( Class<?> type) {
+                return new ConstructorFactory( type);
+            }
+        };
+
+    /**
+     * The default {@link PageFactory} for a page class. The public constructors of the class are found once, when the
+     * factory is created.
+     */
+    private static class ConstructorFactory implements PageFactory {
+        private final Class<?> type;
+        private final Constructor<?> withSite;
+        private final Constructor<?> withSiteUri;
+        private final Constructor<?> withSiteString;
+        private final Constructor<?> withParent;
+        private final Constructor<?> withParentUri;
+        private final Constructor<?> withParentString;
+
+        /**
+         * Creates a new ConstructorFactory object.
+         */
+        public ConstructorFactory( Class<?> type) {
+            this.type = type;
+            withSite = getConstructor( type, Site.class, null);
+            withSiteUri = getConstructor( type, Site.class, URI.class);
+            withSiteString = getConstructor( type, Site.class, String.class);
+            withParent = getConstructor( type, Page.class, null);
+            withParentUri = getConstructor( type, Page.class, URI.class);
+            withParentString = getConstructor( type, Page.class, String.class);
+        }
+
+        public Page<?> newPage( Site site, PageSummary summary, String uri) {
+            Page<?> page;
+            if( withSite != null || (uri != null && (withSiteUri != null || withSiteString != null))) {
+                page = newPage( withSite, withSiteUri, withSiteString, site, site, uri);
+            }
+            else {
+                page = newPage( withParent, withParentUri, withParentString, summary.getParent().restore( site), site, uri);
+            }
+            return page;
+        }
+
+        public boolean canCreate( PageSummary summary) {
+            boolean uriKnown = summary.getURI() != null;
+            return
+                withSite != null
+                || (uriKnown && (withSiteUri != null || withSiteString != null))
+                || ((withParent != null || (uriKnown && (withParentUri != null || withParentString != null)))
+                    && summary.getParent() != null
+                    && summary.getParent().isRestorable());
+        }
+
+        /**
+         * Returns a new page constructed with the given parent page or site, using the first of the given
+         * constructors that applies.
+         */
+        private Page<?> newPage( Constructor<?> withParent, Constructor<?> withUri, Constructor<?> withString, Object parent, Site site, String uri) {
+            try {
+                if( withParent != null) {
+                    WindowTracker windows = site.getWindowTracker();
+                    if( uri != null && !uri.equals( windows.getCurrentUrl())) {
+                        windows.navigateTo( uri);
+                    }
+                    return (Page<?>) withParent.newInstance( parent);
+                }
+                else if( withUri != null && uri != null) {
+                    return (Page<?>) withUri.newInstance( parent, URI.create( uri));
+                }
+                else if( withString != null && uri != null) {
+                    return (Page<?>) withString.newInstance( parent, uri);
+                }
+                else {
+                    throw new IllegalStateException( "Can't restore page=" + type.getName() + ": no URI known");
+                }
+            }
+            catch( InvocationTargetException e) {
+                throw
+                    e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new IllegalStateException( "Can't restore page=" + type.getName(), e.getCause());
+            }
+            catch( ReflectiveOperationException | IllegalArgumentException e) {
+                throw new IllegalStateException( "Can't restore page=" + type.getName() + " for parent=" + parent, e);
+            }
+        }
+
+        /**
+         * Returns the public constructor of the given page class with a first parameter of the given parent type (or a
+         * subtype) and, if <CODE>uriType</CODE> is not null, a second parameter of this type. Returns null if no such
+         * constructor is found.
+         */
+        private static Constructor<?> getConstructor( Class<?> pageType, Class<?> parentType, Class<?> uriType) {
+            for( Constructor<?> constructor : pageType.getConstructors()) {
+                Class<?>[] params = constructor.getParameterTypes();
+                if( params.length == (uriType == null? 1 : 2)
+                    && parentType.isAssignableFrom( params[0])
+                    && (uriType == null || params[1] == uriType)) {
+                    return constructor;
+                }
+            }
+            return null;
+        }
+
+        public String toString() {
+            return
+                ToString.getBuilder( this)
+                .append( type.getSimpleName())
+                .toString();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.JavascriptExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports the Navigation Timing and Resource Timing measurements for a {@link Page}.
+ * All durations are in milliseconds, relative to the start of navigation. A value of -1 means that the
+ * measurement is not available.
+ */
+public class PageTiming {
+
+    private final long ttfb;
+    private final long domContentLoaded;
+    private final long load;
+    private final long transferSize;
+    private final int resourceCount;
+    private final List<ResourceTiming> slowestResources;
+    private final List<String> violations = new ArrayList<String>();
+
+    /**
+     * Creates a new PageTiming object.
+     */
+    public PageTiming( long ttfb, long domContentLoaded, long load, long transferSize, int resourceCount, List<ResourceTiming> slowestResources) {
+        this.ttfb = ttfb;
+        this.domContentLoaded = domContentLoaded;
+        this.load = load;
+        this.transferSize = transferSize;
+        this.resourceCount = resourceCount;
+        this.slowestResources = slowestResources;
+    }
+
+    /**
+     * Returns the time to first byte of the page response.
+     */
+    public long getTtfb() {
+        return ttfb;
+    }
+
+    /**
+     * Returns the time until the end of the DOMContentLoaded event.
+     */
+    public long getDomContentLoaded() {
+        return domContentLoaded;
+    }
+
+    /**
+     * Returns the time until the end of the load event.
+     */
+    public long getLoad() {
+        return load;
+    }
+
+    /**
+     * Returns the total number of bytes transferred for the page and all of its resources.
+     */
+    public long getTransferSize() {
+        return transferSize;
+    }
+
+    /**
+     * Returns the number of resources loaded for the page.
+     */
+    public int getResourceCount() {
+        return resourceCount;
+    }
+
+    /**
+     * Returns the resources that took longest to load, slowest first.
+     */
+    public List<ResourceTiming> getSlowestResources() {
+        return slowestResources;
+    }
+
+    /**
+     * Adds a description of a {@link PerformanceBudget} violation for these measurements.
+     */
+    public void addViolation( String violation) {
+        violations.add( violation);
+    }
+
+    /**
+     * Returns descriptions of all {@link PerformanceBudget} violations for these measurements.
+     */
+    public List<String> getViolations() {
+        return Collections.unmodifiableList( violations);
+    }
+
+    /**
+     * Returns the timing measurements for the current page of the given WebDriver, including the given
+     * maximum number of slowest resources. Returns null if these measurements are not available.
+     */
+    @SuppressWarnings("unchecked")
+    public static PageTiming capture( JavascriptExecutor driver, int maxResources) {
+        Map<String,Object> timing = (Map<String,Object>) driver.executeScript( CAPTURE_SCRIPT, maxResources);
+        if( timing == null) {
+            return null;
+        }
+
+        List<ResourceTiming> slowest = new ArrayList<ResourceTiming>();
+        for( Map<String,Object> resource : (List<Map<String,Object>>) timing.get( "slowest")) {
+            slowest.add(
+                new ResourceTiming(
+                    String.valueOf( resource.get( "name")),
+                    toMillis( resource.get( "duration")),
+                    toMillis( resource.get( "transferSize"))));
+        }
+        
+        return
+            new PageTiming(
+                toMillis( timing.get( "ttfb")),
+                toMillis( timing.get( "domContentLoaded")),
+                toMillis( timing.get( "load")),
+                toMillis( timing.get( "transferSize")),
+                (int) toMillis( timing.get( "resourceCount")),
+                slowest);
+    }
+
+    /**
+     * Returns the given script result as a whole number, or -1 if not available.
+     */
+    private static long toMillis( Object value) {
+        return
+            value instanceof Number && ((Number) value).doubleValue() >= 0
+            ? Math.round( ((Number) value).doubleValue())
+            : -1;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "ttfb", getTtfb())
+            .append( "domContentLoaded", getDomContentLoaded())
+            .append( "load", getLoad())
+            .append( "transferSize", getTransferSize())
+            .append( "resources", getResourceCount())
+            .toString();
+    }
+
+    /**
+     * Reports the Resource Timing measurements for a single page resource.
+     */
+    public static class ResourceTiming {
+        private final String name;
+        private final long duration;
+        private final long transferSize;
+
+        /**
+         * Creates a new ResourceTiming object.
+         */
+        public ResourceTiming( String name, long duration, long transferSize) {
+            this.name = name;
+            this.duration = duration;
+            this.transferSize = transferSize;
+        }
+
+        /**
+         * Returns the URL of this resource.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the time to load this resource.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Returns the number of bytes transferred for this resource.
+         */
+        public long getTransferSize() {
+            return transferSize;
+        }
+
+        public String toString() {
+            return
+                ToString.getBuilder( this)
+                .append( getName())
+                .append( getDuration())
+                .toString();
+        }
+    }
+
+    /**
+     * Collects all measurements in a single request.
+     */
+    private static final String CAPTURE_SCRIPT =
+        "var perf = window.performance;"
+        + "if( !perf) { return null; }"
+        + "var nav = perf.getEntriesByType? perf.getEntriesByType( 'navigation')[0] : null;"
+        + "var t = perf.timing;"
+        + "var since = function( end) { return end > 0? end - t.navigationStart : -1; };"
+        + "var result = nav"
+        + "  ? { ttfb: nav.responseStart, domContentLoaded: nav.domContentLoadedEventEnd || -1, load: nav.loadEventEnd || -1, transferSize: nav.transferSize || 0 }"
+        + "  : { ttfb: since( t.responseStart), domContentLoaded: since( t.domContentLoadedEventEnd), load: since( t.loadEventEnd), transferSize: 0 };"
+        + "var resources = perf.getEntriesByType? perf.getEntriesByType( 'resource') : [];"
+        + "for( var i = 0; i < resources.length; i++) { result.transferSize += resources[i].transferSize || 0; }"
+        + "result.resourceCount = resources.length;"
+        + "result.slowest ="
+        + "  resources.slice().sort( function( a, b) { return b.duration - a.duration; })"
+        + "  .slice( 0, arguments[0])"
+        + "  .map( function( r) { return { name: r.name, duration: r.duration, transferSize: r.transferSize || 0 }; });"
+        + "return result;";
+}
@@ -0,0 +1,157 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+/**
+ * Aggregates the {@link PageTiming} measurements for all visits to a specific {@link Page} class.
+ */
+public class PageTimingStats {
+
+    private final Class<?> pageType;
+    private int visits;
+    private int violations;
+    private final Measure ttfb = new Measure();
+    private final Measure domContentLoaded = new Measure();
+    private final Measure load = new Measure();
+    private final Measure transferSize = new Measure();
+    
+    /**
+     * Creates a new PageTimingStats object.
+     */
+    public PageTimingStats( Class<?> pageType) {
+        this.pageType = pageType;
+    }
+
+    /**
+     * Adds the measurements for another visit to this page class.
+     */
+    public synchronized void add( PageTiming timing) {
+        visits++;
+        violations += timing.getViolations().isEmpty()? 0 : 1;
+        ttfb.add( timing.getTtfb());
+        domContentLoaded.add( timing.getDomContentLoaded());
+        load.add( timing.getLoad());
+        transferSize.add( timing.getTransferSize());
+    }
+
+    /**
+     * Returns the page class for these measurements.
+     */
+    public Class<?> getPageType() {
+        return pageType;
+    }
+
+    /**
+     * Returns the number of visits measured.
+     */
+    public synchronized int getVisits() {
+        return visits;
+    }
+
+    /**
+     * Returns the number of visits that violated the {@link PerformanceBudget} for this page class.
+     */
+    public synchronized int getViolations() {
+        return violations;
+    }
+
+    /**
+     * Returns the aggregate time to first byte.
+     */
+    public Measure getTtfb() {
+        return ttfb;
+    }
+
+    /**
+     * Returns the aggregate time until the end of the DOMContentLoaded event.
+     */
+    public Measure getDomContentLoaded() {
+        return domContentLoaded;
+    }
+
+    /**
+     * Returns the aggregate time until the end of the load event.
+     */
+    public Measure getLoad() {
+        return load;
+    }
+
+    /**
+     * Returns the aggregate number of bytes transferred.
+     */
+    public Measure getTransferSize() {
+        return transferSize;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getPageType().getSimpleName())
+            .append( "visits", getVisits())
+            .append( "violations", getViolations())
+            .append( "ttfb", getTtfb())
+            .append( "domContentLoaded", getDomContentLoaded())
+            .append( "load", getLoad())
+            .append( "transferSize", getTransferSize())
+            .toString();
+    }
+
+    /**
+     * Aggregates all available values of a single measurement.
+     */
+    public static class Measure {
+        private int count;
+        private long total;
+        private long min = Long.MAX_VALUE;
+        private long max = -1;
+
+        /**
+         * Adds a measurement value, ignoring any value that is not available.
+         */
+        synchronized void add( long value) {
+            if( value >= 0) {
+                count++;
+                total += value;
+                min = Math.min( min, value);
+                max = Math.max( max, value);
+            }
+        }
+
+        /**
+         * Returns the number of values measured.
+         */
+        public synchronized int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the mean value, or -1 if no values measured.
+         */
+        public synchronized long getMean() {
+            return count == 0? -1 : Math.round( (double) total / count);
+        }
+
+        /**
+         * Returns the minimum value, or -1 if no values measured.
+         */
+        public synchronized long getMin() {
+            return count == 0? -1 : min;
+        }
+
+        /**
+         * Returns the maximum value, or -1 if no values measured.
+         */
+        public synchronized long getMax() {
+            return max;
+        }
+
+        public String toString() {
+            return
+                ToString.getBuilder( this)
+                .append( "mean", getMean())
+                .append( "min", getMin())
+                .append( "max", getMax())
+                .toString();
+        }
+    }
+}
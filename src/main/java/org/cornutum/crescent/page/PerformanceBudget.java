@@ -0,0 +1,59 @@
+package org.cornutum.crescent.page;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Defines the maximum {@link PageTiming} measurements allowed when visiting a {@link Page} class.
+ * All durations are in milliseconds. A negative limit means that the measurement is unlimited.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface PerformanceBudget {
+
+    /**
+     * Defines how to handle a page that exceeds its budget.
+     */
+    enum Enforcement {
+        /**
+         * Throw a {@link BudgetExceededException}.
+         */
+        FAIL,
+
+        /**
+         * Report {@link PageTiming#getViolations violations} without failing.
+         */
+        WARN
+    }
+
+    /**
+     * Returns the maximum time to first byte.
+     */
+    long ttfb() default -1;
+
+    /**
+     * Returns the maximum time until the end of the DOMContentLoaded event.
+     */
+    long domContentLoaded() default -1;
+
+    /**
+     * Returns the maximum time until the end of the load event.
+     */
+    long load() default -1;
+
+    /**
+     * Returns the maximum number of bytes transferred.
+     */
+    long transferSize() default -1;
+
+    /**
+     * Returns how to handle a page that exceeds this budget.
+     */
+    Enforcement enforcement() default Enforcement.FAIL;
+}
@@ -0,0 +1,99 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.support.ui.Clock;
+import org.openqa.selenium.support.ui.Duration;
+import org.openqa.selenium.support.ui.Sleeper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defines the time used for all waits on a {@link Site} -- the clock that measures each wait and the sleep between
+ * polls.
+ * <P/>
+ * By default, a PollScheduler uses the system clock, and a waiting thread simply sleeps until its next poll. Use a
+ * different PollScheduler -- for example, a {@link VirtualPollScheduler} -- to run waits on some other clock. By default,
+ * all {@link Site sites} in the JVM use the same {@link #getShared shared} PollScheduler.
+ * <P/>
+ * Polls are not driven by a shared timer. Each poll sends blocking WebDriver commands on the waiting thread, so a wait
+ * can't release its thread between polls. Parking that thread on a timer future instead of sleeping would save no threads
+ * or memory, and it would add a background ticker and coarser timing.
+ */
+public class PollScheduler {
+
+    private final Clock clock;
+    private final Sleeper sleeper;
+
+    /**
+     * Creates a new PollScheduler.
+     */
+    public PollScheduler() {
+        this.clock =
+            new Clock() {
+                public long now() {
+                    return currentTimeMillis();
+                }
+
+                public long laterBy( long durationInMillis) {
+                    return currentTimeMillis() + durationInMillis;
+                }
+
+                public boolean isNowBefore( long endInMillis) {
+                    return currentTimeMillis() < endInMillis;
+                }
+            };
+
+        this.sleeper =
+            new Sleeper() {
+                public void sleep( Duration duration) throws InterruptedException {
+                    PollScheduler.this.sleep( duration.in( TimeUnit.MILLISECONDS));
+                }
+            };
+    }
+
+    /**
+     * Returns the PollScheduler shared by all sites in this JVM.
+     */
+    public static PollScheduler getShared() {
+        return shared;
+    }
+
+    /**
+     * Returns after the given delay (in milliseconds).
+     */
+    public void sleep( long delayMillis) throws InterruptedException {
+        if( delayMillis > 0) {
+            TimeUnit.MILLISECONDS.sleep( delayMillis);
+        }
+    }
+
+    /**
+     * Returns the current time (in milliseconds) for this scheduler.
+     */
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns a Clock that reports the time for this scheduler.
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Returns a Sleeper that waits using this scheduler.
+     */
+    public Sleeper getSleeper() {
+        return sleeper;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .toString();
+    }
+
+    private static final PollScheduler shared = new PollScheduler();
+}
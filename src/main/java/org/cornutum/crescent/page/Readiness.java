@@ -0,0 +1,150 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriverException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Defines the criterion used to decide when a {@link Page} is ready for interaction after navigation.
+ * <P/>
+ * By default, a page is {@link #LOAD ready} when the WebDriver reports that navigation is complete, which usually means
+ * that the full page load event has occurred. Any other Readiness starts navigation without waiting for the full page
+ * load and then uses a {@link Finder} to wait until the page satisfies the Readiness criterion. (But note that some
+ * WebDriver implementations will still block subsequent requests until the page is loaded, unless the WebDriver was
+ * created with a "pageLoadStrategy" capability of "eager" or "none".)
+ */
+public abstract class Readiness {
+
+    private final String description;
+
+    /**
+     * A page is ready when the WebDriver reports that navigation is complete.
+     */
+    public static final Readiness LOAD =
+        new Readiness( "load") {
+            public boolean isLoadRequired() {
+                return true;
+            }
+
+            protected boolean isReady( Page<?> page) {
+                return true;
+            }
+        };
+
+    /**
+     * Returns a Readiness that is satisfied when the page document is interactive.
+     */
+    public static Readiness domInteractive() {
+        return script( "document.readyState != 'loading'");
+    }
+
+    /**
+     * Returns a Readiness that is satisfied when the given JavaScript expression is true.
+     */
+    public static Readiness script( final String expression) {
+        checkNotNull( expression, "Readiness expression cannot be null");
+        final String script = String.format( "return !window.%s && !!(%s);", LEAVING, expression);
+        return
+            new Readiness( expression) {
+                protected boolean isReady( Page<?> page) {
+                    return Boolean.TRUE.equals( ((JavascriptExecutor) page.getDriver()).executeScript( script));
+                }
+            };
+    }
+
+    /**
+     * Returns a Readiness that is satisfied when an element identified by the given locator is present.
+     */
+    public static Readiness locator( final By locator) {
+        checkNotNull( locator, "Readiness locator cannot be null");
+        final String script = String.format( "return !window.%s;", LEAVING);
+        return
+            new Readiness( String.valueOf( locator)) {
+                protected boolean isReady( Page<?> page) {
+                    return
+                        Boolean.TRUE.equals( ((JavascriptExecutor) page.getDriver()).executeScript( script))
+                        && !page.getDriver().findElements( locator).isEmpty();
+                }
+            };
+    }
+
+    /**
+     * Creates a new Readiness object.
+     */
+    protected Readiness( String description) {
+        this.description = description;
+    }
+
+    /**
+     * Returns true if navigation must wait for the full page load.
+     */
+    public boolean isLoadRequired() {
+        return false;
+    }
+
+    /**
+     * Returns true if the given page is ready for interaction.
+     */
+    protected abstract boolean isReady( Page<?> page);
+
+    /**
+     * Navigates to the given URL for the given page, returning when the page is ready.
+     * Throws a {@link RequestException} if the page is not ready within the {@link Page#getMaxLoadWait maximum load time}.
+     */
+    public void navigate( Page<?> page, String url) {
+        if( isLoadRequired()) {
+            page.getWindowTracker().navigateTo( url);
+        }
+        else {
+            page.getWindowTracker().invalidateLocation();
+            ((JavascriptExecutor) page.getDriver()).executeScript( NAVIGATE_SCRIPT, url);
+            await( page);
+        }
+    }
+
+    /**
+     * Returns when the given page is ready.
+     * Throws a {@link RequestException} if the page is not ready within the {@link Page#getMaxLoadWait maximum load time}.
+     */
+    public void await( Page<?> page) {
+        if( !isLoadRequired()) {
+            try {
+                new Finder( page, page.getMaxLoadWait())
+                    .await( page)
+                    .ignoring( WebDriverException.class)
+                    .until( p -> isReady( p)? Boolean.TRUE : null);
+            }
+            catch( Exception e) {
+                throw new RequestException( page, "visit", "Page not ready, readiness=" + this, e);
+            }
+        }
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( description)
+            .toString();
+    }
+
+    /**
+     * Marks a document that is being replaced by navigation.
+     */
+    private static final String LEAVING = "crescentLeaving";
+
+    /**
+     * Starts navigation without waiting for the page to load. Navigation to a fragment of the current document does not
+     * replace the document, so the document is marked only when it will be replaced.
+     */
+    private static final String NAVIGATE_SCRIPT =
+        String.format(
+            "var target = new URL( arguments[0], window.location.href).href;"
+            + " var sameDocument = target.indexOf( '#') >= 0 && target.split( '#')[0] == window.location.href.split( '#')[0];"
+            + " if( !sameDocument) { window.%s = true; }"
+            + " window.location.assign( target);",
+            LEAVING);
+}
@@ -65,7 +65,7 @@ public class RequestException extends PageException {
         StringBuilder msg = new StringBuilder();
 
         msg
-            .append( getPage())
+            .append( getPageSummary())
             .append( ", Can't ")
             .append( getRequest());
 
@@ -0,0 +1,144 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.Locators;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Translates element locators and conditions into JavaScript, so that elements can be located and
+ * used within a single script request.
+ */
+public final class ScriptLocator {
+
+    private ScriptLocator() {
+        // Static methods only
+    }
+
+    /**
+     * Returns a JavaScript function expression that, given a root node, returns an array of all elements identified by
+     * the given locator. Returns <CODE>Optional.empty()</CODE> if the locator can't be translated.
+     */
+    public static Optional<String> toScript( By locator) {
+        String finder;
+        String selector = Locators.getSelector( locator).orElse( null);
+
+        if( selector == null) {
+            finder = null;
+        }
+        else if( locator instanceof By.ByCssSelector) {
+            finder = querySelectorAll( selector);
+        }
+        else if( locator instanceof By.ById) {
+            finder = querySelectorAll( String.format( "[id=%s]", cssQuote( selector)));
+        }
+        else if( locator instanceof By.ByName) {
+            finder = querySelectorAll( String.format( "[name=%s]", cssQuote( selector)));
+        }
+        else if( locator instanceof By.ByClassName) {
+            finder = querySelectorAll( String.format( "[class~=%s]", cssQuote( selector)));
+        }
+        else if( locator instanceof By.ByTagName) {
+            finder = querySelectorAll( selector);
+        }
+        else if( locator instanceof By.ByXPath) {
+            finder =
+                String.format(
+                    "function( root) {"
+                    + " var found = [];"
+                    + " var nodes = document.evaluate( %s, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+                    + " for( var i = 0; i < nodes.snapshotLength; i++) { if( nodes.snapshotItem( i).nodeType == 1) { found.push( nodes.snapshotItem( i)); } }"
+                    + " return found; }",
+                    quote( selector));
+        }
+        else if( locator instanceof By.ByLinkText || locator instanceof By.ByPartialLinkText) {
+            finder =
+                String.format(
+                    "function( root) {"
+                    + " var text = %s;"
+                    + " return Array.prototype.filter.call( root.querySelectorAll( 'a'), function( a) {"
+                    + " var linkText = (a.innerText || a.textContent || '').trim();"
+                    + " return %s; }); }",
+                    quote( selector),
+                    locator instanceof By.ByLinkText? "linkText == text" : "linkText.indexOf( text) >= 0");
+        }
+        else {
+            finder = null;
+        }
+
+        return Optional.ofNullable( finder);
+    }
+
+    /**
+     * Returns a JavaScript function expression that, given an element, returns true if the element satisfies
+     * the given condition. Returns <CODE>Optional.empty()</CODE> if the condition can't be translated.
+     */
+    public static Optional<String> toScript( Predicate<WebElement> condition) {
+        String test;
+
+        if( condition == PageUtils.always) {
+            test = "function( e) { return true; }";
+        }
+        else if( condition == PageUtils.isVisible) {
+            test =
+                "function( e) {"
+                + " var style = window.getComputedStyle( e);"
+                + " return style.visibility != 'hidden' && style.display != 'none'"
+                + " && (e.offsetWidth > 0 || e.offsetHeight > 0 || e.getClientRects().length > 0); }";
+        }
+        else if( condition == PageUtils.isEnabled) {
+            test = "function( e) { return !e.disabled; }";
+        }
+        else {
+            test = null;
+        }
+
+        return Optional.ofNullable( test);
+    }
+
+    /**
+     * Returns the given string as a JavaScript string literal.
+     */
+    public static String quote( String string) {
+        return gson.toJson( string);
+    }
+
+    /**
+     * Returns the given string as a CSS string literal.
+     */
+    static String cssQuote( String string) {
+        StringBuilder quoted = new StringBuilder( "\"");
+        for( int i = 0; i < string.length(); i++) {
+            char c = string.charAt( i);
+            if( c == '"' || c == '\\') {
+                quoted.append( '\\').append( c);
+            }
+            else if( c < 0x20 || c == 0x7f) {
+                // Escape control characters by code point, ending with a space.
+                quoted.append( '\\').append( Integer.toHexString( c)).append( ' ');
+            }
+            else {
+                quoted.append( c);
+            }
+        }
+        return quoted.append( '"').toString();
+    }
+
+    /**
+     * Returns a function expression that finds all elements matching the given CSS selector.
+     */
+    private static String querySelectorAll( String selector) {
+        return
+            String.format(
+                "function( root) { return Array.prototype.slice.call( root.querySelectorAll( %s)); }",
+                quote( selector));
+    }
+
+    private static final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+}
@@ -0,0 +1,302 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Captures the browser state for a {@link Page}, so that the same state can be restored later in a different WebDriver
+ * session. A snapshot contains the cookies, local storage, and session storage for the page, the current URL, and the
+ * class and URI of the page and each of its parents.
+ * <P/>
+ * Use a snapshot to start many scenarios from a checkpoint reached by an expensive setup path -- for example, after
+ * logging in and changing settings on several pages. A snapshot is captured with two requests. It is restored with
+ * one navigation to a landing page on the same origin, one script request, one request for each HTTP-only cookie, and
+ * one navigation to visit the last page again at the snapshot URL. If the last page is then not at the URL of the
+ * snapshot -- for example, because the app changed the URL after the page was visited -- one more navigation returns
+ * the last page to the snapshot URL.
+ * <P/>
+ * Only the last page is constructed again, using the {@link PageSummary#getDefaultFactory default factory} for its class.
+ * Its parents become the {@link Page#getParentSummary parent summary} of the restored page, and each parent is
+ * {@link PageSummary#restore restored} only when the page moves {@link Page#back back} to it. But if the last page can be
+ * constructed only from its parent page, its parents are restored first. All pages are restored in the current window.
+ */
+public class SessionSnapshot {
+
+    private String url;
+    private List<SavedCookie> cookies = new ArrayList<SavedCookie>();
+    private Map<String,String> localStorage = new LinkedHashMap<String,String>();
+    private Map<String,String> sessionStorage = new LinkedHashMap<String,String>();
+    private List<SavedPage> pages = new ArrayList<SavedPage>();
+
+    /**
+     * The default path for the page visited to restore cookies and storage. This resource is usually small
+     * and served from the same origin as the app.
+     */
+    public static final String LANDING_PATH = "/favicon.ico";
+
+    /**
+     * Creates a new SessionSnapshot object.
+     */
+    private SessionSnapshot() {
+    }
+
+    /**
+     * Returns a snapshot of the current browser state for the given page.
+     */
+    @SuppressWarnings("unchecked")
+    public static SessionSnapshot capture( Page<?> page) {
+        SessionSnapshot snapshot = new SessionSnapshot();
+        WebDriver driver = page.getDriver();
+
+        List<?> state = (List<?>) ((JavascriptExecutor) driver).executeScript( CAPTURE_SCRIPT);
+        snapshot.url = String.valueOf( state.get(0));
+        snapshot.localStorage.putAll( toStrings( (Map<String,?>) state.get(1)));
+        snapshot.sessionStorage.putAll( toStrings( (Map<String,?>) state.get(2)));
+
+        for( Cookie cookie : driver.manage().getCookies()) {
+            snapshot.cookies.add( new SavedCookie( cookie));
+        }
+
+        for( PageSummary next = PageSummary.withAncestors( page); next != null; next = next.getParent()) {
+            snapshot.pages.add( 0, new SavedPage( next.getType().getName(), next.getURI()));
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Returns the snapshot stored in the given file.
+     */
+    public static SessionSnapshot load( Path file) {
+        try( Reader in = Files.newBufferedReader( file, StandardCharsets.UTF_8)) {
+            return checkNotNull( gson.fromJson( in, SessionSnapshot.class), "No session snapshot found in %s", file);
+        }
+        catch( IOException e) {
+            throw new UncheckedIOException( "Can't load session snapshot from " + file, e);
+        }
+    }
+
+    /**
+     * Stores this snapshot in the given file.
+     */
+    public void save( Path file) {
+        try( Writer out = Files.newBufferedWriter( file, StandardCharsets.UTF_8)) {
+            gson.toJson( this, out);
+        }
+        catch( IOException e) {
+            throw new UncheckedIOException( "Can't save session snapshot to " + file, e);
+        }
+    }
+
+    /**
+     * Restores this snapshot for the given site and returns the restored page, shown at the snapshot URL.
+     */
+    public Page<?> restore( Site site) {
+        return restore( site, LANDING_PATH);
+    }
+
+    /**
+     * Restores this snapshot for the given site and returns the restored page, shown at the snapshot URL. Cookies and
+     * storage are restored after first visiting the given path on the origin of the snapshot URL.
+     */
+    public Page<?> restore( Site site, String landingPath) {
+        checkState( !pages.isEmpty(), "No pages in session snapshot");
+        WebDriver driver = site.getDriver();
+
+        site.getWindowTracker().navigateTo( URI.create( url).resolve( landingPath).toASCIIString());
+
+        List<String> scriptCookies = new ArrayList<String>();
+        for( SavedCookie cookie : cookies) {
+            if( cookie.httpOnly) {
+                driver.manage().addCookie( cookie.toCookie());
+            }
+            else {
+                scriptCookies.add( cookie.toDocumentCookie());
+            }
+        }
+        ((JavascriptExecutor) driver).executeScript( RESTORE_SCRIPT, localStorage, sessionStorage, scriptCookies);
+
+        WindowHandle window = new WindowHandle( site.getWindowTracker().getActiveWindow());
+        PageSummary summary = null;
+        for( SavedPage page : pages) {
+            summary = page.toSummary( window, summary);
+        }
+        Page<?> restored = summary.restore( site, url);
+
+        // Return to the URL shown when the snapshot was captured.
+        if( !url.equals( site.getWindowTracker().getCurrentUrl())) {
+            restored.getReadiness().navigate( restored, url);
+            restored.setURI( URI.create( url));
+            restored.visited();
+        }
+
+        return restored;
+    }
+
+    /**
+     * Returns the URL of the page when this snapshot was captured.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the class name of each page, starting with the first page in the parent chain.
+     */
+    public List<String> getPageTypes() {
+        List<String> types = new ArrayList<String>();
+        for( SavedPage page : pages) {
+            types.add( page.type);
+        }
+        return types;
+    }
+
+    /**
+     * Returns a map of the given values converted to strings.
+     */
+    private static Map<String,String> toStrings( Map<String,?> values) {
+        Map<String,String> strings = new LinkedHashMap<String,String>();
+        for( Map.Entry<String,?> value : values.entrySet()) {
+            strings.put( value.getKey(), Objects.toString( value.getValue(), null));
+        }
+        return strings;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( url)
+            .append( "pages", pages.size())
+            .append( "cookies", cookies.size())
+            .toString();
+    }
+
+    private static final Gson gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
+
+    /**
+     * Returns the current URL, local storage, and session storage.
+     */
+    private static final String CAPTURE_SCRIPT =
+        "var dump = function( storage) {"
+        + " var items = {}; for( var i = 0; i < storage.length; i++) { var key = storage.key( i); items[ key] = storage.getItem( key); }"
+        + " return items; };"
+        + " return [ window.location.href, dump( window.localStorage), dump( window.sessionStorage)];";
+
+    /**
+     * Restores local storage, session storage, and cookies that are not HTTP-only.
+     */
+    private static final String RESTORE_SCRIPT =
+        "var load = function( storage, items) { storage.clear(); for( var key in items) { storage.setItem( key, items[ key]); } };"
+        + " load( window.localStorage, arguments[0]);"
+        + " load( window.sessionStorage, arguments[1]);"
+        + " for( var i = 0; i < arguments[2].length; i++) { document.cookie = arguments[2][i]; }";
+
+    /**
+     * A saved cookie.
+     */
+    private static class SavedCookie {
+        private String name;
+        private String value;
+        private String domain;
+        private String path;
+        private Long expiry;
+        private boolean secure;
+        private boolean httpOnly;
+
+        /**
+         * Creates a new SavedCookie object.
+         */
+        public SavedCookie( Cookie cookie) {
+            name = cookie.getName();
+            value = cookie.getValue();
+            domain = cookie.getDomain();
+            path = cookie.getPath();
+            expiry = cookie.getExpiry() == null? null : cookie.getExpiry().getTime();
+            secure = cookie.isSecure();
+            httpOnly = cookie.isHttpOnly();
+        }
+
+        /**
+         * Returns the WebDriver cookie for this saved cookie.
+         */
+        public Cookie toCookie() {
+            return new Cookie( name, value, domain, path, expiry == null? null : new Date( expiry), secure, httpOnly);
+        }
+
+        /**
+         * Returns the <CODE>document.cookie</CODE> assignment for this saved cookie.
+         */
+        public String toDocumentCookie() {
+            StringBuilder cookie = new StringBuilder( name).append( '=').append( value);
+            if( path != null) {
+                cookie.append( "; path=").append( path);
+            }
+            if( domain != null) {
+                cookie.append( "; domain=").append( domain);
+            }
+            if( expiry != null) {
+                cookie.append( "; expires=").append( DateTimeFormatter.RFC_1123_DATE_TIME.format( Instant.ofEpochMilli( expiry).atOffset( ZoneOffset.UTC)));
+            }
+            if( secure) {
+                cookie.append( "; secure");
+            }
+            return cookie.toString();
+        }
+    }
+
+    /**
+     * A saved page.
+     */
+    private static class SavedPage {
+        private String type;
+        private String uri;
+
+        /**
+         * Creates a new SavedPage object.
+         */
+        public SavedPage( String type, String uri) {
+            this.type = type;
+            this.uri = uri;
+        }
+
+        /**
+         * Returns a summary of this page in the given window, with the given parent summary.
+         */
+        public PageSummary toSummary( WindowHandle window, PageSummary parent) {
+            Class<?> pageType;
+            try {
+                pageType = Class.forName( type);
+            }
+            catch( ClassNotFoundException e) {
+                throw new IllegalStateException( "Can't restore page=" + type, e);
+            }
+            return new PageSummary( pageType, uri, window, pageType.getSimpleName() + "[" + uri + "]", parent);
+        }
+    }
+}
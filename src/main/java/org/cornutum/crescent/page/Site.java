@@ -1,14 +1,31 @@
 package org.cornutum.crescent.page;
 
+import org.cornutum.crescent.dom.DomContent;
+import org.cornutum.crescent.dom.DomDriver;
+import org.cornutum.crescent.driver.DriverDecorator;
+import org.cornutum.crescent.driver.LatencyProfile;
+import org.cornutum.crescent.driver.LatencyShaper;
+import org.cornutum.crescent.driver.PooledHttpClientFactory;
 import org.cornutum.crescent.util.ToString;
 
+import org.apache.http.client.CookieStore;
 import org.apache.http.client.fluent.Executor;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.cookie.BasicClientCookie;
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.Cookie;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
 
 import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Defines a Web page provider.
@@ -17,8 +34,23 @@ public class Site {
 
     private URI uri;
     private WebDriver driver;
+    private boolean browserless;
     private long maxAppWait;
     private double driverLatencyFactor;
+    private long maxLoadWait;
+    private Readiness readiness;
+    private boolean fusedActions;
+    private Diagnostics diagnostics;
+    private PollScheduler pollScheduler;
+    private final List<DriverDecorator> driverDecorators = new ArrayList<DriverDecorator>();
+    private final List<IdleDetector> idleDetectors = new ArrayList<IdleDetector>();
+    private LatencyShaper latencyShaper;
+    private WindowTracker windowTracker;
+    private WindowScheduler windowScheduler;
+    private boolean timingCaptured;
+    private int timingResources;
+    private int historyDepth;
+    private final Map<Class<?>,PageTimingStats> timingStats = new ConcurrentHashMap<Class<?>,PageTimingStats>();
 
     /**
      * Creates a new Site object.
@@ -41,6 +73,13 @@ public class Site {
         setURI( uri);
         setMaxAppWait( 2000);
         setDriverLatencyFactor( 1.0);
+        setMaxLoadWait( 30000);
+        setReadiness( Readiness.LOAD);
+        windowTracker = new WindowTracker( this);
+        windowScheduler = new WindowScheduler( this);
+        setTimingResources( 10);
+        setHistoryDepth( -1);
+        setPollScheduler( null);
     }
 
     /**
@@ -51,10 +90,76 @@ public class Site {
     }
 
     /**
-     * Returns the maximum timeout (in milliseconds) to wait for the app to update elements on this site.
+     * Returns the maximum timeout (in milliseconds) to wait for the app to update elements on this site. Returns 0 while
+     * this site is {@link #isBrowserless accessed without a browser}.
      */
     public long getMaxAppWait() {
-        return maxAppWait;
+        return browserless? 0 : maxAppWait;
+    }
+
+    /**
+     * Changes the maximum timeout (in milliseconds) to wait for a page on this site to become {@link #getReadiness ready}.
+     */
+    public void setMaxLoadWait( long maxWait) {
+        this.maxLoadWait = maxWait;
+    }
+
+    /**
+     * Returns the maximum timeout (in milliseconds) to wait for a page on this site to become {@link #getReadiness ready}.
+     */
+    public long getMaxLoadWait() {
+        return maxLoadWait;
+    }
+
+    /**
+     * Changes the default {@link Readiness} criterion for pages on this site.
+     */
+    public void setReadiness( Readiness readiness) {
+        this.readiness =
+            readiness == null
+            ? Readiness.LOAD
+            : readiness;
+    }
+
+    /**
+     * Returns the default {@link Readiness} criterion for pages on this site. Returns {@link Readiness#LOAD} while this
+     * site is {@link #isBrowserless accessed without a browser}.
+     */
+    public Readiness getReadiness() {
+        return browserless? Readiness.LOAD : readiness;
+    }
+
+    /**
+     * Changes if an {@link ElementAction} activates its element by locating and clicking it in a single step.
+     */
+    public void setFusedActions( boolean fused) {
+        this.fusedActions = fused;
+    }
+
+    /**
+     * Returns if an {@link ElementAction} activates its element by locating and clicking it in a single step,
+     * using {@link Finder#click}.
+     */
+    public boolean isFusedActions() {
+        return fusedActions;
+    }
+
+    /**
+     * Changes the {@link PollScheduler} used to wait for elements on this site. If null, the
+     * {@link PollScheduler#getShared shared} PollScheduler is used.
+     */
+    public void setPollScheduler( PollScheduler pollScheduler) {
+        this.pollScheduler =
+            pollScheduler == null
+            ? PollScheduler.getShared()
+            : pollScheduler;
+    }
+
+    /**
+     * Returns the {@link PollScheduler} used to wait for elements on this site.
+     */
+    public PollScheduler getPollScheduler() {
+        return pollScheduler;
     }
 
     /**
@@ -85,6 +190,37 @@ public class Site {
         return (long) Math.round( interval * getDriverLatencyFactor());
     }
 
+    /**
+     * Changes the {@link LatencyProfile} used to add network latency to every WebDriver command on this site. If null,
+     * no latency is added.
+     * <P/>
+     * Latency is added to the WebDriver given when {@link #enter entering} this site, before any other
+     * {@link #addDriverDecorator decorators} are applied. A latency profile makes it possible to reproduce the conditions
+     * of a remote WebDriver server, for example, to choose a {@link #setDriverLatencyFactor latency factor}.
+     */
+    public void setLatencyProfile( LatencyProfile profile) {
+        this.latencyShaper =
+            profile == null
+            ? null
+            : new LatencyShaper( profile);
+    }
+
+    /**
+     * Returns the {@link LatencyProfile} used to add network latency to every WebDriver command on this site.
+     * Returns null if no latency is added.
+     */
+    public LatencyProfile getLatencyProfile() {
+        return latencyShaper == null? null : latencyShaper.getProfile();
+    }
+
+    /**
+     * Returns the {@link LatencyShaper} that adds network latency to every WebDriver command on this site, which
+     * reports the round trips and wall time for each page model method. Returns null if no latency is added.
+     */
+    public LatencyShaper getLatencyShaper() {
+        return latencyShaper;
+    }
+
     /**
      * Changes the URI for this site.
      */
@@ -106,11 +242,101 @@ public class Site {
         return driver;
     }
 
+    /**
+     * Returns the {@link WindowTracker} for the WebDriver for this site.
+     */
+    public WindowTracker getWindowTracker() {
+        return windowTracker;
+    }
+
+    /**
+     * Returns the {@link WindowScheduler} that runs window-scoped tasks for the WebDriver for this site.
+     */
+    public WindowScheduler getWindowScheduler() {
+        return windowScheduler;
+    }
+
+    /**
+     * Changes if {@link PageTiming} measurements are captured each time a page on this site is visited.
+     */
+    public void setTimingCaptured( boolean captured) {
+        this.timingCaptured = captured;
+    }
+
+    /**
+     * Returns if {@link PageTiming} measurements are captured each time a page on this site is visited.
+     */
+    public boolean isTimingCaptured() {
+        return timingCaptured;
+    }
+
+    /**
+     * Changes the number of {@link PageTiming#getSlowestResources slowest resources} reported for each page visit.
+     */
+    public void setTimingResources( int resources) {
+        this.timingResources = resources;
+    }
+
+    /**
+     * Returns the number of {@link PageTiming#getSlowestResources slowest resources} reported for each page visit.
+     */
+    public int getTimingResources() {
+        return timingResources;
+    }
+
+    /**
+     * Changes the maximum number of ancestors that each page on this site keeps as live {@link Page#getParent parents}.
+     * Older ancestors are kept only as a {@link PageSummary}, and failures on this site keep only a {@link PageException#getPageSummary
+     * summary} of the page where they occurred. A negative depth means that all ancestors are kept.
+     */
+    public void setHistoryDepth( int depth) {
+        this.historyDepth = depth;
+    }
+
+    /**
+     * Returns the maximum number of ancestors that each page on this site keeps as live {@link Page#getParent parents}.
+     * A negative depth means that all ancestors are kept.
+     */
+    public int getHistoryDepth() {
+        return historyDepth;
+    }
+
+    /**
+     * Adds the given {@link PageTiming} measurements for a visit to the given page class.
+     */
+    public void addTiming( Class<?> pageType, PageTiming timing) {
+        timingStats.computeIfAbsent( pageType, PageTimingStats::new).add( timing);
+    }
+
+    /**
+     * Returns the aggregate {@link PageTiming} measurements for the given page class.
+     * Returns null if no measurements have been captured for this class.
+     */
+    public PageTimingStats getTimingStats( Class<?> pageType) {
+        return timingStats.get( pageType);
+    }
+
+    /**
+     * Returns the aggregate {@link PageTiming} measurements for all page classes visited.
+     */
+    public Collection<PageTimingStats> getTimingStats() {
+        return Collections.unmodifiableCollection( timingStats.values());
+    }
+
     /**
      * Returns an HTTP request {@link Executor} for this site.
      */
     public Executor getRequestExecutor() {
-        // Use cookies currently defined for this site.
+        return
+            Executor
+            .newInstance()
+            .cookieStore( getRequestCookies());
+    }
+
+    /**
+     * Returns a store containing the cookies currently defined for this site, for use by HTTP requests.
+     */
+    public CookieStore getRequestCookies() {
         BasicCookieStore requestCookies = new BasicCookieStore();
         for( Cookie siteCookie : getDriver().manage().getCookies()) {
             BasicClientCookie requestCookie = new BasicClientCookie( siteCookie.getName(), siteCookie.getValue());
@@ -119,18 +345,129 @@ public class Site {
             requestCookie.setExpiryDate( siteCookie.getExpiry());
             requestCookies.addCookie( requestCookie);
         }
-    
-        return
-            Executor
-            .newInstance()
-            .cookieStore( requestCookies);
+        return requestCookies;
+    }
+
+    /**
+     * Changes the {@link Diagnostics} that capture artifacts for each {@link PageException} {@link #captureDiagnostics reported}
+     * on this site. If null, no artifacts are captured.
+     */
+    public void setDiagnostics( Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Returns the {@link Diagnostics} that capture artifacts for each {@link PageException} {@link #captureDiagnostics reported}
+     * on this site.
+     * Returns null if no artifacts are captured.
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Reports the given failure on this site. If this site has {@link Diagnostics} and the failure is -- or was caused by --
+     * a {@link PageException}, captures diagnostic artifacts for the current state of the WebDriver, unless already captured.
+     * Call this where a failure is handled -- for example, when a test or scenario fails -- so that failures that are caught
+     * and recovered from don't capture any artifacts.
+     */
+    public void captureDiagnostics( Throwable failure) {
+        Diagnostics diagnostics = getDiagnostics();
+        if( diagnostics != null && getDriver() != null) {
+            for( Throwable cause = failure; cause != null; cause = cause.getCause()) {
+                if( cause instanceof PageException) {
+                    diagnostics.capture( getDriver(), (PageException) cause);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a {@link DriverDecorator} that is applied to the WebDriver given when {@link #enter entering} this site.
+     * Decorators are applied in the order they are added.
+     */
+    public void addDriverDecorator( DriverDecorator decorator) {
+        driverDecorators.add( decorator);
+    }
+
+    /**
+     * Returns the {@link DriverDecorator decorators} applied to the WebDriver given when {@link #enter entering} this site.
+     */
+    public List<DriverDecorator> getDriverDecorators() {
+        return Collections.unmodifiableList( driverDecorators);
+    }
+
+    /**
+     * Adds an {@link IdleDetector} that reports when the app on this site is idle. When any detectors are added,
+     * a {@link Finder} stops waiting for elements to stabilize as soon as the app is idle.
+     */
+    public void addIdleDetector( IdleDetector detector) {
+        idleDetectors.add( detector);
+    }
+
+    /**
+     * Returns the {@link IdleDetector detectors} that report when the app on this site is idle.
+     */
+    public List<IdleDetector> getIdleDetectors() {
+        return Collections.unmodifiableList( idleDetectors);
+    }
+
+    /**
+     * Saves a {@link SessionSnapshot snapshot} of the current browser state for the given page in the given file.
+     */
+    public void saveSession( Page<?> page, Path file) {
+        SessionSnapshot.capture( page).save( file);
+    }
+
+    /**
+     * Restores the {@link SessionSnapshot snapshot} of browser state saved in the given file and returns the restored page.
+     */
+    public Page<?> restoreSession( Path file) {
+        return SessionSnapshot.load( file).restore( this);
     }
 
     /**
      * Initiate access to this site.
      */
     public void enter( WebDriver driver) {
-        this.driver = driver;
+        if( latencyShaper != null) {
+            driver = latencyShaper.decorate( driver);
+        }
+        for( DriverDecorator decorator : driverDecorators) {
+            driver = decorator.decorate( driver);
+        }
+        this.driver = getWindowTracker().decorate( driver);
+        browserless = false;
+        getWindowTracker().invalidate();
+    }
+
+    /**
+     * Initiate access to this site without a browser, using a {@link DomDriver} that requests pages over HTTP and parses
+     * them in the JVM. Use this for pages that are static or rendered by the server and need no page scripts.
+     * <P/>
+     * Because page content changes only by navigation, there is no need to wait for the app to update elements, so
+     * until this site is entered again or {@link #exit exited}, the {@link #getMaxAppWait maximum app wait} is 0 and
+     * pages are {@link Readiness#LOAD ready} when loaded. The settings for this site are not changed.
+     */
+    public void enterWithoutBrowser() {
+        enter( new DomDriver( DomContent.overHttp()));
+        browserless = true;
+    }
+
+    /**
+     * Returns true if this site is accessed {@link #enterWithoutBrowser without a browser}.
+     */
+    public boolean isBrowserless() {
+        return browserless;
+    }
+
+    /**
+     * Initiate access to this site using a new session with the given capabilities on the given remote WebDriver server.
+     * Commands for this session are sent using the {@link PooledHttpClientFactory#getShared shared} pool of keep-alive connections.
+     */
+    public void enter( URL remoteServer, Capabilities capabilities) {
+        enter( new RemoteWebDriver( PooledHttpClientFactory.getShared().createExecutor( remoteServer), capabilities));
     }
 
     /**
@@ -143,6 +480,8 @@ public class Site {
             }
             finally {
                 driver = null;
+                browserless = false;
+                getWindowTracker().invalidate();
             }
         }
     }
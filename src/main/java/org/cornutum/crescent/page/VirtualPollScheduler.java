@@ -0,0 +1,51 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+/**
+ * A {@link PollScheduler} that uses a virtual clock. Instead of sleeping, a wait simply advances the virtual clock,
+ * so waits take no real time -- for example, when replaying a recorded session or running a benchmark.
+ */
+public class VirtualPollScheduler extends PollScheduler {
+
+    private long now;
+
+    /**
+     * Creates a new VirtualPollScheduler that starts at the current system time.
+     */
+    public VirtualPollScheduler() {
+        this( System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a new VirtualPollScheduler that starts at the given time (in milliseconds).
+     */
+    public VirtualPollScheduler( long start) {
+        now = start;
+    }
+
+    /**
+     * Advances the virtual clock by the given duration (in milliseconds).
+     */
+    public synchronized void advance( long millis) {
+        now += Math.max( 0, millis);
+    }
+
+    /**
+     * Advances the virtual clock by the given delay (in milliseconds).
+     */
+    public void sleep( long delayMillis) {
+        advance( delayMillis);
+    }
+
+    public synchronized long currentTimeMillis() {
+        return now;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "now", currentTimeMillis())
+            .toString();
+    }
+}
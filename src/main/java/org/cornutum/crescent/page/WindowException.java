@@ -48,7 +48,7 @@ public class WindowException extends PageException {
     public String getMessage() {
         StringBuilder msg = new StringBuilder();
 
-        msg.append( getPage());
+        msg.append( getPageSummary());
         if( getReason() != null) {
             msg.append( ": ").append( getReason());
         }
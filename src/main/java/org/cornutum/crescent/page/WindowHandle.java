@@ -1,13 +1,17 @@
 package org.cornutum.crescent.page;
 
+import java.io.Serializable;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Represents a Selenium window handle.
  */
-public class WindowHandle {
+public class WindowHandle implements Serializable {
 
     private final String handle;
+
+    private static final long serialVersionUID = 5046203783129406178L;
     
     /**
      * Creates a new WindowHandle object.
@@ -1,5 +1,7 @@
 package org.cornutum.crescent.page;
 
+import org.cornutum.crescent.jfr.Recorder;
+import org.cornutum.crescent.jfr.WindowOpenEvent;
 import org.cornutum.crescent.util.ToString;
 
 import com.google.common.collect.Iterables;
@@ -7,6 +9,7 @@ import com.google.common.collect.Sets;
 
 import org.openqa.selenium.WebDriver;
 
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -27,20 +30,44 @@ public abstract class WindowProducer {
      * Opens content in a new window and returns the new window handle.
      */
     public WindowHandle open() {
-        WebDriver driver = getDriver();
-        Set<String> windowsBefore = driver.getWindowHandles();
+        if( !Recorder.isAvailable()) {
+            return open( new int[]{ 0});
+        }
+
+        int[] polls = new int[]{ 0};
+        WindowOpenEvent event = WindowOpenEvent.start( getPage().getClass(), getClass(), getPage().getSite().getRequestWait( getFinder().getTimeout()));
+        try {
+            WindowHandle window = open( polls);
+            event.end( polls[0], Recorder.Outcome.FOUND);
+            return window;
+        }
+        catch( RuntimeException e) {
+            event.end( polls[0], Recorder.Outcome.of( e.getCause() == null? e : e.getCause()));
+            throw e;
+        }
+    }
+
+    /**
+     * Opens content in a new window and returns the new window handle, counting each poll for the new window.
+     */
+    private WindowHandle open( int[] polls) {
+        WindowTracker windows = getPage().getWindowTracker();
+        // Windows opened without the tracker may be missing from its memory, so request the current windows.
+        Set<String> windowsBefore = new HashSet<String>( windows.refreshWindowHandles());
         get();
 
         Set<String> windowsAfter;
         try {
             windowsAfter = 
-                getFinder().await( driver)
-                .until( d -> {
-                        Set<String> windowsNow = driver.getWindowHandles();
+                getFinder().await( windows)
+                .until( w -> {
+                        polls[0]++;
+                        Set<String> windowsNow = w.refreshWindowHandles();
                         return windowsNow.size() > windowsBefore.size()? windowsNow : null;
                     });
         }
         catch( Exception e) {
+            windows.invalidate();
             throw new WindowException( getPage(), "No new window found", e);
         }
 
@@ -0,0 +1,284 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.support.ui.Clock;
+import org.openqa.selenium.support.ui.Duration;
+import org.openqa.selenium.support.ui.Sleeper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Runs window-scoped tasks for a {@link Site} as cooperative coroutines that share the WebDriver session for the site.
+ * <P/>
+ * Each task runs in its own thread, but only one task at a time has the turn to use the WebDriver. A task gives up its
+ * turn only while a {@link Finder} wait is between polls. The turn then passes to the task that has been ready to run
+ * the longest. Whenever the turn passes to a different task, the WebDriver is switched to the window of that task,
+ * even if the {@link WindowTracker} shows that this window is already active. So while a task waits for slow content
+ * in one window, other tasks can make progress in other windows of the same session.
+ * <P/>
+ * The time a task spends waiting for its turn to come back does not count against the timeout of its {@link Finder}
+ * wait, so a wait does not time out just because other tasks had the turn.
+ * <P/>
+ * While any task is running, the WebDriver for the site must not be used except by a task, and a task must not
+ * {@link #join join} the tasks of its own scheduler.
+ */
+public class WindowScheduler {
+
+    private final Site site;
+    private final Deque<Task> ready = new ArrayDeque<Task>();
+    private final List<CompletableFuture<?>> submitted = new ArrayList<CompletableFuture<?>>();
+    private Task running;
+    private Task previous;
+
+    private static final ThreadLocal<Task> current = new ThreadLocal<Task>();
+
+    /**
+     * Creates a new WindowScheduler for the given site.
+     */
+    public WindowScheduler( Site site) {
+        this.site = site;
+    }
+
+    /**
+     * Starts a task that performs the given function on the given page, in the window for that page.
+     */
+    public <P extends Page<?>,T> CompletableFuture<T> submit( P page, Function<P,T> task) {
+        return submit( page.getWindow(), () -> task.apply( page));
+    }
+
+    /**
+     * Starts a task that performs the given action in the given window. If the window is null, the task starts in
+     * whatever window is active when it first has the turn.
+     */
+    public <T> CompletableFuture<T> submit( WindowHandle window, Callable<T> action) {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        Task task = new Task( window);
+
+        Thread thread =
+            new Thread(
+                () -> {
+                    current.set( task);
+                    try {
+                        resume( task);
+                        result.complete( action.call());
+                    }
+                    catch( Throwable e) {
+                        result.completeExceptionally( e);
+                    }
+                    finally {
+                        release( task);
+                        current.remove();
+                    }
+                },
+                "crescent-window-task");
+        thread.setDaemon( true);
+
+        synchronized( submitted) {
+            submitted.add( result);
+        }
+        thread.start();
+
+        return result;
+    }
+
+    /**
+     * Returns when all submitted tasks are complete. If any task failed, throws the exception for the first failure.
+     * Throws an IllegalStateException if called by a task of this scheduler, which would otherwise wait for itself.
+     */
+    public void join() {
+        Task task = current.get();
+        checkState( task == null || task.getScheduler() != this, "Can't join tasks from a task of %s", this);
+
+        List<CompletableFuture<?>> tasks;
+        synchronized( submitted) {
+            tasks = new ArrayList<CompletableFuture<?>>( submitted);
+            submitted.clear();
+        }
+
+        try {
+            CompletableFuture.allOf( tasks.toArray( new CompletableFuture<?>[0])).join();
+        }
+        catch( CompletionException e) {
+            throw
+                e.getCause() instanceof RuntimeException
+                ? (RuntimeException) e.getCause()
+                : e;
+        }
+    }
+
+    /**
+     * Returns a Sleeper that, when called by a task, gives up the turn of the task while sleeping with the given sleeper.
+     * When called by any other thread, returns the given sleeper.
+     */
+    public static Sleeper yielding( Sleeper sleeper) {
+        Task task = current.get();
+        return
+            task == null
+            ? sleeper
+            : duration -> task.getScheduler().yieldFor( task, sleeper, duration);
+    }
+
+    /**
+     * Returns a Clock that, when called by a task, reports the time from the given clock less the time that the task
+     * has spent waiting for its turn to come back. When called by any other thread, returns the given clock.
+     */
+    public static Clock yielding( Clock clock) {
+        Task task = current.get();
+        return
+            task == null
+            ? clock
+            : new Clock() {
+                public long now() {
+                    return clock.now() - task.getTurnDelay();
+                }
+
+                public long laterBy( long durationInMillis) {
+                    return now() + durationInMillis;
+                }
+
+                public boolean isNowBefore( long endInMillis) {
+                    return now() < endInMillis;
+                }
+            };
+    }
+
+    /**
+     * Gives up the turn of the given task while sleeping for the given duration.
+     */
+    private void yieldFor( Task task, Sleeper sleeper, Duration duration) throws InterruptedException {
+        // Resume later in whichever window the task has made active.
+        task.setWindow( new WindowHandle( site.getWindowTracker().getActiveWindow()));
+        release( task);
+        try {
+            sleeper.sleep( duration);
+        }
+        finally {
+            resume( task);
+        }
+    }
+
+    /**
+     * Returns when the given task has the turn, with the WebDriver switched to the window for the task.
+     */
+    private void resume( Task task) {
+        boolean interrupted = false;
+        boolean handoff;
+        long readySince = site.getPollScheduler().currentTimeMillis();
+        synchronized( this) {
+            ready.add( task);
+            dispatch();
+            while( running != task) {
+                try {
+                    wait();
+                }
+                catch( InterruptedException e) {
+                    // Defer the interrupt until the task can handle it.
+                    interrupted = true;
+                }
+            }
+
+            // Has another task used the WebDriver since this task gave up its turn?
+            handoff = previous != task;
+            previous = task;
+        }
+
+        try {
+            task.addTurnDelay( site.getPollScheduler().currentTimeMillis() - readySince);
+            if( handoff && task.getWindow() != null) {
+                site.getWindowTracker().activate( task.getWindow());
+            }
+        }
+        finally {
+            if( interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Gives up the turn of the given task.
+     */
+    private synchronized void release( Task task) {
+        if( running == task) {
+            running = null;
+            dispatch();
+        }
+    }
+
+    /**
+     * If no task has the turn, gives the turn to the task that has been ready the longest.
+     */
+    private void dispatch() {
+        if( running == null && !ready.isEmpty()) {
+            running = ready.removeFirst();
+            notifyAll();
+        }
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( site)
+            .toString();
+    }
+
+    /**
+     * A task run by this scheduler.
+     */
+    private class Task {
+        private WindowHandle window;
+        private long turnDelay;
+
+        /**
+         * Creates a new Task object.
+         */
+        public Task( WindowHandle window) {
+            setWindow( window);
+        }
+
+        /**
+         * Changes the window for this task.
+         */
+        public void setWindow( WindowHandle window) {
+            this.window = window;
+        }
+
+        /**
+         * Returns the window for this task.
+         */
+        public WindowHandle getWindow() {
+            return window;
+        }
+
+        /**
+         * Adds to the total time (in milliseconds) that this task has waited for its turn.
+         */
+        public void addTurnDelay( long millis) {
+            turnDelay += millis;
+        }
+
+        /**
+         * Returns the total time (in milliseconds) that this task has waited for its turn.
+         */
+        public long getTurnDelay() {
+            return turnDelay;
+        }
+
+        /**
+         * Returns the scheduler for this task.
+         */
+        public WindowScheduler getScheduler() {
+            return WindowScheduler.this;
+        }
+    }
+}
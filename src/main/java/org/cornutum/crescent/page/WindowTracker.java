@@ -0,0 +1,254 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.driver.Command;
+import org.cornutum.crescent.driver.CommandHandler;
+import org.cornutum.crescent.driver.CommandProxy;
+import org.cornutum.crescent.driver.DriverDecorator;
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Tracks the windows of the WebDriver for a {@link Site}, so that redundant WebDriver requests can be avoided.
+ * <P/>
+ * A WindowTracker remembers the set of open window handles, the active window, and the current URL. Each of these
+ * is reported from memory when known. Otherwise, it is requested from the WebDriver and remembered until
+ * {@link #invalidate invalidated}.
+ * <P/>
+ * A WindowTracker is also a {@link DriverDecorator} for the WebDriver of its site. Any command that may open, close, or
+ * switch windows -- such as a click, a script, or a window switch not made by this tracker -- invalidates this
+ * information, as does any command that may change the current location.
+ */
+public class WindowTracker implements DriverDecorator, CommandHandler {
+
+    private final Site site;
+    private Set<String> windows;
+    private String active;
+    private String currentUrl;
+    private boolean requesting;
+
+    /**
+     * Creates a new WindowTracker object.
+     */
+    public WindowTracker( Site site) {
+        this.site = site;
+    }
+
+    /**
+     * Returns a WebDriver that notifies this tracker of every command for the given WebDriver.
+     */
+    public WebDriver decorate( WebDriver driver) {
+        return CommandProxy.decorate( driver, this);
+    }
+
+    /**
+     * Sends the given command, invalidating any information that it may change.
+     */
+    public Object handle( Command command) throws Throwable {
+        try {
+            return command.proceed();
+        }
+        finally {
+            // Commands requested by this tracker update its information directly.
+            if( !requesting && windowCommands.contains( command.getName())) {
+                invalidate();
+            }
+            else if( !requesting && locationCommands.contains( command.getName())) {
+                invalidateLocation();
+            }
+        }
+    }
+
+    /**
+     * Returns the handles for all open windows.
+     */
+    public Set<String> getWindowHandles() {
+        return
+            windows == null
+            ? refreshWindowHandles()
+            : Collections.unmodifiableSet( windows);
+    }
+
+    /**
+     * Requests the handles for all open windows from the WebDriver.
+     */
+    public Set<String> refreshWindowHandles() {
+        windows = new LinkedHashSet<String>( getDriver().getWindowHandles());
+        if( active != null && !windows.contains( active)) {
+            active = null;
+        }
+        return Collections.unmodifiableSet( windows);
+    }
+
+    /**
+     * Returns the number of open windows.
+     */
+    public int getWindowCount() {
+        return getWindowHandles().size();
+    }
+
+    /**
+     * Returns the handle for the active window.
+     */
+    public String getActiveWindow() {
+        if( active == null) {
+            active = getDriver().getWindowHandle();
+        }
+        return active;
+    }
+
+    /**
+     * Switches the WebDriver to the given window, unless this window is already active.
+     */
+    public void switchTo( WindowHandle window) {
+        if( !window.toString().equals( active)) {
+            activate( window);
+        }
+    }
+
+    /**
+     * Switches the WebDriver to the given window, even if this window is already known to be active.
+     */
+    public void activate( WindowHandle window) {
+        String handle = window.toString();
+        requesting = true;
+        try {
+            getDriver().switchTo().window( handle);
+        }
+        catch( RuntimeException e) {
+            invalidate();
+            throw e;
+        }
+        finally {
+            requesting = false;
+        }
+        active = handle;
+        currentUrl = null;
+    }
+
+    /**
+     * Closes the active window. On return, no window is known to be active.
+     */
+    public void close() {
+        String closed = active;
+        requesting = true;
+        try {
+            getDriver().close();
+        }
+        catch( RuntimeException e) {
+            invalidate();
+            throw e;
+        }
+        finally {
+            requesting = false;
+        }
+
+        if( windows != null) {
+            if( closed == null) {
+                windows = null;
+            }
+            else {
+                windows.remove( closed);
+            }
+        }
+        active = null;
+        currentUrl = null;
+    }
+
+    /**
+     * Returns the URL for the active window.
+     */
+    public String getCurrentUrl() {
+        return
+            currentUrl == null
+            ? refreshCurrentUrl()
+            : currentUrl;
+    }
+
+    /**
+     * Requests the URL for the active window from the WebDriver.
+     */
+    public String refreshCurrentUrl() {
+        currentUrl = getDriver().getCurrentUrl();
+        return currentUrl;
+    }
+
+    /**
+     * Navigates the active window to the given URL.
+     */
+    public void navigateTo( String url) {
+        currentUrl = null;
+        getDriver().get( url);
+    }
+
+    /**
+     * Notifies this tracker that the current location may have changed.
+     */
+    public void invalidateLocation() {
+        currentUrl = null;
+    }
+
+    /**
+     * Notifies this tracker that windows may have been opened or closed or that the current location may have changed.
+     */
+    public void invalidate() {
+        windows = null;
+        active = null;
+        currentUrl = null;
+    }
+
+    /**
+     * Returns the WebDriver for this tracker.
+     */
+    private WebDriver getDriver() {
+        return site.getDriver();
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "active", active)
+            .append( "windows", windows)
+            .toString();
+    }
+
+    /**
+     * Commands that may open, close, or switch windows.
+     */
+    private static final Set<String> windowCommands =
+        new HashSet<String>(
+            Arrays.asList(
+                "WebElement.click",
+                "WebElement.submit",
+                "WebElement.sendKeys",
+                "WebDriver.close",
+                "WebDriver.quit",
+                "TargetLocator.window",
+                "JavascriptExecutor.executeScript",
+                "JavascriptExecutor.executeAsyncScript",
+                "Interactive.perform",
+                "Keyboard.sendKeys",
+                "Keyboard.pressKey",
+                "Mouse.click",
+                "Mouse.doubleClick",
+                "Alert.accept",
+                "Alert.dismiss"));
+
+    /**
+     * Commands that may change the current location.
+     */
+    private static final Set<String> locationCommands =
+        new HashSet<String>(
+            Arrays.asList(
+                "WebDriver.get",
+                "Navigation.back",
+                "Navigation.forward",
+                "Navigation.to",
+                "Navigation.refresh"));
+}
@@ -0,0 +1,654 @@
+package org.cornutum.crescent.processor;
+
+import org.cornutum.crescent.page.BatchLocate;
+import org.cornutum.crescent.page.Component;
+import org.cornutum.crescent.page.Locate;
+import org.cornutum.crescent.page.Page;
+import org.cornutum.crescent.page.PageAction;
+
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Generates the implementation of the {@link Locate} accessors of each abstract {@link Page} or {@link Component} class.
+ * <P/>
+ * For a class named <CODE>HomePage</CODE>, the processor generates a subclass named <CODE>HomePageImpl</CODE> in the same
+ * package, with the same constructors. Each accessor uses a {@link org.cornutum.crescent.page.Finder Finder} with a
+ * <CODE>By</CODE> locator created once for the class, and each {@link PageAction} is created by calling its constructor
+ * directly. The table of all locators, by accessor name, is available from the <CODE>LOCATORS</CODE> field of the
+ * generated class.
+ * <P/>
+ * For a page class annotated with {@link BatchLocate}, the locators for all single-element accessors are resolved in a
+ * single script request each time the page is visited, after the page's own {@link Page#visited visited} method has
+ * completed. The first call to each of these accessors after a visit returns the element resolved, and any later call
+ * uses a {@link org.cornutum.crescent.page.Finder Finder}, just like an accessor for a locator that is not resolved.
+ * Accessors for a list of elements always use a {@link org.cornutum.crescent.page.Finder Finder}.
+ * <P/>
+ * The name of each locator constant is derived from the accessor name. If this name is already used by the generated
+ * class, an underscore is appended.
+ */
+@SupportedAnnotationTypes({ "org.cornutum.crescent.page.Locate", "org.cornutum.crescent.page.BatchLocate"})
+public class LocateProcessor extends AbstractProcessor {
+
+    /**
+     * Creates a new LocateProcessor object.
+     */
+    public LocateProcessor() {
+    }
+
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for( Element method : round.getElementsAnnotatedWith( Locate.class)) {
+            types.add( (TypeElement) method.getEnclosingElement());
+        }
+        for( Element type : round.getElementsAnnotatedWith( BatchLocate.class)) {
+            types.add( (TypeElement) type);
+        }
+
+        for( TypeElement type : types) {
+            getModel( type).ifPresent( this::generate);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the model for the implementation of the given class. Returns <CODE>Optional.empty()</CODE> if the class is
+     * not valid.
+     */
+    private Optional<Model> getModel( TypeElement type) {
+        boolean valid = true;
+        boolean page = isSubtype( type.asType(), Page.class);
+        if( !page && !isSubtype( type.asType(), Component.class)) {
+            valid = error( type, "@Locate accessors must belong to a Page or Component class");
+        }
+        else if( !type.getModifiers().contains( Modifier.ABSTRACT) || type.getKind() != ElementKind.CLASS) {
+            valid = error( type, "@Locate accessors must belong to an abstract class");
+        }
+        else if( type.getModifiers().contains( Modifier.PRIVATE)
+                 || (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains( Modifier.STATIC))
+                 || type.getNestingKind() == NestingKind.LOCAL
+                 || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            valid = error( type, "@Locate accessors must belong to a top-level or static member class that is not private");
+        }
+
+        boolean batch = type.getAnnotation( BatchLocate.class) != null;
+        if( batch && !page) {
+            valid = error( type, "@BatchLocate applies only to a Page class");
+        }
+
+        Model model = new Model( type, page, batch);
+        Set<String> constants = new HashSet<String>( Arrays.asList( "LOCATORS", "BATCHED", "VISIBLE"));
+        for( ExecutableElement method : ElementFilter.methodsIn( processingEnv.getElementUtils().getAllMembers( type))) {
+            if( method.getModifiers().contains( Modifier.ABSTRACT)) {
+                Locate locate = method.getAnnotation( Locate.class);
+                if( locate == null) {
+                    model.implAbstract = true;
+                }
+                else {
+                    Optional<Accessor> accessor = getAccessor( type, page, method, locate, constants);
+                    if( accessor.isPresent()) {
+                        model.accessors.add( accessor.get());
+                    }
+                    else {
+                        valid = false;
+                    }
+                }
+            }
+            else if( method.getAnnotation( Locate.class) != null && method.getEnclosingElement().equals( type)) {
+                valid = error( method, "@Locate accessor must be abstract");
+            }
+        }
+
+        return valid? Optional.of( model) : Optional.empty();
+    }
+
+    /**
+     * Returns the model for the given accessor method of the given class, using a locator constant name that is not
+     * one of the given constant names. Returns <CODE>Optional.empty()</CODE> if the method is not valid.
+     */
+    private Optional<Accessor> getAccessor( TypeElement type, boolean page, ExecutableElement method, Locate locate, Set<String> constants) {
+        List<String> locators = new ArrayList<String>();
+        addLocator( locators, "cssSelector", locate.css());
+        addLocator( locators, "id", locate.id());
+        addLocator( locators, "name", locate.name());
+        addLocator( locators, "className", locate.className());
+        addLocator( locators, "tagName", locate.tagName());
+        addLocator( locators, "xpath", locate.xpath());
+        addLocator( locators, "linkText", locate.linkText());
+        addLocator( locators, "partialLinkText", locate.partialLinkText());
+
+        boolean valid = true;
+        if( locators.size() != 1) {
+            valid = error( method, "@Locate must define exactly one locator");
+        }
+        if( !method.getParameters().isEmpty()
+            || method.getModifiers().contains( Modifier.STATIC)
+            || method.getModifiers().contains( Modifier.PRIVATE)) {
+            valid = error( method, "@Locate accessor must be an instance method with no parameters");
+        }
+
+        TypeMirror returnType = method.getReturnType();
+        TypeMirror elementType = processingEnv.getElementUtils().getTypeElement( WebElement.class.getName()).asType();
+        TypeMirror argType = getTypeArgument( returnType);
+        AccessorType accessorType;
+        TypeMirror actionType = null;
+
+        if( isSameType( returnType, elementType)) {
+            accessorType = AccessorType.ELEMENT;
+        }
+        else if( isGeneric( returnType, Optional.class) && isSameType( argType, elementType)) {
+            accessorType = AccessorType.OPTIONAL_ELEMENT;
+        }
+        else if( isGeneric( returnType, List.class) && isSameType( argType, elementType)) {
+            accessorType = AccessorType.ELEMENTS;
+        }
+        else if( isGeneric( returnType, Optional.class) && argType != null && isSubtype( argType, PageAction.class)) {
+            accessorType = AccessorType.OPTIONAL_ACTION;
+            actionType = argType;
+        }
+        else if( isSubtype( returnType, PageAction.class)) {
+            accessorType = AccessorType.ACTION;
+            actionType = returnType;
+        }
+        else {
+            accessorType = null;
+            valid = error( method, "@Locate accessor must return a WebElement, Optional<WebElement>, List<WebElement>, PageAction, or Optional<PageAction>");
+        }
+
+        TypeMirror pageType = page? type.asType() : getComponentPage( type);
+        if( actionType != null && !hasActionConstructor( actionType, pageType, elementType)) {
+            valid = error( method, "PageAction " + actionType + " must have a constructor with (" + pageType + ", WebElement) parameters");
+        }
+
+        String constant = method.getSimpleName().toString().replaceAll( "([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+        while( !constants.add( constant)) {
+            constant += "_";
+        }
+
+        return
+            valid
+            ? Optional.of( new Accessor( method, constant, locators.get(0), locate.visible(), accessorType, actionType))
+            : Optional.empty();
+    }
+
+    /**
+     * Adds a locator expression for the given By factory method if the given value is defined.
+     */
+    private void addLocator( List<String> locators, String byMethod, String value) {
+        if( !value.isEmpty()) {
+            locators.add( String.format( "org.openqa.selenium.By.%s( %s)", byMethod, processingEnv.getElementUtils().getConstantExpression( value)));
+        }
+    }
+
+    /**
+     * Returns true if the given action type has a constructor that can be called with the given page type and a WebElement.
+     */
+    private boolean hasActionConstructor( TypeMirror actionType, TypeMirror pageType, TypeMirror elementType) {
+        Element action = processingEnv.getTypeUtils().asElement( actionType);
+        return
+            action != null
+            && !action.getModifiers().contains( Modifier.ABSTRACT)
+            && ElementFilter.constructorsIn( action.getEnclosedElements()).stream()
+               .anyMatch( constructor ->
+                          !constructor.getModifiers().contains( Modifier.PRIVATE)
+                          && constructor.getParameters().size() == 2
+                          && pageType != null
+                          && processingEnv.getTypeUtils().isAssignable(
+                              processingEnv.getTypeUtils().erasure( pageType),
+                              processingEnv.getTypeUtils().erasure( constructor.getParameters().get(0).asType()))
+                          && isSameType( constructor.getParameters().get(1).asType(), elementType));
+    }
+
+    /**
+     * Returns the type of the page returned by <CODE>getPage()</CODE> for the given component class.
+     */
+    private TypeMirror getComponentPage( TypeElement type) {
+        return
+            ElementFilter.methodsIn( processingEnv.getElementUtils().getAllMembers( type)).stream()
+            .filter( method -> method.getSimpleName().contentEquals( "getPage") && method.getParameters().isEmpty())
+            .findFirst()
+            .map( method -> ((ExecutableType) processingEnv.getTypeUtils().asMemberOf( (DeclaredType) type.asType(), method)).getReturnType())
+            .orElse( null);
+    }
+
+    /**
+     * Generates the implementation for the given model.
+     */
+    private void generate( Model model) {
+        TypeElement type = model.type;
+        String packageName = getPackage( type).getQualifiedName().toString();
+        String implName = getImplName( type);
+        String typeParams =
+            type.getTypeParameters().isEmpty()
+            ? ""
+            : type.getTypeParameters().stream().map( this::toDeclaration).collect( joining( ",", "<", ">"));
+        String typeArgs =
+            type.getTypeParameters().isEmpty()
+            ? ""
+            : type.getTypeParameters().stream().map( p -> p.getSimpleName().toString()).collect( joining( ",", "<", ">"));
+
+        Source source = new Source();
+        if( !packageName.isEmpty()) {
+            source.line( "package %s;", packageName).line();
+        }
+        source
+            .line( "/**")
+            .line( " * Implements the {@link org.cornutum.crescent.page.Locate} accessors of {@link %s}.", type.getQualifiedName())
+            .line( " * Generated by {@link %s} -- do not edit.", getClass().getName())
+            .line( " */")
+            .line(
+                "public %sclass %s%s extends %s%s {",
+                model.implAbstract? "abstract " : "",
+                implName,
+                typeParams,
+                type.getQualifiedName(),
+                typeArgs)
+            .line();
+
+        // Locator table
+        for( Accessor accessor : model.accessors) {
+            source.line( "    private static final org.openqa.selenium.By %s = %s;", accessor.constant, accessor.locator);
+        }
+        source
+            .line()
+            .line( "    /**")
+            .line( "     * The locators for all accessors, by accessor name.")
+            .line( "     */")
+            .line( "    public static final java.util.Map<String,org.openqa.selenium.By> LOCATORS;");
+        if( model.batch) {
+            source
+                .line( "    private static final java.util.Map<String,org.openqa.selenium.By> BATCHED;")
+                .line( "    private static final java.util.Set<String> VISIBLE;");
+        }
+        source
+            .line()
+            .line( "    static {")
+            .line( "        java.util.Map<String,org.openqa.selenium.By> locators = new java.util.LinkedHashMap<String,org.openqa.selenium.By>();");
+        for( Accessor accessor : model.accessors) {
+            source.line( "        locators.put( \"%s\", %s);", accessor.name, accessor.constant);
+        }
+        source.line( "        LOCATORS = java.util.Collections.unmodifiableMap( locators);");
+        if( model.batch) {
+            source.line( "        java.util.Map<String,org.openqa.selenium.By> batched = new java.util.LinkedHashMap<String,org.openqa.selenium.By>();");
+            for( Accessor accessor : model.accessors) {
+                if( accessor.type != AccessorType.ELEMENTS) {
+                    source.line( "        batched.put( \"%s\", %s);", accessor.name, accessor.constant);
+                }
+            }
+            source
+                .line( "        BATCHED = java.util.Collections.unmodifiableMap( batched);")
+                .line( "        java.util.Set<String> visible = new java.util.HashSet<String>();");
+            for( Accessor accessor : model.accessors) {
+                if( accessor.visible) {
+                    source.line( "        visible.add( \"%s\");", accessor.name);
+                }
+            }
+            source.line( "        VISIBLE = java.util.Collections.unmodifiableSet( visible);");
+        }
+        source.line( "    }").line();
+
+        if( model.batch) {
+            source.line( "    private org.cornutum.crescent.page.BatchLocator batch;").line();
+        }
+
+        // Constructors
+        for( ExecutableElement constructor : ElementFilter.constructorsIn( type.getEnclosedElements())) {
+            if( !constructor.getModifiers().contains( Modifier.PRIVATE)) {
+                List<? extends VariableElement> params = constructor.getParameters();
+                List<String> paramDecls = new ArrayList<String>();
+                for( int i = 0; i < params.size(); i++) {
+                    TypeMirror paramType = params.get(i).asType();
+                    paramDecls.add(
+                        constructor.isVarArgs() && i == params.size() - 1 && paramType.getKind() == TypeKind.ARRAY
+                        ? ((ArrayType) paramType).getComponentType() + "... " + params.get(i).getSimpleName()
+                        : paramType + " " + params.get(i).getSimpleName());
+                }
+                String paramNames = params.stream().map( p -> p.getSimpleName().toString()).collect( joining( ", "));
+                String throwsClause =
+                    constructor.getThrownTypes().isEmpty()
+                    ? ""
+                    : constructor.getThrownTypes().stream().map( String::valueOf).collect( joining( ", ", " throws ", ""));
+
+                source
+                    .line( "    /**")
+                    .line( "     * Creates a new %s object.", implName)
+                    .line( "     */")
+                    .line( "    %s%s( %s)%s {", getConstructorAccess( constructor), implName, String.join( ", ", paramDecls), throwsClause)
+                    .line( "        super( %s);", paramNames)
+                    .line( "    }")
+                    .line();
+            }
+        }
+
+        // Accessors
+        String page = model.page? "this" : "getPage()";
+        for( Accessor accessor : model.accessors) {
+            String finder =
+                accessor.visible
+                ? "finder().when( org.cornutum.crescent.page.PageUtils.isVisible)"
+                : "finder()";
+
+            source
+                .line( "    @Override")
+                .line( "    %s%s %s() {", getAccess( accessor.method), accessor.method.getReturnType(), accessor.name);
+
+            switch( accessor.type) {
+            case ELEMENT:
+                source.line(
+                    model.batch
+                    ? "        return batched( \"%2$s\").orElseGet( () -> %1$s.findElement( %3$s));"
+                    : "        return %1$s.findElement( %3$s);",
+                    finder, accessor.name, accessor.constant);
+                break;
+
+            case OPTIONAL_ELEMENT:
+                if( model.batch) {
+                    source
+                        .line( "        java.util.Optional<org.openqa.selenium.WebElement> batched = batched( \"%s\");", accessor.name)
+                        .line( "        return batched.isPresent()? batched : %s.findOptionalElement( %s);", finder, accessor.constant);
+                }
+                else {
+                    source.line( "        return %s.findOptionalElement( %s);", finder, accessor.constant);
+                }
+                break;
+
+            case ELEMENTS:
+                source.line( "        return %s.findElements( %s);", finder, accessor.constant);
+                break;
+
+            case ACTION:
+                source
+                    .line( "        org.cornutum.crescent.page.Finder finder = %s;", finder)
+                    .line(
+                        model.batch
+                        ? "        org.openqa.selenium.WebElement element = batched( \"%s\").orElseGet( () -> finder.findElement( %s));"
+                        : "        org.openqa.selenium.WebElement element = finder.findElement( %2$s);",
+                        accessor.name, accessor.constant)
+                    .line( "        return located( new %s( %s, element), finder, %s);", accessor.actionType, page, accessor.constant);
+                break;
+
+            case OPTIONAL_ACTION:
+                source.line( "        org.cornutum.crescent.page.Finder finder = %s;", finder);
+                if( model.batch) {
+                    source
+                        .line( "        java.util.Optional<org.openqa.selenium.WebElement> batched = batched( \"%s\");", accessor.name)
+                        .line(
+                            "        java.util.Optional<org.openqa.selenium.WebElement> element = batched.isPresent()? batched : finder.findOptionalElement( %s);",
+                            accessor.constant);
+                }
+                else {
+                    source.line( "        java.util.Optional<org.openqa.selenium.WebElement> element = finder.findOptionalElement( %s);", accessor.constant);
+                }
+                source.line( "        return element.map( e -> located( new %s( %s, e), finder, %s));", accessor.actionType, page, accessor.constant);
+                break;
+            }
+
+            source.line( "    }").line();
+        }
+
+        // Helpers
+        if( model.batch) {
+            source
+                .line( "    @Override")
+                .line( "    protected void visited() {")
+                .line( "        if( batch == null) {")
+                .line( "            batch = new org.cornutum.crescent.page.BatchLocator( BATCHED, VISIBLE);")
+                .line( "        }")
+                .line( "        batch.clear();")
+                .line( "        super.visited();")
+                .line( "        batch.resolve( this);")
+                .line( "    }")
+                .line()
+                .line( "    private java.util.Optional<org.openqa.selenium.WebElement> batched( String name) {")
+                .line( "        return batch == null? java.util.Optional.empty() : batch.getElement( name);")
+                .line( "    }")
+                .line();
+        }
+        if( model.accessors.stream().anyMatch( accessor -> accessor.actionType != null)) {
+            source
+                .line( "    private static <A extends org.cornutum.crescent.page.PageAction<?,?>> A located( A action, org.cornutum.crescent.page.Finder finder, org.openqa.selenium.By locator) {")
+                .line( "        action.setLocator( finder, locator);")
+                .line( "        return action;")
+                .line( "    }")
+                .line();
+        }
+        source.end();
+
+        String qualifiedName = packageName.isEmpty()? implName : packageName + "." + implName;
+        try( Writer writer = processingEnv.getFiler().createSourceFile( qualifiedName, type).openWriter()) {
+            writer.write( source.toString());
+        }
+        catch( IOException e) {
+            error( type, "Can't write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the name of the generated implementation of the given class.
+     */
+    private String getImplName( TypeElement type) {
+        StringBuilder name = new StringBuilder( type.getSimpleName());
+        for( Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name.insert( 0, enclosing.getSimpleName() + "_");
+        }
+        return name.append( "Impl").toString();
+    }
+
+    /**
+     * Returns the package of the given element.
+     */
+    private PackageElement getPackage( Element element) {
+        return processingEnv.getElementUtils().getPackageOf( element);
+    }
+
+    /**
+     * Returns the access modifier for the given element, followed by a space.
+     */
+    private String getAccess( Element element) {
+        Set<Modifier> modifiers = element.getModifiers();
+        return
+            modifiers.contains( Modifier.PUBLIC)
+            ? "public "
+
+            : modifiers.contains( Modifier.PROTECTED)
+            ? "protected "
+
+            : "";
+    }
+
+    /**
+     * Returns the access modifier for a generated constructor that calls the given constructor, followed by a space.
+     * Public and protected constructors are both implemented by a public constructor.
+     */
+    private String getConstructorAccess( ExecutableElement constructor) {
+        return
+            constructor.getModifiers().contains( Modifier.PUBLIC) || constructor.getModifiers().contains( Modifier.PROTECTED)
+            ? "public "
+            : "";
+    }
+
+    /**
+     * Returns the declaration of the given type parameter.
+     */
+    private String toDeclaration( TypeParameterElement param) {
+        String bounds =
+            param.getBounds().stream()
+            .map( String::valueOf)
+            .filter( bound -> !bound.equals( Object.class.getName()))
+            .collect( joining( " & "));
+
+        return
+            bounds.isEmpty()
+            ? param.getSimpleName().toString()
+            : param.getSimpleName() + " extends " + bounds;
+    }
+
+    /**
+     * Returns the first type argument of the given type. Returns null if the type has no type arguments.
+     */
+    private TypeMirror getTypeArgument( TypeMirror type) {
+        return
+            type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty()
+            ? ((DeclaredType) type).getTypeArguments().get(0)
+            : null;
+    }
+
+    /**
+     * Returns true if the given type is an instance of the given generic class.
+     */
+    private boolean isGeneric( TypeMirror type, Class<?> genericClass) {
+        return
+            type.getKind() == TypeKind.DECLARED
+            && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals( genericClass.getName());
+    }
+
+    /**
+     * Returns true if the given types are the same.
+     */
+    private boolean isSameType( TypeMirror type, TypeMirror other) {
+        return type != null && processingEnv.getTypeUtils().isSameType( type, other);
+    }
+
+    /**
+     * Returns true if the given type is a subtype of the given class.
+     */
+    private boolean isSubtype( TypeMirror type, Class<?> superClass) {
+        TypeElement superType = processingEnv.getElementUtils().getTypeElement( superClass.getName());
+        return
+            type.getKind() == TypeKind.DECLARED
+            && processingEnv.getTypeUtils().isSubtype(
+                processingEnv.getTypeUtils().erasure( type),
+                processingEnv.getTypeUtils().erasure( superType.asType()));
+    }
+
+    /**
+     * Reports an error for the given element. Returns false.
+     */
+    private boolean error( Element element, String message) {
+        processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    /**
+     * The kinds of accessor methods.
+     */
+    private enum AccessorType { ELEMENT, OPTIONAL_ELEMENT, ELEMENTS, ACTION, OPTIONAL_ACTION }
+
+    /**
+     * Describes the implementation of an abstract page model class.
+     */
+    private static class Model {
+        private final TypeElement type;
+        private final boolean page;
+        private final boolean batch;
+        private final List<Accessor> accessors = new ArrayList<Accessor>();
+        private boolean implAbstract;
+
+        /**
+         * Creates a new Model object.
+         */
+        public Model( TypeElement type, boolean page, boolean batch) {
+            this.type = type;
+            this.page = page;
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * Describes the implementation of an accessor method.
+     */
+    private static class Accessor {
+        private final ExecutableElement method;
+        private final String name;
+        private final String constant;
+        private final String locator;
+        private final boolean visible;
+        private final AccessorType type;
+        private final TypeMirror actionType;
+
+        /**
+         * Creates a new Accessor object.
+         */
+        public Accessor( ExecutableElement method, String constant, String locator, boolean visible, AccessorType type, TypeMirror actionType) {
+            this.method = method;
+            this.name = method.getSimpleName().toString();
+            this.constant = constant;
+            this.locator = locator;
+            this.visible = visible;
+            this.type = type;
+            this.actionType = actionType;
+        }
+    }
+
+    /**
+     * Builds the source code for a generated class.
+     */
+    private static class Source {
+        private final StringBuilder text = new StringBuilder();
+
+        /**
+         * Adds an empty line.
+         */
+        public Source line() {
+            text.append( '\n');
+            return this;
+        }
+
+        /**
+         * Adds a formatted line.
+         */
+        public Source line( String format, Object... args) {
+            text.append( String.format( format, args)).append( '\n');
+            return this;
+        }
+
+        /**
+         * Adds the end of the class.
+         */
+        public Source end() {
+            if( text.length() > 1 && text.charAt( text.length() - 2) == '\n') {
+                text.setLength( text.length() - 1);
+            }
+            return line( "}");
+        }
+
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.page.Site;
+import org.cornutum.crescent.util.ToString;
+
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Defines a named user journey that a {@link LoadRunner} runs repeatedly for each {@link VirtualUser}.
+ * <P/>
+ * A journey is built from page visits and {@link org.cornutum.crescent.page.PageAction page actions}, performed using the methods of
+ * the given VirtualUser so that each step is measured.
+ */
+public class Journey<S extends Site> {
+
+    private final String name;
+    private final Consumer<VirtualUser<S>> body;
+
+    /**
+     * Creates a new Journey object.
+     */
+    public Journey( String name, Consumer<VirtualUser<S>> body) {
+        this.name = checkNotNull( name, "Journey name cannot be null");
+        this.body = checkNotNull( body, "Journey body cannot be null");
+    }
+
+    /**
+     * Returns a new Journey object.
+     */
+    public static <S extends Site> Journey<S> of( String name, Consumer<VirtualUser<S>> body) {
+        return new Journey<S>( name, body);
+    }
+
+    /**
+     * Returns the name of this journey.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Runs this journey for the given user.
+     */
+    public void run( VirtualUser<S> user) {
+        body.accept( user);
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getName())
+            .toString();
+    }
+}
@@ -0,0 +1,137 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.util.ToString;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records a distribution of latency values (in microseconds), using fixed memory and constant time for each value.
+ * <P/>
+ * Like an <A href="http://hdrhistogram.org">HdrHistogram</A>, values are counted in buckets that are linear within each
+ * power of 2, so that any reported value is within about 1.6% of the recorded value. Values greater than
+ * {@link #MAX_VALUE} are recorded as {@link #MAX_VALUE}. A LatencyHistogram can be updated concurrently by multiple threads.
+ */
+public class LatencyHistogram {
+
+    private final AtomicLongArray counts = new AtomicLongArray( BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong( Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates a new LatencyHistogram object.
+     */
+    public LatencyHistogram() {
+    }
+
+    /**
+     * Records the given latency (in microseconds).
+     */
+    public void record( long micros) {
+        long value = Math.min( Math.max( 0, micros), MAX_VALUE);
+        counts.incrementAndGet( getIndex( value));
+        count.increment();
+        sum.add( value);
+        min.accumulateAndGet( value, Math::min);
+        max.accumulateAndGet( value, Math::max);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean of all recorded values.
+     */
+    public double getMean() {
+        long n = getCount();
+        return n == 0? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Returns the least recorded value.
+     */
+    public long getMin() {
+        return getCount() == 0? 0 : min.get();
+    }
+
+    /**
+     * Returns the greatest recorded value.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value at the given percentile (0-100) of all recorded values.
+     */
+    public long getValueAtPercentile( double percentile) {
+        long n = getCount();
+        if( n == 0) {
+            return 0;
+        }
+
+        long rank = Math.max( 1, (long) Math.ceil( Math.min( Math.max( 0, percentile), 100) / 100 * n));
+        long seen = counts.get( 0);
+        int index = 0;
+        while( seen < rank && index < BUCKETS - 1) {
+            seen += counts.get( ++index);
+        }
+
+        return Math.min( getHighestValue( index), getMax());
+    }
+
+    /**
+     * Returns the index of the bucket for the given value.
+     */
+    private static int getIndex( long value) {
+        if( value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros( value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (exponent - 1) * HALF_SUB_BUCKETS + (int) ((value >> exponent) - HALF_SUB_BUCKETS);
+    }
+
+    /**
+     * Returns the greatest value counted in the given bucket.
+     */
+    private static long getHighestValue( int index) {
+        if( index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int offset = index - SUB_BUCKETS;
+        int exponent = offset / HALF_SUB_BUCKETS + 1;
+        long subBucket = offset % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "count", getCount())
+            .append( "p50", getValueAtPercentile( 50))
+            .append( "p90", getValueAtPercentile( 90))
+            .append( "p99", getValueAtPercentile( 99))
+            .append( "max", getMax())
+            .toString();
+    }
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int MAX_VALUE_BITS = 36;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+    /**
+     * The greatest value (in microseconds, about 19 hours) that can be recorded.
+     */
+    public static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+}
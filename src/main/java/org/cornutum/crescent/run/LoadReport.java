@@ -0,0 +1,147 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.util.ToString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reports the results of the {@link Journey journeys} run by a {@link LoadRunner}.
+ */
+public class LoadReport {
+
+    private final Map<List<Object>,StepStats> steps;
+    private final Map<Class<? extends Throwable>,Long> journeyErrors;
+    private final long journeys;
+    private final long failures;
+    private final long dropped;
+    private final long elapsed;
+    private final int recoveries;
+
+    /**
+     * Creates a new LoadReport object.
+     */
+    public LoadReport(
+        Map<List<Object>,StepStats> steps,
+        Map<Class<? extends Throwable>,Long> journeyErrors,
+        long journeys,
+        long failures,
+        long dropped,
+        long elapsed,
+        int recoveries) {
+
+        this.steps = steps;
+        this.journeyErrors = journeyErrors;
+        this.journeys = journeys;
+        this.failures = failures;
+        this.dropped = dropped;
+        this.elapsed = elapsed;
+        this.recoveries = recoveries;
+    }
+
+    /**
+     * Returns the results for every journey step, identified by page class and action.
+     */
+    public List<StepStats> getSteps() {
+        return Collections.unmodifiableList( new ArrayList<StepStats>( steps.values()));
+    }
+
+    /**
+     * Returns the results for the journey step with the given page class and action.
+     */
+    public Optional<StepStats> getStep( Class<?> pageType, String action) {
+        return Optional.ofNullable( steps.get( Arrays.<Object>asList( pageType, action)));
+    }
+
+    /**
+     * Returns the number of journeys completed, including failed journeys.
+     */
+    public long getJourneys() {
+        return journeys;
+    }
+
+    /**
+     * Returns the number of journeys that failed.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the number of journeys not started because all users were busy at the scheduled arrival time.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Returns the total elapsed time (in milliseconds) for this run.
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the number of journeys completed per second.
+     */
+    public double getThroughput() {
+        return elapsed == 0? 0 : journeys * 1000.0 / elapsed;
+    }
+
+    /**
+     * Returns the number of steps of the given kind completed per second.
+     */
+    public double getThroughput( StepStats step) {
+        return elapsed == 0? 0 : step.getPassed() * 1000.0 / elapsed;
+    }
+
+    /**
+     * Returns the fraction of all journeys that failed.
+     */
+    public double getErrorRate() {
+        return journeys == 0? 0 : (double) failures / journeys;
+    }
+
+    /**
+     * Returns the number of failed journeys for each type of exception, such as each type of
+     * {@link org.cornutum.crescent.page.PageException}.
+     */
+    public Map<Class<? extends Throwable>,Long> getErrors() {
+        Map<Class<? extends Throwable>,Long> errors = new LinkedHashMap<Class<? extends Throwable>,Long>( journeyErrors);
+        for( StepStats step : steps.values()) {
+            step.getErrors().forEach( (type, count) -> errors.merge( type, count, Long::sum));
+        }
+        return errors;
+    }
+
+    /**
+     * Returns the fraction of all journeys that failed with the given type of exception.
+     */
+    public double getErrorRate( Class<? extends Throwable> type) {
+        return journeys == 0? 0 : (double) getErrors().getOrDefault( type, 0L) / journeys;
+    }
+
+    /**
+     * Returns the number of sessions that were replaced after failing during a journey.
+     */
+    public int getRecoveries() {
+        return recoveries;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "journeys", getJourneys())
+            .append( "failures", getFailures())
+            .append( "dropped", getDropped())
+            .append( "elapsed", getElapsed())
+            .append( "throughput", String.format( "%.2f/sec", getThroughput()))
+            .append( "recoveries", getRecoveries())
+            .toString();
+    }
+}
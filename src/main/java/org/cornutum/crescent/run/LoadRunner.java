@@ -0,0 +1,401 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.page.PollScheduler;
+import org.cornutum.crescent.page.Site;
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generates load by running a {@link Journey} repeatedly as a number of {@link VirtualUser virtual users}, each using its
+ * own WebDriver session.
+ * <P/>
+ * By default, each user runs the journey again as soon as it ends (a "closed" workload), and users start at evenly spaced
+ * times during the ramp-up period. When an arrival rate is given, journeys start at that rate instead (an "open" workload),
+ * with the rate increasing linearly from zero during the ramp-up period. If all users are busy when a journey is due to start,
+ * the journey is dropped, rather than delayed, so that the measured latency is not hidden by a slower arrival rate.
+ * <P/>
+ * The resulting {@link LoadReport} shows the latency percentiles for each journey step, the journey throughput, and the
+ * number of failures for each type of exception. If a journey fails because its WebDriver session is no longer usable,
+ * the session is replaced by a new one. If a new session can't be started, the journey fails with the exception thrown.
+ * <P/>
+ * A run is timed using the {@link PollScheduler} of the first Site created by the site factory, which is also used for
+ * the first session started.
+ */
+public class LoadRunner<S extends Site> {
+
+    private final Supplier<S> siteFactory;
+    private final Supplier<WebDriver> driverFactory;
+    private final int users;
+    private long duration;
+    private long rampUp;
+    private double arrivalRate;
+    private long thinkTimeMin;
+    private long thinkTimeMax;
+
+    /**
+     * Creates a new LoadRunner that uses the given number of virtual users. Each user uses a new Site from the
+     * given site factory and enters it with a new WebDriver from the given driver factory.
+     */
+    public LoadRunner( Supplier<S> siteFactory, Supplier<WebDriver> driverFactory, int users) {
+        checkArgument( users > 0, "Number of users must be greater than 0");
+        this.siteFactory = siteFactory;
+        this.driverFactory = driverFactory;
+        this.users = users;
+        setDuration( 60000);
+        setRampUp( 0);
+        setArrivalRate( 0);
+        setThinkTime( 0, 0);
+    }
+
+    /**
+     * Returns the number of virtual users.
+     */
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * Changes the time (in milliseconds) to start new journeys.
+     */
+    public void setDuration( long millis) {
+        checkArgument( millis > 0, "Duration must be greater than 0");
+        duration = millis;
+    }
+
+    /**
+     * Returns the time (in milliseconds) to start new journeys.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Changes the time (in milliseconds) to reach full load.
+     */
+    public void setRampUp( long millis) {
+        checkArgument( millis >= 0, "Ramp-up time must not be negative");
+        rampUp = millis;
+    }
+
+    /**
+     * Returns the time (in milliseconds) to reach full load.
+     */
+    public long getRampUp() {
+        return rampUp;
+    }
+
+    /**
+     * Changes the number of journeys started per second. If 0, each user starts a new journey when its last journey ends.
+     */
+    public void setArrivalRate( double perSecond) {
+        checkArgument( perSecond >= 0, "Arrival rate must not be negative");
+        arrivalRate = perSecond;
+    }
+
+    /**
+     * Returns the number of journeys started per second. If 0, each user starts a new journey when its last journey ends.
+     */
+    public double getArrivalRate() {
+        return arrivalRate;
+    }
+
+    /**
+     * Changes the range of time (in milliseconds) that a user pauses after each journey step.
+     */
+    public void setThinkTime( long minMillis, long maxMillis) {
+        checkArgument( minMillis >= 0 && maxMillis >= minMillis, "Invalid think time range=[%s,%s]", minMillis, maxMillis);
+        thinkTimeMin = minMillis;
+        thinkTimeMax = maxMillis;
+    }
+
+    /**
+     * Returns the minimum time (in milliseconds) that a user pauses after each journey step.
+     */
+    public long getThinkTimeMin() {
+        return thinkTimeMin;
+    }
+
+    /**
+     * Returns the maximum time (in milliseconds) that a user pauses after each journey step.
+     */
+    public long getThinkTimeMax() {
+        return thinkTimeMax;
+    }
+
+    /**
+     * Runs the given journey for the specified duration and returns the results.
+     */
+    public LoadReport run( Journey<S> journey) {
+        // Time the run with the same scheduler that the sites use for their waits.
+        Load load = new Load( journey, siteFactory.get());
+        long start = load.scheduler.currentTimeMillis();
+        if( getArrivalRate() > 0) {
+            load.runOpen( start);
+        }
+        else {
+            load.runClosed( start);
+        }
+        long elapsed = load.scheduler.currentTimeMillis() - start;
+
+        return
+            new LoadReport(
+                load.steps,
+                load.getJourneyErrors(),
+                load.journeys.get(),
+                load.failures.get(),
+                load.dropped.get(),
+                elapsed,
+                load.recoveries.get());
+    }
+
+    /**
+     * Returns the time (in milliseconds after the start) when the given journey arrives, when journeys arrive at the
+     * specified rate after a linear ramp-up.
+     */
+    private long getArrivalTime( long journey) {
+        double perMilli = getArrivalRate() / 1000;
+        double rampUpJourneys = perMilli * getRampUp() / 2;
+        return
+            (long)
+            (journey < rampUpJourneys
+             ? Math.sqrt( 2 * getRampUp() * journey / perMilli)
+             : getRampUp() + (journey - rampUpJourneys) / perMilli);
+    }
+
+    /**
+     * Returns true if the WebDriver session for the given site is still usable.
+     */
+    private boolean isSessionAlive( S site) {
+        try {
+            site.getDriver().getWindowHandles();
+            return true;
+        }
+        catch( RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Ends the WebDriver session for the given site.
+     */
+    private void exitSession( S site) {
+        if( site != null) {
+            try {
+                site.exit();
+            }
+            catch( Exception ignore) {
+                // Session already failed.
+            }
+        }
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "users", getUsers())
+            .append( "duration", getDuration())
+            .append( "rampUp", getRampUp())
+            .append( "arrivalRate", getArrivalRate())
+            .toString();
+    }
+
+    /**
+     * Runs the load for a single journey.
+     */
+    private class Load {
+        private final Journey<S> journey;
+        private final PollScheduler scheduler;
+        private final Map<List<Object>,StepStats> steps = Collections.synchronizedMap( new LinkedHashMap<List<Object>,StepStats>());
+        private final Map<Class<? extends Throwable>,AtomicLong> journeyErrors = new ConcurrentHashMap<Class<? extends Throwable>,AtomicLong>();
+        private final AtomicLong journeys = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicInteger recoveries = new AtomicInteger();
+        private final AtomicReference<S> firstSite;
+
+        /**
+         * Creates a new Load object, timed by the scheduler for the given site. The given site is used for the first
+         * session started.
+         */
+        public Load( Journey<S> journey, S firstSite) {
+            this.journey = journey;
+            this.scheduler = firstSite.getPollScheduler();
+            this.firstSite = new AtomicReference<S>( firstSite);
+        }
+
+        /**
+         * Runs each user repeatedly until the end of the run.
+         */
+        public void runClosed( long start) {
+            ExecutorService executor = Executors.newFixedThreadPool( getUsers());
+            try {
+                List<Future<?>> workers = new ArrayList<Future<?>>();
+                for( int i = 0; i < getUsers(); i++) {
+                    int user = i;
+                    workers.add( executor.submit( () -> runUser( user, start)));
+                }
+                for( Future<?> worker : workers) {
+                    worker.get();
+                }
+            }
+            catch( Exception e) {
+                throw new IllegalStateException( "Can't complete journeys", e);
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+
+        /**
+         * Starts journeys at the specified arrival rate until the end of the run.
+         */
+        public void runOpen( long start) {
+            ExecutorService executor = Executors.newFixedThreadPool( getUsers());
+            Semaphore idleUsers = new Semaphore( getUsers());
+            ConcurrentLinkedQueue<S> idleSessions = new ConcurrentLinkedQueue<S>();
+            AtomicInteger nextUser = new AtomicInteger();
+            try {
+                long arrival;
+                for( long n = 0; (arrival = getArrivalTime( n)) < getDuration(); n++) {
+                    waitUntil( start + arrival);
+                    if( !idleUsers.tryAcquire()) {
+                        dropped.incrementAndGet();
+                    }
+                    else {
+                        executor.submit( () -> {
+                            S site = idleSessions.poll();
+                            try {
+                                site = runJourney( nextUser.getAndIncrement(), site);
+                            }
+                            finally {
+                                if( site != null) {
+                                    idleSessions.add( site);
+                                }
+                                idleUsers.release();
+                            }
+                        });
+                    }
+                }
+
+                executor.shutdown();
+                executor.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch( InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException( "Can't complete journeys", e);
+            }
+            finally {
+                executor.shutdownNow();
+                idleSessions.forEach( LoadRunner.this::exitSession);
+            }
+        }
+
+        /**
+         * Waits until the given time.
+         */
+        private void waitUntil( long time) throws InterruptedException {
+            long delay = time - scheduler.currentTimeMillis();
+            if( delay > 0) {
+                scheduler.sleep( delay);
+            }
+        }
+
+        /**
+         * Runs journeys for the given user until the end of the run.
+         */
+        private void runUser( int user, long start) {
+            S site = null;
+            try {
+                waitUntil( start + getRampUp() * user / getUsers());
+                while( scheduler.currentTimeMillis() - start < getDuration() && !Thread.currentThread().isInterrupted()) {
+                    site = runJourney( user, site);
+                }
+            }
+            catch( InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finally {
+                exitSession( site);
+            }
+        }
+
+        /**
+         * Returns a Site for a new WebDriver session.
+         */
+        private S newSession() {
+            S site = firstSite.getAndSet( null);
+            if( site == null) {
+                site = siteFactory.get();
+            }
+            site.enter( driverFactory.get());
+            return site;
+        }
+
+        /**
+         * Runs the journey for the given user, using the given site session, and returns the site session to use next.
+         * If no session is given, a new session is started. Returns null if the session is no longer usable.
+         */
+        private S runJourney( int user, S site) {
+            VirtualUser<S> virtualUser = null;
+            try {
+                if( site == null) {
+                    site = newSession();
+                }
+                virtualUser = new VirtualUser<S>( user, site, steps, getThinkTimeMin(), getThinkTimeMax());
+                journey.run( virtualUser);
+            }
+            catch( Throwable e) {
+                failures.incrementAndGet();
+                if( virtualUser == null || e != virtualUser.getStepFailure()) {
+                    journeyErrors.computeIfAbsent( e.getClass(), type -> new AtomicLong()).incrementAndGet();
+                }
+                if( virtualUser == null) {
+                    // Couldn't start a new session.
+                    site = null;
+                }
+                else {
+                    site.captureDiagnostics( e);
+                }
+                if( site != null && !isSessionAlive( site)) {
+                    exitSession( site);
+                    site = null;
+                    recoveries.incrementAndGet();
+                }
+            }
+            finally {
+                journeys.incrementAndGet();
+            }
+
+            return site;
+        }
+
+        /**
+         * Returns the number of journeys that failed outside of any step, for each type of exception.
+         */
+        public Map<Class<? extends Throwable>,Long> getJourneyErrors() {
+            Map<Class<? extends Throwable>,Long> errors = new LinkedHashMap<Class<? extends Throwable>,Long>();
+            journeyErrors.forEach( (type, count) -> errors.put( type, count.get()));
+            return errors;
+        }
+    }
+}
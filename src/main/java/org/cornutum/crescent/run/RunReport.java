@@ -0,0 +1,100 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.util.ToString;
+
+import java.util.Collections;
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Reports the results of all {@link Scenario scenarios} run by a {@link ScenarioRunner}.
+ */
+public class RunReport {
+
+    private final List<ScenarioResult> results;
+    private final long elapsed;
+    private final long[] sessionBusy;
+    private final int recoveries;
+    
+    /**
+     * Creates a new RunReport object.
+     */
+    public RunReport( List<ScenarioResult> results, long elapsed, long[] sessionBusy, int recoveries) {
+        this.results = results;
+        this.elapsed = elapsed;
+        this.sessionBusy = sessionBusy;
+        this.recoveries = recoveries;
+    }
+
+    /**
+     * Returns the results of all scenarios, in order of completion.
+     */
+    public List<ScenarioResult> getResults() {
+        return Collections.unmodifiableList( results);
+    }
+
+    /**
+     * Returns the results of all failed scenarios.
+     */
+    public List<ScenarioResult> getFailures() {
+        return results.stream().filter( r -> !r.isPassed()).collect( toList());
+    }
+
+    /**
+     * Returns the total elapsed time (in milliseconds) for this run.
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the number of scenarios completed per minute.
+     */
+    public double getThroughput() {
+        return elapsed == 0? 0 : results.size() * 60000.0 / elapsed;
+    }
+
+    /**
+     * Returns the number of sessions used for this run.
+     */
+    public int getSessions() {
+        return sessionBusy.length;
+    }
+
+    /**
+     * Returns the fraction of the elapsed time that the given session spent running scenarios.
+     */
+    public double getUtilization( int session) {
+        return elapsed == 0? 0 : (double) sessionBusy[ session] / elapsed;
+    }
+
+    /**
+     * Returns the fraction of the elapsed time that all sessions spent running scenarios.
+     */
+    public double getUtilization() {
+        long busy = 0;
+        for( long sessionTime : sessionBusy) {
+            busy += sessionTime;
+        }
+        return elapsed == 0 || sessionBusy.length == 0? 0 : (double) busy / (elapsed * sessionBusy.length);
+    }
+
+    /**
+     * Returns the number of sessions that were replaced after failing during a scenario.
+     */
+    public int getRecoveries() {
+        return recoveries;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "scenarios", getResults().size())
+            .append( "failures", getFailures().size())
+            .append( "elapsed", getElapsed())
+            .append( "throughput", String.format( "%.1f/min", getThroughput()))
+            .append( "utilization", String.format( "%.0f%%", getUtilization() * 100))
+            .append( "recoveries", getRecoveries())
+            .toString();
+    }
+}
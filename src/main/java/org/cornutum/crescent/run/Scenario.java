@@ -0,0 +1,53 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.page.Site;
+import org.cornutum.crescent.util.ToString;
+
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Defines a named test scenario that uses a specific {@link Site}.
+ */
+public class Scenario<S extends Site> {
+
+    private final String name;
+    private final Consumer<S> body;
+
+    /**
+     * Creates a new Scenario object.
+     */
+    public Scenario( String name, Consumer<S> body) {
+        this.name = checkNotNull( name, "Scenario name cannot be null");
+        this.body = checkNotNull( body, "Scenario body cannot be null");
+    }
+
+    /**
+     * Returns a new Scenario object.
+     */
+    public static <S extends Site> Scenario<S> of( String name, Consumer<S> body) {
+        return new Scenario<S>( name, body);
+    }
+
+    /**
+     * Returns the name of this scenario.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Runs this scenario using the given site.
+     */
+    public void run( S site) {
+        body.accept( site);
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getName())
+            .toString();
+    }
+}
@@ -0,0 +1,76 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.util.ToString;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Records the duration (in milliseconds) of each {@link Scenario}, so that a {@link ScenarioRunner} can schedule
+ * the longest scenarios first. Durations can be saved in a file and reused by subsequent runs.
+ */
+public class ScenarioDurations {
+
+    private final Properties durations = new Properties();
+    
+    /**
+     * Creates a new ScenarioDurations object.
+     */
+    public ScenarioDurations() {
+    }
+
+    /**
+     * Returns the durations stored in the given file. Returns an empty set of durations if the file does not exist.
+     */
+    public static ScenarioDurations load( Path file) {
+        ScenarioDurations durations = new ScenarioDurations();
+        if( Files.exists( file)) {
+            try( InputStream in = Files.newInputStream( file)) {
+                durations.durations.load( in);
+            }
+            catch( IOException e) {
+                throw new UncheckedIOException( "Can't load scenario durations from " + file, e);
+            }
+        }
+        return durations;
+    }
+
+    /**
+     * Stores these durations in the given file.
+     */
+    public synchronized void save( Path file) {
+        try( OutputStream out = Files.newOutputStream( file)) {
+            durations.store( out, "Scenario durations (milliseconds)");
+        }
+        catch( IOException e) {
+            throw new UncheckedIOException( "Can't save scenario durations to " + file, e);
+        }
+    }
+
+    /**
+     * Returns the recorded duration for the given scenario.
+     */
+    public synchronized Optional<Long> get( String scenario) {
+        return Optional.ofNullable( durations.getProperty( scenario)).map( Long::valueOf);
+    }
+
+    /**
+     * Records the duration for the given scenario.
+     */
+    public synchronized void put( String scenario, long duration) {
+        durations.setProperty( scenario, String.valueOf( duration));
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "scenarios", durations.size())
+            .toString();
+    }
+}
@@ -0,0 +1,70 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.util.ToString;
+
+/**
+ * Reports the result of running a {@link Scenario}.
+ */
+public class ScenarioResult {
+
+    private final String name;
+    private final int session;
+    private final long duration;
+    private final Throwable failure;
+
+    /**
+     * Creates a new ScenarioResult object.
+     */
+    public ScenarioResult( String name, int session, long duration, Throwable failure) {
+        this.name = name;
+        this.session = session;
+        this.duration = duration;
+        this.failure = failure;
+    }
+
+    /**
+     * Returns the name of the scenario.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of the session that ran the scenario.
+     */
+    public int getSession() {
+        return session;
+    }
+
+    /**
+     * Returns the time (in milliseconds) for the last attempt to run the scenario. Returns 0 if the scenario
+     * failed because no session could be started.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the failure that ended the scenario. Returns null if the scenario passed.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Returns true if the scenario passed.
+     */
+    public boolean isPassed() {
+        return failure == null;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getName())
+            .append( "session", getSession())
+            .append( "duration", getDuration())
+            .append( "passed", isPassed())
+            .toString();
+    }
+}
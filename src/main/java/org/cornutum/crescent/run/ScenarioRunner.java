@@ -0,0 +1,298 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.page.Site;
+import org.cornutum.crescent.util.ToString;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs {@link Scenario scenarios} in parallel across multiple WebDriver sessions.
+ * <P/>
+ * Each session runs on its own thread using its own {@link Site}. Scenarios are scheduled longest-first, using the durations
+ * recorded by previous runs, and initially distributed to balance the expected work for each session. When a session has no more
+ * scenarios of its own, it steals the shortest remaining scenario from the session with the most expected work left.
+ * <P/>
+ * If a scenario fails because its WebDriver session is no longer usable, the session is replaced by a new one and the scenario
+ * is run once more. Only the duration of the last attempt is recorded. If a new session can't be started, the scenario fails
+ * with the resulting exception, and the next scenario for this session tries to start a new session again.
+ */
+public class ScenarioRunner<S extends Site> {
+
+    private final Supplier<S> siteFactory;
+    private final Supplier<WebDriver> driverFactory;
+    private final int sessions;
+    private ScenarioDurations durations;
+
+    /**
+     * Creates a new ScenarioRunner that uses the given number of sessions. Each session uses a new Site from the
+     * given site factory and enters it with a new WebDriver from the given driver factory.
+     */
+    public ScenarioRunner( Supplier<S> siteFactory, Supplier<WebDriver> driverFactory, int sessions) {
+        checkArgument( sessions > 0, "Number of sessions must be greater than 0");
+        this.siteFactory = siteFactory;
+        this.driverFactory = driverFactory;
+        this.sessions = sessions;
+        setDurations( null);
+    }
+
+    /**
+     * Changes the scenario durations used to schedule scenarios. Durations are updated with the results of each run.
+     */
+    public void setDurations( ScenarioDurations durations) {
+        this.durations =
+            durations == null
+            ? new ScenarioDurations()
+            : durations;
+    }
+
+    /**
+     * Returns the scenario durations used to schedule scenarios.
+     */
+    public ScenarioDurations getDurations() {
+        return durations;
+    }
+
+    /**
+     * Returns the number of sessions used to run scenarios.
+     */
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Runs the given scenarios and returns the results.
+     */
+    public RunReport run( Collection<Scenario<S>> scenarios) {
+        List<ConcurrentLinkedDeque<Scenario<S>>> queues = schedule( scenarios);
+        long[] remaining = new long[ sessions];
+        for( int i = 0; i < sessions; i++) {
+            for( Scenario<S> scenario : queues.get(i)) {
+                remaining[i] += getExpectedDuration( scenario);
+            }
+        }
+
+        List<ScenarioResult> results = Collections.synchronizedList( new ArrayList<ScenarioResult>());
+        AtomicLong[] busy = new AtomicLong[ sessions];
+        AtomicInteger recoveries = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool( sessions);
+        long start = System.currentTimeMillis();
+        try {
+            List<Future<?>> workers = new ArrayList<Future<?>>();
+            for( int i = 0; i < sessions; i++) {
+                int session = i;
+                busy[i] = new AtomicLong();
+                workers.add( executor.submit( () -> runSession( session, queues, remaining, results, busy[ session], recoveries)));
+            }
+            for( Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        catch( Exception e) {
+            throw new IllegalStateException( "Can't complete scenarios", e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+
+        long[] sessionBusy = new long[ sessions];
+        for( int i = 0; i < sessions; i++) {
+            sessionBusy[i] = busy[i].get();
+        }
+        return new RunReport( results, elapsed, sessionBusy, recoveries.get());
+    }
+
+    /**
+     * Returns the initial scenario queue for each session, assigning the longest scenarios first to the
+     * session with the least expected work.
+     */
+    private List<ConcurrentLinkedDeque<Scenario<S>>> schedule( Collection<Scenario<S>> scenarios) {
+        List<Scenario<S>> longestFirst = new ArrayList<Scenario<S>>( scenarios);
+        longestFirst.sort( Comparator.comparingLong( (Scenario<S> scenario) -> getExpectedDuration( scenario)).reversed());
+
+        List<ConcurrentLinkedDeque<Scenario<S>>> queues = new ArrayList<ConcurrentLinkedDeque<Scenario<S>>>();
+        long[] load = new long[ sessions];
+        for( int i = 0; i < sessions; i++) {
+            queues.add( new ConcurrentLinkedDeque<Scenario<S>>());
+        }
+        for( Scenario<S> scenario : longestFirst) {
+            int leastLoaded = 0;
+            for( int i = 1; i < sessions; i++) {
+                if( load[i] < load[ leastLoaded]) {
+                    leastLoaded = i;
+                }
+            }
+            queues.get( leastLoaded).addLast( scenario);
+            load[ leastLoaded] += getExpectedDuration( scenario);
+        }
+
+        return queues;
+    }
+
+    /**
+     * Runs scenarios in the given session until no scenarios remain.
+     */
+    private void runSession(
+        int session,
+        List<ConcurrentLinkedDeque<Scenario<S>>> queues,
+        long[] remaining,
+        List<ScenarioResult> results,
+        AtomicLong busy,
+        AtomicInteger recoveries) {
+
+        S site = null;
+        try {
+            Scenario<S> scenario;
+            while( (scenario = next( session, queues, remaining)) != null) {
+                long start = System.currentTimeMillis();
+                long duration = 0;
+                Throwable failure;
+                try {
+                    if( site == null) {
+                        site = newSession();
+                    }
+
+                    long attempted = System.currentTimeMillis();
+                    failure = runScenario( scenario, site);
+                    if( failure != null && !isSessionAlive( site)) {
+                        // Session failed -- recover and try again.
+                        exitSession( site);
+                        site = null;
+                        site = newSession();
+                        recoveries.incrementAndGet();
+                        attempted = System.currentTimeMillis();
+                        failure = runScenario( scenario, site);
+                    }
+                    duration = System.currentTimeMillis() - attempted;
+                    durations.put( scenario.getName(), duration);
+                }
+                catch( RuntimeException e) {
+                    // Can't start a new session -- this scenario fails, and the next scenario tries another session.
+                    failure = e;
+                }
+
+                busy.addAndGet( System.currentTimeMillis() - start);
+                results.add( new ScenarioResult( scenario.getName(), session, duration, failure));
+            }
+        }
+        finally {
+            exitSession( site);
+        }
+    }
+
+    /**
+     * Returns the next scenario for the given session. Returns null if no scenarios remain.
+     */
+    private Scenario<S> next( int session, List<ConcurrentLinkedDeque<Scenario<S>>> queues, long[] remaining) {
+        Scenario<S> next = queues.get( session).pollFirst();
+        int owner = session;
+
+        while( next == null && (owner = getBusiestQueue( queues, remaining)) >= 0) {
+            // Steal the shortest scenario from the session with the most work remaining.
+            next = queues.get( owner).pollLast();
+        }
+
+        if( next != null) {
+            synchronized( remaining) {
+                remaining[ owner] -= getExpectedDuration( next);
+            }
+        }
+        
+        return next;
+    }
+
+    /**
+     * Returns the queue with the most expected work remaining. Returns -1 if all queues are empty.
+     */
+    private int getBusiestQueue( List<ConcurrentLinkedDeque<Scenario<S>>> queues, long[] remaining) {
+        int busiest = -1;
+        synchronized( remaining) {
+            for( int i = 0; i < queues.size(); i++) {
+                if( !queues.get(i).isEmpty() && (busiest < 0 || remaining[i] > remaining[ busiest])) {
+                    busiest = i;
+                }
+            }
+        }
+        return busiest;
+    }
+
+    /**
+     * Runs the given scenario and returns any failure.
+     */
+    private Throwable runScenario( Scenario<S> scenario, S site) {
+        try {
+            scenario.run( site);
+            return null;
+        }
+        catch( Throwable e) {
+            site.captureDiagnostics( e);
+            return e;
+        }
+    }
+
+    /**
+     * Returns the expected duration for the given scenario. Scenarios without a recorded duration are expected to take
+     * longer than any other.
+     */
+    private long getExpectedDuration( Scenario<S> scenario) {
+        return durations.get( scenario.getName()).orElse( Long.MAX_VALUE / (1L << 20));
+    }
+
+    /**
+     * Returns a Site for a new WebDriver session.
+     */
+    private S newSession() {
+        S site = siteFactory.get();
+        site.enter( driverFactory.get());
+        return site;
+    }
+
+    /**
+     * Returns true if the WebDriver session for the given site is still usable.
+     */
+    private boolean isSessionAlive( S site) {
+        try {
+            site.getDriver().getWindowHandles();
+            return true;
+        }
+        catch( RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Ends the WebDriver session for the given site.
+     */
+    private void exitSession( S site) {
+        if( site != null) {
+            try {
+                site.exit();
+            }
+            catch( Exception ignore) {
+                // Session already failed.
+            }
+        }
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( "sessions", getSessions())
+            .toString();
+    }
+}
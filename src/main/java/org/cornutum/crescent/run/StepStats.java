@@ -0,0 +1,105 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.util.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates the results of a specific {@link Journey} step, identified by a page class and an action.
+ */
+public class StepStats {
+
+    private final Class<?> pageType;
+    private final String action;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<Class<? extends Throwable>,LongAdder> errors = new ConcurrentHashMap<Class<? extends Throwable>,LongAdder>();
+
+    /**
+     * Creates a new StepStats object.
+     */
+    public StepStats( Class<?> pageType, String action) {
+        this.pageType = pageType;
+        this.action = action;
+    }
+
+    /**
+     * Records a step that completed in the given time (in microseconds).
+     */
+    public void passed( long micros) {
+        latency.record( micros);
+    }
+
+    /**
+     * Records a step that failed with the given exception.
+     */
+    public void failed( Throwable failure) {
+        errors.computeIfAbsent( failure.getClass(), type -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the page class for this step.
+     */
+    public Class<?> getPageType() {
+        return pageType;
+    }
+
+    /**
+     * Returns the action for this step.
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Returns the latency (in microseconds) of all completed steps.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns the number of steps completed.
+     */
+    public long getPassed() {
+        return latency.getCount();
+    }
+
+    /**
+     * Returns the number of steps failed.
+     */
+    public long getFailed() {
+        return errors.values().stream().mapToLong( LongAdder::sum).sum();
+    }
+
+    /**
+     * Returns the number of steps failed for each type of exception.
+     */
+    public Map<Class<? extends Throwable>,Long> getErrors() {
+        Map<Class<? extends Throwable>,Long> counts = new LinkedHashMap<Class<? extends Throwable>,Long>();
+        errors.forEach( (type, count) -> counts.put( type, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Returns the fraction of all steps that failed.
+     */
+    public double getErrorRate() {
+        long failed = getFailed();
+        long total = getPassed() + failed;
+        return total == 0? 0 : (double) failed / total;
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getPageType().getSimpleName())
+            .append( getAction())
+            .append( "passed", getPassed())
+            .append( "failed", getFailed())
+            .append( "latency", getLatency())
+            .toString();
+    }
+}
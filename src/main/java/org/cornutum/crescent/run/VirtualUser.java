@@ -0,0 +1,140 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.page.Page;
+import org.cornutum.crescent.page.PageAction;
+import org.cornutum.crescent.page.Site;
+import org.cornutum.crescent.util.ToString;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A simulated user that runs a {@link Journey} using its own {@link Site} session.
+ * <P/>
+ * Each step of the journey is measured and recorded in the {@link StepStats} for its page class and action. After each step,
+ * the user pauses for a random think time. If a step fails, its exception is recorded and rethrown, ending the journey.
+ */
+public class VirtualUser<S extends Site> {
+
+    private final int user;
+    private final S site;
+    private final Map<List<Object>,StepStats> steps;
+    private final long thinkTimeMin;
+    private final long thinkTimeMax;
+    private Throwable stepFailure;
+
+    /**
+     * Creates a new VirtualUser object.
+     */
+    VirtualUser( int user, S site, Map<List<Object>,StepStats> steps, long thinkTimeMin, long thinkTimeMax) {
+        this.user = user;
+        this.site = site;
+        this.steps = steps;
+        this.thinkTimeMin = thinkTimeMin;
+        this.thinkTimeMax = thinkTimeMax;
+    }
+
+    /**
+     * Returns the number of this user.
+     */
+    public int getUser() {
+        return user;
+    }
+
+    /**
+     * Returns the site session for this user.
+     */
+    public S getSite() {
+        return site;
+    }
+
+    /**
+     * Visits the given page and returns it.
+     */
+    public <P extends Page<?>> P visit( P page) {
+        return step( page.getClass(), "visit", () -> { page.visit(); return page; });
+    }
+
+    /**
+     * Performs the given action and returns the result.
+     */
+    public <P extends Page<?>,T> T perform( PageAction<P,T> action) {
+        return step( action.getSource().getClass(), getActionName( action.getClass()), action::perform);
+    }
+
+    /**
+     * Runs the given step for the given page class and action.
+     */
+    public void step( Class<?> pageType, String action, Runnable step) {
+        step( pageType, action, () -> { step.run(); return null; });
+    }
+
+    /**
+     * Runs the given step for the given page class and action and returns the result.
+     */
+    public <T> T step( Class<?> pageType, String action, Supplier<T> step) {
+        StepStats stats = steps.computeIfAbsent( Arrays.<Object>asList( pageType, action), key -> new StepStats( pageType, action));
+
+        T result;
+        long start = System.nanoTime();
+        try {
+            result = step.get();
+        }
+        catch( RuntimeException | Error e) {
+            stats.failed( e);
+            stepFailure = e;
+            throw e;
+        }
+        stats.passed( TimeUnit.NANOSECONDS.toMicros( System.nanoTime() - start));
+
+        think();
+        return result;
+    }
+
+    /**
+     * Returns the exception that ended the last step. Returns null if no step has failed.
+     */
+    Throwable getStepFailure() {
+        return stepFailure;
+    }
+
+    /**
+     * Pauses for a random think time.
+     */
+    private void think() {
+        long thinkTime =
+            thinkTimeMax <= thinkTimeMin
+            ? thinkTimeMin
+            : ThreadLocalRandom.current().nextLong( thinkTimeMin, thinkTimeMax + 1);
+
+        if( thinkTime > 0) {
+            try {
+                site.getPollScheduler().sleep( thinkTime);
+            }
+            catch( InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the given action class.
+     */
+    private static String getActionName( Class<?> actionType) {
+        return
+            actionType.getSimpleName().isEmpty()
+            ? actionType.getName().substring( actionType.getName().lastIndexOf( '.') + 1)
+            : actionType.getSimpleName();
+    }
+
+    public String toString() {
+        return
+            ToString.getBuilder( this)
+            .append( getUser())
+            .toString();
+    }
+}
@@ -0,0 +1,145 @@
+package org.cornutum.crescent.util;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.FindsByClassName;
+import org.openqa.selenium.internal.FindsByCssSelector;
+import org.openqa.selenium.internal.FindsById;
+import org.openqa.selenium.internal.FindsByLinkText;
+import org.openqa.selenium.internal.FindsByName;
+import org.openqa.selenium.internal.FindsByTagName;
+import org.openqa.selenium.internal.FindsByXPath;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Defines methods to inspect element locators.
+ */
+public abstract class Locators {
+
+    /**
+     * Returns the value used by the given locator to find elements -- for example, the CSS selector for a
+     * <CODE>By.cssSelector</CODE> locator, or the id for a <CODE>By.id</CODE> locator. Returns <CODE>Optional.empty()</CODE>
+     * if the locator doesn't search using one of the basic locator strategies.
+     */
+    public static Optional<String> getSelector( By locator) {
+        SelectorCapture capture = new SelectorCapture();
+        try {
+            locator.findElements( capture);
+        }
+        catch( RuntimeException e) {
+            // Not a basic locator strategy.
+        }
+        return Optional.ofNullable( capture.getSelector());
+    }
+
+    /**
+     * A search context that remembers the value used for the first search request, without finding any elements.
+     */
+    private static class SelectorCapture
+        implements SearchContext, FindsByClassName, FindsByCssSelector, FindsById, FindsByLinkText, FindsByName, FindsByTagName, FindsByXPath {
+
+        private String selector;
+
+        /**
+         * Returns the value used for the first search request.
+         */
+        public String getSelector() {
+            return selector;
+        }
+
+        /**
+         * Remembers the value used for a search request and returns no elements.
+         */
+        private List<WebElement> capture( String value) {
+            if( selector == null) {
+                selector = value;
+            }
+            return Collections.emptyList();
+        }
+
+        /**
+         * Remembers the value used for a search request and reports that no element was found.
+         */
+        private WebElement captureOne( String value) {
+            capture( value);
+            throw new NoSuchElementException( value);
+        }
+
+        public List<WebElement> findElements( By by) {
+            return by.findElements( this);
+        }
+
+        public WebElement findElement( By by) {
+            return by.findElement( this);
+        }
+
+        public List<WebElement> findElementsByClassName( String using) {
+            return capture( using);
+        }
+
+        public WebElement findElementByClassName( String using) {
+            return captureOne( using);
+        }
+
+        public List<WebElement> findElementsByCssSelector( String using) {
+            return capture( using);
+        }
+
+        public WebElement findElementByCssSelector( String using) {
+            return captureOne( using);
+        }
+
+        public List<WebElement> findElementsById( String using) {
+            return capture( using);
+        }
+
+        public WebElement findElementById( String using) {
+            return captureOne( using);
+        }
+
+        public List<WebElement> findElementsByLinkText( String using) {
+            return capture( using);
+        }
+
+        public WebElement findElementByLinkText( String using) {
+            return captureOne( using);
+        }
+
+        public List<WebElement> findElementsByPartialLinkText( String using) {
+            return capture( using);
+        }
+
+        public WebElement findElementByPartialLinkText( String using) {
+            return captureOne( using);
+        }
+
+        public List<WebElement> findElementsByName( String using) {
+            return capture( using);
+        }
+
+        public WebElement findElementByName( String using) {
+            return captureOne( using);
+        }
+
+        public List<WebElement> findElementsByTagName( String using) {
+            return capture( using);
+        }
+
+        public WebElement findElementByTagName( String using) {
+            return captureOne( using);
+        }
+
+        public List<WebElement> findElementsByXPath( String using) {
+            return capture( using);
+        }
+
+        public WebElement findElementByXPath( String using) {
+            return captureOne( using);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package org.cornutum.crescent.dom;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebElement;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Runs tests for {@link DomDriver}, {@link DomElement}, and {@link DomWindow}.
+ */
+public class DomDriverTest {
+
+    @Test
+    public void whenLocating() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.get( "http://test/home");
+
+        // Then...
+        assertThat( "Title", driver.getTitle(), is( "Home"));
+        assertThat( "By css", driver.findElement( By.cssSelector( "#main > h1")).getText(), is( "Welcome"));
+        assertThat( "By id", driver.findElement( By.id( "main")).getTagName(), is( "div"));
+        assertThat( "By name", driver.findElement( By.name( "q")).getAttribute( "value"), is( "crescent"));
+        assertThat( "By className", getTexts( driver.findElements( By.className( "item"))), is( Arrays.asList( "One", "Two", "")));
+        assertThat( "By tagName", driver.findElements( By.tagName( "li")).size(), is( 3));
+        assertThat( "By xpath", driver.findElement( By.xpath( "//li[2]")).getText(), is( "Two"));
+        assertThat( "By linkText", driver.findElement( By.linkText( "Next page")).getAttribute( "href"), is( "http://test/next"));
+        assertThat( "By partialLinkText", driver.findElements( By.partialLinkText( "page")).size(), is( 2));
+        assertThat(
+            "Within element",
+            getTexts( driver.findElement( By.id( "items")).findElements( By.tagName( "li"))),
+            is( Arrays.asList( "One", "Two", "")));
+
+        try {
+            driver.findElement( By.id( "undefined"));
+            fail( "Expected NoSuchElementException");
+        }
+        catch( NoSuchElementException expected) {
+        }
+    }
+
+    @Test
+    public void whenReadingElements() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.get( "http://test/home");
+
+        // Then...
+        WebElement hidden = driver.findElement( By.id( "hidden"));
+        assertThat( "Hidden displayed", hidden.isDisplayed(), is( false));
+        assertThat( "Hidden text", hidden.getText(), is( ""));
+
+        WebElement styled = driver.findElement( By.id( "styled"));
+        assertThat( "Styled displayed", styled.isDisplayed(), is( false));
+
+        WebElement image = driver.findElement( By.tagName( "img"));
+        assertThat( "Image src", image.getAttribute( "src"), is( "http://test/images/logo.png"));
+        assertThat( "Image alt", image.getAttribute( "alt"), is( "Logo"));
+        assertThat( "Undefined attribute", image.getAttribute( "title"), is( nullValue()));
+
+        WebElement checkbox = driver.findElement( By.name( "agree"));
+        assertThat( "Checkbox checked", checkbox.getAttribute( "checked"), is( "true"));
+        assertThat( "Checkbox selected", checkbox.isSelected(), is( true));
+
+        WebElement disabled = driver.findElement( By.name( "disabled"));
+        assertThat( "Disabled", disabled.getAttribute( "disabled"), is( "true"));
+        assertThat( "Enabled", disabled.isEnabled(), is( false));
+        assertThat( "Not readonly", disabled.getAttribute( "readonly"), is( nullValue()));
+    }
+
+    @Test
+    public void whenFollowingLinks() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.get( "http://test/home");
+        WebElement heading = driver.findElement( By.tagName( "h1"));
+
+        // When...
+        driver.findElement( By.linkText( "Next page")).click();
+
+        // Then...
+        assertThat( "URL", driver.getCurrentUrl(), is( "http://test/next"));
+        assertThat( "Title", driver.getTitle(), is( "Next"));
+        try {
+            heading.getText();
+            fail( "Expected StaleElementReferenceException");
+        }
+        catch( StaleElementReferenceException expected) {
+        }
+
+        // When...
+        driver.navigate().back();
+
+        // Then...
+        assertThat( "Back", driver.getCurrentUrl(), is( "http://test/home"));
+
+        // When...
+        driver.navigate().forward();
+
+        // Then...
+        assertThat( "Forward", driver.getCurrentUrl(), is( "http://test/next"));
+    }
+
+    @Test
+    public void whenFollowingFragment() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.get( "http://test/next");
+        WebElement section = driver.findElement( By.id( "section"));
+
+        // When...
+        driver.findElement( By.linkText( "Section")).click();
+
+        // Then...
+        assertThat( "URL", driver.getCurrentUrl(), is( "http://test/next#section"));
+        assertThat( "Same document", section.getText(), is( "Section text"));
+        assertThat( "Requests", requests, is( Arrays.asList( "GET http://test/next")));
+    }
+
+    @Test
+    public void whenOpeningWindows() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.get( "http://test/home");
+        String home = driver.getWindowHandle();
+
+        // When...
+        driver.findElement( By.linkText( "Other page")).click();
+
+        // Then...
+        assertThat( "Windows", driver.getWindowHandles().size(), is( 2));
+        assertThat( "Current window", driver.getWindowHandle(), is( home));
+        assertThat( "Current URL", driver.getCurrentUrl(), is( "http://test/home"));
+
+        // When...
+        String other = driver.getWindowHandles().stream().filter( handle -> !handle.equals( home)).findFirst().get();
+        driver.switchTo().window( other);
+
+        // Then...
+        assertThat( "Other URL", driver.getCurrentUrl(), is( "http://test/next"));
+
+        // When...
+        driver.close();
+        driver.switchTo().window( home);
+
+        // Then...
+        assertThat( "Windows after close", driver.getWindowHandles(), is( Collections.singleton( home)));
+    }
+
+    @Test
+    public void whenSubmittingForms() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.get( "http://test/home");
+
+        // When...
+        WebElement query = driver.findElement( By.name( "q"));
+        query.clear();
+        query.sendKeys( "page models");
+        driver.findElement( By.id( "search")).click();
+
+        // Then...
+        assertThat( "Search URL", driver.getCurrentUrl(), is( "http://test/search?q=page+models"));
+
+        // When...
+        driver.get( "http://test/home");
+        driver.findElement( By.name( "agree")).click();
+        driver.findElement( By.cssSelector( "label[for=blue]")).click();
+        driver.findElement( By.cssSelector( "option[value=large]")).click();
+        driver.findElement( By.name( "user")).sendKeys( "alice", Keys.ENTER);
+
+        // Then...
+        assertThat( "Post URL", driver.getCurrentUrl(), is( "http://test/login"));
+        assertThat( "Requests", requests.get( requests.size() - 1), is( "POST http://test/login user=alice&color=blue&size=large"));
+    }
+
+    @Test
+    public void whenExecutingScripts() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.get( "http://test/home");
+        driver.addScript( "return arguments[0] + 1", (d, args) -> ((Number) args[0]).intValue() + 1);
+        driver.addScript( script -> script.startsWith( "return 'first'"), (d, args) -> "first");
+        driver.addScript( script -> script.startsWith( "return 'first'"), (d, args) -> "last");
+
+        // Then...
+        assertThat( "Ready", driver.executeScript( "return document.readyState"), is( "complete"));
+        assertThat( "Title", driver.executeScript( "return document.title"), is( "Home"));
+        assertThat( "Arguments", driver.executeScript( "return arguments[0] + 1", 41), is( 42));
+        assertThat( "Later handler", driver.executeScript( "return 'first'"), is( "last"));
+        try {
+            driver.executeScript( "return window.undefined");
+            fail( "Expected UnsupportedCommandException");
+        }
+        catch( UnsupportedCommandException expected) {
+        }
+    }
+
+    @Test
+    public void whenManagingCookies() {
+        // Given...
+        DomDriver driver = newDriver();
+        Cookie root = new Cookie( "pref", "dark", "test", "/", null);
+        Cookie admin = new Cookie( "pref", "light", "test", "/admin", null);
+
+        // When...
+        driver.manage().addCookie( root);
+        driver.manage().addCookie( admin);
+        driver.manage().addCookie( new Cookie( "sid", "s1", "test", "/", null));
+
+        // Then...
+        assertThat( "Cookies", driver.manage().getCookies().size(), is( 3));
+        assertThat( "Named", driver.manage().getCookieNamed( "pref").getValue(), is( "dark"));
+
+        // When...
+        driver.manage().deleteCookie( root);
+
+        // Then...
+        assertThat( "Named", driver.manage().getCookieNamed( "pref").getValue(), is( "light"));
+
+        // When...
+        driver.manage().addCookie( root);
+        driver.manage().deleteCookieNamed( "pref");
+
+        // Then...
+        assertThat( "Named", driver.manage().getCookieNamed( "pref"), is( nullValue()));
+        assertThat( "Cookies", driver.manage().getCookies().size(), is( 1));
+    }
+
+    /**
+     * Returns a new DomDriver for the test pages.
+     */
+    private DomDriver newDriver() {
+        return
+            new DomDriver(
+                (method, url, body) -> {
+                    requests.add( method + " " + url + (body == null? "" : " " + body));
+                    String path = url.replaceFirst( "^http://test", "").replaceFirst( "\\?.*", "");
+                    String html = pages.get( path);
+                    return html == null? "<html><head><title>" + path + "</title></head></html>" : html;
+                });
+    }
+
+    /**
+     * Returns the text of the given elements.
+     */
+    private List<String> getTexts( List<WebElement> elements) {
+        return elements.stream().map( WebElement::getText).collect( toList());
+    }
+
+    private final List<String> requests = new ArrayList<String>();
+
+    private static final Map<String,String> pages = new HashMap<String,String>();
+
+    static {
+        pages.put(
+            "/home",
+            "<html><head><title>Home</title></head><body>"
+            + "<div id='main'><h1>Welcome</h1><img src='images/logo.png' alt='Logo'></div>"
+            + "<ul id='items'><li class='item'>One</li><li class='item'>Two</li><li class='item' hidden>Three</li></ul>"
+            + "<p id='hidden' hidden>Hidden</p><p id='styled' style='display: none'>Styled</p>"
+            + "<a href='next'>Next page</a> <a href='next' target='_blank'>Other page</a>"
+            + "<form action='/search'><input name='q' value='crescent'><button id='search' type='submit'>Search</button></form>"
+            + "<form action='/login' method='post'>"
+            + "<input name='user'>"
+            + "<input type='checkbox' name='agree' checked>"
+            + "<input type='radio' name='color' value='red' checked><input type='radio' id='blue' name='color' value='blue'><label for='blue'>Blue</label>"
+            + "<select name='size'><option value='small'>Small</option><option value='large'>Large</option></select>"
+            + "<input name='disabled' value='x' disabled>"
+            + "</form>"
+            + "</body></html>");
+
+        pages.put(
+            "/next",
+            "<html><head><title>Next</title></head><body>"
+            + "<a href='#section'>Section</a><div id='section'>Section text</div>"
+            + "</body></html>");
+    }
+}
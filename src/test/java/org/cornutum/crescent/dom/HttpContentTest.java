@@ -0,0 +1,173 @@
+package org.cornutum.crescent.dom;
+
+import org.cornutum.crescent.page.Readiness;
+import org.cornutum.crescent.page.Site;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver.Options;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Runs tests for {@link HttpContent}.
+ */
+public class HttpContentTest {
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create( new InetSocketAddress( "localhost", 0), 0);
+        server.createContext(
+            "/login",
+            exchange -> {
+                exchange.getResponseHeaders().add( "Set-Cookie", "sid=s1; Path=/; HttpOnly");
+                exchange.getResponseHeaders().set( "Location", "/home");
+                exchange.sendResponseHeaders( 302, -1);
+                exchange.close();
+            });
+        server.createContext(
+            "/logout",
+            exchange -> {
+                exchange.getResponseHeaders().add( "Set-Cookie", "sid=; Path=/; Max-Age=0");
+                respond( exchange);
+            });
+        server.createContext( "/", this::respond);
+        server.start();
+
+        url = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop( 0);
+    }
+
+    @Test
+    public void whenCookiesChanged() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.manage().addCookie( new Cookie( "pref", "dark", "localhost", "/", null));
+        driver.manage().addCookie( new Cookie( "pref", "light", "localhost", "/admin", null));
+        cookieChanges.clear();
+
+        // When...
+        driver.get( url + "/login");
+
+        // Then...
+        assertThat( "URL", driver.getCurrentUrl(), is( url + "/home"));
+        assertThat( "Cookies sent", driver.getTitle(), containsString( "sid=s1"));
+        assertThat( "Cookies", driver.manage().getCookies().size(), is( 3));
+        assertThat( "HTTP only", driver.manage().getCookieNamed( "sid").isHttpOnly(), is( true));
+        assertThat( "Changes", cookieChanges, is( Arrays.asList( "addCookie=sid")));
+
+        // When...
+        cookieChanges.clear();
+        driver.get( url + "/logout");
+
+        // Then...
+        assertThat( "Changes", cookieChanges, is( Arrays.asList( "deleteCookie=sid")));
+        assertThat( "Cookies", driver.manage().getCookies().size(), is( 2));
+    }
+
+    @Test
+    public void whenCookiesUnchanged() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.get( url + "/login");
+        cookieChanges.clear();
+
+        // When...
+        driver.get( url + "/home");
+
+        // Then...
+        assertThat( "Cookies sent", driver.getTitle(), containsString( "sid=s1"));
+        assertThat( "Changes", cookieChanges.isEmpty(), is( true));
+    }
+
+    @Test
+    public void whenBrowserless() {
+        // Given...
+        Site site = new Site( url);
+        site.setMaxAppWait( 5000);
+        site.setReadiness( Readiness.script( "window.appReady"));
+
+        // When...
+        site.enterWithoutBrowser();
+
+        // Then...
+        assertThat( "Browserless", site.isBrowserless(), is( true));
+        assertThat( "Max app wait", site.getMaxAppWait(), is( 0L));
+        assertThat( "Readiness", site.getReadiness(), is( Readiness.LOAD));
+
+        // When...
+        site.exit();
+
+        // Then...
+        assertThat( "Browserless", site.isBrowserless(), is( false));
+        assertThat( "Max app wait", site.getMaxAppWait(), is( 5000L));
+        assertThat( "Readiness", String.valueOf( site.getReadiness()), containsString( "window.appReady"));
+    }
+
+    /**
+     * Returns a new DomDriver over HTTP that records each change to its cookies.
+     */
+    private DomDriver newDriver() {
+        return
+            new DomDriver( new HttpContent( 2)) {
+                public Options manage() {
+                    Options options = super.manage();
+                    return
+                        (Options) Proxy.newProxyInstance(
+                            Options.class.getClassLoader(),
+                            new Class<?>[]{ Options.class},
+                            (proxy, method, args) -> {
+                                if( method.getName().startsWith( "add") || method.getName().startsWith( "delete")) {
+                                    cookieChanges.add(
+                                        method.getName()
+                                        + (args == null? "" : "=" + (args[0] instanceof Cookie? ((Cookie) args[0]).getName() : Objects.toString( args[0]))));
+                                }
+                                try {
+                                    return method.invoke( options, args);
+                                }
+                                catch( InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            });
+                }
+            };
+    }
+
+    /**
+     * Responds with a page showing the cookies of the given request.
+     */
+    private void respond( HttpExchange exchange) throws IOException {
+        byte[] content =
+            ("<html><head><title>" + exchange.getRequestHeaders().getFirst( "Cookie") + "</title></head></html>")
+            .getBytes( StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set( "Content-Type", "text/html");
+        exchange.sendResponseHeaders( 200, content.length);
+        try( OutputStream out = exchange.getResponseBody()) {
+            out.write( content);
+        }
+    }
+
+    private HttpServer server;
+    private String url;
+    private final List<String> cookieChanges = new ArrayList<String>();
+}
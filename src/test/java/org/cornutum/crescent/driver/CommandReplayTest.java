@@ -0,0 +1,213 @@
+package org.cornutum.crescent.driver;
+
+import org.cornutum.crescent.dom.DomDriver;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs tests for {@link CommandRecorder} and {@link CommandReplay}.
+ */
+public class CommandReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void whenReplayed() throws Exception {
+        // Given...
+        Path file = folder.newFile( "session.rec").toPath();
+        List<Object> expected;
+        int recorded;
+        try( CommandRecorder recorder = new CommandRecorder( file)) {
+            WebDriver driver = recorder.decorate( newDriver());
+            expected = runSession( driver);
+            recorded = recorder.getCommands();
+        }
+
+        // When...
+        CommandReplay replay = new CommandReplay( file);
+        List<Object> actual = runSession( replay.getDriver());
+
+        // Then...
+        assertThat( "Results", actual, is( expected));
+        assertThat( "Commands", replay.getCommands(), is( recorded));
+        assertThat( "Complete", replay.isComplete(), is( true));
+        assertThat( "Driver interfaces", replay.getDriver() instanceof JavascriptExecutor, is( true));
+    }
+
+    @Test
+    public void whenCommandMismatch() throws Exception {
+        // Given...
+        Path file = folder.newFile( "session.rec").toPath();
+        try( CommandRecorder recorder = new CommandRecorder( file)) {
+            WebDriver driver = recorder.decorate( newDriver());
+            driver.get( "http://test/home");
+            driver.findElement( By.id( "title"));
+        }
+        CommandReplay replay = new CommandReplay( file);
+        WebDriver driver = replay.getDriver();
+        driver.get( "http://test/home");
+
+        // When...
+        try {
+            driver.findElement( By.id( "other"));
+            fail( "Expected IllegalStateException");
+        }
+        // Then...
+        catch( IllegalStateException expected) {
+            assertThat( "Message", expected.getMessage(), containsString( "Command 2"));
+        }
+    }
+
+    @Test
+    public void whenReplayComplete() throws Exception {
+        // Given...
+        Path file = folder.newFile( "session.rec").toPath();
+        try( CommandRecorder recorder = new CommandRecorder( file)) {
+            recorder.decorate( newDriver()).get( "http://test/home");
+        }
+        CommandReplay replay = new CommandReplay( file);
+        WebDriver driver = replay.getDriver();
+        driver.get( "http://test/home");
+
+        // When...
+        try {
+            driver.getTitle();
+            fail( "Expected IllegalStateException");
+        }
+        // Then...
+        catch( IllegalStateException expected) {
+            assertThat( "Complete", replay.isComplete(), is( true));
+        }
+    }
+
+    @Test
+    public void whenWriteFails() throws Exception {
+        // Given...
+        Path file = folder.newFile( "session.rec").toPath();
+        File missing = new File( folder.getRoot(), "missing.png");
+        DomDriver domDriver = newDriver();
+        domDriver.addScript( "return screenshot", (d, args) -> missing);
+
+        try( CommandRecorder recorder = new CommandRecorder( file)) {
+            WebDriver driver = recorder.decorate( domDriver);
+            driver.get( "http://test/home");
+
+            // When...
+            Object result = ((JavascriptExecutor) driver).executeScript( "return screenshot");
+            String title = driver.getTitle();
+
+            // Then...
+            assertThat( "Result", result, is( (Object) missing));
+            assertThat( "Title", title, is( "Home"));
+            assertThat( "Commands", recorder.getCommands(), is( 1));
+            assertThat( "Failure", recorder.getWriteFailure(), is( notNullValue()));
+        }
+
+        CommandReplay replay = new CommandReplay( file);
+        replay.getDriver().get( "http://test/home");
+        assertThat( "Complete", replay.isComplete(), is( true));
+    }
+
+    @Test
+    public void whenVirtualClock() throws Exception {
+        // Given...
+        Path file = folder.newFile( "session.rec").toPath();
+        try( CommandRecorder recorder = new CommandRecorder( file)) {
+            recorder.decorate( newDriver()).get( "http://test/slow");
+        }
+        CommandReplay replay = new CommandReplay( file);
+        long start = replay.getPollScheduler().currentTimeMillis();
+
+        // When...
+        long before = System.currentTimeMillis();
+        replay.getDriver().get( "http://test/slow");
+        replay.getPollScheduler().sleep( 1000);
+        long real = System.currentTimeMillis() - before;
+
+        // Then...
+        long virtual = replay.getPollScheduler().currentTimeMillis() - start;
+        assertThat( "Virtual time=" + virtual, virtual >= 1000 + SLOW_MILLIS, is( true));
+        assertThat( "Real time=" + real, real < 1000, is( true));
+    }
+
+    /**
+     * Runs a session with the given driver and returns the results.
+     */
+    private List<Object> runSession( WebDriver driver) {
+        List<Object> results = new ArrayList<Object>();
+
+        driver.get( "http://test/home");
+        results.add( driver.getTitle());
+
+        WebElement title = driver.findElement( By.id( "title"));
+        results.add( title.getText());
+        results.add( title.isDisplayed());
+
+        List<WebElement> items = driver.findElements( By.tagName( "li"));
+        results.add( items.size());
+        for( WebElement item : items) {
+            results.add( item.getText());
+        }
+        results.add( items.get(0).getAttribute( "class"));
+
+        try {
+            driver.findElement( By.id( "undefined"));
+            results.add( "found");
+        }
+        catch( NoSuchElementException e) {
+            results.add( e.getClass());
+        }
+
+        results.add( ((JavascriptExecutor) driver).executeScript( "return document.readyState"));
+
+        driver.findElement( By.linkText( "Next")).click();
+        results.add( driver.getCurrentUrl());
+        results.add( driver.getWindowHandles());
+
+        return results;
+    }
+
+    /**
+     * Returns a new DomDriver for the test pages.
+     */
+    private DomDriver newDriver() {
+        return
+            new DomDriver(
+                (method, url, body) -> {
+                    if( url.endsWith( "/slow")) {
+                        try {
+                            Thread.sleep( SLOW_MILLIS);
+                        }
+                        catch( InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return
+                        url.endsWith( "/home")
+                        ? "<html><head><title>Home</title></head><body>"
+                        + "<h1 id='title'>Welcome</h1>"
+                        + "<ul><li class='item first'>One</li><li class='item'>Two</li></ul>"
+                        + "<a href='next'>Next</a>"
+                        + "</body></html>"
+                        : "<html><head><title>Other</title></head></html>";
+                });
+    }
+
+    private static final long SLOW_MILLIS = 50;
+}
@@ -0,0 +1,111 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.dom.DomDriver;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs tests for the find-and-act methods of {@link Finder}.
+ */
+public class FinderTest {
+
+    @Test
+    public void whenActingWithoutScripts() {
+        // Given...
+        DomDriver driver = newDriver();
+        Page<Site> page = new Page<Site>( newSite( driver), "home") {};
+
+        // When...
+        page.finder().type( By.name( "user"), "alice");
+        page.finder().select( By.name( "size"), "large");
+        page.finder().click( By.name( "agree"));
+
+        // Then...
+        assertThat( "User", driver.findElement( By.name( "user")).getAttribute( "value"), is( "alice"));
+        assertThat( "Size", driver.findElement( By.cssSelector( "option[value=large]")).isSelected(), is( true));
+        assertThat( "Agree", driver.findElement( By.name( "agree")).isSelected(), is( true));
+
+        // When...
+        page.finder().click( By.id( "submit"));
+
+        // Then...
+        assertThat( "Submitted", driver.getCurrentUrl(), is( "http://test/login"));
+        assertThat( "Request", requests.get( requests.size() - 1), is( "POST http://test/login user=alice&size=large&agree=on"));
+    }
+
+    @Test
+    public void whenActingWithScripts() {
+        // Given...
+        DomDriver driver = newDriver();
+        List<String> scripts = new ArrayList<String>();
+        driver.addScript( script -> script.contains( "var act = ") && scripts.add( script), (d, args) -> true);
+        Page<Site> page = new Page<Site>( newSite( driver), "home") {};
+
+        // When...
+        page.finder().click( By.id( "submit"));
+        page.finder().type( By.name( "user"), "alice");
+
+        // Then...
+        assertThat( "Scripts", scripts.size(), is( 2));
+        for( String script : scripts) {
+            assertThat( "Interactable", script, containsString( "displayed( found[0]) && !found[0].disabled && act( found[0])"));
+        }
+        assertThat( "Native setter", scripts.get(1), containsString( "Object.getOwnPropertyDescriptor( proto, 'value').set"));
+        assertThat( "Read-only", scripts.get(1), containsString( "if( e.readOnly) { return false; }"));
+    }
+
+    @Test
+    public void whenElementMissing() {
+        // Given...
+        Site site = newSite( newDriver());
+        Page<Site> page = new Page<Site>( site, "home") {};
+
+        // When...
+        try {
+            page.finder().click( By.id( "undefined"));
+            fail( "Expected ElementMissingException");
+        }
+        // Then...
+        catch( ElementMissingException expected) {
+        }
+    }
+
+    /**
+     * Returns a new Site for the given driver.
+     */
+    private Site newSite( DomDriver driver) {
+        Site site = new Site( "http://test/");
+        site.setMaxAppWait( 200);
+        site.enter( driver);
+        return site;
+    }
+
+    /**
+     * Returns a new DomDriver for the test pages.
+     */
+    private DomDriver newDriver() {
+        return
+            new DomDriver(
+                (method, url, body) -> {
+                    requests.add( method + " " + url + (body == null? "" : " " + body));
+                    return
+                        "<html><head><title>Home</title></head><body>"
+                        + "<form action='/login' method='post'>"
+                        + "<input name='user'>"
+                        + "<select name='size'><option value='small'>Small</option><option value='large'>Large</option></select>"
+                        + "<input type='checkbox' name='agree'>"
+                        + "<button id='submit' type='submit'>Log in</button>"
+                        + "</form>"
+                        + "</body></html>";
+                });
+    }
+
+    private final List<String> requests = new ArrayList<String>();
+}
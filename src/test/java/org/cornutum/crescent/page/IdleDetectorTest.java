@@ -0,0 +1,126 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.dom.DomDriver;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Runs tests for {@link IdleDetector}.
+ */
+public class IdleDetectorTest {
+
+    @Test
+    public void whenScript() {
+        // When...
+        String script = IdleDetector.getScript( Arrays.asList( IdleDetector.script( "app.idle"), IdleDetector.jQuery()));
+
+        // Then...
+        assertThat( "Detectors", script, containsString( "var detectors = [ function() { return app.idle; }, function() { return (window.jQuery"));
+        assertThat( "Busy", script, containsString( "if( detected === false) { return false; }"));
+    }
+
+    @Test
+    public void whenIdle() {
+        // Given...
+        Finder finder = newFinder( true);
+
+        // When...
+        long start = System.currentTimeMillis();
+        List<WebElement> items = finder.findElements( By.tagName( "li"));
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then...
+        assertThat( "Items", items.size(), is( 2));
+        assertThat( "Idle checks", idleChecks.size(), is( 1));
+        assertThat( "Elapsed=" + elapsed, elapsed < MIN_STABLE, is( true));
+    }
+
+    @Test
+    public void whenBusy() {
+        // Given...
+        Finder finder = newFinder( false, false, true);
+
+        // When...
+        List<WebElement> items = finder.findElements( By.tagName( "li"));
+
+        // Then...
+        assertThat( "Items", items.size(), is( 2));
+        assertThat( "Idle checks", idleChecks.size(), is( 3));
+    }
+
+    @Test
+    public void whenNotApplicable() {
+        // Given...
+        Finder finder = newFinder( (Object) null);
+
+        // When...
+        long start = System.currentTimeMillis();
+        List<WebElement> items = finder.findElements( By.tagName( "li"));
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then...
+        assertThat( "Items", items.size(), is( 2));
+        assertThat( "Idle checks", idleChecks.size() > 1, is( true));
+        assertThat( "Elapsed=" + elapsed, elapsed >= MIN_STABLE, is( true));
+    }
+
+    @Test
+    public void whenScriptFails() {
+        // Given...
+        DomDriver driver = newDriver();
+        driver.addScript( script -> script.contains( "var detectors"), (d, args) -> { throw new WebDriverException( "Script failed"); });
+
+        // When...
+        String script = IdleDetector.getScript( Arrays.asList( IdleDetector.requests()));
+
+        // Then...
+        assertThat( "Idle", IdleDetector.isIdle( driver, script).isPresent(), is( false));
+    }
+
+    /**
+     * Returns a Finder for a site with an idle detector that reports the given results, repeating the last one.
+     */
+    private Finder newFinder( Object... results) {
+        DomDriver driver = newDriver();
+        Iterator<Object> idle = Arrays.asList( results).iterator();
+        Object[] last = new Object[1];
+        driver.addScript(
+            script -> script.contains( "var detectors") && idleChecks.add( script),
+            (d, args) -> {
+                if( idle.hasNext()) {
+                    last[0] = idle.next();
+                }
+                return last[0];
+            });
+
+        Site site = new Site( "http://test/");
+        site.setMaxAppWait( MIN_STABLE * 2);
+        site.addIdleDetector( IdleDetector.script( "app.idle"));
+        site.enter( driver);
+
+        Finder finder = new Page<Site>( site, "home") {}.finder();
+        finder.setMinStable( MIN_STABLE);
+        return finder;
+    }
+
+    /**
+     * Returns a new DomDriver for the test pages.
+     */
+    private DomDriver newDriver() {
+        return new DomDriver( (method, url, body) -> "<html><head><title>Home</title></head><body><ul><li>One</li><li>Two</li></ul></body></html>");
+    }
+
+    private final List<String> idleChecks = new ArrayList<String>();
+
+    private static final long MIN_STABLE = 500;
+}
@@ -0,0 +1,121 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.dom.DomDriver;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+/**
+ * Runs tests for {@link LocatedElement}.
+ */
+public class LocatedElementTest {
+
+    @Test
+    public void whenEqual() {
+        // Given...
+        DomDriver driver = newDriver();
+        Page<Site> page = new Page<Site>( newSite( driver), "home") {};
+
+        // When...
+        LocatedElement title = (LocatedElement) page.finder().findElement( By.id( "title"));
+        WebElement wrapped = title.getWrappedElement();
+        List<WebElement> headings = page.finder().findElements( By.tagName( "h1"));
+        WebElement other = page.finder().findElement( By.tagName( "ul"));
+
+        // Then...
+        assertThat( "Equals wrapped", title.equals( wrapped), is( true));
+        assertThat( "Wrapped equals", wrapped.equals( title), is( true));
+        assertThat( "Hash code", title.hashCode(), is( wrapped.hashCode()));
+        assertThat( "Equals by position", title.equals( headings.get(0)), is( true));
+        assertThat( "Position equals", headings.get(0).equals( title), is( true));
+        assertThat( "Other", title.equals( other), is( false));
+        assertThat( "Other wrapped", wrapped.equals( other), is( false));
+    }
+
+    @Test
+    public void whenRelocatedByLocator() {
+        // Given...
+        DomDriver driver = newDriver();
+        Page<Site> page = new Page<Site>( newSite( driver), "home") {};
+        WebElement first = page.finder().findElement( By.cssSelector( "li button"));
+        assertThat( "Before", first.getText(), is( "One"));
+
+        // When...
+        driver.navigate().refresh();
+        first.click();
+
+        // Then...
+        assertThat( "Clicked", driver.getCurrentUrl(), startsWith( "http://test/Two"));
+    }
+
+    @Test
+    public void whenRelocatedByIndex() {
+        // Given...
+        DomDriver driver = newDriver();
+        Page<Site> page = new Page<Site>( newSite( driver), "home") {};
+        WebElement item = page.finder().findElements( By.tagName( "li")).get(0);
+        WebElement button = item.findElement( By.tagName( "button"));
+        assertThat( "Before", item.getText(), is( "One"));
+
+        // When...
+        driver.navigate().refresh();
+
+        // Then...
+        try {
+            button.click();
+            fail( "Expected StaleElementReferenceException");
+        }
+        catch( StaleElementReferenceException expected) {
+        }
+
+        try {
+            item.click();
+            fail( "Expected StaleElementReferenceException");
+        }
+        catch( StaleElementReferenceException expected) {
+        }
+
+        assertThat( "After", item.getText(), is( "Two"));
+        assertThat( "Not clicked", driver.getCurrentUrl(), is( "http://test/home"));
+    }
+
+    /**
+     * Returns a new Site for the given driver.
+     */
+    private Site newSite( DomDriver driver) {
+        Site site = new Site( "http://test/");
+        site.setMaxAppWait( 200);
+        site.enter( driver);
+        return site;
+    }
+
+    /**
+     * Returns a new DomDriver for a page that reverses the order of its list items each time it is rendered.
+     */
+    private DomDriver newDriver() {
+        return
+            new DomDriver(
+                (method, url, body) -> {
+                    boolean reversed = renders++ % 2 == 1;
+                    return
+                        "<html><head><title>Home</title></head><body>"
+                        + "<h1 id='title'>Welcome</h1>"
+                        + "<ul>"
+                        + (reversed? ITEM_TWO + ITEM_ONE : ITEM_ONE + ITEM_TWO)
+                        + "</ul>"
+                        + "</body></html>";
+                });
+    }
+
+    private int renders;
+
+    private static final String ITEM_ONE = "<li><form action='/One'><button type='submit'>One</button></form></li>";
+    private static final String ITEM_TWO = "<li><form action='/Two'><button type='submit'>Two</button></form></li>";
+}
@@ -0,0 +1,164 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.dom.DomDriver;
+
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+/**
+ * Runs tests for the page history kept by a {@link Page}.
+ */
+public class PageHistoryTest {
+
+    @Test
+    public void whenCompacted() {
+        // Given...
+        Site site = newSite( 1);
+        HomePage home = new HomePage( site);
+        ItemPage item1 = new ItemPage( home, "item1");
+        ItemPage item2 = new ItemPage( item1, "item2");
+
+        // When...
+        ItemPage item3 = new ItemPage( item2, "item3");
+
+        // Then...
+        assertThat( "Parent", item3.getParent(), is( (Page<Site>) item2));
+        assertThat( "Parent of parent", item2.getParent(), is( nullValue()));
+
+        PageSummary summary = item2.getParentSummary();
+        assertThat( "Summary", summary.getType(), is( (Object) ItemPage.class));
+        assertThat( "Summary URI", summary.getURI(), is( "http://test/item1"));
+        assertThat( "Summary parent", summary.getParent().getType(), is( (Object) HomePage.class));
+    }
+
+    @Test
+    public void whenCompactedLongHistory() {
+        // Given...
+        Site site = newSite( 2);
+        Page<Site> page = new HomePage( site);
+
+        // When...
+        for( int i = 0; i < 200; i++) {
+            page = new ItemPage( page, "item" + i);
+        }
+
+        // Then...
+        int summaries = 0;
+        for( PageSummary summary = page.getParent().getParent().getParentSummary(); summary != null; summary = summary.getParent()) {
+            summaries++;
+        }
+        assertThat( "Summaries", summaries > 0 && summaries <= 100, is( true));
+    }
+
+    @Test
+    public void whenBackToSummary() {
+        // Given...
+        Site site = newSite( 0);
+        HomePage home = new HomePage( site);
+        ItemPage item1 = new ItemPage( home, "item1");
+        ItemPage item2 = new ItemPage( item1, "item2");
+
+        // When...
+        Page<Site> back = item2.back();
+
+        // Then...
+        assertThat( "Back", back instanceof ItemPage, is( true));
+        assertThat( "URI", String.valueOf( back.getURI()), is( "http://test/item1"));
+        assertThat( "Restored parent", back.getParentSummary().getType(), is( (Object) HomePage.class));
+        assertThat( "Current URL", site.getDriver().getCurrentUrl(), is( "http://test/item1"));
+
+        // When...
+        Page<Site> first = back.back();
+
+        // Then...
+        assertThat( "First", first instanceof HomePage, is( true));
+        assertThat( "First URL", site.getDriver().getCurrentUrl(), is( "http://test/home"));
+    }
+
+    @Test
+    public void whenBackToSitePage() {
+        // Given...
+        Site site = newSite( 0);
+        HomePage home = new HomePage( site);
+        ItemPage item1 = new ItemPage( home, "item1");
+
+        // When...
+        Page<Site> back = item1.back();
+
+        // Then...
+        assertThat( "Back", back instanceof HomePage, is( true));
+        assertThat( "Restored", back == home, is( false));
+        assertThat( "Current URL", site.getDriver().getCurrentUrl(), is( "http://test/home"));
+    }
+
+    @Test
+    public void whenNotRestorable() {
+        // Given...
+        Site site = newSite( 0);
+        Page<Site> anonymous = new Page<Site>( site, "home") {};
+        ItemPage item1 = new ItemPage( anonymous, "item1");
+
+        // When...
+        try {
+            item1.back();
+            fail( "Expected RequestException");
+        }
+        // Then...
+        catch( RequestException expected) {
+            assertThat( "Message", expected.getMessage(), containsString( "Can't restore previous page"));
+            assertThat( "Current URL", site.getDriver().getCurrentUrl(), is( "http://test/item1"));
+        }
+    }
+
+    @Test
+    public void whenFactory() {
+        // Given...
+        Site site = newSite( 0);
+        Page<Site> custom =
+            new Page<Site>( site, "home") {
+                protected PageFactory getPageFactory() {
+                    return (s, summary, uri) -> new HomePage( s);
+                }
+            };
+        ItemPage item1 = new ItemPage( custom, "item1");
+
+        // When...
+        Page<Site> back = item1.back();
+
+        // Then...
+        assertThat( "Back", back instanceof HomePage, is( true));
+    }
+
+    /**
+     * A page constructed from the site.
+     */
+    public static class HomePage extends Page<Site> {
+        public HomePage( Site site) {
+            super( site, "home");
+        }
+    }
+
+    /**
+     * A page constructed from its parent.
+     */
+    public static class ItemPage extends Page<Site> {
+        public ItemPage( Page<Site> parent, String uri) {
+            super( parent, uri);
+        }
+    }
+
+    /**
+     * Returns a new Site with the given history depth.
+     */
+    private Site newSite( int historyDepth) {
+        DomDriver driver = new DomDriver( (method, url, body) -> "<html><head><title>" + url + "</title></head></html>");
+
+        Site site = new Site( "http://test/");
+        site.setMaxAppWait( 200);
+        site.setHistoryDepth( historyDepth);
+        site.enter( driver);
+        return site;
+    }
+}
@@ -0,0 +1,134 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.dom.DomDriver;
+
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs tests for the {@link PageTiming} measurements captured by a {@link Page}.
+ */
+public class PageTimingTest {
+
+    @Test
+    public void whenLoadBudgetWaitsForLoad() {
+        // Given...
+        Site site = newSite( Readiness.domInteractive());
+        loadAfter = 3;
+
+        // When...
+        HomePage page = new HomePage( site);
+
+        // Then...
+        assertThat( "Load", page.getTiming().getLoad(), is( 120L));
+        assertThat( "Violations", page.getTiming().getViolations().isEmpty(), is( true));
+        assertThat( "Captures", captures, is( 3));
+    }
+
+    @Test
+    public void whenLoadNotAvailable() {
+        // Given...
+        Site site = newSite( Readiness.domInteractive());
+        loadAfter = Integer.MAX_VALUE;
+
+        // When...
+        try {
+            new HomePage( site);
+            fail( "Expected BudgetExceededException");
+        }
+        // Then...
+        catch( BudgetExceededException expected) {
+            assertThat( "Violations", expected.getTiming().getViolations(), is( Collections.singletonList( "load not available, limit is 1000")));
+            assertThat( "Captures", captures > 1, is( true));
+        }
+    }
+
+    @Test
+    public void whenLoadRequired() {
+        // Given...
+        Site site = newSite( Readiness.LOAD);
+        loadAfter = Integer.MAX_VALUE;
+
+        // When...
+        try {
+            new HomePage( site);
+            fail( "Expected BudgetExceededException");
+        }
+        // Then...
+        catch( BudgetExceededException expected) {
+            assertThat( "Captures", captures, is( 1));
+        }
+    }
+
+    @Test
+    public void whenBack() {
+        // Given...
+        Site site = newSite( Readiness.LOAD);
+        loadAfter = 1;
+        HomePage home = new HomePage( site);
+        Page<Site> next = new Page<Site>( home, "next") {};
+        assertThat( "Captures before", captures, is( 2));
+
+        // When...
+        Page<Site> back = next.back();
+
+        // Then...
+        assertThat( "Back", back, is( (Page<Site>) home));
+        assertThat( "Captures after", captures, is( 3));
+        assertThat( "Visits", site.getTimingStats( HomePage.class).getVisits(), is( 2));
+    }
+
+    /**
+     * A page with a load budget.
+     */
+    @PerformanceBudget( load=1000)
+    public static class HomePage extends Page<Site> {
+        public HomePage( Site site) {
+            super( site, "home");
+        }
+    }
+
+    /**
+     * Returns a new Site with the given readiness that captures page timing.
+     */
+    private Site newSite( Readiness readiness) {
+        DomDriver driver = new DomDriver( (method, url, body) -> "<html><head><title>Test</title></head></html>");
+        driver.addScript( script -> script.contains( "crescentLeaving"), (d, args) -> true);
+        driver.addScript(
+            script -> script.contains( "window.location.assign"),
+            (d, args) -> {
+                d.get( String.valueOf( args[0]));
+                return null;
+            });
+        driver.addScript(
+            script -> script.contains( "window.performance"),
+            (d, args) -> {
+                captures++;
+                Map<String,Object> timing = new HashMap<String,Object>();
+                timing.put( "ttfb", 10);
+                timing.put( "domContentLoaded", 50);
+                timing.put( "load", captures >= loadAfter? 120 : -1);
+                timing.put( "transferSize", 1000);
+                timing.put( "resourceCount", 0);
+                timing.put( "slowest", Collections.emptyList());
+                return timing;
+            });
+
+        Site site = new Site( "http://test/");
+        site.setMaxAppWait( 200);
+        site.setMaxLoadWait( 500);
+        site.setReadiness( readiness);
+        site.setTimingCaptured( true);
+        site.enter( driver);
+        return site;
+    }
+
+    private int captures;
+    private int loadAfter;
+}
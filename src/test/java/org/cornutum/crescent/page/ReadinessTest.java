@@ -0,0 +1,114 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.dom.DomDriver;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs tests for {@link Readiness}.
+ */
+public class ReadinessTest {
+
+    @Test
+    public void whenLoad() {
+        // Given...
+        Site site = newSite( Readiness.LOAD);
+
+        // When...
+        Page<Site> page = new Page<Site>( site, "home") {};
+
+        // Then...
+        assertThat( "URI", String.valueOf( page.getURI()), is( "home"));
+        assertThat( "Requests", requests, is( Arrays.asList( "http://test/home")));
+        assertThat( "Navigations", navigations, is( 0));
+        assertThat( "Ready checks", readyScripts.size(), is( 0));
+    }
+
+    @Test
+    public void whenScript() {
+        // Given...
+        Site site = newSite( Readiness.script( "window.appReady"));
+        readyAfter = 3;
+
+        // When...
+        new Page<Site>( site, "home") {};
+
+        // Then...
+        assertThat( "Requests", requests, is( Arrays.asList( "http://test/home")));
+        assertThat( "Navigations", navigations, is( 1));
+        assertThat( "Ready checks", readyScripts.size(), is( 3));
+        assertThat( "Ready script", readyScripts.get(0), containsString( "!!(window.appReady)"));
+    }
+
+    @Test
+    public void whenLocator() {
+        // Given...
+        Site site = newSite( Readiness.locator( By.id( "app")));
+
+        // When...
+        new Page<Site>( site, "home") {};
+
+        // Then...
+        assertThat( "Navigations", navigations, is( 1));
+        assertThat( "Ready checks", readyScripts.size(), is( 1));
+    }
+
+    @Test
+    public void whenNotReady() {
+        // Given...
+        Site site = newSite( Readiness.locator( By.id( "undefined")));
+
+        // When...
+        try {
+            new Page<Site>( site, "home") {};
+            fail( "Expected RequestException");
+        }
+        // Then...
+        catch( RequestException expected) {
+            assertThat( "Message", expected.getMessage(), containsString( "Page not ready"));
+            assertThat( "Ready checks", readyScripts.size() > 1, is( true));
+        }
+    }
+
+    /**
+     * Returns a new Site with the given readiness.
+     */
+    private Site newSite( Readiness readiness) {
+        DomDriver driver =
+            new DomDriver(
+                (method, url, body) -> {
+                    requests.add( url);
+                    return "<html><head><title>Test</title></head><body><div id='app'></div></body></html>";
+                });
+        driver.addScript(
+            script -> script.contains( "crescentLeaving") && !script.contains( "window.location.assign") && readyScripts.add( script),
+            (d, args) -> readyScripts.size() >= readyAfter);
+        driver.addScript(
+            script -> script.contains( "window.location.assign"),
+            (d, args) -> {
+                navigations++;
+                d.get( String.valueOf( args[0]));
+                return null;
+            });
+
+        Site site = new Site( "http://test/");
+        site.setMaxAppWait( 200);
+        site.setMaxLoadWait( 300);
+        site.setReadiness( readiness);
+        site.enter( driver);
+        return site;
+    }
+
+    private final List<String> requests = new ArrayList<String>();
+    private final List<String> readyScripts = new ArrayList<String>();
+    private int navigations;
+    private int readyAfter;
+}
@@ -0,0 +1,49 @@
+package org.cornutum.crescent.page;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs tests for {@link ScriptLocator}.
+ */
+public class ScriptLocatorTest {
+
+    @Test
+    public void whenQuoted() {
+        assertThat( "HTML characters", ScriptLocator.quote( "a=b<c>&'d'"), is( "\"a=b<c>&'d'\""));
+        assertThat( "Escapes", ScriptLocator.quote( "x\"y\\z\n"), is( "\"x\\\"y\\\\z\\n\""));
+    }
+
+    @Test
+    public void whenCssQuoted() {
+        assertThat( "HTML characters", ScriptLocator.cssQuote( "a=b<c>&'d'"), is( "\"a=b<c>&'d'\""));
+        assertThat( "Escapes", ScriptLocator.cssQuote( "x\"y\\z"), is( "\"x\\\"y\\\\z\""));
+        assertThat( "Control characters", ScriptLocator.cssQuote( "a\nb\tc"), is( "\"a\\a b\\9 c\""));
+    }
+
+    @Test
+    public void whenAttributeLocators() {
+        assertThat(
+            "By id",
+            ScriptLocator.toScript( By.id( "a=b")).get(),
+            containsString( "root.querySelectorAll( \"[id=\\\"a=b\\\"]\")"));
+        assertThat(
+            "By name",
+            ScriptLocator.toScript( By.name( "q<'x'>")).get(),
+            containsString( "root.querySelectorAll( \"[name=\\\"q<'x'>\\\"]\")"));
+        assertThat(
+            "By className",
+            ScriptLocator.toScript( By.className( "a&b")).get(),
+            containsString( "root.querySelectorAll( \"[class~=\\\"a&b\\\"]\")"));
+    }
+
+    @Test
+    public void whenOtherLocators() {
+        assertThat( "By css", ScriptLocator.toScript( By.cssSelector( "a[href='x=y']")).get(), containsString( "querySelectorAll( \"a[href='x=y']\")"));
+        assertThat( "By xpath", ScriptLocator.toScript( By.xpath( "//a[@id='x']")).get(), containsString( "document.evaluate( \"//a[@id='x']\""));
+        assertThat( "By linkText", ScriptLocator.toScript( By.linkText( "Q&A")).get(), containsString( "var text = \"Q&A\";"));
+        assertThat( "Unknown condition", ScriptLocator.toScript( e -> true).isPresent(), is( false));
+    }
+}
@@ -0,0 +1,141 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.dom.DomDriver;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.Cookie;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs tests for {@link SessionSnapshot}.
+ */
+public class SessionSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void whenRestored() throws Exception {
+        // Given...
+        Path file = folder.newFile( "session.json").toPath();
+        Site captured = newSite();
+        captured.getDriver().manage().addCookie( new Cookie( "session", "1234", "test", "/", null, false, true));
+        HomePage home = new HomePage( captured);
+        ItemPage item = new ItemPage( home, "item");
+        captured.saveSession( new DetailPage( item, "detail"), file);
+
+        Site site = newSite();
+
+        // When...
+        Page<?> restored = site.restoreSession( file);
+
+        // Then...
+        assertThat( "Restored", restored instanceof DetailPage, is( true));
+        assertThat( "Requests", requests, is( Arrays.asList( "http://test/favicon.ico", "http://test/detail")));
+        assertThat( "Cookie", site.getDriver().manage().getCookieNamed( "session").getValue(), is( "1234"));
+        assertThat( "Local storage", restoredStorage, is( (Object) Collections.singletonMap( "user", "Bob")));
+        assertThat( "Parent", restored.getParent(), is( nullValue()));
+        assertThat( "Parent summary", restored.getParentSummary().getType(), is( (Object) ItemPage.class));
+        assertThat( "Parent URI", restored.getParentSummary().getURI(), is( "http://test/item"));
+        assertThat( "Home summary", restored.getParentSummary().getParent().getType(), is( (Object) HomePage.class));
+
+        // When...
+        Page<?> back = restored.back();
+
+        // Then...
+        assertThat( "Back", back instanceof ItemPage, is( true));
+        assertThat( "Back parent", back.getParent() instanceof HomePage, is( true));
+        assertThat( "Back URL", site.getDriver().getCurrentUrl(), is( "http://test/item"));
+    }
+
+    @Test
+    public void whenParentRequired() throws Exception {
+        // Given...
+        Path file = folder.newFile( "session.json").toPath();
+        Site captured = newSite();
+        HomePage home = new HomePage( captured);
+        captured.saveSession( new ItemPage( home, "item"), file);
+
+        Site site = newSite();
+
+        // When...
+        Page<?> restored = site.restoreSession( file);
+
+        // Then...
+        assertThat( "Restored", restored instanceof ItemPage, is( true));
+        assertThat( "Parent", restored.getParent() instanceof HomePage, is( true));
+        assertThat( "Current URL", site.getDriver().getCurrentUrl(), is( "http://test/item"));
+    }
+
+    /**
+     * A page constructed from the site.
+     */
+    public static class HomePage extends Page<Site> {
+        public HomePage( Site site) {
+            super( site, "home");
+        }
+    }
+
+    /**
+     * A page constructed only from its parent.
+     */
+    public static class ItemPage extends Page<Site> {
+        public ItemPage( Page<Site> parent, String uri) {
+            super( parent, uri);
+        }
+    }
+
+    /**
+     * A page constructed from its parent or from the site.
+     */
+    public static class DetailPage extends Page<Site> {
+        public DetailPage( Page<Site> parent, String uri) {
+            super( parent, uri);
+        }
+
+        public DetailPage( Site site, String uri) {
+            super( site, uri);
+        }
+    }
+
+    /**
+     * Returns a new Site that records each request after the site is entered.
+     */
+    @SuppressWarnings("unchecked")
+    private Site newSite() {
+        requests.clear();
+        DomDriver driver =
+            new DomDriver(
+                (method, url, body) -> {
+                    requests.add( url);
+                    return "<html><head><title>Test</title></head></html>";
+                });
+        driver.addScript(
+            script -> script.contains( "dump( window.localStorage)"),
+            (d, args) -> Arrays.asList( d.getCurrentUrl(), Collections.singletonMap( "user", "Bob"), Collections.emptyMap()));
+        driver.addScript(
+            script -> script.contains( "storage.clear()"),
+            (d, args) -> {
+                restoredStorage = (Map<String,String>) args[0];
+                return null;
+            });
+
+        Site site = new Site( "http://test/");
+        site.setMaxAppWait( 200);
+        site.enter( driver);
+        return site;
+    }
+
+    private final List<String> requests = new ArrayList<String>();
+    private Map<String,String> restoredStorage;
+}
@@ -0,0 +1,143 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.dom.DomDriver;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tests for {@link WindowScheduler}.
+ */
+public class WindowSchedulerTest {
+
+    @Before
+    public void openWindows() {
+        driver =
+            new DomDriver(
+                (method, url, body) ->
+                url.endsWith( "/home")
+                ? "<html><head><title>Home</title></head><body><a href='/next' target='_blank'>Next</a></body></html>"
+                : "<html><head><title>Next</title></head></html>");
+
+        site = new Site( "http://test/");
+        site.enter( driver);
+        home = new Page<Site>( site, "home") {};
+
+        site.getDriver().findElement( By.linkText( "Next")).click();
+        String next =
+            site.getWindowTracker().getWindowHandles().stream()
+            .filter( handle -> !handle.equals( home.getWindow().toString()))
+            .findFirst().get();
+        nextWindow = new WindowHandle( next);
+    }
+
+    @Test
+    public void whenJoinedByTask() {
+        // Given...
+        WindowScheduler scheduler = site.getWindowScheduler();
+
+        // When...
+        CompletableFuture<Object> joining =
+            scheduler.submit(
+                home.getWindow(),
+                () -> {
+                    scheduler.join();
+                    return null;
+                });
+
+        // Then...
+        try {
+            joining.join();
+            fail( "Expected IllegalStateException");
+        }
+        catch( CompletionException expected) {
+            assertThat( "Failure", expected.getCause() instanceof IllegalStateException, is( true));
+        }
+    }
+
+    @Test
+    public void whenWindowSwitchedOutsideTracker() {
+        // Given...
+        WindowScheduler scheduler = site.getWindowScheduler();
+        AtomicBoolean switched = new AtomicBoolean();
+
+        // When...
+        CompletableFuture<String> waiting =
+            scheduler.submit(
+                home.getWindow(),
+                () -> {
+                    new Finder( home, 2000, 50).await( site.getDriver()).until( d -> switched.get());
+                    return site.getDriver().getCurrentUrl();
+                });
+
+        CompletableFuture<String> switching =
+            scheduler.submit(
+                nextWindow,
+                () -> {
+                    // Leave the tracker believing the home window is active.
+                    site.getWindowTracker().switchTo( home.getWindow());
+                    driver.switchTo().window( nextWindow.toString());
+                    switched.set( true);
+                    return site.getDriver().getCurrentUrl();
+                });
+
+        scheduler.join();
+
+        // Then...
+        assertThat( "Waiting task URL", waiting.join(), is( "http://test/home"));
+        assertThat( "Switching task URL", switching.join(), is( "http://test/next"));
+    }
+
+    @Test
+    public void whenTurnDelayed() throws Exception {
+        // Given...
+        WindowScheduler scheduler = site.getWindowScheduler();
+        AtomicInteger polls = new AtomicInteger();
+        CountDownLatch polling = new CountDownLatch( 1);
+
+        // When...
+        CompletableFuture<Integer> waiting =
+            scheduler.submit(
+                home.getWindow(),
+                () -> {
+                    new Finder( home, TIMEOUT, TIMEOUT / 3)
+                        .await( site.getDriver())
+                        .until(
+                            d -> {
+                                polling.countDown();
+                                return polls.incrementAndGet() >= 3;
+                            });
+                    return polls.get();
+                });
+
+        polling.await();
+        scheduler.submit(
+            nextWindow,
+            () -> {
+                Thread.sleep( TIMEOUT * 2);
+                return null;
+            });
+
+        scheduler.join();
+
+        // Then...
+        assertThat( "Polls", waiting.join(), is( 3));
+    }
+
+    private DomDriver driver;
+    private Site site;
+    private Page<Site> home;
+    private WindowHandle nextWindow;
+
+    private static final long TIMEOUT = 300;
+}
@@ -0,0 +1,137 @@
+package org.cornutum.crescent.page;
+
+import org.cornutum.crescent.dom.DomDriver;
+import org.cornutum.crescent.driver.RoundTripProfiler;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs tests for {@link WindowTracker}.
+ */
+public class WindowTrackerTest {
+
+    @Test
+    public void whenClicked() {
+        // Given...
+        Site site = newSite();
+        WindowTracker windows = site.getWindowTracker();
+        WebDriver driver = site.getDriver();
+        driver.get( "http://test/home");
+        assertThat( "Windows before", windows.getWindowCount(), is( 1));
+        assertThat( "Cached", profiler.countRoundTrips( windows::getWindowCount), is( 0));
+
+        // When...
+        driver.findElement( By.linkText( "Other page")).click();
+
+        // Then...
+        assertThat( "Windows after", windows.getWindowCount(), is( 2));
+    }
+
+    @Test
+    public void whenScriptExecuted() {
+        // Given...
+        Site site = newSite();
+        WindowTracker windows = site.getWindowTracker();
+        WebDriver driver = site.getDriver();
+        driver.get( "http://test/home");
+        assertThat( "Windows before", windows.getWindowCount(), is( 1));
+
+        // When...
+        ((JavascriptExecutor) driver).executeScript( "window.open()");
+
+        // Then...
+        assertThat( "Refreshed", profiler.countRoundTrips( windows::getWindowCount), is( 1));
+    }
+
+    @Test
+    public void whenSwitchedByDriver() {
+        // Given...
+        Site site = newSite();
+        WindowTracker windows = site.getWindowTracker();
+        WebDriver driver = site.getDriver();
+        driver.get( "http://test/home");
+        String home = windows.getActiveWindow();
+        driver.findElement( By.linkText( "Other page")).click();
+        String other = windows.getWindowHandles().stream().filter( handle -> !handle.equals( home)).findFirst().get();
+
+        // When...
+        driver.switchTo().window( other);
+
+        // Then...
+        assertThat( "Active", windows.getActiveWindow(), is( other));
+        assertThat( "Current URL", windows.getCurrentUrl(), is( "http://test/next"));
+
+        // When...
+        driver.close();
+
+        // Then...
+        assertThat( "Windows after close", windows.getWindowCount(), is( 1));
+    }
+
+    @Test
+    public void whenSwitchedByTracker() {
+        // Given...
+        Site site = newSite();
+        WindowTracker windows = site.getWindowTracker();
+        WebDriver driver = site.getDriver();
+        driver.get( "http://test/home");
+        String home = windows.getActiveWindow();
+        driver.findElement( By.linkText( "Other page")).click();
+        String other = windows.getWindowHandles().stream().filter( handle -> !handle.equals( home)).findFirst().get();
+
+        // When...
+        windows.switchTo( new WindowHandle( other));
+
+        // Then...
+        assertThat( "Active", profiler.countRoundTrips( windows::getActiveWindow), is( 0));
+        assertThat( "Active window", windows.getActiveWindow(), is( other));
+
+        // When...
+        windows.close();
+
+        // Then...
+        assertThat( "Windows after close", profiler.countRoundTrips( windows::getWindowCount), is( 0));
+        assertThat( "Window count", windows.getWindowCount(), is( 1));
+    }
+
+    @Test
+    public void whenNavigatedByDriver() {
+        // Given...
+        Site site = newSite();
+        WindowTracker windows = site.getWindowTracker();
+        WebDriver driver = site.getDriver();
+        driver.get( "http://test/home");
+        assertThat( "Before", windows.getCurrentUrl(), is( "http://test/home"));
+
+        // When...
+        driver.navigate().to( "http://test/next");
+
+        // Then...
+        assertThat( "After", windows.getCurrentUrl(), is( "http://test/next"));
+    }
+
+    /**
+     * Returns a new Site that uses a DomDriver for the test pages.
+     */
+    private Site newSite() {
+        DomDriver driver =
+            new DomDriver(
+                (method, url, body) ->
+                url.endsWith( "/home")
+                ? "<html><head><title>Home</title></head><body><a href='next' target='_blank'>Other page</a></body></html>"
+                : "<html><head><title>Next</title></head></html>");
+        driver.addScript( "window.open()", (d, args) -> null);
+
+        Site site = new Site( "http://test/");
+        site.addDriverDecorator( profiler);
+        site.enter( driver);
+        return site;
+    }
+
+    private final RoundTripProfiler profiler = new RoundTripProfiler();
+}
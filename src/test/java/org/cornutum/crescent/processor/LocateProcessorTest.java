@@ -0,0 +1,406 @@
+package org.cornutum.crescent.processor;
+
+import org.cornutum.crescent.dom.DomDriver;
+import org.cornutum.crescent.driver.DriverDecorator;
+import org.cornutum.crescent.driver.RoundTripProfiler;
+import org.cornutum.crescent.page.Page;
+import org.cornutum.crescent.page.Site;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Runs tests for {@link LocateProcessor}.
+ */
+public class LocateProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void whenPageGenerated() throws Exception {
+        // Given...
+        Compilation compilation =
+            compile(
+                "ex.HomePage",
+                "package ex;",
+                "import org.cornutum.crescent.page.*;",
+                "import org.openqa.selenium.WebElement;",
+                "import java.util.List;",
+                "import java.util.Optional;",
+                "public abstract class HomePage extends Page<Site> {",
+                "    public HomePage( Site site) { super( site, \"home\"); }",
+                "    @Locate(css=\"#main > h1\") public abstract WebElement heading();",
+                "    @Locate(id=\"missing\") public abstract Optional<WebElement> missing();",
+                "    @Locate(tagName=\"li\", visible=true) public abstract List<WebElement> items();",
+                "    @Locate(linkText=\"Next\") public abstract BasicElementAction nextLink();",
+                "}");
+
+        // Then...
+        assertThat( "Errors", compilation.getErrors(), is( Collections.<String>emptyList()));
+
+        String source = compilation.getGenerated( "ex.HomePageImpl");
+        assertThat( "Impl", source, containsString( "public class HomePageImpl extends ex.HomePage {"));
+        assertThat( "Constructor", source, containsString( "public HomePageImpl( org.cornutum.crescent.page.Site site) {"));
+        assertThat( "Locator", source, containsString( "private static final org.openqa.selenium.By NEXT_LINK = org.openqa.selenium.By.linkText( \"Next\");"));
+        assertThat( "Visible", source, containsString( "return finder().when( org.cornutum.crescent.page.PageUtils.isVisible).findElements( ITEMS);"));
+        assertThat( "Batch", source, not( containsString( "BatchLocator")));
+
+        Class<?> impl = compilation.load( "ex.HomePageImpl");
+        assertThat(
+            "Locators",
+            getLocators( impl, "LOCATORS"),
+            is( Arrays.asList(
+                    "heading=" + By.cssSelector( "#main > h1"),
+                    "missing=" + By.id( "missing"),
+                    "items=" + By.tagName( "li"),
+                    "nextLink=" + By.linkText( "Next"))));
+
+        // When...
+        Page<?> page = (Page<?>) impl.getConstructor( Site.class).newInstance( newSite( newDriver()));
+
+        // Then...
+        assertThat( "Heading", ((WebElement) impl.getMethod( "heading").invoke( page)).getText(), is( "Welcome"));
+        assertThat( "Missing", impl.getMethod( "missing").invoke( page), is( (Object) Optional.empty()));
+        assertThat( "Items", getTexts( impl.getMethod( "items").invoke( page)), is( Arrays.asList( "One", "Two")));
+        assertThat( "Next link", String.valueOf( impl.getMethod( "nextLink").invoke( page)), containsString( "Next"));
+    }
+
+    @Test
+    public void whenBatchLocate() throws Exception {
+        // Given...
+        Compilation compilation =
+            compile(
+                "ex.BatchPage",
+                "package ex;",
+                "import org.cornutum.crescent.page.*;",
+                "import org.openqa.selenium.WebElement;",
+                "import java.util.List;",
+                "@BatchLocate",
+                "public abstract class BatchPage extends Page<Site> {",
+                "    public static final List<String> events = new java.util.ArrayList<String>();",
+                "    public BatchPage( Site site) { super( site, \"home\"); }",
+                "    @Locate(css=\"#main > h1\", visible=true) public abstract WebElement heading();",
+                "    @Locate(tagName=\"li\") public abstract List<WebElement> items();",
+                "    protected void visited() { events.add( \"visited\"); }",
+                "}");
+
+        // Then...
+        assertThat( "Errors", compilation.getErrors(), is( Collections.<String>emptyList()));
+
+        Class<?> impl = compilation.load( "ex.BatchPageImpl");
+        assertThat( "Batched", getLocators( impl, "BATCHED"), is( Arrays.asList( "heading=" + By.cssSelector( "#main > h1"))));
+        assertThat( "Visible", getField( impl, "VISIBLE"), is( (Object) Collections.singleton( "heading")));
+
+        // When...
+        @SuppressWarnings("unchecked")
+        List<String> events = (List<String>) getField( impl.getSuperclass(), "events");
+        DomDriver driver = newDriver();
+        driver.addScript(
+            script -> script.contains( "found.push"),
+            (d, args) -> {
+                events.add( "batch");
+                return Arrays.asList( d.findElement( By.cssSelector( "#main > h1")));
+            });
+        RoundTripProfiler profiler = new RoundTripProfiler();
+        Page<?> page = (Page<?>) impl.getConstructor( Site.class).newInstance( newSite( driver, profiler));
+
+        // Then...
+        assertThat( "Events", events, is( Arrays.asList( "visited", "batch")));
+        assertThat(
+            "Batched round trips",
+            profiler.countRoundTrips( () -> assertThat( "Heading", getText( impl, "heading", page), is( "Welcome"))),
+            is( 1));
+        assertThat(
+            "Finder round trips",
+            profiler.countRoundTrips( () -> assertThat( "Heading", getText( impl, "heading", page), is( "Welcome"))) > 1,
+            is( true));
+        assertThat( "Items", getTexts( impl.getMethod( "items").invoke( page)), is( Arrays.asList( "One", "Two")));
+    }
+
+    @Test
+    public void whenConstantsCollide() throws Exception {
+        // Given...
+        Compilation compilation =
+            compile(
+                "ex.CollidingPage",
+                "package ex;",
+                "import org.cornutum.crescent.page.*;",
+                "import org.openqa.selenium.WebElement;",
+                "@BatchLocate",
+                "public abstract class CollidingPage extends Page<Site> {",
+                "    public CollidingPage( Site site) { super( site, \"home\"); }",
+                "    @Locate(tagName=\"ul\") public abstract WebElement locators();",
+                "    @Locate(id=\"main\") public abstract WebElement visible();",
+                "    @Locate(css=\"h1\") public abstract WebElement mainHeading();",
+                "    @Locate(css=\"#main > h1\") public abstract WebElement main_heading();",
+                "}");
+
+        // Then...
+        assertThat( "Errors", compilation.getErrors(), is( Collections.<String>emptyList()));
+
+        String source = compilation.getGenerated( "ex.CollidingPageImpl");
+        assertThat( "Locators", source, containsString( "org.openqa.selenium.By LOCATORS_ = "));
+        assertThat( "Visible", source, containsString( "org.openqa.selenium.By VISIBLE_ = "));
+        assertThat( "Main heading", source, containsString( "org.openqa.selenium.By MAIN_HEADING = "));
+        assertThat( "Main_heading", source, containsString( "org.openqa.selenium.By MAIN_HEADING_ = "));
+
+        Class<?> impl = compilation.load( "ex.CollidingPageImpl");
+        assertThat( "Locator table", getLocators( impl, "LOCATORS").size(), is( 4));
+    }
+
+    @Test
+    public void whenActionConstructorInvalid() throws Exception {
+        // When...
+        Compilation compilation =
+            compile(
+                "ex.ActionPage",
+                "package ex;",
+                "import org.cornutum.crescent.page.*;",
+                "import org.openqa.selenium.WebElement;",
+                "public abstract class ActionPage extends Page<Site> {",
+                "    public ActionPage( Site site) { super( site); }",
+                "    @Locate(css=\"a\") public abstract OtherAction other();",
+                "    public static class OtherPage extends Page<Site> {",
+                "        public OtherPage( Site site) { super( site); }",
+                "    }",
+                "    public static class OtherAction extends PageAction<OtherPage,String> {",
+                "        public OtherAction( OtherPage page, WebElement e) { super( page, e); }",
+                "        protected String perform( OtherPage page, WebElement e) { return null; }",
+                "    }",
+                "}");
+
+        // Then...
+        assertThat(
+            "Errors",
+            compilation.getErrors(),
+            is( Arrays.asList( "PageAction ex.ActionPage.OtherAction must have a constructor with (ex.ActionPage, WebElement) parameters")));
+    }
+
+    @Test
+    public void whenInvalid() throws Exception {
+        // When...
+        Compilation compilation =
+            compile(
+                "ex.InvalidPage",
+                "package ex;",
+                "import org.cornutum.crescent.page.*;",
+                "import org.openqa.selenium.WebElement;",
+                "public abstract class InvalidPage extends Page<Site> {",
+                "    public InvalidPage( Site site) { super( site); }",
+                "    @Locate(css=\"h1\", id=\"title\") public abstract WebElement heading();",
+                "    @Locate(css=\"p\") public abstract WebElement paragraph( int index);",
+                "    @Locate(css=\"a\") public abstract String link();",
+                "}");
+
+        // Then...
+        assertThat(
+            "Errors",
+            compilation.getErrors(),
+            is( Arrays.asList(
+                    "@Locate must define exactly one locator",
+                    "@Locate accessor must be an instance method with no parameters",
+                    "@Locate accessor must return a WebElement, Optional<WebElement>, List<WebElement>, PageAction, or Optional<PageAction>")));
+        assertThat( "Generated", compilation.getGenerated( "ex.InvalidPageImpl"), is( nullValue()));
+    }
+
+    @Test
+    public void whenNotAbstract() throws Exception {
+        // When...
+        Compilation compilation =
+            compile(
+                "ex.ConcretePage",
+                "package ex;",
+                "import org.cornutum.crescent.page.*;",
+                "import org.openqa.selenium.WebElement;",
+                "@BatchLocate",
+                "public class ConcretePage extends Page<Site> {",
+                "    public ConcretePage( Site site) { super( site); }",
+                "    @Locate(css=\"h1\") public WebElement heading() { return null; }",
+                "}");
+
+        // Then...
+        assertThat(
+            "Errors",
+            compilation.getErrors(),
+            is( Arrays.asList(
+                    "@Locate accessors must belong to an abstract class",
+                    "@Locate accessor must be abstract")));
+    }
+
+    /**
+     * Compiles the given source lines for the given class, using a LocateProcessor.
+     */
+    private Compilation compile( String className, String... lines) throws Exception {
+        File classes = folder.newFolder();
+        File generated = folder.newFolder();
+        JavaFileObject source =
+            new SimpleJavaFileObject( URI.create( "string:///" + className.replace( '.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+                public CharSequence getCharContent( boolean ignoreEncodingErrors) {
+                    return String.join( "\n", lines);
+                }
+            };
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        try( StandardJavaFileManager files = compiler.getStandardFileManager( diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task =
+                compiler.getTask(
+                    null,
+                    files,
+                    diagnostics,
+                    Arrays.asList(
+                        "-classpath", System.getProperty( "java.class.path"),
+                        "-d", classes.getPath(),
+                        "-s", generated.getPath()),
+                    null,
+                    Collections.singletonList( source));
+            task.setProcessors( Collections.singletonList( new LocateProcessor()));
+            task.call();
+        }
+
+        return new Compilation( classes, generated, diagnostics.getDiagnostics());
+    }
+
+    /**
+     * Returns a new Site for the given driver, using the given decorators.
+     */
+    private Site newSite( DomDriver driver, DriverDecorator... decorators) {
+        Site site = new Site( "http://test/");
+        site.setMaxAppWait( 200);
+        for( DriverDecorator decorator : decorators) {
+            site.addDriverDecorator( decorator);
+        }
+        site.enter( driver);
+        return site;
+    }
+
+    /**
+     * Returns a new DomDriver for the test page.
+     */
+    private DomDriver newDriver() {
+        return
+            new DomDriver(
+                (method, url, body) ->
+                "<html><head><title>Home</title></head><body>"
+                + "<div id='main'><h1>Welcome</h1></div>"
+                + "<ul><li>One</li><li>Two</li></ul>"
+                + "<a href='next'>Next</a>"
+                + "</body></html>");
+    }
+
+    /**
+     * Returns the value of the given static field of the given class.
+     */
+    private Object getField( Class<?> type, String name) throws Exception {
+        Field field = type.getDeclaredField( name);
+        field.setAccessible( true);
+        return field.get( null);
+    }
+
+    /**
+     * Returns the entries of the given static locator table of the given class.
+     */
+    private List<String> getLocators( Class<?> type, String name) throws Exception {
+        @SuppressWarnings("unchecked")
+        Map<String,By> locators = (Map<String,By>) getField( type, name);
+        return locators.entrySet().stream().map( String::valueOf).collect( toList());
+    }
+
+    /**
+     * Returns the text of the element returned by the given accessor.
+     */
+    private String getText( Class<?> type, String accessor, Page<?> page) {
+        try {
+            return ((WebElement) type.getMethod( accessor).invoke( page)).getText();
+        }
+        catch( ReflectiveOperationException e) {
+            throw new IllegalStateException( "Can't call accessor=" + accessor, e);
+        }
+    }
+
+    /**
+     * Returns the text of the given list of elements.
+     */
+    private List<String> getTexts( Object elements) {
+        return ((List<?>) elements).stream().map( e -> ((WebElement) e).getText()).collect( toList());
+    }
+
+    /**
+     * The results of compiling a class.
+     */
+    private static class Compilation {
+        private final File classes;
+        private final File generated;
+        private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+        /**
+         * Creates a new Compilation object.
+         */
+        public Compilation( File classes, File generated, List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+            this.classes = classes;
+            this.generated = generated;
+            this.diagnostics = diagnostics;
+        }
+
+        /**
+         * Returns the messages for all errors reported.
+         */
+        public List<String> getErrors() {
+            List<String> errors = new ArrayList<String>();
+            for( Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+                if( diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    errors.add( diagnostic.getMessage( null));
+                }
+            }
+            return errors;
+        }
+
+        /**
+         * Returns the generated source for the given class. Returns null if no source was generated.
+         */
+        public String getGenerated( String className) throws Exception {
+            File source = new File( generated, className.replace( '.', File.separatorChar) + ".java");
+            return
+                source.exists()
+                ? new String( Files.readAllBytes( source.toPath()), StandardCharsets.UTF_8)
+                : null;
+        }
+
+        /**
+         * Returns the given compiled class.
+         */
+        public Class<?> load( String className) throws Exception {
+            URLClassLoader loader = new URLClassLoader( new URL[]{ classes.toURI().toURL()}, getClass().getClassLoader());
+            return loader.loadClass( className);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.cornutum.crescent.run;
+
+import org.junit.Test;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void whenEmpty() {
+        // Given...
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Then...
+        assertThat( "Count", histogram.getCount(), is( 0L));
+        assertThat( "Mean", histogram.getMean(), is( 0.0));
+        assertThat( "Min", histogram.getMin(), is( 0L));
+        assertThat( "Max", histogram.getMax(), is( 0L));
+        assertThat( "p50", histogram.getValueAtPercentile( 50), is( 0L));
+    }
+
+    @Test
+    public void whenSmallValues() {
+        // Given...
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When...
+        for( long value = 0; value < 128; value++) {
+            histogram.record( value);
+        }
+
+        // Then...
+        assertThat( "Count", histogram.getCount(), is( 128L));
+        assertThat( "Mean", histogram.getMean(), is( 63.5));
+        assertThat( "Min", histogram.getMin(), is( 0L));
+        assertThat( "Max", histogram.getMax(), is( 127L));
+        assertThat( "p0", histogram.getValueAtPercentile( 0), is( 0L));
+        assertThat( "p25", histogram.getValueAtPercentile( 25), is( 31L));
+        assertThat( "p50", histogram.getValueAtPercentile( 50), is( 63L));
+        assertThat( "p100", histogram.getValueAtPercentile( 100), is( 127L));
+    }
+
+    @Test
+    public void whenBucketBoundaries() {
+        // Each value is reported as the highest value in its bucket: exact below 128, then within 1/64 of the value.
+        for( int bits = 7; bits < 36; bits++) {
+            for( long value : new long[]{ (1L << bits) - 1, 1L << bits, (1L << bits) + 1, (3L << bits) / 2}) {
+                // Given...
+                LatencyHistogram histogram = new LatencyHistogram();
+
+                // When...
+                histogram.record( value);
+                histogram.record( LatencyHistogram.MAX_VALUE);
+
+                // Then...
+                long reported = histogram.getValueAtPercentile( 50);
+                assertThat( "Value=" + value + " reported=" + reported, reported >= value, is( true));
+                assertThat( "Value=" + value + " reported=" + reported, reported - value <= value / 64, is( true));
+            }
+        }
+    }
+
+    @Test
+    public void whenSameBucket() {
+        // Given...
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When...
+        histogram.record( 1024);
+        histogram.record( 1039);
+        histogram.record( 1040);
+
+        // Then...
+        assertThat( "p33", histogram.getValueAtPercentile( 33), is( 1039L));
+        assertThat( "p66", histogram.getValueAtPercentile( 66), is( 1039L));
+        assertThat( "p100", histogram.getValueAtPercentile( 100), is( 1040L));
+    }
+
+    @Test
+    public void whenOutOfRange() {
+        // Given...
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When...
+        histogram.record( -5);
+        histogram.record( Long.MAX_VALUE);
+
+        // Then...
+        assertThat( "Min", histogram.getMin(), is( 0L));
+        assertThat( "Max", histogram.getMax(), is( LatencyHistogram.MAX_VALUE));
+        assertThat( "p50", histogram.getValueAtPercentile( 50), is( 0L));
+        assertThat( "p100", histogram.getValueAtPercentile( 100), is( LatencyHistogram.MAX_VALUE));
+    }
+
+    @Test
+    public void whenPercentiles() {
+        // Given...
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When...
+        for( long value = 1; value <= 10000; value++) {
+            histogram.record( value * 100);
+        }
+
+        // Then...
+        for( int percentile : new int[]{ 1, 10, 50, 90, 99, 100}) {
+            long expected = percentile * 10000L;
+            long reported = histogram.getValueAtPercentile( percentile);
+            assertThat( "p" + percentile + "=" + reported, reported >= expected && reported - expected <= expected / 64, is( true));
+        }
+        assertThat( "Mean", histogram.getMean(), is( 500050.0));
+    }
+
+    @Test
+    public void whenConcurrent() throws InterruptedException {
+        // Given...
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<Thread>();
+        for( int i = 0; i < 4; i++) {
+            threads.add(
+                new Thread(
+                    () -> {
+                        for( long value = 1; value <= 10000; value++) {
+                            histogram.record( value);
+                        }
+                    }));
+        }
+
+        // When...
+        for( Thread thread : threads) {
+            thread.start();
+        }
+        for( Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then...
+        assertThat( "Count", histogram.getCount(), is( 40000L));
+        assertThat( "Min", histogram.getMin(), is( 1L));
+        assertThat( "Max", histogram.getMax(), is( 10000L));
+        assertThat( "p100", histogram.getValueAtPercentile( 100), is( 10000L));
+    }
+}
@@ -0,0 +1,139 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.dom.DomDriver;
+import org.cornutum.crescent.page.Site;
+
+import org.junit.Test;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs tests for {@link LoadRunner}.
+ */
+public class LoadRunnerTest {
+
+    @Test
+    public void whenClosed() {
+        // Given...
+        LoadRunner<Site> runner = new LoadRunner<Site>( this::newSite, this::newDriver, 2);
+        runner.setDuration( 300);
+        runner.setThinkTime( 10, 10);
+
+        // When...
+        LoadReport report = runner.run( journey);
+
+        // Then...
+        assertThat( "Journeys", report.getJourneys() > 0, is( true));
+        assertThat( "Failures", report.getFailures(), is( 0L));
+        assertThat( "Step", report.getStep( Site.class, "home").isPresent(), is( true));
+        assertThat( "Sites", sites.get(), is( 2));
+    }
+
+    @Test
+    public void whenNewSessionFailsClosed() {
+        // Given...
+        AtomicInteger drivers = new AtomicInteger();
+        Supplier<WebDriver> driverFactory =
+            () -> {
+                if( drivers.incrementAndGet() <= 2) {
+                    throw new SessionNotCreatedException( "Grid full");
+                }
+                return newDriver();
+            };
+        LoadRunner<Site> runner = new LoadRunner<Site>( this::newSite, driverFactory, 2);
+        runner.setDuration( 300);
+        runner.setThinkTime( 10, 10);
+
+        // When...
+        LoadReport report = runner.run( journey);
+
+        // Then...
+        assertThat( "Failures", report.getFailures(), is( 2L));
+        assertThat( "Errors", report.getErrors().get( SessionNotCreatedException.class), is( 2L));
+        assertThat( "Journeys", report.getJourneys() > 2, is( true));
+    }
+
+    @Test
+    public void whenNewSessionFailsOpen() {
+        // Given...
+        Supplier<WebDriver> driverFactory = () -> { throw new SessionNotCreatedException( "Grid full"); };
+        LoadRunner<Site> runner = new LoadRunner<Site>( this::newSite, driverFactory, 2);
+        runner.setDuration( 200);
+        runner.setArrivalRate( 50);
+
+        // When...
+        LoadReport report = runner.run( journey);
+
+        // Then...
+        assertThat( "Journeys", report.getJourneys() > 0, is( true));
+        assertThat( "Failures", report.getFailures(), is( report.getJourneys()));
+        assertThat( "Errors", report.getErrors().get( SessionNotCreatedException.class), is( report.getJourneys()));
+    }
+
+    @Test
+    public void whenSessionDies() {
+        // Given...
+        Journey<Site> dying =
+            Journey.of(
+                "Dying",
+                user -> {
+                    user.step( Site.class, "home", () -> user.getSite().getDriver().get( "http://test/home"));
+                    user.getSite().getDriver().quit();
+                    throw new IllegalStateException( "Session ended");
+                });
+        LoadRunner<Site> runner = new LoadRunner<Site>( this::newSite, this::newDriver, 1);
+        runner.setDuration( 200);
+        runner.setThinkTime( 10, 10);
+
+        // When...
+        LoadReport report = runner.run( dying);
+
+        // Then...
+        assertThat( "Failures", report.getFailures(), is( report.getJourneys()));
+        assertThat( "Errors", report.getErrors().get( IllegalStateException.class), is( report.getJourneys()));
+        assertThat( "Recoveries", (long) report.getRecoveries(), is( report.getJourneys()));
+        assertThat( "Sites", (long) sites.get(), is( report.getJourneys()));
+    }
+
+    /**
+     * Returns a new Site.
+     */
+    private Site newSite() {
+        sites.incrementAndGet();
+        return new Site( "http://test/");
+    }
+
+    /**
+     * Returns a new WebDriver that fails after it quits.
+     */
+    private WebDriver newDriver() {
+        return
+            new DomDriver( (method, url, body) -> "<html><head><title>Home</title></head></html>") {
+                public void quit() {
+                    super.quit();
+                    quit = true;
+                }
+
+                public Set<String> getWindowHandles() {
+                    if( quit) {
+                        throw new NoSuchSessionException( "Session ended");
+                    }
+                    return super.getWindowHandles();
+                }
+
+                private boolean quit;
+            };
+    }
+
+    private final AtomicInteger sites = new AtomicInteger();
+
+    private final Journey<Site> journey =
+        Journey.of( "Home", user -> user.step( Site.class, "home", () -> user.getSite().getDriver().get( "http://test/home")));
+}
@@ -0,0 +1,145 @@
+package org.cornutum.crescent.run;
+
+import org.cornutum.crescent.dom.DomDriver;
+import org.cornutum.crescent.page.Site;
+
+import org.junit.Test;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs tests for {@link ScenarioRunner}.
+ */
+public class ScenarioRunnerTest {
+
+    @Test
+    public void whenRun() {
+        // Given...
+        ScenarioRunner<Site> runner = new ScenarioRunner<Site>( this::newSite, this::newDriver, 2);
+
+        // When...
+        RunReport report = runner.run( Arrays.asList( newScenario( "A"), newScenario( "B"), newScenario( "C"), newScenario( "D")));
+
+        // Then...
+        assertThat( "Results", report.getResults().size(), is( 4));
+        assertThat( "Failures", report.getFailures().isEmpty(), is( true));
+        assertThat( "Durations", runner.getDurations().get( "C").isPresent(), is( true));
+        assertThat( "Sites", sites.get() <= 2, is( true));
+    }
+
+    @Test
+    public void whenNewSessionFails() {
+        // Given...
+        AtomicInteger drivers = new AtomicInteger();
+        Supplier<WebDriver> driverFactory =
+            () -> {
+                if( drivers.incrementAndGet() == 1) {
+                    throw new SessionNotCreatedException( "Grid full");
+                }
+                return newDriver();
+            };
+        ScenarioRunner<Site> runner = new ScenarioRunner<Site>( this::newSite, driverFactory, 1);
+
+        // When...
+        RunReport report = runner.run( Arrays.asList( newScenario( "A"), newScenario( "B"), newScenario( "C")));
+
+        // Then...
+        assertThat( "Results", report.getResults().size(), is( 3));
+        assertThat( "Failures", report.getFailures().size(), is( 1));
+
+        ScenarioResult failed = report.getFailures().get(0);
+        assertThat( "Failure", failed.getFailure() instanceof SessionNotCreatedException, is( true));
+        assertThat( "Duration", failed.getDuration(), is( 0L));
+        assertThat( "Failed duration", runner.getDurations().get( failed.getName()).isPresent(), is( false));
+    }
+
+    @Test
+    public void whenSessionRecovered() {
+        // Given...
+        AtomicInteger attempts = new AtomicInteger();
+        Scenario<Site> dying =
+            Scenario.of(
+                "Dying",
+                site -> {
+                    site.getDriver().get( "http://test/home");
+                    if( attempts.incrementAndGet() == 1) {
+                        sleep( SLOW_MILLIS);
+                        site.getDriver().quit();
+                        throw new IllegalStateException( "Session ended");
+                    }
+                });
+        ScenarioRunner<Site> runner = new ScenarioRunner<Site>( this::newSite, this::newDriver, 1);
+
+        // When...
+        RunReport report = runner.run( Arrays.asList( dying));
+
+        // Then...
+        assertThat( "Failures", report.getFailures().isEmpty(), is( true));
+        assertThat( "Recoveries", report.getRecoveries(), is( 1));
+
+        long duration = report.getResults().get(0).getDuration();
+        assertThat( "Duration=" + duration, duration < SLOW_MILLIS, is( true));
+        assertThat( "Recorded duration", runner.getDurations().get( "Dying").get(), is( duration));
+    }
+
+    /**
+     * Returns a new scenario that visits the home page.
+     */
+    private Scenario<Site> newScenario( String name) {
+        return Scenario.of( name, site -> site.getDriver().get( "http://test/home"));
+    }
+
+    /**
+     * Returns a new Site.
+     */
+    private Site newSite() {
+        sites.incrementAndGet();
+        return new Site( "http://test/");
+    }
+
+    /**
+     * Returns a new WebDriver that fails after it quits.
+     */
+    private WebDriver newDriver() {
+        return
+            new DomDriver( (method, url, body) -> "<html><head><title>Home</title></head></html>") {
+                public void quit() {
+                    super.quit();
+                    quit = true;
+                }
+
+                public Set<String> getWindowHandles() {
+                    if( quit) {
+                        throw new NoSuchSessionException( "Session ended");
+                    }
+                    return super.getWindowHandles();
+                }
+
+                private boolean quit;
+            };
+    }
+
+    /**
+     * Waits for the given number of milliseconds.
+     */
+    private void sleep( long millis) {
+        try {
+            Thread.sleep( millis);
+        }
+        catch( InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final AtomicInteger sites = new AtomicInteger();
+
+    private static final long SLOW_MILLIS = 200;
+}